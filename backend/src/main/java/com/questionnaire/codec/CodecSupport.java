@@ -0,0 +1,132 @@
+package com.questionnaire.codec;
+
+import com.questionnaire.model.BaseEntity;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fælles feltkonverteringer for de håndskrevne codecs
+ */
+final class CodecSupport {
+
+    static final String ID = "_id";
+    static final String CREATED_AT = "createdAt";
+    static final String UPDATED_AT = "updatedAt";
+
+    private CodecSupport() {
+        // Utility class
+    }
+
+    /**
+     * String-id'er der er gyldige ObjectIds gemmes som ObjectId ligesom i MappingMongoConverter
+     */
+    static void writeId(String id, Document document) {
+        if (id != null) {
+            document.put(ID, ObjectId.isValid(id) ? new ObjectId(id) : id);
+        }
+    }
+
+    static String readId(Object value) {
+        if (value instanceof ObjectId objectId) {
+            return objectId.toHexString();
+        }
+        return value == null ? null : value.toString();
+    }
+
+    static void writeTimestamps(BaseEntity entity, Document document) {
+        put(document, CREATED_AT, entity.getCreatedAt());
+        put(document, UPDATED_AT, entity.getUpdatedAt());
+    }
+
+    static void readBase(Document document, BaseEntity entity) {
+        if (document.containsKey(ID)) {
+            entity.setId(readId(document.get(ID)));
+        }
+        if (document.containsKey(CREATED_AT)) {
+            entity.setCreatedAt((Date) document.get(CREATED_AT));
+        }
+        if (document.containsKey(UPDATED_AT)) {
+            entity.setUpdatedAt((Date) document.get(UPDATED_AT));
+        }
+    }
+
+    static void put(Document document, String key, Object value) {
+        if (value != null) {
+            document.put(key, value);
+        }
+    }
+
+    static void putEnum(Document document, String key, Enum<?> value) {
+        if (value != null) {
+            document.put(key, value.name());
+        }
+    }
+
+    static <E extends Enum<E>> E readEnum(Class<E> type, Object value) {
+        return value == null ? null : Enum.valueOf(type, value.toString());
+    }
+
+    static Integer readInteger(Object value) {
+        return value == null ? null : ((Number) value).intValue();
+    }
+
+    static String readString(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * Skriver frie værdier (svar): maps bliver Documents og samlinger lister, rekursivt
+     */
+    static Object writeValue(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Document document = new Document();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                document.put(String.valueOf(entry.getKey()), writeValue(entry.getValue()));
+            }
+            return document;
+        }
+        if (value instanceof Collection<?> collection) {
+            List<Object> list = new ArrayList<>(collection.size());
+            for (Object item : collection) {
+                list.add(writeValue(item));
+            }
+            return list;
+        }
+        if (value instanceof Enum<?> constant) {
+            return constant.name();
+        }
+        return value;
+    }
+
+    /**
+     * Læser frie værdier: dokumenter bliver LinkedHashMap og lister ArrayList, rekursivt
+     */
+    static Object readValue(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            return readMap(map);
+        }
+        if (value instanceof List<?> list) {
+            List<Object> items = new ArrayList<>(list.size());
+            for (Object item : list) {
+                items.add(readValue(item));
+            }
+            return items;
+        }
+        return value;
+    }
+
+    static Map<String, Object> readMap(Map<?, ?> map) {
+        Map<String, Object> result = new LinkedHashMap<>(Math.max(16, map.size() * 4 / 3 + 1));
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            result.put(String.valueOf(entry.getKey()), readValue(entry.getValue()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,23 @@
+package com.questionnaire.codec;
+
+import org.bson.Document;
+
+/**
+ * Håndskreven mapping mellem en entity og dens MongoDB-dokument.
+ * Skriver samme felter og værdityper som Spring Datas MappingMongoConverter (uden _class),
+ * så dokumenter kan læses og skrives med og uden codecs.
+ */
+public interface EntityCodec<T> {
+
+    Class<T> getType();
+
+    /**
+     * Skriver entity'ens felter i dokumentet (null-felter udelades)
+     */
+    void encode(T value, Document document);
+
+    /**
+     * Læser en entity; felter der mangler i dokumentet beholder konstruktørens værdi
+     */
+    T decode(Document document);
+}
@@ -0,0 +1,85 @@
+package com.questionnaire.codec;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.convert.DbRefResolver;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.util.TypeInformation;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MappingMongoConverter der bruger håndskrevne codecs for de hyppigst læste og skrevne entities
+ * i stedet for reflektiv mapping, og falder tilbage til standardmappingen for alle andre typer.
+ * Codecs registreres ikke som custom conversions, da Spring Data så ville behandle entities
+ * som simple typer og repositories ikke længere kunne finde deres metadata.
+ */
+public class EntityCodecMongoConverter extends MappingMongoConverter {
+
+    private final Map<Class<?>, EntityCodec<?>> codecs = new HashMap<>();
+
+    public EntityCodecMongoConverter(DbRefResolver dbRefResolver,
+            MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext) {
+        this(dbRefResolver, mappingContext, defaultCodecs());
+    }
+
+    public EntityCodecMongoConverter(DbRefResolver dbRefResolver,
+            MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext,
+            List<EntityCodec<?>> codecs) {
+        super(dbRefResolver, mappingContext);
+        for (EntityCodec<?> codec : codecs) {
+            this.codecs.put(codec.getType(), codec);
+        }
+    }
+
+    /**
+     * Codecs for Response (med SleepParameters), Question og User
+     */
+    public static List<EntityCodec<?>> defaultCodecs() {
+        SleepParametersCodec sleepParametersCodec = new SleepParametersCodec();
+        return List.of(new ResponseCodec(sleepParametersCodec), sleepParametersCodec, new QuestionCodec(), new UserCodec());
+    }
+
+    @Override
+    protected <S> S read(TypeInformation<S> type, Bson bson) {
+        EntityCodec<?> codec = codecs.get(type.getType());
+        if (codec != null && bson instanceof Document document) {
+            return type.getType().cast(codec.decode(document));
+        }
+        return super.read(type, bson);
+    }
+
+    @Override
+    public void write(Object obj, Bson bson) {
+        EntityCodec<Object> codec = obj == null ? null : codecFor(obj.getClass());
+        if (codec != null && bson instanceof Document document) {
+            codec.encode(obj, document);
+            return;
+        }
+        super.write(obj, bson);
+    }
+
+    /**
+     * Bruges bl.a. til værdier i opdateringer, fx set("sleepParameters", ...)
+     */
+    @Override
+    public Object convertToMongoType(Object obj, TypeInformation<?> typeInformation) {
+        EntityCodec<Object> codec = obj == null ? null : codecFor(obj.getClass());
+        if (codec != null) {
+            Document document = new Document();
+            codec.encode(obj, document);
+            return document;
+        }
+        return super.convertToMongoType(obj, typeInformation);
+    }
+
+    @SuppressWarnings("unchecked")
+    private EntityCodec<Object> codecFor(Class<?> type) {
+        return (EntityCodec<Object>) codecs.get(type);
+    }
+}
@@ -0,0 +1,199 @@
+package com.questionnaire.codec;
+
+import com.questionnaire.model.ConditionalChild;
+import com.questionnaire.model.Question;
+import com.questionnaire.model.QuestionOption;
+import com.questionnaire.model.QuestionType;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+import static com.questionnaire.codec.CodecSupport.*;
+
+/**
+ * Codec for Question med indlejrede options og conditional children.
+ * Option-id'et gemmes som _id (og som ObjectId hvis gyldigt) ligesom i den reflektive mapping.
+ */
+public class QuestionCodec implements EntityCodec<Question> {
+
+    @Override
+    public Class<Question> getType() {
+        return Question.class;
+    }
+
+    @Override
+    public void encode(Question value, Document document) {
+        writeId(value.getId(), document);
+        put(document, "questionnaireId", value.getQuestionnaireId());
+        put(document, "text", value.getText());
+        put(document, "textDa", value.getTextDa());
+        put(document, "textEn", value.getTextEn());
+        putEnum(document, "type", value.getType());
+        document.put("isLocked", value.isLocked());
+        document.put("order", value.getOrder());
+        if (value.getOptions() != null) {
+            List<Document> options = new ArrayList<>(value.getOptions().size());
+            for (QuestionOption option : value.getOptions()) {
+                options.add(option == null ? null : encodeOption(option));
+            }
+            document.put("options", options);
+        }
+        if (value.getConditionalChildren() != null) {
+            List<Document> children = new ArrayList<>(value.getConditionalChildren().size());
+            for (ConditionalChild child : value.getConditionalChildren()) {
+                children.add(child == null ? null : encodeChild(child));
+            }
+            document.put("conditionalChildren", children);
+        }
+        put(document, "minValue", value.getMinValue());
+        put(document, "maxValue", value.getMaxValue());
+        put(document, "minLength", value.getMinLength());
+        put(document, "maxLength", value.getMaxLength());
+        put(document, "minTime", value.getMinTime());
+        put(document, "maxTime", value.getMaxTime());
+        put(document, "hasColorCode", value.getHasColorCode());
+        put(document, "colorCodeGreenMax", value.getColorCodeGreenMax());
+        put(document, "colorCodeGreenMin", value.getColorCodeGreenMin());
+        put(document, "colorCodeYellowMin", value.getColorCodeYellowMin());
+        put(document, "colorCodeYellowMax", value.getColorCodeYellowMax());
+        put(document, "colorCodeRedMin", value.getColorCodeRedMin());
+        put(document, "colorCodeRedMax", value.getColorCodeRedMax());
+        put(document, "deletedAt", value.getDeletedAt());
+        writeTimestamps(value, document);
+    }
+
+    @Override
+    public Question decode(Document document) {
+        Question question = new Question();
+        readBase(document, question);
+        if (document.containsKey("questionnaireId")) {
+            question.setQuestionnaireId(readString(document.get("questionnaireId")));
+        }
+        if (document.containsKey("text")) {
+            question.setText(readString(document.get("text")));
+        }
+        if (document.containsKey("textDa")) {
+            question.setTextDa(readString(document.get("textDa")));
+        }
+        if (document.containsKey("textEn")) {
+            question.setTextEn(readString(document.get("textEn")));
+        }
+        if (document.containsKey("type")) {
+            question.setType(readEnum(QuestionType.class, document.get("type")));
+        }
+        if (document.get("isLocked") instanceof Boolean locked) {
+            question.setLocked(locked);
+        }
+        if (document.get("order") instanceof Number order) {
+            question.setOrder(order.intValue());
+        }
+        if (document.containsKey("options")) {
+            question.setOptions(decodeList(document.get("options"), this::decodeOption));
+        }
+        if (document.containsKey("conditionalChildren")) {
+            question.setConditionalChildren(decodeList(document.get("conditionalChildren"), this::decodeChild));
+        }
+        if (document.containsKey("minValue")) {
+            question.setMinValue(readInteger(document.get("minValue")));
+        }
+        if (document.containsKey("maxValue")) {
+            question.setMaxValue(readInteger(document.get("maxValue")));
+        }
+        if (document.containsKey("minLength")) {
+            question.setMinLength(readInteger(document.get("minLength")));
+        }
+        if (document.containsKey("maxLength")) {
+            question.setMaxLength(readInteger(document.get("maxLength")));
+        }
+        if (document.containsKey("minTime")) {
+            question.setMinTime(readString(document.get("minTime")));
+        }
+        if (document.containsKey("maxTime")) {
+            question.setMaxTime(readString(document.get("maxTime")));
+        }
+        if (document.containsKey("hasColorCode")) {
+            question.setHasColorCode((Boolean) document.get("hasColorCode"));
+        }
+        if (document.containsKey("colorCodeGreenMax")) {
+            question.setColorCodeGreenMax(readInteger(document.get("colorCodeGreenMax")));
+        }
+        if (document.containsKey("colorCodeGreenMin")) {
+            question.setColorCodeGreenMin(readInteger(document.get("colorCodeGreenMin")));
+        }
+        if (document.containsKey("colorCodeYellowMin")) {
+            question.setColorCodeYellowMin(readInteger(document.get("colorCodeYellowMin")));
+        }
+        if (document.containsKey("colorCodeYellowMax")) {
+            question.setColorCodeYellowMax(readInteger(document.get("colorCodeYellowMax")));
+        }
+        if (document.containsKey("colorCodeRedMin")) {
+            question.setColorCodeRedMin(readInteger(document.get("colorCodeRedMin")));
+        }
+        if (document.containsKey("colorCodeRedMax")) {
+            question.setColorCodeRedMax(readInteger(document.get("colorCodeRedMax")));
+        }
+        if (document.containsKey("deletedAt")) {
+            question.setDeletedAt((Date) document.get("deletedAt"));
+        }
+        return question;
+    }
+
+    private Document encodeOption(QuestionOption option) {
+        Document document = new Document();
+        writeId(option.getId(), document);
+        put(document, "text", option.getText());
+        put(document, "textDa", option.getTextDa());
+        put(document, "textEn", option.getTextEn());
+        put(document, "isOther", option.getIsOther());
+        put(document, "colorCode", option.getColorCode());
+        return document;
+    }
+
+    private QuestionOption decodeOption(Document document) {
+        QuestionOption option = new QuestionOption();
+        if (document.containsKey(ID)) {
+            option.setId(readId(document.get(ID)));
+        }
+        if (document.containsKey("text")) {
+            option.setText(readString(document.get("text")));
+        }
+        if (document.containsKey("textDa")) {
+            option.setTextDa(readString(document.get("textDa")));
+        }
+        if (document.containsKey("textEn")) {
+            option.setTextEn(readString(document.get("textEn")));
+        }
+        if (document.containsKey("isOther")) {
+            option.setIsOther((Boolean) document.get("isOther"));
+        }
+        if (document.containsKey("colorCode")) {
+            option.setColorCode(readString(document.get("colorCode")));
+        }
+        return option;
+    }
+
+    private Document encodeChild(ConditionalChild child) {
+        Document document = new Document();
+        put(document, "optionId", child.getOptionId());
+        put(document, "childQuestionId", child.getChildQuestionId());
+        return document;
+    }
+
+    private ConditionalChild decodeChild(Document document) {
+        return new ConditionalChild(readString(document.get("optionId")), readString(document.get("childQuestionId")));
+    }
+
+    private static <T> List<T> decodeList(Object value, Function<Document, T> decoder) {
+        if (!(value instanceof List<?> list)) {
+            return null;
+        }
+        List<T> items = new ArrayList<>(list.size());
+        for (Object item : list) {
+            items.add(item instanceof Document document ? decoder.apply(document) : null);
+        }
+        return items;
+    }
+}
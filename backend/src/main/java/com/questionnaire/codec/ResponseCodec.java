@@ -0,0 +1,73 @@
+package com.questionnaire.codec;
+
+import com.questionnaire.model.QuestionnaireType;
+import com.questionnaire.model.Response;
+import org.bson.Document;
+
+import java.util.Map;
+
+import static com.questionnaire.codec.CodecSupport.*;
+
+/**
+ * Codec for Response. Svarene skrives som Document og læses som LinkedHashMap med samme
+ * indlejrede typer som den reflektive mapping; PackedAnswersListener arbejder på dokumentet
+ * før/efter codec'et og påvirkes ikke.
+ */
+public class ResponseCodec implements EntityCodec<Response> {
+
+    private final SleepParametersCodec sleepParametersCodec;
+
+    public ResponseCodec(SleepParametersCodec sleepParametersCodec) {
+        this.sleepParametersCodec = sleepParametersCodec;
+    }
+
+    @Override
+    public Class<Response> getType() {
+        return Response.class;
+    }
+
+    @Override
+    public void encode(Response value, Document document) {
+        writeId(value.getId(), document);
+        put(document, "userId", value.getUserId());
+        put(document, "questionnaireId", value.getQuestionnaireId());
+        putEnum(document, "questionnaireType", value.getQuestionnaireType());
+        if (value.getAnswers() != null) {
+            document.put("answers", writeValue(value.getAnswers()));
+        }
+        if (value.getSleepParameters() != null) {
+            Document params = new Document();
+            sleepParametersCodec.encode(value.getSleepParameters(), params);
+            document.put("sleepParameters", params);
+        }
+        put(document, "localDate", value.getLocalDate());
+        writeTimestamps(value, document);
+    }
+
+    @Override
+    public Response decode(Document document) {
+        Response response = new Response();
+        readBase(document, response);
+        if (document.containsKey("userId")) {
+            response.setUserId(readString(document.get("userId")));
+        }
+        if (document.containsKey("questionnaireId")) {
+            response.setQuestionnaireId(readString(document.get("questionnaireId")));
+        }
+        if (document.containsKey("questionnaireType")) {
+            response.setQuestionnaireType(readEnum(QuestionnaireType.class, document.get("questionnaireType")));
+        }
+        if (document.containsKey("answers")) {
+            Object answers = document.get("answers");
+            response.setAnswers(answers instanceof Map<?, ?> map ? readMap(map) : null);
+        }
+        if (document.containsKey("sleepParameters")) {
+            Object params = document.get("sleepParameters");
+            response.setSleepParameters(params instanceof Document doc ? sleepParametersCodec.decode(doc) : null);
+        }
+        if (document.containsKey("localDate")) {
+            response.setLocalDate(readString(document.get("localDate")));
+        }
+        return response;
+    }
+}
@@ -0,0 +1,45 @@
+package com.questionnaire.codec;
+
+import com.questionnaire.model.SleepParameters;
+import org.bson.Document;
+
+/**
+ * Codec for SleepParameters (indlejret i Response og brugt i opdateringer af søvnparametre)
+ */
+public class SleepParametersCodec implements EntityCodec<SleepParameters> {
+
+    @Override
+    public Class<SleepParameters> getType() {
+        return SleepParameters.class;
+    }
+
+    @Override
+    public void encode(SleepParameters value, Document document) {
+        document.put("SOL", value.getSOL());
+        document.put("WASO", value.getWASO());
+        document.put("TIB", value.getTIB());
+        document.put("TST", value.getTST());
+        document.put("calculatorVersion", value.getCalculatorVersion());
+    }
+
+    @Override
+    public SleepParameters decode(Document document) {
+        SleepParameters params = new SleepParameters();
+        if (document.get("SOL") instanceof Number sol) {
+            params.setSOL(sol.doubleValue());
+        }
+        if (document.get("WASO") instanceof Number waso) {
+            params.setWASO(waso.doubleValue());
+        }
+        if (document.get("TIB") instanceof Number tib) {
+            params.setTIB(tib.doubleValue());
+        }
+        if (document.get("TST") instanceof Number tst) {
+            params.setTST(tst.doubleValue());
+        }
+        if (document.get("calculatorVersion") instanceof Number version) {
+            params.setCalculatorVersion(version.intValue());
+        }
+        return params;
+    }
+}
@@ -0,0 +1,55 @@
+package com.questionnaire.codec;
+
+import com.questionnaire.model.User;
+import com.questionnaire.model.UserRole;
+import org.bson.Document;
+
+import static com.questionnaire.codec.CodecSupport.*;
+
+/**
+ * Codec for User
+ */
+public class UserCodec implements EntityCodec<User> {
+
+    @Override
+    public Class<User> getType() {
+        return User.class;
+    }
+
+    @Override
+    public void encode(User value, Document document) {
+        writeId(value.getId(), document);
+        put(document, "username", value.getUsername());
+        put(document, "password", value.getPassword());
+        putEnum(document, "role", value.getRole());
+        put(document, "firstName", value.getFirstName());
+        put(document, "lastName", value.getLastName());
+        put(document, "advisorId", value.getAdvisorId());
+        writeTimestamps(value, document);
+    }
+
+    @Override
+    public User decode(Document document) {
+        User user = new User();
+        readBase(document, user);
+        if (document.containsKey("username")) {
+            user.setUsername(readString(document.get("username")));
+        }
+        if (document.containsKey("password")) {
+            user.setPassword(readString(document.get("password")));
+        }
+        if (document.containsKey("role")) {
+            user.setRole(readEnum(UserRole.class, document.get("role")));
+        }
+        if (document.containsKey("firstName")) {
+            user.setFirstName(readString(document.get("firstName")));
+        }
+        if (document.containsKey("lastName")) {
+            user.setLastName(readString(document.get("lastName")));
+        }
+        if (document.containsKey("advisorId")) {
+            user.setAdvisorId(readString(document.get("advisorId")));
+        }
+        return user;
+    }
+}
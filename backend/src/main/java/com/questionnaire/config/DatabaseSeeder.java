@@ -3,6 +3,7 @@ package com.questionnaire.config;
 import com.questionnaire.model.*;
 import com.questionnaire.repository.QuestionRepository;
 import com.questionnaire.repository.QuestionnaireRepository;
+import com.questionnaire.service.QuestionnaireSnapshotCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
@@ -21,6 +22,9 @@ public class DatabaseSeeder implements CommandLineRunner {
     @Autowired
     private QuestionRepository questionRepository;
 
+    @Autowired
+    private QuestionnaireSnapshotCache snapshotCache;
+
     @Override
     public void run(String... args) throws Exception {
         // Opret morgenskema hvis det ikke findes
@@ -39,6 +43,9 @@ public class DatabaseSeeder implements CommandLineRunner {
                     Questionnaire q = new Questionnaire(QuestionnaireType.evening, "Aftenskema");
                     return questionnaireRepository.save(q);
                 });
+
+        // Seeding skriver direkte til repository, så eventuelle snapshots er forældede
+        snapshotCache.invalidateAll();
     }
 
     private void seedMorningQuestions(String questionnaireId) {
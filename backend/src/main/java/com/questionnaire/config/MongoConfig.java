@@ -6,10 +6,17 @@ import com.mongodb.ServerApi;
 import com.mongodb.ServerApiVersion;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
+import com.questionnaire.codec.EntityCodecMongoConverter;
 import io.github.cdimascio.dotenv.Dotenv;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.DbRefResolver;
+import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,6 +43,32 @@ public class MongoConfig {
         return MongoClients.create(settings);
     }
 
+    /**
+     * Erstatter Spring Boots MappingMongoConverter med en der bruger håndskrevne codecs for
+     * Response, Question, User og SleepParameters. MONGO_ENTITY_CODECS=false giver standardmappingen.
+     */
+    @Bean
+    public MappingMongoConverter mappingMongoConverter(MongoDatabaseFactory factory, MongoMappingContext context,
+                                                       MongoCustomConversions conversions) {
+        DbRefResolver dbRefResolver = new DefaultDbRefResolver(factory);
+        boolean codecsEnabled = !"false".equalsIgnoreCase(setting("MONGO_ENTITY_CODECS"));
+        MappingMongoConverter converter = codecsEnabled
+                ? new EntityCodecMongoConverter(dbRefResolver, context)
+                : new MappingMongoConverter(dbRefResolver, context);
+        converter.setCustomConversions(conversions);
+        logger.info("MongoDB entity codecs {}", codecsEnabled ? "aktiveret" : "deaktiveret (reflektiv mapping)");
+        return converter;
+    }
+
+    private static String setting(String name) {
+        String value = Dotenv.configure()
+                .directory(System.getProperty("user.dir"))
+                .ignoreIfMissing()
+                .load()
+                .get(name);
+        return value == null ? null : value.trim();
+    }
+
     private String getMongoConnectionString() {
         // Prøv først environment variable
         String mongoUri = System.getenv("MONGODB_URI");
@@ -0,0 +1,124 @@
+package com.questionnaire.config;
+
+import com.questionnaire.model.Question;
+import com.questionnaire.model.Questionnaire;
+import com.questionnaire.model.Response;
+import com.questionnaire.model.User;
+import com.questionnaire.service.IdempotencyStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+/**
+ * Opretter de compound indexes som repository-queries har brug for
+ * Kører før DatabaseSeeder, så også seeding-queries rammer et index.
+ * Hvert index er navngivet efter de repository-metoder det dækker.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MongoIndexInitializer implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexInitializer.class);
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Override
+    public void run(String... args) {
+        ensureIndexes(mongoOperations);
+    }
+
+    /**
+     * Opretter (idempotent) alle indexes
+     */
+    public static void ensureIndexes(MongoOperations mongoOperations) {
+        // ResponseRepository: findByUserId, findByUserIdAndQuestionnaireType, findByUserIdAndQuestionnaireTypeAndDateRange
+        mongoOperations.indexOps(Response.class).ensureIndex(new Index()
+                .on("userId", Sort.Direction.ASC)
+                .on("questionnaireType", Sort.Direction.ASC)
+                .on("createdAt", Sort.Direction.ASC)
+                .named("user_type_createdAt"));
+
+        // ResponsePageQuery: keyset-paginering på (createdAt, _id), nyeste først, med og uden type-filter
+        mongoOperations.indexOps(Response.class).ensureIndex(new Index()
+                .on("userId", Sort.Direction.ASC)
+                .on("createdAt", Sort.Direction.DESC)
+                .on("_id", Sort.Direction.DESC)
+                .named("user_createdAt_id"));
+        mongoOperations.indexOps(Response.class).ensureIndex(new Index()
+                .on("userId", Sort.Direction.ASC)
+                .on("questionnaireType", Sort.Direction.ASC)
+                .on("createdAt", Sort.Direction.DESC)
+                .on("_id", Sort.Direction.DESC)
+                .named("user_type_createdAt_id"));
+
+        // Én besvarelse pr. bruger, type og dansk kalenderdag (håndhæves ved insert), samt
+        // ResponseRepository: existsByUserIdAndQuestionnaireTypeAndLocalDate.
+        // Partielt, så ældre besvarelser uden localDate ikke kolliderer
+        mongoOperations.indexOps(Response.class).ensureIndex(new Index()
+                .on("userId", Sort.Direction.ASC)
+                .on("questionnaireType", Sort.Direction.ASC)
+                .on("localDate", Sort.Direction.ASC)
+                .unique()
+                .partial(PartialIndexFilter.of(Criteria.where("localDate").exists(true)))
+                .named("user_type_localDate"));
+
+        // AnsweredTodayTracker: dagens besvarelser på tværs af brugere (opvarmning ved døgnskifte)
+        mongoOperations.indexOps(Response.class).ensureIndex(new Index()
+                .on("localDate", Sort.Direction.ASC)
+                .named("localDate"));
+
+        // ResponseRepository: findByUserIdAndQuestionnaireId
+        mongoOperations.indexOps(Response.class).ensureIndex(new Index()
+                .on("userId", Sort.Direction.ASC)
+                .on("questionnaireId", Sort.Direction.ASC)
+                .named("user_questionnaire"));
+
+        // QuestionRepository: findByQuestionnaireId(OrderByOrderAsc), findByQuestionnaireIdAndOrder,
+        // findAllByQuestionnaireIdIncludingDeleted (prefix)
+        mongoOperations.indexOps(Question.class).ensureIndex(new Index()
+                .on("questionnaireId", Sort.Direction.ASC)
+                .on("deletedAt", Sort.Direction.ASC)
+                .on("order", Sort.Direction.ASC)
+                .named("questionnaire_deletedAt_order"));
+
+        // QuestionnaireRepository: findByType
+        mongoOperations.indexOps(Questionnaire.class).ensureIndex(new Index()
+                .on("type", Sort.Direction.ASC)
+                .named("type"));
+
+        // UserRepository: findByUsername/existsByUsername
+        // (@Indexed på User oprettes ikke automatisk, da auto-index-creation er slået fra som standard)
+        mongoOperations.indexOps(User.class).ensureIndex(new Index()
+                .on("username", Sort.Direction.ASC)
+                .unique()
+                .named("username"));
+
+        // UserRepository: findByRole
+        mongoOperations.indexOps(User.class).ensureIndex(new Index()
+                .on("role", Sort.Direction.ASC)
+                .named("role"));
+
+        // UserRepository: findByAdvisorId (rådgiverens borgere til kohorteanalyse)
+        mongoOperations.indexOps(User.class).ensureIndex(new Index()
+                .on("advisorId", Sort.Direction.ASC)
+                .named("advisorId"));
+
+        // IdempotencyStore: gemte resultater slettes af MongoDB når TTL er udløbet
+        mongoOperations.indexOps(IdempotencyStore.COLLECTION).ensureIndex(new Index()
+                .on("createdAt", Sort.Direction.ASC)
+                .expire(IdempotencyStore.TTL)
+                .named("createdAt_ttl"));
+
+        logger.info("MongoDB indexes sikret");
+    }
+}
@@ -21,6 +21,14 @@ public class QuestionnaireConstants {
     // Time format
     public static final String TIME_FORMAT = "HH:mm";
     
+    // Version af søvnberegningen - øges når formlerne i SleepParameterCalculator ændres,
+    // så gemte søvnparametre med en ældre version genberegnes ved læsning
+    public static final int SLEEP_CALCULATOR_VERSION = 2;
+    
+    // Batch-indsendelse af besvarelser efter offline-perioder (morgen og aften i en måned)
+    public static final int BATCH_MAX_RESPONSES = 62;
+    public static final int BATCH_MAX_DAYS_BACK = 31;
+    
     // Copenhagen timezone
     public static final String COPENHAGEN_TIMEZONE = "Europe/Copenhagen";
     
@@ -1,10 +1,14 @@
 package com.questionnaire.controller;
 
+import com.questionnaire.dto.QuestionnaireBundleDto;
 import com.questionnaire.model.Question;
 import com.questionnaire.model.Questionnaire;
 import com.questionnaire.model.QuestionnaireType;
+import com.questionnaire.service.QuestionnaireBundleService;
 import com.questionnaire.service.interfaces.IQuestionnaireService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -17,6 +21,9 @@ public class QuestionnaireController {
     @Autowired
     private IQuestionnaireService questionnaireService;
 
+    @Autowired
+    private QuestionnaireBundleService bundleService;
+
     @GetMapping("/{type}")
     public ResponseEntity<Questionnaire> getQuestionnaire(@PathVariable String type) {
         if (type == null || type.trim().isEmpty()) {
@@ -52,9 +59,31 @@ public class QuestionnaireController {
             return ResponseEntity.badRequest().build();
         }
     }
-}
-
-
-
 
+    /**
+     * Returnerer hele spørgeskemaet (rækkefølge, conditional branches og valideringsgrænser) i ét kald.
+     * Svaret er versioneret med en ETag, så klienten kan revalidere med If-None-Match og få 304.
+     */
+    @GetMapping("/{type}/bundle")
+    public ResponseEntity<QuestionnaireBundleDto> getBundle(
+            @PathVariable String type,
+            @RequestParam(required = false, defaultValue = "da") String language,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        if (type == null || type.trim().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            QuestionnaireType questionnaireType = QuestionnaireType.valueOf(type.toLowerCase());
+            QuestionnaireBundleDto bundle = bundleService.getBundle(questionnaireType, language);
+            String etag = "\"" + bundle.getVersion() + "\"";
+            CacheControl cacheControl = CacheControl.noCache().cachePrivate();
 
+            if (etag.equals(ifNoneMatch) || ("W/" + etag).equals(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+            }
+            return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(bundle);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
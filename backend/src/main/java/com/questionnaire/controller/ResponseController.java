@@ -1,35 +1,74 @@
 package com.questionnaire.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.questionnaire.dto.NextQuestionRequest;
+import com.questionnaire.dto.BatchResponseRequest;
 import com.questionnaire.dto.ResponseRequest;
 import com.questionnaire.model.Question;
+import com.questionnaire.model.QuestionnaireType;
 import com.questionnaire.model.Response;
 import com.questionnaire.model.User;
+import com.questionnaire.model.UserRole;
+import com.questionnaire.service.IdempotencyStore;
+import com.questionnaire.service.ResponseJournal;
+import com.questionnaire.service.ResponsePageQuery;
+import com.questionnaire.service.SleepRecomputeJob;
+import com.questionnaire.service.SubmissionMetrics;
 import com.questionnaire.service.interfaces.IResponseService;
 import com.questionnaire.service.interfaces.IUserService;
+import com.questionnaire.utils.NdjsonWriter;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/responses")
 public class ResponseController {
 
+    private static final String ADVISOR_AUTHORITY = "ROLE_" + UserRole.RÅDGIVER.name();
+
     @Autowired
     private IResponseService responseService;
 
     @Autowired
     private IUserService userService;
 
+    @Autowired
+    private SubmissionMetrics submissionMetrics;
+
+    @Autowired
+    private SleepRecomputeJob sleepRecomputeJob;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ResponsePageQuery responsePageQuery;
+
+    @Autowired
+    private ResponseJournal responseJournal;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
     @PostMapping
     public ResponseEntity<Response> saveResponse(
             @Valid @RequestBody ResponseRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             Authentication authentication) {
         if (request == null || authentication == null) {
             return ResponseEntity.badRequest().build();
@@ -46,17 +85,35 @@ public class ResponseController {
             return ResponseEntity.badRequest().build();
         }
         
-        Response response = responseService.saveResponse(
-                userId,
-                request.getQuestionnaireId(),
-                request.getAnswers()
-        );
+        // Med Idempotency-Key returnerer en gentagelse det gemte resultat i stedet for at gemme igen
+        Response response = idempotencyKey == null
+                ? responseService.saveResponse(userId, request.getQuestionnaireId(), request.getAnswers())
+                : idempotencyStore.execute(userId, idempotencyKey,
+                        IdempotencyStore.fingerprint(request.getQuestionnaireId(), request.getAnswers()),
+                        () -> responseService.saveResponse(userId, request.getQuestionnaireId(), request.getAnswers()));
 
         // Hvis det er morgenskema, beregn søvnparametre (beregnes on-the-fly når det anmodes)
 
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Gemmer flere daterede besvarelser i ét kald (fx efter en offline-periode).
+     * Returnerer et resultat pr. besvarelse; afviste elementer får ikke hele batchen til at fejle.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, Object>> saveResponses(
+            @Valid @RequestBody BatchResponseRequest request,
+            Authentication authentication) {
+        if (authentication == null || authentication.getName() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        String userId = userService.getUserIdByUsername(authentication.getName());
+        List<Map<String, Object>> results = responseService.saveResponses(userId, request.getResponses());
+        long created = results.stream().filter(result -> "created".equals(result.get("status"))).count();
+        return ResponseEntity.ok(Map.of("created", created, "results", results));
+    }
+
     @PostMapping("/next")
     public ResponseEntity<Question> getNextQuestion(
             @Valid @RequestBody NextQuestionRequest request,
@@ -78,10 +135,14 @@ public class ResponseController {
     @GetMapping
     public ResponseEntity<List<Response>> getResponses(
             @RequestParam(required = false) String userId,
-            @RequestParam(required = false) String questionnaireId) {
+            @RequestParam(required = false) String questionnaireId,
+            Authentication authentication) {
         if (userId == null || userId.trim().isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
+        if (!mayRead(authentication, userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
         
         List<Response> responses;
         if (questionnaireId != null && !questionnaireId.trim().isEmpty()) {
@@ -93,6 +154,115 @@ public class ResponseController {
         return ResponseEntity.ok(responses);
     }
 
+    /**
+     * Keyset-pagineret liste over en brugers besvarelser, nyeste først.
+     * Send nextCursor fra svaret som after for at hente næste side.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<Map<String, Object>> getResponsePage(
+            @RequestParam String userId,
+            @RequestParam(required = false, defaultValue = "20") int limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String questionnaireType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            Authentication authentication) {
+        if (userId.trim().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!mayRead(authentication, userId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        QuestionnaireType type = null;
+        if (questionnaireType != null && !questionnaireType.isBlank()) {
+            try {
+                type = QuestionnaireType.valueOf(questionnaireType.toLowerCase());
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        return ResponseEntity.ok(responsePageQuery.findPage(userId, limit, after, type, from, to));
+    }
+
+    /**
+     * Streamer en brugers besvarelser som NDJSON (én besvarelse pr. linje) direkte fra en MongoDB cursor,
+     * så eksport af lange historikker ikke samles i hukommelsen
+     */
+    @GetMapping(value = "/export", produces = NdjsonWriter.CONTENT_TYPE)
+    public void exportResponses(
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) String questionnaireId,
+            Authentication authentication,
+            HttpServletResponse servletResponse) throws IOException {
+        if (userId == null || userId.trim().isEmpty()) {
+            servletResponse.sendError(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+        if (!mayRead(authentication, userId)) {
+            servletResponse.sendError(HttpStatus.FORBIDDEN.value());
+            return;
+        }
+        servletResponse.setContentType(NdjsonWriter.CONTENT_TYPE);
+        servletResponse.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (Stream<Response> responses = responseService.streamResponses(userId, questionnaireId)) {
+            NdjsonWriter.write(responses, objectMapper, servletResponse.getOutputStream());
+        }
+    }
+
+    /**
+     * Gennemsnitligt tidsforbrug pr. trin i submit-pipelinen (resolve, dubletkontrol, validering, beregning, gem)
+     */
+    @GetMapping("/submission-timings")
+    @PreAuthorize("hasRole('RÅDGIVER')")
+    public ResponseEntity<Map<String, Object>> getSubmissionTimings() {
+        return ResponseEntity.ok(submissionMetrics.getAverages());
+    }
+
+    /**
+     * Status for write-behind journalen (ventende bytes, tømt, droppet, konflikter og afviste poster)
+     */
+    @GetMapping("/write-behind")
+    @PreAuthorize("hasRole('RÅDGIVER')")
+    public ResponseEntity<Map<String, Object>> getWriteBehindStatus() {
+        return ResponseEntity.ok(responseJournal.getStatus());
+    }
+
+    /**
+     * Starter genberegning af søvnparametre med forældet beregningsversion i baggrunden
+     */
+    @PostMapping("/sleep-recompute")
+    @PreAuthorize("hasRole('RÅDGIVER')")
+    public ResponseEntity<Map<String, Object>> startSleepRecompute(
+            @RequestParam(required = false, defaultValue = "500") int batchSize,
+            @RequestParam(required = false, defaultValue = "2") int parallelism,
+            @RequestParam(required = false, defaultValue = "0") int maxPerSecond,
+            @RequestParam(required = false, defaultValue = "true") boolean resume) {
+        boolean started = sleepRecomputeJob.start(
+                new SleepRecomputeJob.Options(batchSize, parallelism, maxPerSecond, resume));
+        return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT)
+                .body(sleepRecomputeJob.getStatus());
+    }
+
+    @GetMapping("/sleep-recompute")
+    @PreAuthorize("hasRole('RÅDGIVER')")
+    public ResponseEntity<Map<String, Object>> getSleepRecomputeStatus() {
+        return ResponseEntity.ok(sleepRecomputeJob.getStatus());
+    }
+
+    @PutMapping("/sleep-recompute/throttle")
+    @PreAuthorize("hasRole('RÅDGIVER')")
+    public ResponseEntity<Map<String, Object>> throttleSleepRecompute(@RequestParam int maxPerSecond) {
+        sleepRecomputeJob.setMaxPerSecond(maxPerSecond);
+        return ResponseEntity.ok(sleepRecomputeJob.getStatus());
+    }
+
+    @PostMapping("/sleep-recompute/stop")
+    @PreAuthorize("hasRole('RÅDGIVER')")
+    public ResponseEntity<Map<String, Object>> stopSleepRecompute() {
+        sleepRecomputeJob.stop();
+        return ResponseEntity.ok(sleepRecomputeJob.getStatus());
+    }
+
     @GetMapping("/check-today")
     public ResponseEntity<Map<String, Boolean>> checkResponseForToday(
             @RequestParam String questionnaireType,
@@ -106,8 +276,8 @@ public class ResponseController {
             return ResponseEntity.badRequest().build();
         }
         
-        User user = userService.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("Bruger ikke fundet"));
+        // Id fra cache og svar fra dagens bitset - ingen databaseopslag
+        String userId = userService.getUserIdByUsername(username);
         
         com.questionnaire.model.QuestionnaireType type;
         try {
@@ -117,12 +287,23 @@ public class ResponseController {
             errorResult.put("error", true);
             return ResponseEntity.badRequest().body(errorResult);
         }
-        boolean hasResponse = responseService.hasResponseForToday(user.getId(), type);
+        boolean hasResponse = responseService.hasResponseForToday(userId, type);
         
         Map<String, Boolean> result = new HashMap<>();
         result.put("hasResponse", hasResponse);
         
         return ResponseEntity.ok(result);
     }
-}
 
+    /**
+     * Borgere må kun læse egne besvarelser; rådgivere må læse alle brugeres
+     */
+    private boolean mayRead(Authentication authentication, String userId) {
+        if (authentication == null || authentication.getName() == null) {
+            return false;
+        }
+        boolean advisor = authentication.getAuthorities().stream()
+                .anyMatch(authority -> ADVISOR_AUTHORITY.equals(authority.getAuthority()));
+        return advisor || userId.equals(userService.getUserIdByUsername(authentication.getName()));
+    }
+}
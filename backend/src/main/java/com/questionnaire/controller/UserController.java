@@ -1,20 +1,33 @@
 package com.questionnaire.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.questionnaire.dto.UserDto;
-import com.questionnaire.model.QuestionnaireType;
 import com.questionnaire.model.Response;
 import com.questionnaire.model.SleepParameters;
 import com.questionnaire.model.UserRole;
+import com.questionnaire.service.CohortAnalytics;
+import com.questionnaire.service.SleepDataQuery;
+import com.questionnaire.service.SleepRollupStore;
 import com.questionnaire.service.interfaces.IResponseService;
 import com.questionnaire.service.interfaces.IUserService;
+import com.questionnaire.utils.NdjsonWriter;
+import jakarta.servlet.http.HttpServletResponse;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/users")
@@ -26,6 +39,18 @@ public class UserController {
     @Autowired
     private IUserService userService;
 
+    @Autowired
+    private SleepRollupStore sleepRollupStore;
+
+    @Autowired
+    private SleepDataQuery sleepDataQuery;
+
+    @Autowired
+    private CohortAnalytics cohortAnalytics;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping
     @PreAuthorize("hasRole('RÅDGIVER')")
     public ResponseEntity<List<UserDto>> getAllUsers() {
@@ -84,63 +109,124 @@ public class UserController {
         return ResponseEntity.ok(UserDto.fromUser(updatedCitizen, advisor));
     }
 
+    /**
+     * Søvnstatistik for alle borgere tilknyttet en rådgiver (standard: den indloggede rådgiver)
+     */
+    @GetMapping("/cohort")
+    @PreAuthorize("hasRole('RÅDGIVER')")
+    public ResponseEntity<Map<String, Object>> getCohort(
+            @RequestParam(required = false) String advisorId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            Authentication authentication) {
+        if (advisorId == null || advisorId.isBlank()) {
+            advisorId = userService.findByUsername(authentication.getName())
+                    .orElseThrow(() -> new RuntimeException("Bruger ikke fundet"))
+                    .getId();
+        }
+        return ResponseEntity.ok(cohortAnalytics.analyze(advisorId, from, to));
+    }
+
     @GetMapping("/{id}/sleep-data")
     @PreAuthorize("hasRole('RÅDGIVER')")
-    public ResponseEntity<Map<String, Object>> getSleepData(@PathVariable String id) {
-        List<Response> morningResponses = responseService.getResponsesByUserIdAndQuestionnaireType(id, QuestionnaireType.morning);
+    public ResponseEntity<Map<String, Object>> getSleepData(
+            @PathVariable String id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String groupBy) {
+        if (groupBy != null && !groupBy.isBlank()) {
+            // Grupperet i MongoDB: én række pr. dag/uge/måned med gennemsnit
+            List<Map<String, Object>> groups = sleepDataQuery.groupSleepData(id, from, to, SleepDataQuery.Grouping.parse(groupBy))
+                    .stream()
+                    .map(this::toSleepDataGroup)
+                    .collect(Collectors.toList());
+            return ResponseEntity.ok(Map.of("groupBy", groupBy.toLowerCase(), "groups", groups));
+        }
+
+        // Kun createdAt og sleepParameters hentes (answers kun for forældede versioner)
+        List<Response> morningResponses = sleepDataQuery.findSleepData(id, from, to);
         
         List<Map<String, Object>> sleepData = morningResponses.stream()
-                .map(response -> {
-                    // Genberegn altid søvnparametre for at sikre korrekt beregning
-                    // Dette sikrer at eventuelle rettelser i beregningen anvendes
-                    SleepParameters params = responseService.calculateSleepParameters(response.getId());
-                    
-                    // Formater TIB som HH:MM
-                    double tibMinutes = params.getTIB();
-                    // Sikr at TIB ikke er negativ
-                    if (tibMinutes < 0) {
-                        tibMinutes = 0;
-                    }
-                    int tibHours = (int) (tibMinutes / 60);
-                    int tibMins = (int) (tibMinutes % 60);
-                    // Håndter negativt modulo korrekt
-                    if (tibMins < 0) {
-                        tibMins = 60 + tibMins;
-                        tibHours--;
-                    }
-                    String tibFormatted = String.format("%02d:%02d", tibHours, tibMins);
-                    
-                    // Formater TST som HH:MM
-                    double tstMinutes = params.getTST();
-                    // Sikr at TST ikke er negativ
-                    if (tstMinutes < 0) {
-                        tstMinutes = 0;
-                    }
-                    int tstHours = (int) (tstMinutes / 60);
-                    int tstMins = (int) (tstMinutes % 60);
-                    // Håndter negativt modulo korrekt
-                    if (tstMins < 0) {
-                        tstMins = 60 + tstMins;
-                        tstHours--;
-                    }
-                    String tstFormatted = String.format("%02d:%02d", tstHours, tstMins);
-                    
-                    return Map.of(
-                            "responseId", response.getId(),
-                            "createdAt", response.getCreatedAt(),
-                            "sleepParameters", Map.of(
-                                    "SOL", params.getSOL(),
-                                    "WASO", params.getWASO(),
-                                    "TIB", tibFormatted,
-                                    "TIBMinutes", tibMinutes, // Behold også i minutter for reference
-                                    "TST", tstFormatted,
-                                    "TSTMinutes", tstMinutes // Behold også i minutter for reference
-                            )
-                    );
-                })
+                .map(this::toSleepDataEntry)
                 .collect(Collectors.toList());
 
         return ResponseEntity.ok(Map.of("sleepData", sleepData));
     }
-}
 
+    /**
+     * Som sleep-data, men streamet fra en MongoDB cursor som NDJSON (én besvarelse pr. linje),
+     * så lange historikker ikke samles i hukommelsen
+     */
+    @GetMapping(value = "/{id}/sleep-data/export", produces = NdjsonWriter.CONTENT_TYPE)
+    @PreAuthorize("hasRole('RÅDGIVER')")
+    public void exportSleepData(
+            @PathVariable String id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpServletResponse servletResponse) throws IOException {
+        servletResponse.setContentType(NdjsonWriter.CONTENT_TYPE);
+        servletResponse.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (Stream<Response> responses = sleepDataQuery.streamSleepData(id, from, to)) {
+            NdjsonWriter.write(responses.map(this::toSleepDataEntry), objectMapper, servletResponse.getOutputStream());
+        }
+    }
+
+    private Map<String, Object> toSleepDataEntry(Response response) {
+        // Gemte søvnparametre bruges direkte; kun forældede versioner genberegnes (uden at gemme)
+        SleepParameters params = responseService.getSleepParameters(response);
+        return Map.of(
+                "responseId", response.getId(),
+                "createdAt", response.getCreatedAt(),
+                "sleepParameters", formatSleepParameters(params.getSOL(), params.getWASO(),
+                        params.getTIB(), params.getTST())
+        );
+    }
+
+    private Map<String, Object> toSleepDataGroup(Document group) {
+        // period/start kan være null (besvarelse uden createdAt), så Map.of kan ikke bruges
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("period", group.get("period"));
+        entry.put("start", group.get("start"));
+        entry.put("count", group.get("count"));
+        entry.put("sleepParameters", formatSleepParameters(number(group, "SOL"), number(group, "WASO"),
+                number(group, "TIB"), number(group, "TST")));
+        return entry;
+    }
+
+    /**
+     * Formaterer søvnparametre til visning (TIB og TST som HH:MM og i minutter)
+     */
+    private Map<String, Object> formatSleepParameters(double sol, double waso, double tibMinutes, double tstMinutes) {
+        // Sikr at TIB og TST ikke er negative
+        tibMinutes = Math.max(tibMinutes, 0);
+        tstMinutes = Math.max(tstMinutes, 0);
+        return Map.of(
+                "SOL", sol,
+                "WASO", waso,
+                "TIB", formatMinutes(tibMinutes),
+                "TIBMinutes", tibMinutes, // Behold også i minutter for reference
+                "TST", formatMinutes(tstMinutes),
+                "TSTMinutes", tstMinutes // Behold også i minutter for reference
+        );
+    }
+
+    private static String formatMinutes(double minutes) {
+        int hours = (int) (minutes / 60);
+        int mins = (int) (minutes % 60);
+        return String.format("%02d:%02d", hours, mins);
+    }
+
+    private static double number(Document group, String field) {
+        Object value = group.get(field);
+        return value instanceof Number number ? number.doubleValue() : 0;
+    }
+
+    /**
+     * Løbende gennemsnit/min/max for de seneste 7/14/30/90 dage (læses fra borgerens rollup)
+     */
+    @GetMapping("/{id}/sleep-summary")
+    @PreAuthorize("hasRole('RÅDGIVER')")
+    public ResponseEntity<Map<String, Object>> getSleepSummary(@PathVariable String id) {
+        return ResponseEntity.ok(sleepRollupStore.getSummary(id));
+    }
+}
@@ -0,0 +1,23 @@
+package com.questionnaire.dto;
+
+import com.questionnaire.constants.QuestionnaireConstants;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class BatchResponseRequest {
+    @NotEmpty(message = "Besvarelser er påkrævet")
+    @Size(max = QuestionnaireConstants.BATCH_MAX_RESPONSES,
+          message = "Højst " + QuestionnaireConstants.BATCH_MAX_RESPONSES + " besvarelser pr. batch")
+    private List<DatedResponseRequest> responses;
+
+    public BatchResponseRequest() {}
+
+    public List<DatedResponseRequest> getResponses() {
+        return responses;
+    }
+
+    public void setResponses(List<DatedResponseRequest> responses) {
+        this.responses = responses;
+    }
+}
@@ -0,0 +1,20 @@
+package com.questionnaire.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Besvarelse til batch-indsendelse med den (danske) dag den hører til
+ */
+public class DatedResponseRequest extends ResponseRequest {
+    private LocalDate date;
+
+    public DatedResponseRequest() {}
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+}
@@ -0,0 +1,79 @@
+package com.questionnaire.dto;
+
+import com.questionnaire.model.Question;
+import com.questionnaire.model.QuestionnaireType;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hele det kompilerede spørgeskema i ét payload, så klienten kan navigere lokalt.
+ * Valideringsgrænser (minValue/maxValue, minLength/maxLength, minTime/maxTime) ligger på spørgsmålene.
+ */
+public class QuestionnaireBundleDto {
+    private String version; // Indholds-hash, bruges også som ETag
+    private String questionnaireId;
+    private QuestionnaireType type;
+    private String language;
+    private List<String> rootOrder; // Root spørgsmål (ikke conditional children) i visningsrækkefølge
+    private List<Question> questions;
+    private Map<String, Map<String, List<String>>> branches; // Map<QuestionId, Map<OptionId, List<ChildQuestionId>>>
+
+    public QuestionnaireBundleDto() {}
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    public String getQuestionnaireId() {
+        return questionnaireId;
+    }
+
+    public void setQuestionnaireId(String questionnaireId) {
+        this.questionnaireId = questionnaireId;
+    }
+
+    public QuestionnaireType getType() {
+        return type;
+    }
+
+    public void setType(QuestionnaireType type) {
+        this.type = type;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        this.language = language;
+    }
+
+    public List<String> getRootOrder() {
+        return rootOrder;
+    }
+
+    public void setRootOrder(List<String> rootOrder) {
+        this.rootOrder = rootOrder;
+    }
+
+    public List<Question> getQuestions() {
+        return questions;
+    }
+
+    public void setQuestions(List<Question> questions) {
+        this.questions = questions;
+    }
+
+    public Map<String, Map<String, List<String>>> getBranches() {
+        return branches;
+    }
+
+    public void setBranches(Map<String, Map<String, List<String>>> branches) {
+        this.branches = branches;
+    }
+}
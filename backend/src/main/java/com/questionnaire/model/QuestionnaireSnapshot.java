@@ -0,0 +1,61 @@
+package com.questionnaire.model;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Immutable, versioneret snapshot af et spørgeskemas definition (spørgsmål, options og conditional children)
+ * Deles af alle services og udskiftes atomisk når spørgeskemaet ændres.
+ * Spørgsmålene i snapshot'et er delte instanser og må ikke ændres af kaldere.
+ */
+public final class QuestionnaireSnapshot {
+    private final String questionnaireId;
+    private final long version;
+    private final List<Question> questions;
+    private final Map<Class<?>, Object> compiled = new ConcurrentHashMap<>();
+
+    public QuestionnaireSnapshot(String questionnaireId, long version, List<Question> questions) {
+        this.questionnaireId = questionnaireId;
+        this.version = version;
+        this.questions = List.copyOf(questions);
+    }
+
+    public String getQuestionnaireId() {
+        return questionnaireId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Aktive spørgsmål sorteret efter order (read-only liste)
+     */
+    public List<Question> getQuestions() {
+        return questions;
+    }
+
+    public boolean isEmpty() {
+        return questions.isEmpty();
+    }
+
+    /**
+     * Henter en afledt struktur kompileret fra dette snapshot (fx et opslagsindeks).
+     * Strukturen bygges højst én gang pr. version og forsvinder sammen med snapshot'et ved invalidering.
+     * @param type Nøgle for strukturen
+     * @param compiler Funktion der bygger strukturen ud fra snapshot'et (skal være uden sideeffekter)
+     * @return Den kompilerede struktur
+     */
+    public <T> T getCompiled(Class<T> type, Function<QuestionnaireSnapshot, T> compiler) {
+        Object existing = compiled.get(type);
+        if (existing != null) {
+            return type.cast(existing);
+        }
+        // Bygges uden for map'et, så en compiler selv kan slå andre strukturer op
+        T built = compiler.apply(this);
+        Object raced = compiled.putIfAbsent(type, built);
+        return type.cast(raced != null ? raced : built);
+    }
+}
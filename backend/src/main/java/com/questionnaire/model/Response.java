@@ -16,6 +16,8 @@ public class Response extends BaseEntity implements Validatable {
     
     private SleepParameters sleepParameters; // Beregnede søvnparametre (kun for morgen)
 
+    private String localDate; // Dansk kalenderdag for createdAt (yyyy-MM-dd), unik pr. bruger og type
+
     public Response() {
         super();
     }
@@ -68,6 +70,14 @@ public class Response extends BaseEntity implements Validatable {
     public void setSleepParameters(SleepParameters sleepParameters) {
         this.sleepParameters = sleepParameters;
     }
+
+    public String getLocalDate() {
+        return localDate;
+    }
+
+    public void setLocalDate(String localDate) {
+        this.localDate = localDate;
+    }
     
     // Business logic metoder
     
@@ -5,6 +5,7 @@ public class SleepParameters {
     private double WASO; // Wake After Sleep Onset (minutter)
     private double TIB; // Time in Bed (minutter)
     private double TST; // Total Sleep Time (minutter)
+    private int calculatorVersion; // Version af beregningen der producerede værdierne (0 = før versionering)
 
     public SleepParameters() {}
 
@@ -47,23 +48,12 @@ public class SleepParameters {
     public void setTST(double TST) {
         this.TST = TST;
     }
-}
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
 
+    public int getCalculatorVersion() {
+        return calculatorVersion;
+    }
 
+    public void setCalculatorVersion(int calculatorVersion) {
+        this.calculatorVersion = calculatorVersion;
+    }
+}
@@ -0,0 +1,331 @@
+package com.questionnaire.model;
+
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Løbende søvnstatistik pr. borger (id = userId) over de seneste 7/14/30/90 dage.
+ * Hvert vindue holder antal, sum, min og max pr. parameter og opdateres med add/evict,
+ * så et periodeoverblik kan læses uden at hente hele historikken.
+ * Dagsværdierne for de seneste 90 dage gemmes, så min/max kan genfindes når en ekstremværdi
+ * falder ud af et vindue.
+ * Versionsfeltet giver optimistisk låsning, så samtidige opdateringer af samme borger ikke
+ * overskriver hinanden (se SleepRollupStore).
+ */
+@Document(collection = "sleep_rollups")
+public class SleepRollup extends BaseEntity {
+
+    public static final int[] WINDOW_DAYS = {7, 14, 30, 90};
+    public static final String[] METRICS = {"SOL", "WASO", "TIB", "TST", "SE"};
+
+    private static final int MAX_DAYS = WINDOW_DAYS[WINDOW_DAYS.length - 1];
+
+    private long anchorDay = Long.MIN_VALUE; // Seneste dag (epoch day) vinduerne er beregnet til
+    private List<Day> days = new ArrayList<>(); // Sorteret efter dag, kun dage inden for 90-dagesvinduet
+    private List<Window> windows = new ArrayList<>();
+
+    @Version
+    private Long version;
+
+    public SleepRollup() {
+        super();
+        for (int length : WINDOW_DAYS) {
+            windows.add(new Window(length));
+        }
+    }
+
+    public SleepRollup(String userId) {
+        this();
+        this.id = userId;
+    }
+
+    /**
+     * Omregner søvnparametre til værdierne der rulles op (SE = TST / TIB i procent)
+     */
+    public static double[] valuesOf(SleepParameters params) {
+        double efficiency = params.getTIB() > 0 ? params.getTST() / params.getTIB() * 100 : 0;
+        return new double[]{params.getSOL(), params.getWASO(), params.getTIB(), params.getTST(), efficiency};
+    }
+
+    /**
+     * Tilføjer (eller erstatter) en dags værdier
+     * @return false hvis dagen ligger før 90-dagesvinduet
+     */
+    public boolean add(LocalDate date, double[] values) {
+        long day = date.toEpochDay();
+        if (day > anchorDay) {
+            advanceTo(date);
+        }
+        if (day <= anchorDay - MAX_DAYS) {
+            return false;
+        }
+
+        int position = 0;
+        while (position < days.size() && days.get(position).epochDay < day) {
+            position++;
+        }
+        if (position < days.size() && days.get(position).epochDay == day) {
+            Day replaced = days.remove(position);
+            for (Window window : windows) {
+                if (window.contains(day, anchorDay)) {
+                    window.evict(replaced.values);
+                }
+            }
+        }
+
+        Day added = new Day(day, values.clone());
+        days.add(position, added);
+        for (Window window : windows) {
+            if (window.contains(day, anchorDay)) {
+                window.add(added.values);
+            }
+        }
+        refreshExtremes();
+        return true;
+    }
+
+    /**
+     * Flytter vinduerne frem til en ny dag og fjerner dage der falder ud
+     */
+    public void advanceTo(LocalDate date) {
+        long newAnchor = date.toEpochDay();
+        if (newAnchor <= anchorDay) {
+            return;
+        }
+        for (Window window : windows) {
+            for (Day d : days) {
+                if (window.contains(d.epochDay, anchorDay) && !window.contains(d.epochDay, newAnchor)) {
+                    window.evict(d.values);
+                }
+            }
+        }
+        anchorDay = newAnchor;
+        days.removeIf(d -> d.epochDay <= newAnchor - MAX_DAYS);
+        refreshExtremes();
+    }
+
+    /**
+     * Periodeoverblik pr. vindue: antal samt gennemsnit/min/max pr. parameter
+     */
+    public Map<String, Object> toSummary() {
+        Map<String, Object> windowSummaries = new LinkedHashMap<>();
+        for (Window window : windows) {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("days", window.length);
+            summary.put("count", window.count);
+            if (window.count > 0) {
+                for (int i = 0; i < METRICS.length; i++) {
+                    summary.put(METRICS[i], Map.of(
+                            "mean", window.sum[i] / window.count,
+                            "min", window.min[i],
+                            "max", window.max[i]));
+                }
+            }
+            windowSummaries.put(String.valueOf(window.length), summary);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("userId", id);
+        result.put("asOf", anchorDay == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(anchorDay).toString());
+        result.put("windows", windowSummaries);
+        return result;
+    }
+
+    /**
+     * Genfinder min/max for vinduer hvor en ekstremværdi er fjernet (højst 90 dage)
+     */
+    private void refreshExtremes() {
+        for (Window window : windows) {
+            if (!window.extremesDirty) {
+                continue;
+            }
+            window.resetExtremes();
+            boolean first = true;
+            for (Day d : days) {
+                if (window.contains(d.epochDay, anchorDay)) {
+                    window.include(d.values, first);
+                    first = false;
+                }
+            }
+            window.extremesDirty = false;
+        }
+    }
+
+    public long getAnchorDay() {
+        return anchorDay;
+    }
+
+    public void setAnchorDay(long anchorDay) {
+        this.anchorDay = anchorDay;
+    }
+
+    public List<Day> getDays() {
+        return days;
+    }
+
+    public void setDays(List<Day> days) {
+        this.days = days;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public List<Window> getWindows() {
+        return windows;
+    }
+
+    public void setWindows(List<Window> windows) {
+        this.windows = windows;
+    }
+
+    /**
+     * Én dags værdier (indekseret som METRICS)
+     */
+    public static class Day {
+        private long epochDay;
+        private double[] values;
+
+        public Day() {}
+
+        public Day(long epochDay, double[] values) {
+            this.epochDay = epochDay;
+            this.values = values;
+        }
+
+        public long getEpochDay() {
+            return epochDay;
+        }
+
+        public void setEpochDay(long epochDay) {
+            this.epochDay = epochDay;
+        }
+
+        public double[] getValues() {
+            return values;
+        }
+
+        public void setValues(double[] values) {
+            this.values = values;
+        }
+    }
+
+    /**
+     * Løbende sum/min/max for et vindue på et antal dage der slutter på anchorDay
+     */
+    public static class Window {
+        private int length;
+        private int count;
+        private double[] sum = new double[METRICS.length];
+        private double[] min = new double[METRICS.length];
+        private double[] max = new double[METRICS.length];
+        private boolean extremesDirty;
+
+        public Window() {}
+
+        public Window(int length) {
+            this.length = length;
+        }
+
+        boolean contains(long day, long anchor) {
+            return day <= anchor && day > anchor - length;
+        }
+
+        void add(double[] values) {
+            count++;
+            for (int i = 0; i < values.length; i++) {
+                sum[i] += values[i];
+            }
+            include(values, count == 1);
+        }
+
+        void evict(double[] values) {
+            count--;
+            for (int i = 0; i < values.length; i++) {
+                sum[i] -= values[i];
+                if (values[i] <= min[i] || values[i] >= max[i]) {
+                    extremesDirty = true;
+                }
+            }
+            if (count == 0) {
+                // Nulstil så afrundingsfejl fra add/evict ikke ophobes
+                sum = new double[METRICS.length];
+                resetExtremes();
+                extremesDirty = false;
+            }
+        }
+
+        void include(double[] values, boolean first) {
+            for (int i = 0; i < values.length; i++) {
+                if (first || values[i] < min[i]) {
+                    min[i] = values[i];
+                }
+                if (first || values[i] > max[i]) {
+                    max[i] = values[i];
+                }
+            }
+        }
+
+        void resetExtremes() {
+            min = new double[METRICS.length];
+            max = new double[METRICS.length];
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public void setLength(int length) {
+            this.length = length;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public double[] getSum() {
+            return sum;
+        }
+
+        public void setSum(double[] sum) {
+            this.sum = sum;
+        }
+
+        public double[] getMin() {
+            return min;
+        }
+
+        public void setMin(double[] min) {
+            this.min = min;
+        }
+
+        public double[] getMax() {
+            return max;
+        }
+
+        public void setMax(double[] max) {
+            this.max = max;
+        }
+
+        public boolean isExtremesDirty() {
+            return extremesDirty;
+        }
+
+        public void setExtremesDirty(boolean extremesDirty) {
+            this.extremesDirty = extremesDirty;
+        }
+    }
+}
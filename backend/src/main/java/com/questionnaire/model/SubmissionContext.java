@@ -0,0 +1,101 @@
+package com.questionnaire.model;
+
+import com.questionnaire.utils.AnswerParser;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request-scoped kontekst for én besvarelse
+ * Bygges én gang i starten af saveResponse og deles af alle trin (resolve, dubletkontrol,
+ * validering, beregning og gem), så spørgeskemaets definition kun hentes én gang.
+ * Ikke trådsikker - må kun bruges af den tråd der behandler requestet.
+ */
+public class SubmissionContext {
+
+    /**
+     * Trin i submit-pipelinen (bruges til timing)
+     */
+    public enum Stage {
+        RESOLVE,
+        VALIDATE,
+        CALCULATE,
+        SAVE
+    }
+
+    private final String userId;
+    private final ResolvedQuestionnaire resolved;
+    private final QuestionnaireSnapshot snapshot;
+    private final Map<String, Object> answers;
+    private final Map<String, LocalTime> parsedTimes = new HashMap<>();
+    private final long[] stageNanos = new long[Stage.values().length];
+
+    public SubmissionContext(String userId, ResolvedQuestionnaire resolved,
+                             QuestionnaireSnapshot snapshot, Map<String, Object> answers) {
+        this.userId = userId;
+        this.resolved = resolved;
+        this.snapshot = snapshot;
+        this.answers = answers;
+    }
+
+    /**
+     * Kontekst uden bruger og resolved type (fx validering af et enkelt trin)
+     */
+    public static SubmissionContext of(QuestionnaireSnapshot snapshot, Map<String, Object> answers) {
+        return new SubmissionContext(null, null, snapshot, answers);
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public ResolvedQuestionnaire getResolved() {
+        return resolved;
+    }
+
+    public QuestionnaireSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public String getQuestionnaireId() {
+        return resolved != null ? resolved.getQuestionnaireId() : snapshot.getQuestionnaireId();
+    }
+
+    /**
+     * Aktive spørgsmål fra snapshot'et (read-only)
+     */
+    public List<Question> getQuestions() {
+        return snapshot.getQuestions();
+    }
+
+    public Map<String, Object> getAnswers() {
+        return answers;
+    }
+
+    /**
+     * Parser et tidssvar én gang pr. request, så flere regler kan genbruge resultatet
+     * @param question Spørgsmålet hvis svar skal parses
+     * @param formatter Tidsformat
+     * @return Parsed tid
+     * @throws java.time.format.DateTimeParseException hvis svaret ikke er en gyldig tid
+     */
+    public LocalTime getTimeAnswer(Question question, DateTimeFormatter formatter) {
+        LocalTime time = parsedTimes.get(question.getId());
+        if (time == null) {
+            time = AnswerParser.parseTime(answers.get(question.getId()), formatter);
+            parsedTimes.put(question.getId(), time);
+        }
+        return time;
+    }
+
+    public void recordStage(Stage stage, long nanos) {
+        stageNanos[stage.ordinal()] += nanos;
+    }
+
+    public long getStageNanos(Stage stage) {
+        return stageNanos[stage.ordinal()];
+    }
+}
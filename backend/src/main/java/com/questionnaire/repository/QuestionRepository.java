@@ -9,8 +9,9 @@ import java.util.Optional;
 
 @Repository
 public interface QuestionRepository extends MongoRepository<Question, String> {
-    // Find kun aktive spørgsmål (deletedAt == null)
-    @Query("{ 'questionnaireId': ?0, 'deletedAt': null }")
+    // Find kun aktive spørgsmål (deletedAt == null), sorteret efter order
+    // (@Query ignorerer OrderBy i metodenavnet, så sorteringen skal angives eksplicit)
+    @Query(value = "{ 'questionnaireId': ?0, 'deletedAt': null }", sort = "{ 'order': 1 }")
     List<Question> findByQuestionnaireIdOrderByOrderAsc(String questionnaireId);
     
     @Query("{ 'questionnaireId': ?0, 'deletedAt': null }")
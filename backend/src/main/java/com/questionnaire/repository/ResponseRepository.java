@@ -7,12 +7,18 @@ import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ResponseRepository extends MongoRepository<Response, String> {
     List<Response> findByUserId(String userId);
     List<Response> findByUserIdAndQuestionnaireId(String userId, String questionnaireId);
     List<Response> findByUserIdAndQuestionnaireType(String userId, QuestionnaireType questionnaireType);
+    boolean existsByUserIdAndQuestionnaireTypeAndLocalDate(String userId, QuestionnaireType questionnaireType, String localDate);
+    
+    // Cursor-baserede varianter til eksport (skal lukkes efter brug)
+    Stream<Response> streamByUserId(String userId);
+    Stream<Response> streamByUserIdAndQuestionnaireId(String userId, String questionnaireId);
     
     @Query("{ 'userId': ?0, 'questionnaireType': ?1, 'createdAt': { $gte: ?2, $lt: ?3 } }")
     List<Response> findByUserIdAndQuestionnaireTypeAndDateRange(
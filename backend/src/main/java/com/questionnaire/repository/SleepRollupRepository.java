@@ -0,0 +1,9 @@
+package com.questionnaire.repository;
+
+import com.questionnaire.model.SleepRollup;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SleepRollupRepository extends MongoRepository<SleepRollup, String> {
+}
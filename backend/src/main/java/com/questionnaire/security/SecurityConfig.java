@@ -80,7 +80,8 @@ public class SecurityConfig {
         configuration.setAllowedHeaders(Arrays.asList(
             "Content-Type",
             "Authorization",
-            "Accept"
+            "Accept",
+            "Idempotency-Key"
         ));
         
         // Tillad at browseren eksponerer Authorization header i responses (hvis nødvendigt)
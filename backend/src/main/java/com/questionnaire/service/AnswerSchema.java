@@ -0,0 +1,321 @@
+package com.questionnaire.service;
+
+import com.questionnaire.model.Question;
+import com.questionnaire.model.QuestionOption;
+import com.questionnaire.model.QuestionnaireSnapshot;
+import com.questionnaire.utils.AnswerParser;
+import org.bson.Document;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kompakt lagringsformat for en besvarelses svar ud fra et spørgeskemas spørgsmål og options.
+ * Spørgsmåls-id'er erstattes af et kort indeks og værdier gemmes typet i én binær blob:
+ * "HH:mm" som minutter efter midnat, heltal som zigzag varint og options som ordinal (også inde i
+ * "Andet"-svar og lister). Kun værdier der kan genskabes præcist pakkes; resten returneres som rest.
+ * Id'et er et hash af indholdet, så samme spørgeskemaindhold altid giver samme schema, og gamle
+ * besvarelser kan læses med det schema de blev skrevet med (se AnswerSchemaRegistry).
+ *
+ * Format pr. svar: [varint spørgsmålsindeks][tag][værdi].
+ */
+public final class AnswerSchema {
+
+    private static final int TAG_INT = 0;
+    private static final int TAG_TIME = 1;
+    private static final int TAG_OPTION = 2;
+    private static final int TAG_OTHER = 3;
+    private static final int TAG_STRING = 4;
+    private static final int TAG_LIST = 5;
+
+    private static final String OPTION_ID = "optionId";
+    private static final String CUSTOM_TEXT = "customText";
+
+    private final int id;
+    private final String questionnaireId;
+    private final String[] questionIds;
+    private final String[][] optionIds;
+    private final Map<String, Integer> questionIndex;
+    private final List<Map<String, Integer>> optionIndex;
+
+    private AnswerSchema(String questionnaireId, String[] questionIds, String[][] optionIds) {
+        this.questionnaireId = questionnaireId;
+        this.questionIds = questionIds;
+        this.optionIds = optionIds;
+        this.questionIndex = new HashMap<>();
+        this.optionIndex = new ArrayList<>(questionIds.length);
+        for (int q = 0; q < questionIds.length; q++) {
+            questionIndex.putIfAbsent(questionIds[q], q);
+            Map<String, Integer> options = new HashMap<>();
+            for (int o = 0; o < optionIds[q].length; o++) {
+                options.putIfAbsent(optionIds[q][o], o);
+            }
+            optionIndex.add(options);
+        }
+        this.id = contentHash(questionnaireId, questionIds, optionIds);
+    }
+
+    /**
+     * Henter (og bygger ved første kald) schemaet for et snapshot
+     */
+    public static AnswerSchema of(QuestionnaireSnapshot snapshot) {
+        return snapshot.getCompiled(AnswerSchema.class, AnswerSchema::build);
+    }
+
+    private static AnswerSchema build(QuestionnaireSnapshot snapshot) {
+        List<Question> questions = snapshot.getQuestions();
+        String[] questionIds = new String[questions.size()];
+        String[][] optionIds = new String[questions.size()][];
+        for (int q = 0; q < questions.size(); q++) {
+            Question question = questions.get(q);
+            questionIds[q] = question.getId();
+            List<QuestionOption> options = question.getOptions();
+            optionIds[q] = options == null ? new String[0] : options.stream()
+                    .map(QuestionOption::getId)
+                    .map(optionId -> optionId == null ? "" : optionId)
+                    .toArray(String[]::new);
+        }
+        return new AnswerSchema(snapshot.getQuestionnaireId(), questionIds, optionIds);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getQuestionnaireId() {
+        return questionnaireId;
+    }
+
+    /**
+     * Pakker svarene
+     * @param rest Modtager de svar der ikke kan pakkes præcist (ukendte spørgsmål eller værdityper)
+     * @return Den pakkede blob (tom hvis intet kunne pakkes)
+     */
+    public byte[] pack(Map<String, Object> answers, Map<String, Object> rest) {
+        Output out = new Output();
+        for (Map.Entry<String, Object> entry : answers.entrySet()) {
+            Integer q = entry.getKey() == null ? null : questionIndex.get(entry.getKey());
+            if (q == null) {
+                rest.put(entry.getKey(), entry.getValue());
+                continue;
+            }
+            int mark = out.size;
+            out.varint(q);
+            if (!writeValue(out, q, entry.getValue(), true)) {
+                out.size = mark;
+                rest.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return Arrays.copyOf(out.bytes, out.size);
+    }
+
+    /**
+     * Pakker blobben ud igen
+     * @param answers Modtager svarene (spørgsmåls-id -> værdi)
+     */
+    public void unpack(byte[] packed, Map<String, Object> answers) {
+        Input in = new Input(packed);
+        while (in.position < packed.length) {
+            int q = in.varint();
+            answers.put(questionIds[q], readValue(in, q, in.bytes[in.position++]));
+        }
+    }
+
+    private boolean writeValue(Output out, int q, Object value, boolean allowList) {
+        if (value instanceof Integer number) {
+            out.tag(TAG_INT).varint((number << 1) ^ (number >> 31));
+            return true;
+        }
+        if (value instanceof String text) {
+            Integer option = optionIndex.get(q).get(text);
+            if (option != null) {
+                out.tag(TAG_OPTION).varint(option);
+                return true;
+            }
+            int minutes = AnswerParser.parseMinutesOfDay(text);
+            if (minutes >= 0) {
+                out.tag(TAG_TIME).varint(minutes);
+            } else {
+                out.tag(TAG_STRING).string(text);
+            }
+            return true;
+        }
+        if (value instanceof Map<?, ?> map && map.size() == 2
+                && map.get(OPTION_ID) instanceof String optionId && map.get(CUSTOM_TEXT) instanceof String customText) {
+            Integer option = optionIndex.get(q).get(optionId);
+            if (option == null) {
+                return false;
+            }
+            out.tag(TAG_OTHER).varint(option).string(customText);
+            return true;
+        }
+        if (allowList && value instanceof List<?> list) {
+            out.tag(TAG_LIST).varint(list.size());
+            for (Object item : list) {
+                if (!writeValue(out, q, item, false)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private Object readValue(Input in, int q, int tag) {
+        switch (tag) {
+            case TAG_INT:
+                int zigzag = in.varint();
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            case TAG_TIME:
+                int minutes = in.varint();
+                return new String(new char[] {
+                        (char) ('0' + minutes / 600), (char) ('0' + minutes / 60 % 10), ':',
+                        (char) ('0' + minutes % 60 / 10), (char) ('0' + minutes % 10)});
+            case TAG_OPTION:
+                return optionIds[q][in.varint()];
+            case TAG_OTHER:
+                Map<String, Object> other = new LinkedHashMap<>();
+                other.put(OPTION_ID, optionIds[q][in.varint()]);
+                other.put(CUSTOM_TEXT, in.string());
+                return other;
+            case TAG_STRING:
+                return in.string();
+            case TAG_LIST:
+                int count = in.varint();
+                List<Object> items = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    items.add(readValue(in, q, in.bytes[in.position++]));
+                }
+                return items;
+            default:
+                throw new IllegalStateException("Ukendt tag i pakkede svar: " + tag);
+        }
+    }
+
+    /**
+     * Schemaet som MongoDB-dokument (collection answer_schemas)
+     */
+    public Document toDocument() {
+        List<List<String>> options = new ArrayList<>(optionIds.length);
+        for (String[] ids : optionIds) {
+            options.add(Arrays.asList(ids));
+        }
+        return new Document("_id", id)
+                .append("questionnaireId", questionnaireId)
+                .append("questionIds", Arrays.asList(questionIds))
+                .append("optionIds", options);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static AnswerSchema fromDocument(Document document) {
+        List<String> questionIds = document.getList("questionIds", String.class);
+        List<List<String>> options = (List<List<String>>) (List<?>) document.getList("optionIds", List.class);
+        String[][] optionIds = new String[options.size()][];
+        for (int q = 0; q < optionIds.length; q++) {
+            optionIds[q] = options.get(q).toArray(new String[0]);
+        }
+        return new AnswerSchema(document.getString("questionnaireId"), questionIds.toArray(new String[0]), optionIds);
+    }
+
+    /**
+     * Om to schemaer har samme indhold (bruges til at opdage hash-kollisioner)
+     */
+    public boolean sameContent(AnswerSchema other) {
+        return questionnaireId.equals(other.questionnaireId)
+                && Arrays.equals(questionIds, other.questionIds)
+                && Arrays.deepEquals(optionIds, other.optionIds);
+    }
+
+    private static int contentHash(String questionnaireId, String[] questionIds, String[][] optionIds) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(questionnaireId).getBytes(StandardCharsets.UTF_8));
+            for (int q = 0; q < questionIds.length; q++) {
+                digest.update((byte) 0);
+                digest.update(String.valueOf(questionIds[q]).getBytes(StandardCharsets.UTF_8));
+                for (String optionId : optionIds[q]) {
+                    digest.update((byte) 1);
+                    digest.update(optionId.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            byte[] hash = digest.digest();
+            return ((hash[0] & 0xFF) << 24) | ((hash[1] & 0xFF) << 16) | ((hash[2] & 0xFF) << 8) | (hash[3] & 0xFF);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Voksende byte-buffer med varint og UTF-8 strenge
+     */
+    private static final class Output {
+        private byte[] bytes = new byte[128];
+        private int size;
+
+        private Output tag(int tag) {
+            ensure(1);
+            bytes[size++] = (byte) tag;
+            return this;
+        }
+
+        private Output varint(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+            return this;
+        }
+
+        private Output string(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            varint(utf8.length);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+            return this;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+
+    private static final class Input {
+        private final byte[] bytes;
+        private int position;
+
+        private Input(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private int varint() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+
+        private String string() {
+            int length = varint();
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
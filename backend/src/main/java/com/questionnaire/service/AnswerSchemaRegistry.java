@@ -0,0 +1,85 @@
+package com.questionnaire.service;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * De answer schemaer som pakkede besvarelser er skrevet med (collection answer_schemas).
+ * Et schema gemmes første gang det bruges og ændres aldrig, så det altid kan bruges til at læse
+ * besvarelser skrevet med en tidligere udgave af spørgeskemaet. Opslag caches i hukommelsen.
+ */
+@Component
+public class AnswerSchemaRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnswerSchemaRegistry.class);
+
+    public static final String COLLECTION = "answer_schemas";
+
+    private final MongoOperations mongoOperations;
+    private final Map<Integer, AnswerSchema> schemas = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AnswerSchemaRegistry(MongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    /**
+     * Sikrer at schemaet er gemt før besvarelser skrives med det
+     * @return false hvis et andet schema allerede har samme id (hash-kollision); svarene skal så gemmes upakket
+     */
+    public boolean register(AnswerSchema schema) {
+        AnswerSchema known = schemas.get(schema.getId());
+        if (known == null) {
+            known = find(schema.getId());
+            if (known == null) {
+                try {
+                    mongoOperations.insert(schema.toDocument(), COLLECTION);
+                    known = schema;
+                } catch (DuplicateKeyException e) {
+                    // Gemt samtidig af en anden tråd eller instans
+                    known = find(schema.getId());
+                }
+            }
+            if (known == null) {
+                return false;
+            }
+            schemas.putIfAbsent(schema.getId(), known);
+        }
+        if (known != schema && !known.sameContent(schema)) {
+            logger.warn("Answer schema {} for spørgeskema {} kolliderer med et eksisterende schema; svar gemmes upakket",
+                    schema.getId(), schema.getQuestionnaireId());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Schemaet med id
+     * @throws IllegalStateException hvis schemaet ikke findes
+     */
+    public AnswerSchema get(int id) {
+        AnswerSchema schema = schemas.get(id);
+        if (schema != null) {
+            return schema;
+        }
+        schema = find(id);
+        if (schema == null) {
+            throw new IllegalStateException("Answer schema findes ikke: " + id);
+        }
+        AnswerSchema raced = schemas.putIfAbsent(id, schema);
+        return raced != null ? raced : schema;
+    }
+
+    private AnswerSchema find(int id) {
+        Document document = mongoOperations.findById(id, Document.class, COLLECTION);
+        return document == null ? null : AnswerSchema.fromDocument(document);
+    }
+}
@@ -0,0 +1,161 @@
+package com.questionnaire.service;
+
+import com.questionnaire.constants.QuestionnaireConstants;
+import com.questionnaire.model.QuestionnaireType;
+import com.questionnaire.model.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.BitSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holder i hukommelsen styr på hvem der har besvaret hvilken type i dag (dansk tid), så
+ * check-today kan svares uden databaseopslag. Bruger-id'er internes til fortløbende indeks,
+ * og dagen er ét bitset pr. questionnaire type.
+ * Sættes når en besvarelse gemmes og varmes fra MongoDB (localDate) første gang en dag bruges,
+ * dvs. ved opstart og ved døgnskifte. Besvarelser gemt af andre instanser efter opvarmningen ses
+ * ikke; selve én-pr.-dag reglen håndhæves stadig af det unikke index.
+ */
+@Component
+public class AnsweredTodayTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnsweredTodayTracker.class);
+    private static final ZoneId COPENHAGEN = ZoneId.of(QuestionnaireConstants.COPENHAGEN_TIMEZONE);
+
+    private final MongoOperations mongoOperations;
+    private final Clock clock;
+    private final ConcurrentHashMap<String, Integer> userIndex = new ConcurrentHashMap<>();
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    private volatile Day today;
+
+    @Autowired
+    public AnsweredTodayTracker(MongoOperations mongoOperations) {
+        this(mongoOperations, Clock.systemUTC());
+    }
+
+    public AnsweredTodayTracker(MongoOperations mongoOperations, Clock clock) {
+        this.mongoOperations = mongoOperations;
+        this.clock = clock;
+    }
+
+    /**
+     * Om brugeren har besvaret typen i dag
+     */
+    public boolean hasAnswered(String userId, QuestionnaireType type) {
+        Day day = currentDay();
+        Integer index = userIndex.get(userId);
+        return index != null && day.get(index, type);
+    }
+
+    /**
+     * Registrerer en gemt (eller allerede eksisterende) besvarelse
+     * @param localDate Besvarelsens danske kalenderdag (yyyy-MM-dd); andre dage end i dag ignoreres
+     */
+    public void markAnswered(String userId, QuestionnaireType type, String localDate) {
+        Day day = currentDay();
+        if (day.localDate.equals(localDate)) {
+            day.set(indexOf(userId), type);
+        }
+    }
+
+    /**
+     * Registrerer en besvarelse for i dag, medmindre typen allerede er besvaret (atomisk)
+     * @return false hvis brugeren allerede har besvaret typen på dagen; andre dage end i dag giver altid true
+     */
+    public boolean tryMarkAnswered(String userId, QuestionnaireType type, String localDate) {
+        Day day = currentDay();
+        return !day.localDate.equals(localDate) || day.trySet(indexOf(userId), type);
+    }
+
+    /**
+     * Fjerner en registrering igen (når besvarelsen alligevel ikke blev gemt)
+     */
+    public void clearAnswered(String userId, QuestionnaireType type, String localDate) {
+        Day day = currentDay();
+        Integer index = userIndex.get(userId);
+        if (index != null && day.localDate.equals(localDate)) {
+            day.clear(index, type);
+        }
+    }
+
+    private Day currentDay() {
+        String date = LocalDate.now(clock.withZone(COPENHAGEN)).toString();
+        Day day = today;
+        if (day != null && day.localDate.equals(date)) {
+            return day;
+        }
+        synchronized (this) {
+            if (today == null || !today.localDate.equals(date)) {
+                today = warm(date);
+            }
+            return today;
+        }
+    }
+
+    /**
+     * Bygger dagen fra dagens besvarelser i MongoDB (localDate indexet)
+     */
+    private Day warm(String date) {
+        Day day = new Day(date);
+        Query query = new Query(Criteria.where("localDate").is(date));
+        query.fields().include("userId", "questionnaireType");
+        int count = 0;
+        for (Response response : mongoOperations.find(query, Response.class)) {
+            if (response.getUserId() != null && response.getQuestionnaireType() != null) {
+                day.set(indexOf(response.getUserId()), response.getQuestionnaireType());
+                count++;
+            }
+        }
+        logger.info("Dagens besvarelser indlæst for {}: {}", date, count);
+        return day;
+    }
+
+    private int indexOf(String userId) {
+        return userIndex.computeIfAbsent(userId, id -> nextIndex.getAndIncrement());
+    }
+
+    /**
+     * Én dags bitsets (indeks = interneret bruger-id, ét bitset pr. type)
+     */
+    private static final class Day {
+        private final String localDate;
+        private final BitSet[] answered = new BitSet[QuestionnaireType.values().length];
+
+        private Day(String localDate) {
+            this.localDate = localDate;
+            for (int i = 0; i < answered.length; i++) {
+                answered[i] = new BitSet();
+            }
+        }
+
+        private synchronized boolean get(int index, QuestionnaireType type) {
+            return answered[type.ordinal()].get(index);
+        }
+
+        private synchronized void set(int index, QuestionnaireType type) {
+            answered[type.ordinal()].set(index);
+        }
+
+        private synchronized boolean trySet(int index, QuestionnaireType type) {
+            if (answered[type.ordinal()].get(index)) {
+                return false;
+            }
+            answered[type.ordinal()].set(index);
+            return true;
+        }
+
+        private synchronized void clear(int index, QuestionnaireType type) {
+            answered[type.ordinal()].clear(index);
+        }
+    }
+}
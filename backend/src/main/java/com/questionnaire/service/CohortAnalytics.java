@@ -0,0 +1,212 @@
+package com.questionnaire.service;
+
+import com.questionnaire.constants.QuestionnaireConstants;
+import com.questionnaire.exception.ValidationException;
+import com.questionnaire.model.Response;
+import com.questionnaire.model.SleepParameters;
+import com.questionnaire.model.SleepRollup;
+import com.questionnaire.model.User;
+import com.questionnaire.repository.UserRepository;
+import com.questionnaire.service.interfaces.IResponseService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Søvnstatistik for alle borgere tilknyttet en rådgiver i ét kald: én query efter borgerne,
+ * én aggregation efter deres morgenbesvarelser i intervallet, og derefter reduktion pr. borger
+ * parallelt på fork-join poolen. Pr. borger og for hele kohorten beregnes gennemsnit og median
+ * af SOL, WASO, TIB, TST og SE (søvneffektivitet) samt adherence (andel dage med besvarelse).
+ */
+@Component
+public class CohortAnalytics {
+
+    private static final Logger logger = LoggerFactory.getLogger(CohortAnalytics.class);
+    private static final ZoneId COPENHAGEN = ZoneId.of(QuestionnaireConstants.COPENHAGEN_TIMEZONE);
+
+    public static final int DEFAULT_DAYS = 30;
+    public static final int MAX_DAYS = 366;
+
+    private final UserRepository userRepository;
+    private final SleepDataQuery sleepDataQuery;
+    private final IResponseService responseService;
+
+    @Autowired
+    public CohortAnalytics(UserRepository userRepository, SleepDataQuery sleepDataQuery, IResponseService responseService) {
+        this.userRepository = userRepository;
+        this.sleepDataQuery = sleepDataQuery;
+        this.responseService = responseService;
+    }
+
+    /**
+     * Analyserer rådgiverens borgere i intervallet [from, to)
+     * @param from Første dag (inklusiv, dansk tid) eller null for DEFAULT_DAYS dage før to
+     * @param to Sidste dag (eksklusiv, dansk tid) eller null for i morgen (dvs. til og med i dag)
+     * @return Map med interval, "cohort" (samlet statistik) og "citizens" (statistik pr. borger)
+     */
+    public Map<String, Object> analyze(String advisorId, LocalDate from, LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now(COPENHAGEN).plusDays(1);
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_DAYS);
+        long days = ChronoUnit.DAYS.between(start, end);
+        if (days < 1 || days > MAX_DAYS) {
+            throw new ValidationException("Intervallet skal være mellem 1 og " + MAX_DAYS + " dage");
+        }
+
+        List<User> citizens = userRepository.findByAdvisorId(advisorId).stream()
+                .filter(User::canBeAssignedToAdvisor)
+                .toList();
+        Map<String, List<Response>> responsesByCitizen = new HashMap<>();
+        if (!citizens.isEmpty()) {
+            List<String> citizenIds = citizens.stream().map(User::getId).toList();
+            for (Response response : sleepDataQuery.findCohortSleepData(citizenIds, start, end)) {
+                responsesByCitizen.computeIfAbsent(response.getUserId(), id -> new ArrayList<>()).add(response);
+            }
+        }
+
+        // Borgerne er uafhængige, så reduktionen (inkl. genberegning af forældede versioner) kører parallelt
+        List<CitizenStats> stats = citizens.parallelStream()
+                .map(citizen -> reduce(citizen, responsesByCitizen.getOrDefault(citizen.getId(), List.of()), start, (int) days))
+                .toList();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("advisorId", advisorId);
+        result.put("from", start.toString());
+        result.put("to", end.toString());
+        result.put("days", days);
+        result.put("cohort", cohortSummary(stats));
+        result.put("citizens", stats.stream().map(CitizenStats::toSummary).toList());
+        return result;
+    }
+
+    private CitizenStats reduce(User citizen, List<Response> responses, LocalDate start, int days) {
+        double[][] values = new double[SleepRollup.METRICS.length][responses.size()];
+        BitSet answeredDays = new BitSet(days);
+        int nights = 0;
+        for (Response response : responses) {
+            SleepParameters params = sleepParametersOrNull(response);
+            if (params == null || response.getCreatedAt() == null) {
+                continue;
+            }
+            double[] night = SleepRollup.valuesOf(params);
+            for (int m = 0; m < night.length; m++) {
+                values[m][nights] = night[m];
+            }
+            nights++;
+            LocalDate day = response.getCreatedAt().toInstant().atZone(COPENHAGEN).toLocalDate();
+            long offset = ChronoUnit.DAYS.between(start, day);
+            if (offset >= 0 && offset < days) {
+                answeredDays.set((int) offset);
+            }
+        }
+        for (int m = 0; m < values.length; m++) {
+            values[m] = Arrays.copyOf(values[m], nights);
+            Arrays.sort(values[m]);
+        }
+        return new CitizenStats(citizen, nights, (double) answeredDays.cardinality() / days, values);
+    }
+
+    private SleepParameters sleepParametersOrNull(Response response) {
+        try {
+            return responseService.getSleepParameters(response);
+        } catch (Exception e) {
+            logger.warn("Kunne ikke beregne søvnparametre for besvarelse {}: {}", response.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static Map<String, Object> cohortSummary(List<CitizenStats> stats) {
+        int nights = 0;
+        int withData = 0;
+        double adherence = 0;
+        for (CitizenStats citizen : stats) {
+            nights += citizen.nights;
+            adherence += citizen.adherence;
+            if (citizen.nights > 0) {
+                withData++;
+            }
+        }
+
+        // Alle nætter samles pr. parameter, så kohortens median ikke er en median af medianer
+        double[][] values = new double[SleepRollup.METRICS.length][nights];
+        int offset = 0;
+        for (CitizenStats citizen : stats) {
+            for (int m = 0; m < values.length; m++) {
+                System.arraycopy(citizen.values[m], 0, values[m], offset, citizen.nights);
+            }
+            offset += citizen.nights;
+        }
+        for (double[] metric : values) {
+            Arrays.sort(metric);
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("citizens", stats.size());
+        summary.put("citizensWithData", withData);
+        summary.put("nights", nights);
+        summary.put("adherence", stats.isEmpty() ? 0 : adherence / stats.size());
+        summary.put("metrics", metrics(values));
+        return summary;
+    }
+
+    /**
+     * Gennemsnit og median pr. parameter (værdierne skal være sorteret)
+     */
+    private static Map<String, Object> metrics(double[][] sortedValues) {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        for (int m = 0; m < sortedValues.length; m++) {
+            double[] sorted = sortedValues[m];
+            if (sorted.length == 0) {
+                continue;
+            }
+            double sum = 0;
+            for (double value : sorted) {
+                sum += value;
+            }
+            int middle = sorted.length / 2;
+            double median = sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+            metrics.put(SleepRollup.METRICS[m], Map.of("mean", sum / sorted.length, "median", median));
+        }
+        return metrics;
+    }
+
+    /**
+     * Reduceret statistik for én borger (values er sorteret pr. parameter)
+     */
+    private static final class CitizenStats {
+        private final User citizen;
+        private final int nights;
+        private final double adherence;
+        private final double[][] values;
+
+        private CitizenStats(User citizen, int nights, double adherence, double[][] values) {
+            this.citizen = citizen;
+            this.nights = nights;
+            this.adherence = adherence;
+            this.values = values;
+        }
+
+        private Map<String, Object> toSummary() {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("userId", citizen.getId());
+            summary.put("username", citizen.getUsername());
+            summary.put("firstName", citizen.getFirstName());
+            summary.put("lastName", citizen.getLastName());
+            summary.put("nights", nights);
+            summary.put("adherence", adherence);
+            summary.put("metrics", metrics(values));
+            return summary;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.questionnaire.service;
+
+import com.questionnaire.exception.ValidationException;
+import com.questionnaire.model.Response;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key for submit af besvarelser. Resultatet af en gennemført besvarelse gemmes pr.
+ * (bruger, nøgle) i en begrænset LRU i hukommelsen og i MongoDB (collection idempotency_keys med
+ * TTL index), så et gentaget kald returnerer det gemte resultat uden at køre pipelinen igen, også
+ * efter genstart. Samtidige kald med samme nøgle venter på det kørende kald i stedet for at køre selv.
+ * Fejl gemmes ikke, så et fejlet kald kan prøves igen med samme nøgle.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    public static final String COLLECTION = "idempotency_keys";
+    public static final Duration TTL = Duration.ofHours(24);
+    public static final int MAX_CACHED = 10_000;
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private final MongoOperations mongoOperations;
+    // Gennemførte kald (LRU, begrænset størrelse)
+    private final Map<String, Completed> completed = Collections.synchronizedMap(
+            new LinkedHashMap<String, Completed>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Completed> eldest) {
+                    return size() > MAX_CACHED;
+                }
+            });
+    private final ConcurrentHashMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public IdempotencyStore(MongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    /**
+     * Kører action én gang pr. (bruger, nøgle) inden for TTL
+     * @param fingerprint Fingeraftryk af forespørgslen (se fingerprint); samme nøgle med et andet fingeraftryk afvises
+     * @return Resultatet af action, eller det gemte resultat hvis nøglen allerede er brugt
+     */
+    public Response execute(String userId, String key, String fingerprint, Supplier<Response> action) {
+        if (key == null || key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new ValidationException("Idempotency-Key skal være mellem 1 og " + MAX_KEY_LENGTH + " tegn");
+        }
+        String scope = userId + ":" + key;
+        Response cached = findCompleted(scope, fingerprint);
+        if (cached != null) {
+            return cached;
+        }
+
+        InFlight mine = new InFlight(fingerprint);
+        InFlight running = inFlight.putIfAbsent(scope, mine);
+        if (running != null) {
+            checkFingerprint(running.fingerprint, fingerprint);
+            return await(running);
+        }
+        try {
+            // Et kald med samme nøgle kan være afsluttet mellem opslaget og putIfAbsent
+            Response result = findCompleted(scope, fingerprint);
+            if (result == null) {
+                result = findStored(scope, fingerprint);
+            }
+            if (result == null) {
+                result = action.get();
+                store(scope, fingerprint, result);
+            }
+            mine.result.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(scope, mine);
+        }
+    }
+
+    /**
+     * SHA-256 af spørgeskema og svar (svarene sorteret efter spørgsmåls-id)
+     */
+    public static String fingerprint(String questionnaireId, Map<String, Object> answers) {
+        String canonical = questionnaireId + "\n" + (answers == null ? "" : new TreeMap<>(answers).toString());
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Response findCompleted(String scope, String fingerprint) {
+        Completed entry = completed.get(scope);
+        if (entry == null || entry.createdAt.getTime() < System.currentTimeMillis() - TTL.toMillis()) {
+            return null;
+        }
+        checkFingerprint(entry.fingerprint, fingerprint);
+        return entry.response;
+    }
+
+    private Response findStored(String scope, String fingerprint) {
+        Document stored;
+        try {
+            stored = mongoOperations.findById(scope, Document.class, COLLECTION);
+        } catch (RuntimeException e) {
+            // Uden MongoDB køres kaldet; dubletter af allerede gemte besvarelser afvises stadig pr. dag
+            logger.warn("Kunne ikke slå idempotency-nøgle {} op: {}", scope, e.getMessage());
+            return null;
+        }
+        if (stored == null) {
+            return null;
+        }
+        Date createdAt = stored.getDate("createdAt");
+        checkFingerprint(stored.getString("fingerprint"), fingerprint);
+        Response response = mongoOperations.getConverter().read(Response.class, stored.get("response", Document.class));
+        completed.put(scope, new Completed(fingerprint, response, createdAt != null ? createdAt : new Date()));
+        return response;
+    }
+
+    /**
+     * Gemmer resultatet; en fejl her må ikke få en gemt besvarelse til at fejle
+     */
+    private void store(String scope, String fingerprint, Response response) {
+        Date now = new Date();
+        completed.put(scope, new Completed(fingerprint, response, now));
+        try {
+            Document document = new Document();
+            mongoOperations.getConverter().write(response, document);
+            mongoOperations.insert(new Document("_id", scope)
+                    .append("fingerprint", fingerprint)
+                    .append("response", document)
+                    .append("createdAt", now), COLLECTION);
+        } catch (DuplicateKeyException e) {
+            // Allerede gemt af en anden instans
+        } catch (Exception e) {
+            logger.warn("Kunne ikke gemme idempotency-resultat for {}: {}", scope, e.getMessage());
+        }
+    }
+
+    private static void checkFingerprint(String expected, String actual) {
+        if (expected != null && !expected.equals(actual)) {
+            throw new ValidationException("Idempotency-Key er allerede brugt til en anden besvarelse");
+        }
+    }
+
+    private static Response await(InFlight running) {
+        try {
+            return running.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Et gennemført kald
+     */
+    private static final class Completed {
+        private final String fingerprint;
+        private final Response response;
+        private final Date createdAt;
+
+        private Completed(String fingerprint, Response response, Date createdAt) {
+            this.fingerprint = fingerprint;
+            this.response = response;
+            this.createdAt = createdAt;
+        }
+    }
+
+    /**
+     * Et kørende kald som samtidige kald med samme nøgle venter på
+     */
+    private static final class InFlight {
+        private final String fingerprint;
+        private final CompletableFuture<Response> result = new CompletableFuture<>();
+
+        private InFlight(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
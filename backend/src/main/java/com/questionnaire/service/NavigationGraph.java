@@ -0,0 +1,164 @@
+package com.questionnaire.service;
+
+import com.questionnaire.model.ConditionalChild;
+import com.questionnaire.model.Question;
+import com.questionnaire.model.QuestionnaireSnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Kompileret navigationsgraf for et spørgeskema
+ * Bygges én gang pr. snapshot-version, så næste spørgsmål kan slås op uden at
+ * scanne eller sortere spørgsmålene ved hvert kald.
+ */
+public final class NavigationGraph {
+
+    private final Map<String, Integer> positionById;
+    private final Question[] roots;
+    // Index i roots for første root med højere order end spørgsmålet på samme position
+    private final int[] rootSuccessor;
+    // optionId -> conditional children (i lagret rækkefølge) pr. spørgsmålsposition
+    private final List<Map<String, List<Question>>> branches;
+
+    private NavigationGraph(Map<String, Integer> positionById, Question[] roots,
+                            int[] rootSuccessor, List<Map<String, List<Question>>> branches) {
+        this.positionById = positionById;
+        this.roots = roots;
+        this.rootSuccessor = rootSuccessor;
+        this.branches = branches;
+    }
+
+    /**
+     * Henter (og kompilerer ved første kald) grafen for et snapshot
+     */
+    public static NavigationGraph of(QuestionnaireSnapshot snapshot) {
+        return snapshot.getCompiled(NavigationGraph.class, s -> compile(s.getQuestions()));
+    }
+
+    /**
+     * Kompilerer grafen ud fra spørgsmålene i et spørgeskema
+     * @param questions Aktive spørgsmål i spørgeskemaet
+     */
+    public static NavigationGraph compile(List<Question> questions) {
+        int size = questions.size();
+        Map<String, Integer> positionById = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            positionById.putIfAbsent(questions.get(i).getId(), i);
+        }
+
+        // Conditional children er ikke root spørgsmål
+        Set<String> conditionalChildIds = new HashSet<>();
+        for (Question q : questions) {
+            if (q.getConditionalChildren() != null) {
+                for (ConditionalChild cc : q.getConditionalChildren()) {
+                    if (cc.getChildQuestionId() != null) {
+                        conditionalChildIds.add(cc.getChildQuestionId());
+                    }
+                }
+            }
+        }
+
+        List<Question> rootList = new ArrayList<>();
+        for (Question q : questions) {
+            if (!conditionalChildIds.contains(q.getId())) {
+                rootList.add(q);
+            }
+        }
+        rootList.sort(Comparator.comparingInt(Question::getOrder));
+        Question[] roots = rootList.toArray(new Question[0]);
+
+        int[] rootOrders = new int[roots.length];
+        for (int i = 0; i < roots.length; i++) {
+            rootOrders[i] = roots[i].getOrder();
+        }
+
+        int[] rootSuccessor = new int[size];
+        List<Map<String, List<Question>>> branches = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Question q = questions.get(i);
+            rootSuccessor[i] = upperBound(rootOrders, q.getOrder());
+            branches.add(compileBranches(q, questions, positionById));
+        }
+
+        return new NavigationGraph(positionById, roots, rootSuccessor, branches);
+    }
+
+    /**
+     * Position for et spørgsmål i snapshot'et
+     * @return Position, eller -1 hvis spørgsmålet ikke findes
+     */
+    public int positionOf(String questionId) {
+        Integer position = questionId == null ? null : positionById.get(questionId);
+        return position != null ? position : -1;
+    }
+
+    /**
+     * Index (i root-rækkefølgen) for første root spørgsmål med højere order end det givne spørgsmål
+     * @return Root index ({@link #rootCount()} hvis der ikke er flere), eller -1 hvis spørgsmålet er ukendt
+     */
+    public int firstRootAfter(String questionId) {
+        int position = positionOf(questionId);
+        return position < 0 ? -1 : rootSuccessor[position];
+    }
+
+    public int rootCount() {
+        return roots.length;
+    }
+
+    public Question rootAt(int index) {
+        return roots[index];
+    }
+
+    /**
+     * Conditional children der vises når en option vælges på et spørgsmål
+     * @return Children i lagret rækkefølge (tom liste hvis ingen)
+     */
+    public List<Question> branch(String questionId, String optionId) {
+        int position = positionOf(questionId);
+        if (position < 0) {
+            return Collections.emptyList();
+        }
+        List<Question> children = branches.get(position).get(optionId);
+        return children != null ? children : Collections.emptyList();
+    }
+
+    private static Map<String, List<Question>> compileBranches(Question question, List<Question> questions,
+                                                               Map<String, Integer> positionById) {
+        if (question.getConditionalChildren() == null || question.getConditionalChildren().isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, List<Question>> perOption = new LinkedHashMap<>();
+        for (ConditionalChild cc : question.getConditionalChildren()) {
+            Integer childPosition = cc.getChildQuestionId() == null ? null : positionById.get(cc.getChildQuestionId());
+            if (cc.getOptionId() == null || childPosition == null) {
+                continue;
+            }
+            perOption.computeIfAbsent(cc.getOptionId(), k -> new ArrayList<>()).add(questions.get(childPosition));
+        }
+        perOption.replaceAll((optionId, children) -> List.copyOf(children));
+        return perOption;
+    }
+
+    // Første index med værdi > key (sorted array)
+    private static int upperBound(int[] sorted, int key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
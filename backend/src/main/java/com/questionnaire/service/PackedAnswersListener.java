@@ -0,0 +1,115 @@
+package com.questionnaire.service;
+
+import com.questionnaire.model.QuestionnaireSnapshot;
+import com.questionnaire.model.Response;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterLoadEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Gemmer Response.answers i det kompakte format fra AnswerSchema og pakker dem ud igen ved læsning,
+ * så formatet er usynligt for services og API. Gælder alle skrivninger og læsninger gennem
+ * MongoTemplate (repositories, bulkOps, find, stream og aggregation til Response).
+ * Dokumenter uden pakkede svar (ældre besvarelser) læses som hidtil.
+ *
+ * Felter: answerSchema (schema-id), packedAnswers (binær blob) og answers (kun svar der ikke kunne pakkes).
+ */
+@Component
+public class PackedAnswersListener extends AbstractMongoEventListener<Response> {
+
+    private static final Logger logger = LoggerFactory.getLogger(PackedAnswersListener.class);
+
+    public static final String SCHEMA_FIELD = "answerSchema";
+    public static final String PACKED_FIELD = "packedAnswers";
+    private static final String ANSWERS_FIELD = "answers";
+
+    private final AnswerSchemaRegistry answerSchemaRegistry;
+    private final QuestionnaireSnapshotCache snapshotCache;
+
+    @Autowired
+    public PackedAnswersListener(AnswerSchemaRegistry answerSchemaRegistry, QuestionnaireSnapshotCache snapshotCache) {
+        this.answerSchemaRegistry = answerSchemaRegistry;
+        this.snapshotCache = snapshotCache;
+    }
+
+    @Override
+    public void onBeforeSave(BeforeSaveEvent<Response> event) {
+        Document document = event.getDocument();
+        Response response = event.getSource();
+        if (document == null || response.getAnswers() == null || response.getQuestionnaireId() == null) {
+            return;
+        }
+        try {
+            pack(document, response);
+        } catch (RuntimeException e) {
+            // Upakkede svar kan altid læses, så en fejl her må ikke stoppe gemningen
+            logger.warn("Kunne ikke pakke svar for besvarelse {}: {}", response.getId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onAfterLoad(AfterLoadEvent<Response> event) {
+        unpack(event.getDocument());
+    }
+
+    /**
+     * Erstatter answers i dokumentet med den pakkede form
+     */
+    public void pack(Document document, Response response) {
+        QuestionnaireSnapshot snapshot = snapshotCache.getSnapshot(response.getQuestionnaireId());
+        if (snapshot == null || snapshot.isEmpty()) {
+            return;
+        }
+        AnswerSchema schema = AnswerSchema.of(snapshot);
+        if (!answerSchemaRegistry.register(schema)) {
+            return;
+        }
+        Map<String, Object> rest = new LinkedHashMap<>();
+        byte[] packed = schema.pack(response.getAnswers(), rest);
+        document.put(SCHEMA_FIELD, schema.getId());
+        document.put(PACKED_FIELD, new Binary(packed));
+        if (rest.isEmpty()) {
+            document.remove(ANSWERS_FIELD);
+        } else {
+            // Resten skrives med den konverterede udgave fra dokumentet
+            Document converted = document.get(ANSWERS_FIELD, Document.class);
+            Document remaining = new Document();
+            for (String key : rest.keySet()) {
+                remaining.put(key, converted != null ? converted.get(key) : rest.get(key));
+            }
+            document.put(ANSWERS_FIELD, remaining);
+        }
+    }
+
+    /**
+     * Genskaber answers i et indlæst dokument (gør intet hvis det ikke er pakket)
+     */
+    public void unpack(Document document) {
+        if (document == null) {
+            return;
+        }
+        Object packed = document.remove(PACKED_FIELD);
+        Object schemaId = document.remove(SCHEMA_FIELD);
+        if (packed == null || !(schemaId instanceof Number id)) {
+            return;
+        }
+        byte[] bytes = packed instanceof Binary binary ? binary.getData() : (byte[]) packed;
+        Document answers = new Document();
+        answerSchemaRegistry.get(id.intValue()).unpack(bytes, answers);
+        if (document.get(ANSWERS_FIELD) instanceof Map<?, ?> rest) {
+            for (Map.Entry<?, ?> entry : rest.entrySet()) {
+                answers.put(String.valueOf(entry.getKey()), entry.getValue());
+            }
+        }
+        document.put(ANSWERS_FIELD, answers);
+    }
+}
@@ -0,0 +1,101 @@
+package com.questionnaire.service;
+
+import com.questionnaire.model.Question;
+import com.questionnaire.model.QuestionType;
+import com.questionnaire.model.QuestionnaireSnapshot;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Order-indekseret opslag af spørgsmål (order -> spørgsmål, (order, type) -> spørgsmål)
+ * Bygges én gang pr. snapshot-version og erstatter lineære scanninger i validator og extractor.
+ * Spørgsmål med samme order beholder deres rækkefølge fra listen, så "første match" er uændret.
+ */
+public final class QuestionOrderIndex {
+
+    private final int[] orders;
+    private final Question[] questions;
+
+    private QuestionOrderIndex(int[] orders, Question[] questions) {
+        this.orders = orders;
+        this.questions = questions;
+    }
+
+    /**
+     * Henter (og bygger ved første kald) indekset for et snapshot
+     */
+    public static QuestionOrderIndex of(QuestionnaireSnapshot snapshot) {
+        return snapshot.getCompiled(QuestionOrderIndex.class, s -> build(s.getQuestions()));
+    }
+
+    /**
+     * Bygger indekset ud fra en liste af spørgsmål
+     */
+    public static QuestionOrderIndex build(List<Question> questionList) {
+        Question[] sorted = questionList.toArray(new Question[0]);
+        // Arrays.sort på objekter er stabil
+        Arrays.sort(sorted, (a, b) -> Integer.compare(a.getOrder(), b.getOrder()));
+        int[] orders = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            orders[i] = sorted[i].getOrder();
+        }
+        return new QuestionOrderIndex(orders, sorted);
+    }
+
+    /**
+     * Finder første spørgsmål med given order
+     * @return Spørgsmålet hvis fundet, null ellers
+     */
+    public Question findByOrder(int order) {
+        int index = lowerBound(order);
+        return index < orders.length && orders[index] == order ? questions[index] : null;
+    }
+
+    /**
+     * Finder første spørgsmål med given order og type
+     * @return Spørgsmålet hvis fundet, null ellers
+     */
+    public Question findByOrderAndType(int order, QuestionType type) {
+        for (int i = lowerBound(order); i < orders.length && orders[i] == order; i++) {
+            if (questions[i].getType() == type) {
+                return questions[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Index for første spørgsmål med given order (bruges til at gennemløbe alle med samme order)
+     */
+    public int firstIndexOf(int order) {
+        return lowerBound(order);
+    }
+
+    public int size() {
+        return orders.length;
+    }
+
+    public int orderAt(int index) {
+        return orders[index];
+    }
+
+    public Question questionAt(int index) {
+        return questions[index];
+    }
+
+    // Første index med værdi >= key
+    private int lowerBound(int key) {
+        int low = 0;
+        int high = orders.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (orders[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -1,9 +1,6 @@
 package com.questionnaire.service;
 
 import com.questionnaire.model.Question;
-import com.questionnaire.model.QuestionBuilder;
-import com.questionnaire.model.QuestionOption;
-import com.questionnaire.model.QuestionOptionBuilder;
 import com.questionnaire.model.ConditionalChild;
 import com.questionnaire.repository.QuestionRepository;
 import com.questionnaire.service.interfaces.IQuestionService;
@@ -13,7 +10,6 @@ import org.springframework.stereotype.Service;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import static com.questionnaire.utils.QuestionOrderUtil.childOrder;
 
@@ -21,10 +17,13 @@ import static com.questionnaire.utils.QuestionOrderUtil.childOrder;
 public class QuestionServiceImpl implements IQuestionService {
 
     private final QuestionRepository questionRepository;
+    private final QuestionnaireSnapshotCache snapshotCache;
 
     @Autowired
-    public QuestionServiceImpl(QuestionRepository questionRepository) {
+    public QuestionServiceImpl(QuestionRepository questionRepository,
+                               QuestionnaireSnapshotCache snapshotCache) {
         this.questionRepository = questionRepository;
+        this.snapshotCache = snapshotCache;
     }
 
     public Question createQuestion(Question question) {
@@ -34,7 +33,9 @@ public class QuestionServiceImpl implements IQuestionService {
         // Valider spørgsmålet før oprettelse
         question.validate();
         
-        return questionRepository.save(question);
+        Question saved = questionRepository.save(question);
+        snapshotCache.invalidate(saved.getQuestionnaireId());
+        return saved;
     }
 
     public Question updateQuestion(String id, Question questionDetails) {
@@ -49,6 +50,7 @@ public class QuestionServiceImpl implements IQuestionService {
         // Hvis parent order er ændret, skal conditional børn følge med i ny 100-baseret rækkefølge
         reassignConditionalChildOrders(saved);
 
+        snapshotCache.invalidate(saved.getQuestionnaireId());
         return saved;
     }
 
@@ -62,6 +64,7 @@ public class QuestionServiceImpl implements IQuestionService {
         // Soft delete: sæt deletedAt i stedet for at slette
         question.setDeletedAt(new Date());
         questionRepository.save(question);
+        snapshotCache.invalidate(question.getQuestionnaireId());
     }
 
     public Question findById(String id) {
@@ -90,15 +93,13 @@ public class QuestionServiceImpl implements IQuestionService {
 
     public List<Question> findByQuestionnaireId(String questionnaireId) {
         // Denne metode returnerer kun aktive spørgsmål (deletedAt == null)
-        // pga. query i repository
-        return questionRepository.findByQuestionnaireIdOrderByOrderAsc(questionnaireId);
+        // pga. query i repository - hentes via delt snapshot
+        return snapshotCache.getSnapshot(questionnaireId).getQuestions();
     }
 
     public List<Question> findByQuestionnaireId(String questionnaireId, String language) {
-        List<Question> questions = findByQuestionnaireId(questionnaireId);
-        return questions.stream()
-                .map(q -> translateQuestion(q, language))
-                .collect(java.util.stream.Collectors.toList());
+        // Oversættelser materialiseres én gang pr. snapshot-version og sprog
+        return QuestionTranslations.of(snapshotCache.getSnapshot(questionnaireId)).forLanguage(language);
     }
     
     // Find alle spørgsmål inkl. slettede (til visning af besvarelser)
@@ -115,18 +116,7 @@ public class QuestionServiceImpl implements IQuestionService {
 
     // Hjælpemetode til at oversætte spørgsmål baseret på sprog
     public Question translateQuestion(Question question, String language) {
-        // Brug Builder pattern til at kopiere og oversætte
-        QuestionBuilder builder = QuestionBuilder.from(question).withLanguage(language);
-        
-        // Oversæt options hvis de findes
-        if (question.getOptions() != null) {
-            List<QuestionOption> translatedOptions = question.getOptions().stream()
-                    .map(option -> QuestionOptionBuilder.from(option).withLanguage(language).build())
-                    .collect(Collectors.toList());
-            builder.options(translatedOptions);
-        }
-        
-        return builder.build();
+        return QuestionTranslations.translate(question, language);
     }
 
     public Question addConditionalChild(String questionId, String optionId, String childQuestionId) {
@@ -149,7 +139,10 @@ public class QuestionServiceImpl implements IQuestionService {
         // Brug domain logic fra Question-klassen
         parent.addConditionalChild(optionId, childQuestionId);
 
-        return questionRepository.save(parent);
+        Question saved = questionRepository.save(parent);
+        snapshotCache.invalidate(saved.getQuestionnaireId());
+        snapshotCache.invalidate(child.getQuestionnaireId());
+        return saved;
     }
 
     public Question removeConditionalChild(String questionId, String optionId, String childQuestionId) {
@@ -158,7 +151,9 @@ public class QuestionServiceImpl implements IQuestionService {
         // Brug domain logic fra Question-klassen
         question.removeConditionalChild(optionId, childQuestionId);
         
-        return questionRepository.save(question);
+        Question saved = questionRepository.save(question);
+        snapshotCache.invalidate(saved.getQuestionnaireId());
+        return saved;
     }
 
     public Question updateConditionalChildrenOrder(String questionId, String optionId, List<String> childQuestionIds) {
@@ -181,7 +176,9 @@ public class QuestionServiceImpl implements IQuestionService {
             }
         }
 
-        return questionRepository.save(parent);
+        Question saved = questionRepository.save(parent);
+        snapshotCache.invalidate(saved.getQuestionnaireId());
+        return saved;
     }
 
     /**
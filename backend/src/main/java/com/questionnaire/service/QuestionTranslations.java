@@ -0,0 +1,93 @@
+package com.questionnaire.service;
+
+import com.questionnaire.model.Question;
+import com.questionnaire.model.QuestionBuilder;
+import com.questionnaire.model.QuestionOption;
+import com.questionnaire.model.QuestionOptionBuilder;
+import com.questionnaire.model.QuestionnaireSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Oversatte udgaver af et snapshots spørgsmål, materialiseret én gang pr. version og sprog.
+ * Listerne og spørgsmålene deles mellem requests og må ikke ændres af kaldere.
+ */
+public final class QuestionTranslations {
+
+    // Sprog uden egne tekstfelter falder alle tilbage til text, så de deler én oversættelse
+    private static final String FALLBACK_KEY = "*";
+    private static final String UNTRANSLATED_KEY = "";
+
+    private final List<Question> source;
+    private final Map<String, List<Question>> views = new ConcurrentHashMap<>();
+
+    private QuestionTranslations(List<Question> source) {
+        this.source = source;
+    }
+
+    /**
+     * Henter (og opretter ved første kald) oversættelserne for et snapshot
+     */
+    public static QuestionTranslations of(QuestionnaireSnapshot snapshot) {
+        return snapshot.getCompiled(QuestionTranslations.class, s -> new QuestionTranslations(s.getQuestions()));
+    }
+
+    /**
+     * Spørgsmålene oversat til et sprog, i samme rækkefølge som snapshot'et
+     * @param language Sprogkode (da/en)
+     * @return Read-only liste af oversatte spørgsmål
+     */
+    public List<Question> forLanguage(String language) {
+        return views.computeIfAbsent(languageKey(language), key -> translateAll(language));
+    }
+
+    /**
+     * Oversat spørgsmål på en given position i snapshot'et
+     */
+    public Question get(String language, int position) {
+        return forLanguage(language).get(position);
+    }
+
+    /**
+     * Opretter en oversat kopi af et spørgsmål inkl. options
+     * @param question Spørgsmålet der skal oversættes
+     * @param language Sprogkode (da/en)
+     * @return Ny Question med text sat til det valgte sprog
+     */
+    public static Question translate(Question question, String language) {
+        // Brug Builder pattern til at kopiere og oversætte
+        QuestionBuilder builder = QuestionBuilder.from(question).withLanguage(language);
+
+        // Oversæt options hvis de findes
+        if (question.getOptions() != null) {
+            List<QuestionOption> translatedOptions = new ArrayList<>(question.getOptions().size());
+            for (QuestionOption option : question.getOptions()) {
+                translatedOptions.add(QuestionOptionBuilder.from(option).withLanguage(language).build());
+            }
+            builder.options(translatedOptions);
+        }
+
+        return builder.build();
+    }
+
+    private List<Question> translateAll(String language) {
+        List<Question> translated = new ArrayList<>(source.size());
+        for (Question question : source) {
+            translated.add(translate(question, language));
+        }
+        return List.copyOf(translated);
+    }
+
+    private static String languageKey(String language) {
+        if (language == null) {
+            return UNTRANSLATED_KEY;
+        }
+        if ("da".equals(language) || "en".equals(language)) {
+            return language;
+        }
+        return FALLBACK_KEY;
+    }
+}
@@ -0,0 +1,125 @@
+package com.questionnaire.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.questionnaire.dto.QuestionnaireBundleDto;
+import com.questionnaire.model.ConditionalChild;
+import com.questionnaire.model.Question;
+import com.questionnaire.model.Questionnaire;
+import com.questionnaire.model.QuestionnaireSnapshot;
+import com.questionnaire.model.QuestionnaireType;
+import com.questionnaire.service.interfaces.IQuestionnaireService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bygger spørgeskema-bundles til klient-side navigation
+ * Et bundle bygges én gang pr. snapshot-version og sprog og genbruges indtil spørgeskemaet ændres.
+ */
+@Service
+public class QuestionnaireBundleService {
+
+    private final IQuestionnaireService questionnaireService;
+    private final QuestionnaireSnapshotCache snapshotCache;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public QuestionnaireBundleService(IQuestionnaireService questionnaireService,
+                                      QuestionnaireSnapshotCache snapshotCache,
+                                      ObjectMapper objectMapper) {
+        this.questionnaireService = questionnaireService;
+        this.snapshotCache = snapshotCache;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Henter bundle for et spørgeskema
+     * @param type Spørgeskema type (morning/evening)
+     * @param language Sprog for spørgsmålstekster
+     * @return Bundle med versions-hash
+     */
+    public QuestionnaireBundleDto getBundle(QuestionnaireType type, String language) {
+        Questionnaire questionnaire = questionnaireService.getQuestionnaireByType(type);
+        QuestionnaireSnapshot snapshot = snapshotCache.getSnapshot(questionnaire.getId());
+        if (!"da".equals(language) && !"en".equals(language)) {
+            // Kun understøttede sprog caches, så vilkårlige query-parametre ikke fylder cachen op
+            return buildBundle(snapshot, type, language);
+        }
+        BundleVariants variants = snapshot.getCompiled(BundleVariants.class, s -> new BundleVariants());
+        return variants.bundles.computeIfAbsent(language, key -> buildBundle(snapshot, type, language));
+    }
+
+    private QuestionnaireBundleDto buildBundle(QuestionnaireSnapshot snapshot, QuestionnaireType type, String language) {
+        NavigationGraph graph = NavigationGraph.of(snapshot);
+
+        List<String> rootOrder = new ArrayList<>(graph.rootCount());
+        for (int i = 0; i < graph.rootCount(); i++) {
+            rootOrder.add(graph.rootAt(i).getId());
+        }
+
+        Map<String, Map<String, List<String>>> branches = new LinkedHashMap<>();
+        for (Question question : snapshot.getQuestions()) {
+            Map<String, List<String>> optionBranches = compileBranches(question, graph);
+            if (!optionBranches.isEmpty()) {
+                branches.put(question.getId(), optionBranches);
+            }
+        }
+
+        QuestionnaireBundleDto bundle = new QuestionnaireBundleDto();
+        bundle.setQuestionnaireId(snapshot.getQuestionnaireId());
+        bundle.setType(type);
+        bundle.setLanguage(language);
+        bundle.setRootOrder(rootOrder);
+        bundle.setQuestions(QuestionTranslations.of(snapshot).forLanguage(language));
+        bundle.setBranches(branches);
+        bundle.setVersion(contentHash(bundle));
+        return bundle;
+    }
+
+    private Map<String, List<String>> compileBranches(Question question, NavigationGraph graph) {
+        Map<String, List<String>> optionBranches = new LinkedHashMap<>();
+        if (question.getConditionalChildren() == null) {
+            return optionBranches;
+        }
+        for (ConditionalChild cc : question.getConditionalChildren()) {
+            if (cc.getOptionId() == null || optionBranches.containsKey(cc.getOptionId())) {
+                continue;
+            }
+            List<String> childIds = graph.branch(question.getId(), cc.getOptionId()).stream()
+                    .map(Question::getId)
+                    .toList();
+            if (!childIds.isEmpty()) {
+                optionBranches.put(cc.getOptionId(), childIds);
+            }
+        }
+        return optionBranches;
+    }
+
+    /**
+     * Hash af bundlets indhold (uden version), så samme indhold altid giver samme ETag
+     * - også på tværs af genstarter og instanser
+     */
+    private String contentHash(QuestionnaireBundleDto bundle) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(bundle);
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new RuntimeException("Kunne ikke beregne version for spørgeskema bundle", e);
+        }
+    }
+
+    // Bundles pr. sprog for én snapshot-version
+    private static final class BundleVariants {
+        private final Map<String, QuestionnaireBundleDto> bundles = new ConcurrentHashMap<>();
+    }
+}
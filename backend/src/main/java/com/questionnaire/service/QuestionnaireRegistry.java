@@ -0,0 +1,108 @@
+package com.questionnaire.service;
+
+import com.questionnaire.model.Questionnaire;
+import com.questionnaire.model.QuestionnaireType;
+import com.questionnaire.repository.QuestionnaireRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory register over spørgeskemaer (type ↔ ID)
+ * Indlæses ved opstart (efter seeding) og opdateres når spørgeskemaer oprettes,
+ * så opslag af "morning"/"evening" og ObjectIds ikke rammer MongoDB i steady state.
+ */
+@Component
+public class QuestionnaireRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuestionnaireRegistry.class);
+    private static final int MAX_UNKNOWN_IDS = 1024;
+
+    private final QuestionnaireRepository questionnaireRepository;
+    private final Map<QuestionnaireType, Questionnaire> byType = new ConcurrentHashMap<>();
+    private final Map<String, Questionnaire> byId = new ConcurrentHashMap<>();
+    // Negativ cache for ukendte ID'er (LRU, begrænset størrelse)
+    private final Set<String> unknownIds = Collections.newSetFromMap(Collections.synchronizedMap(
+            new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > MAX_UNKNOWN_IDS;
+                }
+            }));
+
+    @Autowired
+    public QuestionnaireRegistry(QuestionnaireRepository questionnaireRepository) {
+        this.questionnaireRepository = questionnaireRepository;
+    }
+
+    /**
+     * Indlæser alle spørgeskemaer når applikationen er startet (DatabaseSeeder har da kørt)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        unknownIds.clear();
+        questionnaireRepository.findAll().forEach(this::register);
+        logger.info("Spørgeskema-register indlæst: {}", byType.keySet());
+    }
+
+    /**
+     * Registrerer et (nyt eller opdateret) spørgeskema
+     */
+    public void register(Questionnaire questionnaire) {
+        if (questionnaire == null || questionnaire.getId() == null) {
+            return;
+        }
+        byId.put(questionnaire.getId(), questionnaire);
+        if (questionnaire.getType() != null) {
+            byType.put(questionnaire.getType(), questionnaire);
+        }
+        unknownIds.remove(questionnaire.getId());
+    }
+
+    /**
+     * Finder spørgeskema for en type - indlæses fra databasen første gang hvis det ikke er registreret
+     */
+    public Optional<Questionnaire> findByType(QuestionnaireType type) {
+        Questionnaire questionnaire = byType.get(type);
+        if (questionnaire != null) {
+            return Optional.of(questionnaire);
+        }
+        Optional<Questionnaire> loaded = questionnaireRepository.findByType(type);
+        loaded.ifPresent(this::register);
+        return loaded;
+    }
+
+    /**
+     * Finder spørgeskema ud fra ID
+     * Ukendte ID'er huskes, så gentagne opslag ikke rammer databasen
+     */
+    public Optional<Questionnaire> findById(String id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        Questionnaire questionnaire = byId.get(id);
+        if (questionnaire != null) {
+            return Optional.of(questionnaire);
+        }
+        if (unknownIds.contains(id)) {
+            return Optional.empty();
+        }
+        Optional<Questionnaire> loaded = questionnaireRepository.findById(id);
+        if (loaded.isPresent()) {
+            register(loaded.get());
+        } else {
+            unknownIds.add(id);
+        }
+        return loaded;
+    }
+}
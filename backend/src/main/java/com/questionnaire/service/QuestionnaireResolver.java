@@ -1,17 +1,13 @@
 package com.questionnaire.service;
 
 import com.questionnaire.constants.QuestionnaireConstants;
-import com.questionnaire.model.Question;
 import com.questionnaire.model.Questionnaire;
 import com.questionnaire.model.QuestionnaireType;
 import com.questionnaire.model.ResolvedQuestionnaire;
-import com.questionnaire.repository.QuestionRepository;
 import com.questionnaire.service.interfaces.IQuestionnaireService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-import java.util.Optional;
 
 /**
  * Resolver klasse til at håndtere questionnaire ID resolution
@@ -21,18 +17,15 @@ import java.util.Optional;
 public class QuestionnaireResolver {
     
     private final IQuestionnaireService questionnaireService;
-    private final QuestionRepository questionRepository;
 
     @Autowired
-    public QuestionnaireResolver(IQuestionnaireService questionnaireService,
-                                 QuestionRepository questionRepository) {
+    public QuestionnaireResolver(IQuestionnaireService questionnaireService) {
         this.questionnaireService = questionnaireService;
-        this.questionRepository = questionRepository;
     }
     
     /**
      * Resolver questionnaire ID til faktisk ID og type
-     * Håndterer "morning"/"evening" strings, MongoDB ObjectIds, og fallback via questions
+     * Håndterer "morning"/"evening" strings og MongoDB ObjectIds via det in-memory register
      * @param questionnaireId Input ID (kan være "morning", "evening", eller MongoDB ObjectId)
      * @return ResolvedQuestionnaire med faktisk ID og type, eller null hvis ikke fundet
      */
@@ -44,32 +37,11 @@ public class QuestionnaireResolver {
         } else if (QuestionnaireConstants.QUESTIONNAIRE_TYPE_EVENING.equals(questionnaireId)) {
             Questionnaire questionnaire = questionnaireService.getQuestionnaireByType(QuestionnaireType.evening);
             return new ResolvedQuestionnaire(questionnaire.getId(), QuestionnaireType.evening);
-        } else {
-            // Hvis det er en MongoDB ObjectId, find questionnaire ved ID
-            Optional<Questionnaire> questionnaireOpt = questionnaireService.findById(questionnaireId);
-            if (questionnaireOpt.isPresent()) {
-                Questionnaire questionnaire = questionnaireOpt.get();
-                return new ResolvedQuestionnaire(questionnaireId, questionnaire.getType());
-            } else {
-                // Hvis ikke fundet, prøv at finde via spørgsmålene
-                List<Question> questions = questionRepository.findByQuestionnaireIdOrderByOrderAsc(questionnaireId);
-                if (!questions.isEmpty()) {
-                    String foundQuestionnaireId = questions.get(0).getQuestionnaireId();
-                    questionnaireOpt = questionnaireService.findById(foundQuestionnaireId);
-                    if (questionnaireOpt.isPresent()) {
-                        Questionnaire questionnaire = questionnaireOpt.get();
-                        return new ResolvedQuestionnaire(foundQuestionnaireId, questionnaire.getType());
-                    }
-                }
-            }
         }
-        
-        return null;
+
+        // Hvis det er en MongoDB ObjectId, find questionnaire ved ID (ukendte ID'er caches negativt)
+        return questionnaireService.findById(questionnaireId)
+                .map(questionnaire -> new ResolvedQuestionnaire(questionnaireId, questionnaire.getType()))
+                .orElse(null);
     }
 }
-
-
-
-
-
-
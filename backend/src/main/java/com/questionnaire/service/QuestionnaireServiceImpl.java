@@ -3,9 +3,7 @@ package com.questionnaire.service;
 import com.questionnaire.model.Question;
 import com.questionnaire.model.Questionnaire;
 import com.questionnaire.model.QuestionnaireType;
-import com.questionnaire.repository.QuestionRepository;
 import com.questionnaire.repository.QuestionnaireRepository;
-import com.questionnaire.service.interfaces.IQuestionService;
 import com.questionnaire.service.interfaces.IQuestionnaireService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -17,46 +15,45 @@ import java.util.Optional;
 public class QuestionnaireServiceImpl implements IQuestionnaireService {
 
     private final QuestionnaireRepository questionnaireRepository;
-    private final QuestionRepository questionRepository;
-    private final IQuestionService questionService;
+    private final QuestionnaireRegistry questionnaireRegistry;
+    private final QuestionnaireSnapshotCache snapshotCache;
 
     @Autowired
     public QuestionnaireServiceImpl(QuestionnaireRepository questionnaireRepository,
-                                   QuestionRepository questionRepository,
-                                   IQuestionService questionService) {
+                                   QuestionnaireRegistry questionnaireRegistry,
+                                   QuestionnaireSnapshotCache snapshotCache) {
         this.questionnaireRepository = questionnaireRepository;
-        this.questionRepository = questionRepository;
-        this.questionService = questionService;
+        this.questionnaireRegistry = questionnaireRegistry;
+        this.snapshotCache = snapshotCache;
     }
 
     public Questionnaire getQuestionnaireByType(QuestionnaireType type) {
-        return questionnaireRepository.findByType(type)
+        return questionnaireRegistry.findByType(type)
                 .orElseThrow(() -> new RuntimeException("Questionnaire mangler: " + type));
     }
 
     public List<Question> getQuestionsByQuestionnaireId(String questionnaireId) {
-        return questionRepository.findByQuestionnaireIdOrderByOrderAsc(questionnaireId);
+        return snapshotCache.getSnapshot(questionnaireId).getQuestions();
     }
 
     public List<Question> getQuestionsByQuestionnaireId(String questionnaireId, String language) {
-        List<Question> questions = getQuestionsByQuestionnaireId(questionnaireId);
-        // Oversæt spørgsmål baseret på sprog
-        return questions.stream()
-                .map(q -> questionService.translateQuestion(q, language))
-                .collect(java.util.stream.Collectors.toList());
+        // Delte oversatte views - ingen kopiering pr. request
+        return QuestionTranslations.of(snapshotCache.getSnapshot(questionnaireId)).forLanguage(language);
     }
 
     public Questionnaire createQuestionnaire(QuestionnaireType type, String name) {
         Questionnaire questionnaire = new Questionnaire(type, name);
-        return questionnaireRepository.save(questionnaire);
+        Questionnaire saved = questionnaireRepository.save(questionnaire);
+        questionnaireRegistry.register(saved);
+        return saved;
     }
 
     public Optional<Questionnaire> findByType(QuestionnaireType type) {
-        return questionnaireRepository.findByType(type);
+        return questionnaireRegistry.findByType(type);
     }
 
     public Optional<Questionnaire> findById(String id) {
-        return questionnaireRepository.findById(id);
+        return questionnaireRegistry.findById(id);
     }
 }
 
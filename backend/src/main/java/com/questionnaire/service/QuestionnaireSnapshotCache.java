@@ -0,0 +1,83 @@
+package com.questionnaire.service;
+
+import com.questionnaire.model.Question;
+import com.questionnaire.model.QuestionnaireSnapshot;
+import com.questionnaire.repository.QuestionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory cache af kompilerede spørgeskema-snapshots
+ * Spørgsmål hentes fra MongoDB én gang pr. version og deles af validering, beregning og navigation.
+ * Alle ændringer af spørgsmål skal kalde {@link #invalidate(String)}.
+ */
+@Component
+public class QuestionnaireSnapshotCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuestionnaireSnapshotCache.class);
+
+    private final QuestionRepository questionRepository;
+    private final ConcurrentHashMap<String, QuestionnaireSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final AtomicLong versionSequence = new AtomicLong();
+
+    @Autowired
+    public QuestionnaireSnapshotCache(QuestionRepository questionRepository) {
+        this.questionRepository = questionRepository;
+    }
+
+    /**
+     * Henter snapshot for et spørgeskema og indlæser det fra databasen hvis det ikke er cachet
+     * @param questionnaireId MongoDB ObjectId for spørgeskemaet
+     * @return Snapshot med aktive spørgsmål sorteret efter order
+     */
+    public QuestionnaireSnapshot getSnapshot(String questionnaireId) {
+        QuestionnaireSnapshot snapshot = snapshots.get(questionnaireId);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        if (questionnaireId == null) {
+            return load(null);
+        }
+
+        // computeIfAbsent blokerer samtidig invalidate() på samme nøgle, så et snapshot
+        // indlæst før en ændring altid fjernes igen af den efterfølgende invalidering
+        snapshot = snapshots.computeIfAbsent(questionnaireId, this::load);
+        if (snapshot.isEmpty()) {
+            // Tomme resultater caches ikke, så ukendte ID'er ikke fylder cachen op
+            snapshots.remove(questionnaireId, snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Fjerner snapshot for et spørgeskema, så næste opslag indlæser en ny version
+     */
+    public void invalidate(String questionnaireId) {
+        if (questionnaireId == null) {
+            return;
+        }
+        if (snapshots.remove(questionnaireId) != null) {
+            logger.debug("Snapshot invalideret for questionnaireId: {}", questionnaireId);
+        }
+    }
+
+    /**
+     * Fjerner alle snapshots (fx efter seeding direkte mod repository)
+     */
+    public void invalidateAll() {
+        snapshots.clear();
+    }
+
+    private QuestionnaireSnapshot load(String questionnaireId) {
+        List<Question> questions = questionRepository.findByQuestionnaireIdOrderByOrderAsc(questionnaireId);
+        long version = versionSequence.incrementAndGet();
+        logger.debug("Indlæste snapshot v{} for questionnaireId: {} ({} spørgsmål)", version, questionnaireId, questions.size());
+        return new QuestionnaireSnapshot(questionnaireId, version, questions);
+    }
+}
@@ -0,0 +1,514 @@
+package com.questionnaire.service;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import com.questionnaire.model.QuestionnaireType;
+import com.questionnaire.model.Response;
+import io.github.cdimascio.dotenv.Dotenv;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonBinaryReader;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Valgfri write-behind for nye besvarelser (RESPONSE_WRITE_BEHIND=true, som standard slået fra).
+ * En accepteret besvarelse skrives som BSON i en lokal memory-mapped journalfil og tvinges til disk,
+ * hvorefter den kvitteres med det samme. En baggrundstråd tømmer journalen til MongoDB i uordnede
+ * bulkWrite batches og rykker først læsepositionen når batchen er skrevet; ved opstart fortsættes
+ * fra den gemte position, så intet accepteret tabes selvom MongoDB eller processen går ned.
+ * Besvarelserne har id fra start, så en batch der gentages efter et nedbrud afvises af _id indexet
+ * i stedet for at blive indsat to gange.
+ * Afviser det unikke (userId, questionnaireType, localDate) index en besvarelse ved tømning (gemt af
+ * en anden instans eller batch-endpointet), er det en konflikt: besvarelsen gemmes i
+ * response_conflicts, så den kan afstemmes, og tælles i status. En post der ikke kan afkodes,
+ * flyttes til en .rejected fil ved siden af journalen, så resten stadig tømmes.
+ *
+ * Filformat: header [magic][læseposition][skriveposition] efterfulgt af poster [længde][BSON].
+ */
+@Component
+public class ResponseJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseJournal.class);
+
+    static final int MAGIC = 0x524A4E31; // "RJN1"
+    static final int HEADER_SIZE = 24;
+    private static final String ID_INDEX = "index: _id_ ";
+    private static final int READ_OFFSET_POSITION = 8;
+    private static final int WRITE_OFFSET_POSITION = 16;
+
+    public static final long DEFAULT_CAPACITY = 64L * 1024 * 1024;
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 200;
+    private static final String DEFAULT_PATH = "data/response-journal.bin";
+    public static final String CONFLICT_COLLECTION = "response_conflicts";
+
+    private final MongoOperations mongoOperations;
+    private final AnsweredTodayTracker answeredTodayTracker;
+    private final SleepRollupStore sleepRollupStore;
+    private final boolean enabled;
+    private final Path path;
+    private final long capacity;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final Object drainLock = new Object();
+    private final Path rejectedPath;
+    private final Set<String> pendingDays = ConcurrentHashMap.newKeySet();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long readOffset;
+    private long writeOffset;
+    private ScheduledExecutorService drainer;
+    private volatile long drained;
+    private volatile long dropped;
+    private volatile long conflicts;
+    private volatile long rejected;
+    private volatile String lastError;
+
+    @Autowired
+    public ResponseJournal(MongoOperations mongoOperations, AnsweredTodayTracker answeredTodayTracker,
+                           SleepRollupStore sleepRollupStore) {
+        this(mongoOperations, answeredTodayTracker, sleepRollupStore,
+                Boolean.parseBoolean(setting("RESPONSE_WRITE_BEHIND", "false")),
+                Paths.get(setting("RESPONSE_JOURNAL_PATH", DEFAULT_PATH)),
+                DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL_MS);
+    }
+
+    /**
+     * @param capacity Journalfilens størrelse i bytes (inkl. header)
+     * @param batchSize Maks. antal besvarelser pr. bulkWrite
+     * @param flushIntervalMs Pause mellem tømninger (0 = ingen baggrundstråd, kun drain())
+     */
+    public ResponseJournal(MongoOperations mongoOperations, AnsweredTodayTracker answeredTodayTracker,
+                           SleepRollupStore sleepRollupStore, boolean enabled, Path path,
+                           long capacity, int batchSize, long flushIntervalMs) {
+        this.mongoOperations = mongoOperations;
+        this.answeredTodayTracker = answeredTodayTracker;
+        this.sleepRollupStore = sleepRollupStore;
+        this.enabled = enabled;
+        this.path = path;
+        this.rejectedPath = Paths.get(path + ".rejected");
+        this.capacity = Math.min(capacity, Integer.MAX_VALUE);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    /**
+     * Åbner journalen, registrerer besvarelser der ikke nåede MongoDB før sidste nedlukning
+     * og starter baggrundstømningen
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Kunne ikke åbne response journal: " + path, e);
+        }
+        List<Response> pending = readPending(Integer.MAX_VALUE).responses;
+        for (Response response : pending) {
+            pendingDays.add(dayKey(response.getUserId(), response.getQuestionnaireType(), response.getLocalDate()));
+        }
+        try {
+            for (Response response : pending) {
+                answeredTodayTracker.markAnswered(response.getUserId(), response.getQuestionnaireType(), response.getLocalDate());
+            }
+        } catch (Exception e) {
+            logger.warn("Kunne ikke registrere ventende besvarelser som besvaret i dag: {}", e.getMessage());
+        }
+        logger.info("Write-behind aktiv med journal {} ({} ventende besvarelser)", path.toAbsolutePath(), pending.size());
+
+        if (flushIntervalMs > 0) {
+            drainer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "response-journal");
+                thread.setDaemon(true);
+                return thread;
+            });
+            drainer.scheduleWithFixedDelay(this::drainQuietly, 0, flushIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Tømmer journalen en sidste gang (hvis MongoDB svarer) og lukker filen; resten tømmes ved næste opstart
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled || channel == null) {
+            return;
+        }
+        if (drainer != null) {
+            drainer.shutdown();
+            try {
+                drainer.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        drainQuietly();
+        synchronized (this) {
+            buffer.force();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Kunne ikke lukke response journal", e);
+            }
+            channel = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Om journalen har en besvarelse for brugerens type på dagen, som endnu ikke er skrevet til MongoDB
+     * (det unikke index kan derfor ikke afvise en dublet endnu)
+     */
+    public boolean isPending(String userId, QuestionnaireType type, String localDate) {
+        return pendingDays.contains(dayKey(userId, type, localDate));
+    }
+
+    /**
+     * Skriver besvarelsen i journalen og tvinger den til disk
+     * @param response Besvarelse med tildelt id
+     * @return false hvis journalen er fuld; kalderen skal så gemme synkront
+     */
+    public boolean append(Response response) {
+        if (response.getId() == null) {
+            throw new IllegalArgumentException("Besvarelsen skal have et id før den skrives i journalen");
+        }
+        Document document = new Document();
+        mongoOperations.getConverter().write(response, document);
+        byte[] bson = toBson(document);
+        int recordSize = Integer.BYTES + bson.length;
+        String day = dayKey(response.getUserId(), response.getQuestionnaireType(), response.getLocalDate());
+
+        synchronized (this) {
+            if (channel == null) {
+                return false;
+            }
+            if (writeOffset + recordSize > capacity) {
+                compact();
+                if (writeOffset + recordSize > capacity) {
+                    return false;
+                }
+            }
+            // Dagen markeres før skrivningen, så batch-endpointet aldrig ser den som ledig
+            pendingDays.add(day);
+            int position = (int) writeOffset;
+            buffer.putInt(position, bson.length);
+            buffer.put(position + Integer.BYTES, bson);
+            buffer.force(position, recordSize);
+            // Skrivepositionen rykkes først når posten ligger på disk, så en halvt skrevet post ignoreres
+            writeOffset += recordSize;
+            buffer.putLong(WRITE_OFFSET_POSITION, writeOffset);
+            buffer.force(0, HEADER_SIZE);
+        }
+        return true;
+    }
+
+    /**
+     * Skriver op til batchSize ventende besvarelser til MongoDB og rykker læsepositionen
+     * @return Antal poster der blev behandlet (indsat, konflikt, afvist af MongoDB eller ikke-afkodelig)
+     */
+    public int drain() {
+        synchronized (drainLock) {
+            Pending pending = readPending(batchSize);
+            if (pending.responses.isEmpty() && pending.undecodable.isEmpty()) {
+                return 0;
+            }
+            List<Response> inserted = pending.responses.isEmpty() ? List.of() : insert(pending.responses);
+            moveAside(pending.undecodable);
+            advance(pending.bytes);
+            for (Response response : pending.responses) {
+                pendingDays.remove(dayKey(response.getUserId(), response.getQuestionnaireType(), response.getLocalDate()));
+            }
+            drained += inserted.size();
+            try {
+                sleepRollupStore.recordAll(inserted);
+            } catch (Exception e) {
+                logger.error("Kunne ikke opdatere søvn-rollups efter write-behind batch", e);
+            }
+            return pending.responses.size() + pending.undecodable.size();
+        }
+    }
+
+    /**
+     * Status for journalen (ventende poster, tømt, droppet og seneste fejl)
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        if (enabled) {
+            long pendingBytes;
+            synchronized (this) {
+                pendingBytes = writeOffset - readOffset;
+            }
+            status.put("path", path.toAbsolutePath().toString());
+            status.put("capacityBytes", capacity);
+            status.put("pendingBytes", pendingBytes);
+            status.put("drained", drained);
+            status.put("dropped", dropped);
+            status.put("conflicts", conflicts);
+            status.put("rejected", rejected);
+            status.put("lastError", lastError);
+        }
+        return status;
+    }
+
+    private void drainQuietly() {
+        try {
+            // Bliv ved så længe der er fulde batches, så en kø efter en MongoDB-pause indhentes hurtigt
+            while (drain() == batchSize) {
+                // næste batch
+            }
+            lastError = null;
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            logger.warn("Write-behind kunne ikke skrive til MongoDB, prøver igen: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Indsætter batchen. En dublet på _id er en gentaget batch (allerede indsat); en dublet på
+     * (userId, questionnaireType, localDate) gemmes som konflikt; andre fejl for enkelte dokumenter
+     * droppes. Fejl for hele kaldet (forbindelse, timeout) kastes så batchen prøves igen.
+     */
+    private List<Response> insert(List<Response> batch) {
+        BulkOperations bulk = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Response.class);
+        bulk.insert(batch);
+        try {
+            bulk.execute();
+            return batch;
+        } catch (BulkOperationException e) {
+            Set<Integer> failed = new HashSet<>();
+            List<Response> conflicted = new ArrayList<>();
+            int droppedNow = 0;
+            for (BulkWriteError error : e.getErrors()) {
+                Response response = batch.get(error.getIndex());
+                if (error.getCategory() == ErrorCategory.DUPLICATE_KEY && error.getMessage().contains(ID_INDEX)) {
+                    // Indsat før et nedbrud; rollup-opdateringen er idempotent pr. dag, så den gentages
+                    continue;
+                }
+                failed.add(error.getIndex());
+                if (error.getCategory() == ErrorCategory.DUPLICATE_KEY) {
+                    conflicted.add(response);
+                } else {
+                    logger.error("Write-behind besvarelse {} for bruger {} afvist af MongoDB: {}",
+                            response.getId(), response.getUserId(), error.getMessage());
+                    droppedNow++;
+                }
+            }
+            saveConflicts(conflicted);
+            conflicts += conflicted.size();
+            dropped += droppedNow;
+            List<Response> inserted = new ArrayList<>(batch.size() - failed.size());
+            for (int i = 0; i < batch.size(); i++) {
+                if (!failed.contains(i)) {
+                    inserted.add(batch.get(i));
+                }
+            }
+            return inserted;
+        }
+    }
+
+    /**
+     * Gemmer besvarelser der kolliderede med en eksisterende besvarelse for samme dag, så de ikke tabes.
+     * Upsert på _id, så en gentaget batch ikke giver to kopier; fejler det, kastes så batchen prøves igen.
+     */
+    private void saveConflicts(List<Response> conflicted) {
+        Date now = new Date();
+        for (Response response : conflicted) {
+            logger.error("Write-behind besvarelse {} for bruger {} kolliderer med en eksisterende besvarelse ({} {}); gemt i {}",
+                    response.getId(), response.getUserId(), response.getQuestionnaireType(), response.getLocalDate(),
+                    CONFLICT_COLLECTION);
+            Document document = new Document();
+            mongoOperations.getConverter().write(response, document);
+            document.put("conflictedAt", now);
+            mongoOperations.save(document, CONFLICT_COLLECTION);
+        }
+    }
+
+    /**
+     * Skriver poster der ikke kunne afkodes i .rejected filen ([længde][bytes] som i journalen),
+     * før læsepositionen rykkes forbi dem
+     */
+    private void moveAside(List<byte[]> undecodable) {
+        if (undecodable.isEmpty()) {
+            return;
+        }
+        try (FileChannel rejectedChannel = FileChannel.open(rejectedPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            for (byte[] record : undecodable) {
+                ByteBuffer entry = ByteBuffer.allocate(Integer.BYTES + record.length);
+                entry.putInt(record.length).put(record).flip();
+                while (entry.hasRemaining()) {
+                    rejectedChannel.write(entry);
+                }
+            }
+            rejectedChannel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Kunne ikke flytte ugyldige poster til " + rejectedPath, e);
+        }
+        rejected += undecodable.size();
+        logger.error("{} write-behind post(er) kunne ikke afkodes og er flyttet til {}", undecodable.size(), rejectedPath);
+    }
+
+    private synchronized Pending readPending(int max) {
+        Pending pending = new Pending();
+        if (channel == null) {
+            return pending;
+        }
+        long position = readOffset;
+        while (position < writeOffset && pending.responses.size() < max) {
+            int length = buffer.getInt((int) position);
+            if (length < 0 || position + Integer.BYTES + length > writeOffset) {
+                // Længden er ødelagt, så resten kan ikke opdeles i poster; flyt det hele til side
+                byte[] rest = new byte[(int) (writeOffset - position)];
+                buffer.get((int) position, rest);
+                pending.undecodable.add(rest);
+                position = writeOffset;
+                break;
+            }
+            byte[] bson = new byte[length];
+            buffer.get((int) position + Integer.BYTES, bson);
+            try {
+                pending.responses.add(mongoOperations.getConverter().read(Response.class, fromBson(bson)));
+            } catch (RuntimeException e) {
+                logger.warn("Write-behind post ved position {} kunne ikke afkodes: {}", position, e.getMessage());
+                pending.undecodable.add(bson);
+            }
+            position += Integer.BYTES + length;
+        }
+        pending.bytes = position - readOffset;
+        return pending;
+    }
+
+    /**
+     * Rykker læsepositionen med antal bytes (relativt, så en samtidig compact ikke forskyder den)
+     */
+    private synchronized void advance(long bytes) {
+        readOffset += bytes;
+        if (readOffset == writeOffset) {
+            readOffset = HEADER_SIZE;
+            writeOffset = HEADER_SIZE;
+        }
+        writeOffsets();
+    }
+
+    /**
+     * Flytter de ventende poster til starten af filen for at gøre plads. Kun når de ikke overlapper
+     * deres nye plads, så et nedbrud midt i flytningen efterlader de gamle poster urørte.
+     */
+    private void compact() {
+        int length = (int) (writeOffset - readOffset);
+        if (readOffset - HEADER_SIZE < length) {
+            return;
+        }
+        byte[] pending = new byte[length];
+        buffer.get((int) readOffset, pending);
+        buffer.put(HEADER_SIZE, pending);
+        buffer.force(HEADER_SIZE, length);
+        readOffset = HEADER_SIZE;
+        writeOffset = HEADER_SIZE + length;
+        writeOffsets();
+    }
+
+    private void writeOffsets() {
+        buffer.putLong(READ_OFFSET_POSITION, readOffset);
+        buffer.putLong(WRITE_OFFSET_POSITION, writeOffset);
+        buffer.force(0, HEADER_SIZE);
+    }
+
+    private synchronized void open() throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        if (buffer.getInt(0) == MAGIC) {
+            readOffset = buffer.getLong(READ_OFFSET_POSITION);
+            writeOffset = buffer.getLong(WRITE_OFFSET_POSITION);
+            if (readOffset < HEADER_SIZE || writeOffset < readOffset || writeOffset > capacity) {
+                throw new IOException("Ugyldig header i response journal");
+            }
+        } else {
+            buffer.putInt(0, MAGIC);
+            readOffset = HEADER_SIZE;
+            writeOffset = HEADER_SIZE;
+            writeOffsets();
+        }
+    }
+
+    private static byte[] toBson(Document document) {
+        RawBsonDocument raw = new RawBsonDocument(document, new DocumentCodec());
+        ByteBuffer bytes = raw.getByteBuffer().asNIO();
+        byte[] bson = new byte[bytes.remaining()];
+        bytes.get(bson);
+        return bson;
+    }
+
+    private static Document fromBson(byte[] bson) {
+        try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(bson))) {
+            return new DocumentCodec().decode(reader, DecoderContext.builder().build());
+        }
+    }
+
+    private static String dayKey(String userId, QuestionnaireType type, String localDate) {
+        return userId + "|" + type + "|" + localDate;
+    }
+
+    /**
+     * Læser en indstilling fra miljøvariabler eller .env fil i backend mappen
+     */
+    private static String setting(String name, String defaultValue) {
+        String value = Dotenv.configure()
+                .directory(System.getProperty("user.dir"))
+                .ignoreIfMissing()
+                .load()
+                .get(name);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    /**
+     * Ventende poster fra læsepositionen og hvor mange bytes de fylder
+     */
+    private static final class Pending {
+        private final List<Response> responses = new ArrayList<>();
+        private final List<byte[]> undecodable = new ArrayList<>();
+        private long bytes;
+    }
+}
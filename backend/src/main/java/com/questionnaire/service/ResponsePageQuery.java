@@ -0,0 +1,127 @@
+package com.questionnaire.service;
+
+import com.questionnaire.constants.QuestionnaireConstants;
+import com.questionnaire.exception.ValidationException;
+import com.questionnaire.model.QuestionnaireType;
+import com.questionnaire.model.Response;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyset-paginering af en brugers besvarelser, nyeste først, på (createdAt, _id).
+ * Næste side findes ud fra sidste element på forrige side i stedet for skip,
+ * så hver side koster det samme uanset hvor langt tilbage i historikken man er.
+ * Dækkes af indexene user_createdAt_id og user_type_createdAt_id.
+ */
+@Component
+public class ResponsePageQuery {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private static final ZoneId COPENHAGEN = ZoneId.of(QuestionnaireConstants.COPENHAGEN_TIMEZONE);
+
+    private final MongoOperations mongoOperations;
+
+    @Autowired
+    public ResponsePageQuery(MongoOperations mongoOperations) {
+        this.mongoOperations = mongoOperations;
+    }
+
+    /**
+     * Henter en side
+     * @param after Cursor fra forrige side (nextCursor) eller null for første side
+     * @param type Valgfrit filter på questionnaire type
+     * @param from Første dag (inklusiv, dansk tid) eller null
+     * @param to Sidste dag (eksklusiv, dansk tid) eller null
+     * @return Map med "items" og "nextCursor" (null når der ikke er flere)
+     */
+    public Map<String, Object> findPage(String userId, int limit, String after, QuestionnaireType type,
+                                        LocalDate from, LocalDate to) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ValidationException("limit skal være mellem 1 og " + MAX_LIMIT);
+        }
+
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (type != null) {
+            criteria = criteria.and("questionnaireType").is(type);
+        }
+        if (from != null || to != null) {
+            Criteria createdAt = criteria.and("createdAt");
+            if (from != null) {
+                createdAt = createdAt.gte(startOfDay(from));
+            }
+            if (to != null) {
+                createdAt.lt(startOfDay(to));
+            }
+        }
+        Query query = new Query(criteria);
+        if (after != null && !after.isBlank()) {
+            Cursor cursor = Cursor.decode(after);
+            // Efter (createdAt, id): ældre tidspunkt, eller samme tidspunkt og lavere id
+            query.addCriteria(new Criteria().orOperator(
+                    Criteria.where("createdAt").lt(cursor.createdAt),
+                    new Criteria().andOperator(
+                            Criteria.where("createdAt").is(cursor.createdAt),
+                            Criteria.where("id").lt(cursor.id))));
+        }
+        query.with(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")));
+        // Hent én ekstra for at vide om der er en næste side
+        query.limit(limit + 1);
+
+        List<Response> found = mongoOperations.find(query, Response.class);
+        boolean hasMore = found.size() > limit;
+        List<Response> items = hasMore ? new ArrayList<>(found.subList(0, limit)) : found;
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("items", items);
+        page.put("nextCursor", hasMore ? Cursor.encode(items.get(items.size() - 1)) : null);
+        return page;
+    }
+
+    private static Date startOfDay(LocalDate date) {
+        return Date.from(date.atStartOfDay(COPENHAGEN).toInstant());
+    }
+
+    /**
+     * Uigennemsigtig cursor: base64url af "createdAtMillis:id"
+     */
+    static final class Cursor {
+        private final Date createdAt;
+        private final String id;
+
+        private Cursor(Date createdAt, String id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+
+        static String encode(Response last) {
+            String raw = last.getCreatedAt().getTime() + ":" + last.getId();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String value) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+                int separator = raw.indexOf(':');
+                return new Cursor(new Date(Long.parseLong(raw.substring(0, separator))), raw.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new ValidationException("Ugyldig cursor");
+            }
+        }
+    }
+}
@@ -1,18 +1,20 @@
 package com.questionnaire.service;
 
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import com.questionnaire.dto.DatedResponseRequest;
 import com.questionnaire.exception.ResponseAlreadyExistsException;
 import com.questionnaire.exception.ValidationException;
 import com.questionnaire.model.Question;
-import com.questionnaire.model.Questionnaire;
+import com.questionnaire.model.QuestionnaireSnapshot;
 import com.questionnaire.model.QuestionnaireType;
 import com.questionnaire.model.ResolvedQuestionnaire;
 import com.questionnaire.model.Response;
 import com.questionnaire.model.SleepParameters;
-import com.questionnaire.repository.QuestionRepository;
+import com.questionnaire.model.SubmissionContext;
+import com.questionnaire.model.SubmissionContext.Stage;
 import com.questionnaire.repository.ResponseRepository;
 import com.questionnaire.constants.QuestionnaireConstants;
-import com.questionnaire.service.interfaces.IQuestionService;
-import com.questionnaire.service.interfaces.IQuestionnaireService;
 import com.questionnaire.service.interfaces.IResponseService;
 import com.questionnaire.service.interfaces.IResponseValidationService;
 import com.questionnaire.service.interfaces.ISleepParameterCalculator;
@@ -20,92 +22,373 @@ import com.questionnaire.strategy.DefaultConditionalLogic;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.bson.types.ObjectId;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.ZoneId;
-import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Service
 public class ResponseServiceImpl implements IResponseService {
 
     private static final Logger logger = LoggerFactory.getLogger(ResponseServiceImpl.class);
+    private static final ZoneId COPENHAGEN = ZoneId.of(QuestionnaireConstants.COPENHAGEN_TIMEZONE);
 
     private final ResponseRepository responseRepository;
-    private final QuestionRepository questionRepository;
+    private final QuestionnaireSnapshotCache snapshotCache;
     private final ISleepParameterCalculator sleepParameterCalculator;
-    private final IQuestionnaireService questionnaireService;
-    private final IQuestionService questionService;
     private final IResponseValidationService responseValidationService;
     private final DefaultConditionalLogic conditionalLogicStrategy;
     private final QuestionnaireResolver questionnaireResolver;
+    private final SubmissionMetrics submissionMetrics;
+    private final SleepRollupStore sleepRollupStore;
+    private final AnsweredTodayTracker answeredTodayTracker;
+    private final MongoOperations mongoOperations;
+    private final ResponseJournal responseJournal;
 
     @Autowired
     public ResponseServiceImpl(ResponseRepository responseRepository,
-                              QuestionRepository questionRepository,
+                              QuestionnaireSnapshotCache snapshotCache,
                               ISleepParameterCalculator sleepParameterCalculator,
-                              IQuestionnaireService questionnaireService,
-                              IQuestionService questionService,
                               IResponseValidationService responseValidationService,
                               DefaultConditionalLogic conditionalLogicStrategy,
-                              QuestionnaireResolver questionnaireResolver) {
+                              QuestionnaireResolver questionnaireResolver,
+                              SubmissionMetrics submissionMetrics,
+                              SleepRollupStore sleepRollupStore,
+                              AnsweredTodayTracker answeredTodayTracker,
+                              MongoOperations mongoOperations,
+                              ResponseJournal responseJournal) {
         this.responseRepository = responseRepository;
-        this.questionRepository = questionRepository;
+        this.snapshotCache = snapshotCache;
         this.sleepParameterCalculator = sleepParameterCalculator;
-        this.questionnaireService = questionnaireService;
-        this.questionService = questionService;
         this.responseValidationService = responseValidationService;
         this.conditionalLogicStrategy = conditionalLogicStrategy;
         this.questionnaireResolver = questionnaireResolver;
+        this.submissionMetrics = submissionMetrics;
+        this.sleepRollupStore = sleepRollupStore;
+        this.answeredTodayTracker = answeredTodayTracker;
+        this.mongoOperations = mongoOperations;
+        this.responseJournal = responseJournal;
     }
 
     public Response saveResponse(String userId, String questionnaireId, Map<String, Object> answers) {
-        // Resolve questionnaire ID og type
+        // Resolve questionnaire ID og type, og hent definitionen én gang til hele pipelinen
+        long start = System.nanoTime();
         ResolvedQuestionnaire resolved = resolveQuestionnaire(questionnaireId);
         if (resolved == null) {
             throw new RuntimeException("Kunne ikke finde spørgeskema: " + questionnaireId);
         }
-        
-        // Valider at der ikke allerede er en response i dag
-        validateNoDuplicateResponse(userId, resolved.getQuestionnaireType());
+        SubmissionContext context = new SubmissionContext(userId, resolved,
+                snapshotCache.getSnapshot(resolved.getQuestionnaireId()), answers);
+        long now = System.nanoTime();
+        context.recordStage(Stage.RESOLVE, now - start);
         
         // Valider svar før vi gemmer
-        responseValidationService.validateResponse(resolved.getQuestionnaireId(), answers);
+        start = now;
+        responseValidationService.validateResponse(context);
+        now = System.nanoTime();
+        context.recordStage(Stage.VALIDATE, now - start);
         
         // Opret response med søvnparametre hvis nødvendigt
-        Response response = createResponseWithSleepParameters(userId, resolved, answers);
+        start = now;
+        Response response = createResponseWithSleepParameters(context);
+        now = System.nanoTime();
+        context.recordStage(Stage.CALCULATE, now - start);
         
-        return responseRepository.save(response);
+        // Dubletter i dag afvises af det unikke index på (userId, questionnaireType, localDate),
+        // så der ikke skal læses før insert, og samtidige submits ikke kan snige sig forbi
+        start = now;
+        Response saved = responseJournal.isEnabled() ? saveWriteBehind(response) : insertResponse(response);
+        context.recordStage(Stage.SAVE, System.nanoTime() - start);
+
+        submissionMetrics.record(context);
+        return saved;
     }
     
+    private Response insertResponse(Response response) {
+        Response saved;
+        try {
+            saved = responseRepository.insert(response);
+        } catch (DuplicateKeyException e) {
+            answeredTodayTracker.markAnswered(response.getUserId(), response.getQuestionnaireType(), response.getLocalDate());
+            throw new ResponseAlreadyExistsException("Dette spørgeskema er allerede besvaret i dag");
+        }
+        answeredTodayTracker.markAnswered(saved.getUserId(), saved.getQuestionnaireType(), saved.getLocalDate());
+        updateSleepRollup(saved);
+        return saved;
+    }
+
     /**
-     * Resolver questionnaire ID til faktisk ID og type
+     * Write-behind: dubletkontrollen sker i dagens bitset (indexet rammes først når journalen tømmes),
+     * og besvarelsen får id og skrives i den lokale journal. Er journalen fuld, gemmes synkront.
      */
-    private ResolvedQuestionnaire resolveQuestionnaire(String questionnaireId) {
-        return questionnaireResolver.resolveQuestionnaireId(questionnaireId);
+    private Response saveWriteBehind(Response response) {
+        if (!answeredTodayTracker.tryMarkAnswered(response.getUserId(), response.getQuestionnaireType(), response.getLocalDate())) {
+            throw new ResponseAlreadyExistsException("Dette spørgeskema er allerede besvaret i dag");
+        }
+        response.setId(new ObjectId().toHexString());
+        try {
+            if (responseJournal.append(response)) {
+                return response;
+            }
+            return insertResponse(response);
+        } catch (ResponseAlreadyExistsException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            answeredTodayTracker.clearAnswered(response.getUserId(), response.getQuestionnaireType(), response.getLocalDate());
+            throw e;
+        }
     }
-    
+
     /**
-     * Validerer at der ikke allerede er en response for denne questionnaire type i dag
+     * Gemmer flere daterede besvarelser i ét kald (fx efter en offline-periode).
+     * Hvert spørgeskema resolves én gang og deler snapshot; elementerne valideres og søvnparametre
+     * beregnes parallelt, og alle gyldige indsættes med én uordnet bulkWrite, hvor det unikke
+     * (userId, questionnaireType, localDate) index afviser dubletter pr. element. Med write-behind
+     * går elementerne gennem samme dubletkontrol som saveResponse (se reserveDay).
+     * @return Resultat pr. element i samme rækkefølge med status "created" (og id), "duplicate" eller "invalid" (og error)
      */
-    private void validateNoDuplicateResponse(String userId, QuestionnaireType questionnaireType) {
-        if (hasResponseForToday(userId, questionnaireType)) {
-            throw new ResponseAlreadyExistsException("Dette spørgeskema er allerede besvaret i dag");
+    public List<Map<String, Object>> saveResponses(String userId, List<DatedResponseRequest> requests) {
+        if (requests == null || requests.isEmpty() || requests.size() > QuestionnaireConstants.BATCH_MAX_RESPONSES) {
+            throw new ValidationException("En batch skal indeholde mellem 1 og "
+                    + QuestionnaireConstants.BATCH_MAX_RESPONSES + " besvarelser");
+        }
+        LocalDate today = LocalDate.now(COPENHAGEN);
+
+        Map<String, ResolvedQuestionnaire> resolvedById = new HashMap<>();
+        Map<String, QuestionnaireSnapshot> snapshots = new HashMap<>();
+        for (DatedResponseRequest request : requests) {
+            if (request == null || request.getQuestionnaireId() == null || resolvedById.containsKey(request.getQuestionnaireId())) {
+                continue;
+            }
+            ResolvedQuestionnaire resolved = resolveQuestionnaire(request.getQuestionnaireId());
+            resolvedById.put(request.getQuestionnaireId(), resolved);
+            if (resolved != null) {
+                snapshots.computeIfAbsent(resolved.getQuestionnaireId(), snapshotCache::getSnapshot);
+            }
+        }
+
+        // Hvert element har sin egen SubmissionContext, så de kan behandles på hver sin tråd
+        List<BatchItem> items = IntStream.range(0, requests.size()).parallel()
+                .mapToObj(i -> prepareBatchItem(userId, requests.get(i), resolvedById, snapshots, today))
+                .toList();
+
+        List<BatchItem> toInsert = new ArrayList<>();
+        Set<String> days = new HashSet<>();
+        for (BatchItem item : items) {
+            if (item.response == null) {
+                continue;
+            }
+            if (!days.add(item.response.getQuestionnaireType() + "|" + item.response.getLocalDate())) {
+                item.fail(BatchItem.DUPLICATE, "Batchen indeholder allerede denne dag");
+                continue;
+            }
+            if (responseJournal.isEnabled() && !reserveDay(userId, item.response)) {
+                item.fail(BatchItem.DUPLICATE, "Dette spørgeskema er allerede besvaret denne dag");
+                continue;
+            }
+            item.response.setId(new ObjectId().toHexString());
+            toInsert.add(item);
+        }
+        try {
+            insertBatch(toInsert);
+        } catch (RuntimeException e) {
+            releaseDays(userId, toInsert);
+            throw e;
+        }
+
+        List<Response> created = new ArrayList<>();
+        List<Map<String, Object>> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            BatchItem item = items.get(i);
+            if (item.response != null && !BatchItem.INVALID.equals(item.status)) {
+                answeredTodayTracker.markAnswered(userId, item.response.getQuestionnaireType(), item.response.getLocalDate());
+            } else if (item.response != null) {
+                // Afvist af MongoDB: frigiv dagen igen (kun reserveret med write-behind)
+                releaseDays(userId, List.of(item));
+            }
+            if (BatchItem.CREATED.equals(item.status)) {
+                created.add(item.response);
+            }
+            results.add(item.toResult(i));
+        }
+        updateSleepRollups(userId, created);
+        logger.info("Batch for bruger {}: {} af {} besvarelser gemt", userId, created.size(), items.size());
+        return results;
+    }
+
+    /**
+     * Med write-behind ligger besvarelser måske kun i journalen, så det unikke index kan ikke afvise
+     * dubletten før journalen tømmes. Dagen reserveres derfor atomisk i samme bitset som saveWriteBehind
+     * bruger, og dage der stadig venter i journalen (fx fra før et døgnskifte) afvises.
+     * @return false hvis dagen allerede er besvaret eller venter i journalen
+     */
+    private boolean reserveDay(String userId, Response response) {
+        return answeredTodayTracker.tryMarkAnswered(userId, response.getQuestionnaireType(), response.getLocalDate())
+                && !responseJournal.isPending(userId, response.getQuestionnaireType(), response.getLocalDate());
+    }
+
+    private void releaseDays(String userId, List<BatchItem> items) {
+        if (!responseJournal.isEnabled()) {
+            return;
+        }
+        for (BatchItem item : items) {
+            answeredTodayTracker.clearAnswered(userId, item.response.getQuestionnaireType(), item.response.getLocalDate());
+        }
+    }
+
+    private BatchItem prepareBatchItem(String userId, DatedResponseRequest request,
+                                       Map<String, ResolvedQuestionnaire> resolvedById,
+                                       Map<String, QuestionnaireSnapshot> snapshots, LocalDate today) {
+        BatchItem item = new BatchItem();
+        if (request == null || request.getQuestionnaireId() == null || request.getAnswers() == null) {
+            return item.fail(BatchItem.INVALID, "Questionnaire ID og svar er påkrævet");
+        }
+        if (request.getDate() == null) {
+            return item.fail(BatchItem.INVALID, "Dato er påkrævet");
+        }
+        if (request.getDate().isAfter(today)) {
+            return item.fail(BatchItem.INVALID, "Dato må ikke ligge i fremtiden");
+        }
+        if (request.getDate().isBefore(today.minusDays(QuestionnaireConstants.BATCH_MAX_DAYS_BACK))) {
+            return item.fail(BatchItem.INVALID, "Dato må højst ligge "
+                    + QuestionnaireConstants.BATCH_MAX_DAYS_BACK + " dage tilbage");
+        }
+        ResolvedQuestionnaire resolved = resolvedById.get(request.getQuestionnaireId());
+        if (resolved == null) {
+            return item.fail(BatchItem.INVALID, "Kunne ikke finde spørgeskema: " + request.getQuestionnaireId());
+        }
+        try {
+            SubmissionContext context = new SubmissionContext(userId, resolved,
+                    snapshots.get(resolved.getQuestionnaireId()), request.getAnswers());
+            responseValidationService.validateResponse(context);
+            Response response = createResponseWithSleepParameters(context);
+            // Tidligere dage dateres kl. 12 dansk tid; i dag får det aktuelle tidspunkt
+            if (!request.getDate().equals(today)) {
+                response.setCreatedAt(Date.from(request.getDate().atTime(12, 0).atZone(COPENHAGEN).toInstant()));
+            }
+            response.setLocalDate(request.getDate().toString());
+            item.response = response;
+            return item;
+        } catch (RuntimeException e) {
+            return item.fail(BatchItem.INVALID, e.getMessage());
+        }
+    }
+
+    /**
+     * Indsætter alle med én uordnet bulkWrite; elementer afvist af det unikke index markeres som dubletter
+     */
+    private void insertBatch(List<BatchItem> toInsert) {
+        if (toInsert.isEmpty()) {
+            return;
+        }
+        for (BatchItem item : toInsert) {
+            item.status = BatchItem.CREATED;
+        }
+        BulkOperations bulk = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Response.class);
+        bulk.insert(toInsert.stream().map(item -> item.response).toList());
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                BatchItem item = toInsert.get(error.getIndex());
+                if (error.getCategory() == ErrorCategory.DUPLICATE_KEY) {
+                    item.fail(BatchItem.DUPLICATE, "Dette spørgeskema er allerede besvaret denne dag");
+                } else {
+                    item.fail(BatchItem.INVALID, error.getMessage());
+                }
+            }
+        }
+    }
+
+    private void updateSleepRollups(String userId, List<Response> created) {
+        try {
+            sleepRollupStore.recordAll(created);
+        } catch (Exception e) {
+            logger.error("Kunne ikke opdatere søvn-rollup for bruger {}", userId, e);
+        }
+    }
+
+    /**
+     * Et element i en batch: den forberedte besvarelse eller årsagen til at det blev afvist
+     */
+    private static final class BatchItem {
+        private static final String CREATED = "created";
+        private static final String DUPLICATE = "duplicate";
+        private static final String INVALID = "invalid";
+
+        private Response response;
+        private String status;
+        private String error;
+
+        private BatchItem fail(String status, String error) {
+            this.status = status;
+            this.error = error;
+            return this;
+        }
+
+        private Map<String, Object> toResult(int index) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("index", index);
+            result.put("status", status);
+            if (response != null) {
+                result.put("localDate", response.getLocalDate());
+                result.put("questionnaireType", response.getQuestionnaireType());
+            }
+            if (CREATED.equals(status)) {
+                result.put("id", response.getId());
+            }
+            if (error != null) {
+                result.put("error", error);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Opdaterer borgerens løbende søvnstatistik; en fejl her må ikke få en gemt besvarelse til at fejle
+     */
+    private void updateSleepRollup(Response saved) {
+        try {
+            sleepRollupStore.record(saved);
+        } catch (Exception e) {
+            logger.error("Kunne ikke opdatere søvn-rollup for bruger {}", saved.getUserId(), e);
         }
     }
     
+    /**
+     * Resolver questionnaire ID til faktisk ID og type
+     */
+    private ResolvedQuestionnaire resolveQuestionnaire(String questionnaireId) {
+        return questionnaireResolver.resolveQuestionnaireId(questionnaireId);
+    }
+    
     /**
      * Opretter Response og beregner søvnparametre hvis det er morgenskema
      */
-    private Response createResponseWithSleepParameters(String userId, ResolvedQuestionnaire resolved, Map<String, Object> answers) {
-        Response response = new Response(userId, resolved.getQuestionnaireId(), resolved.getQuestionnaireType(), answers);
+    private Response createResponseWithSleepParameters(SubmissionContext context) {
+        ResolvedQuestionnaire resolved = context.getResolved();
+        Response response = new Response(context.getUserId(), resolved.getQuestionnaireId(),
+                resolved.getQuestionnaireType(), context.getAnswers());
+        response.setLocalDate(localDateOf(response.getCreatedAt()));
         
         // Hvis det er morgenskema, beregn søvnparametre
         if (resolved.getQuestionnaireType() == QuestionnaireType.morning) {
-            SleepParameters sleepParams = sleepParameterCalculator.calculate(answers, resolved.getQuestionnaireId());
+            SleepParameters sleepParams = sleepParameterCalculator.calculate(context);
             response.setSleepParameters(sleepParams);
         }
         
@@ -118,56 +401,38 @@ public class ResponseServiceImpl implements IResponseService {
 
     public Question getNextQuestion(String questionnaireId, Map<String, Object> currentAnswers, String currentQuestionId, String language) {
         // Konverter "morning"/"evening" til faktisk questionnaire ID hvis nødvendigt
-        String actualQuestionnaireId = questionnaireId;
-        if (QuestionnaireConstants.QUESTIONNAIRE_TYPE_MORNING.equals(questionnaireId)) {
-            Questionnaire questionnaire = questionnaireService.getQuestionnaireByType(QuestionnaireType.morning);
-            actualQuestionnaireId = questionnaire.getId();
-        } else if (QuestionnaireConstants.QUESTIONNAIRE_TYPE_EVENING.equals(questionnaireId)) {
-            Questionnaire questionnaire = questionnaireService.getQuestionnaireByType(QuestionnaireType.evening);
-            actualQuestionnaireId = questionnaire.getId();
-        }
+        ResolvedQuestionnaire resolved = resolveQuestionnaire(questionnaireId);
+        String actualQuestionnaireId = resolved != null ? resolved.getQuestionnaireId() : questionnaireId;
         
-        // Valider svar før vi går videre til næste spørgsmål
-        responseValidationService.validateResponse(actualQuestionnaireId, currentAnswers);
+        QuestionnaireSnapshot snapshot = snapshotCache.getSnapshot(actualQuestionnaireId);
         
-        List<Question> allQuestions = questionRepository.findByQuestionnaireIdOrderByOrderAsc(actualQuestionnaireId);
+        // Valider det netop besvarede trin før vi går videre (tidligere trin er allerede valideret;
+        // saveResponse validerer hele besvarelsen)
+        responseValidationService.validateStep(SubmissionContext.of(snapshot, currentAnswers), currentQuestionId);
         
-        // Find nuværende spørgsmål
-        Question currentQuestion = null;
-        for (Question q : allQuestions) {
-            if (q.getId().equals(currentQuestionId)) {
-                currentQuestion = q;
-                break;
-            }
-        }
+        List<Question> allQuestions = snapshot.getQuestions();
+        NavigationGraph graph = NavigationGraph.of(snapshot);
 
-        if (currentQuestion == null) {
+        // Slå nuværende spørgsmål op i den kompilerede graf (root successor tabel)
+        int start = graph.firstRootAfter(currentQuestionId);
+        if (start < 0) {
             return null;
         }
 
-        // Brug QuestionService til at finde root spørgsmål (ikke conditional children)
-        List<Question> rootQuestions = questionService.findRootQuestions(allQuestions);
-
-        // Find nuværende spørgsmåls order værdi
-        int currentOrder = currentQuestion.getOrder();
-
-        // Find næste root spørgsmål med højere order værdi
+        // Find næste root spørgsmål med højere order værdi der skal vises
         Question nextRootQuestion = null;
-        for (Question q : rootQuestions) {
-            int questionOrder = q.getOrder();
-            if (questionOrder > currentOrder) {
-                // Tjek om spørgsmålet skal vises baseret på conditional logic
-                Question evaluatedQuestion = evaluateConditionalLogic(q, currentAnswers, allQuestions, currentQuestionId);
-                if (evaluatedQuestion != null) {
-                    nextRootQuestion = q;
-                    break;
-                }
+        for (int i = start; i < graph.rootCount(); i++) {
+            Question q = graph.rootAt(i);
+            // Tjek om spørgsmålet skal vises baseret på conditional logic
+            if (evaluateConditionalLogic(q, currentAnswers, allQuestions, currentQuestionId) != null) {
+                nextRootQuestion = q;
+                break;
             }
         }
 
         if (nextRootQuestion != null) {
-            // Oversæt spørgsmålet baseret på sprog
-            return questionService.translateQuestion(nextRootQuestion, language);
+            // Returner den præ-oversatte udgave af spørgsmålet
+            return QuestionTranslations.of(snapshot).get(language, graph.positionOf(nextRootQuestion.getId()));
         }
 
         logger.debug("No more questions found for questionnaire: {}", questionnaireId);
@@ -187,6 +452,17 @@ public class ResponseServiceImpl implements IResponseService {
         return responseRepository.findByUserIdAndQuestionnaireId(userId, questionnaireId);
     }
 
+    /**
+     * Streamer en brugers besvarelser fra en MongoDB cursor (kalderen skal lukke streamen)
+     * @param questionnaireId Valgfrit filter (null = alle)
+     */
+    public Stream<Response> streamResponses(String userId, String questionnaireId) {
+        if (questionnaireId != null && !questionnaireId.trim().isEmpty()) {
+            return responseRepository.streamByUserIdAndQuestionnaireId(userId, questionnaireId);
+        }
+        return responseRepository.streamByUserId(userId);
+    }
+
     public SleepParameters calculateSleepParameters(String responseId) {
         Response response = responseRepository.findById(responseId)
                 .orElseThrow(() -> new ValidationException("Besvarelse ikke fundet"));
@@ -195,13 +471,25 @@ public class ResponseServiceImpl implements IResponseService {
             throw new ValidationException("Søvnparametre kan kun beregnes for morgenskema");
         }
 
-        // Genberegn altid søvnparametre for at sikre korrekt beregning
-        // Dette sikrer at eventuelle rettelser i beregningen anvendes
+        // Eksplicit genberegning og persistering (uanset gemt version)
         SleepParameters params = sleepParameterCalculator.calculate(response.getAnswers(), response.getQuestionnaireId());
         response.setSleepParameters(params);
         responseRepository.save(response);
         return params;
     }
+
+    /**
+     * Returnerer søvnparametre til visning uden at skrive til databasen.
+     * Gemte værdier bruges direkte; mangler de eller er de beregnet af en ældre
+     * version af beregningen, genberegnes de i hukommelsen ud fra den cachede snapshot.
+     */
+    public SleepParameters getSleepParameters(Response response) {
+        SleepParameters stored = response.getSleepParameters();
+        if (stored != null && stored.getCalculatorVersion() == QuestionnaireConstants.SLEEP_CALCULATOR_VERSION) {
+            return stored;
+        }
+        return sleepParameterCalculator.calculate(response.getAnswers(), response.getQuestionnaireId());
+    }
     
     public List<Response> getResponsesByUserIdAndQuestionnaireType(String userId, QuestionnaireType type) {
         return responseRepository.findByUserIdAndQuestionnaireType(userId, type);
@@ -211,23 +499,15 @@ public class ResponseServiceImpl implements IResponseService {
      * Tjekker om en bruger allerede har besvaret et spørgeskema i dag (baseret på dansk tid)
      */
     public boolean hasResponseForToday(String userId, QuestionnaireType questionnaireType) {
-        // Få dansk tid (CET/CEST)
-        ZoneId copenhagenZone = ZoneId.of(QuestionnaireConstants.COPENHAGEN_TIMEZONE);
-        LocalDate today = LocalDate.now(copenhagenZone);
-        
-        // Start og slut af dagen i dansk tid (00:00:00 til 00:00:00 næste dag)
-        ZonedDateTime startOfDay = today.atStartOfDay(copenhagenZone);
-        ZonedDateTime endOfDay = today.plusDays(1).atStartOfDay(copenhagenZone);
-        
-        // Konverter til Date for MongoDB query
-        Date startDate = Date.from(startOfDay.toInstant());
-        Date endDate = Date.from(endOfDay.toInstant());
-        
-        List<Response> responses = responseRepository.findByUserIdAndQuestionnaireTypeAndDateRange(
-            userId, questionnaireType, startDate, endDate
-        );
-        
-        return !responses.isEmpty();
+        // Svares fra dagens bitset i hukommelsen (varmes fra user_type_localDate data ved døgnskifte)
+        return answeredTodayTracker.hasAnswered(userId, questionnaireType);
+    }
+
+    /**
+     * Dansk kalenderdag (yyyy-MM-dd) for et tidspunkt
+     */
+    private static String localDateOf(Date date) {
+        return date.toInstant().atZone(COPENHAGEN).toLocalDate().toString();
     }
 
     // Validering er flyttet til ResponseValidationService
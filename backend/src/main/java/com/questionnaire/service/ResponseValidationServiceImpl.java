@@ -1,5 +1,6 @@
 package com.questionnaire.service;
 
+import com.questionnaire.model.SubmissionContext;
 import com.questionnaire.service.interfaces.IResponseValidationService;
 import com.questionnaire.validation.UnifiedQuestionnaireValidator;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,5 +30,18 @@ public class ResponseValidationServiceImpl implements IResponseValidationService
         // Kald validator's validate metode
         questionnaireValidator.validate(questionnaireId, answers);
     }
-}
 
+    /**
+     * Validerer svar med spørgeskemaets definition fra submission-konteksten
+     */
+    public void validateResponse(SubmissionContext context) {
+        questionnaireValidator.validate(context);
+    }
+
+    /**
+     * Validerer kun det netop besvarede spørgsmål (og det der afhænger af det)
+     */
+    public void validateStep(SubmissionContext context, String questionId) {
+        questionnaireValidator.validateStep(context, questionId);
+    }
+}
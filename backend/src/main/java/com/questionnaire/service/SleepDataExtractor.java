@@ -7,51 +7,54 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiConsumer;
 
 /**
  * Extractor klasse til at udtrække søvndata fra answers map
- * Bruger Map pattern i stedet for if-else kæde for bedre OOP
+ * Bruger en handler pr. order i stedet for if-else kæde for bedre OOP.
+ * Handlerne slås op via QuestionOrderIndex, så der ikke scannes over alle spørgsmål.
  */
 @Component
 public class SleepDataExtractor {
     
     private static final Logger logger = LoggerFactory.getLogger(SleepDataExtractor.class);
     
-    private final Map<Integer, BiConsumer<SleepData, Object>> orderHandlers;
+    // Parallelle arrays: handledOrders[i] håndteres af handlers.get(i)
+    private int[] handledOrders = new int[0];
+    private final List<BiConsumer<SleepData, Object>> handlers = new ArrayList<>();
     
     public SleepDataExtractor() {
-        this.orderHandlers = new HashMap<>();
         initializeHandlers();
     }
     
     private void initializeHandlers() {
         // Order 3: Gik i seng klokken
-        orderHandlers.put(QuestionnaireConstants.ORDER_3, (data, answer) -> {
+        addHandler(QuestionnaireConstants.ORDER_3, (data, answer) -> {
             String time = answer.toString().trim();
             data.setWentToBedTime(time);
             logger.debug("Gik i seng klokken: {}", time);
         });
         
         // Order 4: Slukkede lyset klokken
-        orderHandlers.put(QuestionnaireConstants.ORDER_4, (data, answer) -> {
+        addHandler(QuestionnaireConstants.ORDER_4, (data, answer) -> {
             String time = answer.toString().trim();
             data.setLightOffTime(time);
             logger.debug("Slukkede lyset klokken: {}", time);
         });
         
         // Order 5: Faldt i søvn efter (minutter)
-        orderHandlers.put(QuestionnaireConstants.ORDER_5, (data, answer) -> {
+        addHandler(QuestionnaireConstants.ORDER_5, (data, answer) -> {
             String time = answer.toString().trim();
             data.setFellAsleepAfter(time);
             logger.debug("Faldt i søvn efter: {}", time);
         });
         
         // Order 602: Vågen i minutter (WASO)
-        orderHandlers.put(QuestionnaireConstants.ORDER_602, (data, answer) -> {
+        addHandler(QuestionnaireConstants.ORDER_602, (data, answer) -> {
             try {
                 double waso = Double.parseDouble(answer.toString());
                 data.setWASO(waso);
@@ -63,20 +66,26 @@ public class SleepDataExtractor {
         });
         
         // Order 7: Vågnede klokken
-        orderHandlers.put(QuestionnaireConstants.ORDER_7, (data, answer) -> {
+        addHandler(QuestionnaireConstants.ORDER_7, (data, answer) -> {
             String time = answer.toString().trim();
             data.setWokeUpTime(time);
             logger.debug("Vågnede klokken: {}", time);
         });
         
         // Order 8: Stod op klokken
-        orderHandlers.put(QuestionnaireConstants.ORDER_8, (data, answer) -> {
+        addHandler(QuestionnaireConstants.ORDER_8, (data, answer) -> {
             String time = answer.toString().trim();
             data.setGotUpTime(time);
             logger.debug("Stod op klokken: {}", time);
         });
     }
     
+    private void addHandler(int order, BiConsumer<SleepData, Object> handler) {
+        handledOrders = Arrays.copyOf(handledOrders, handledOrders.length + 1);
+        handledOrders[handledOrders.length - 1] = order;
+        handlers.add(handler);
+    }
+    
     /**
      * Udtrækker søvndata fra answers map baseret på spørgsmålernes order
      * @param questions Liste af spørgsmål sorteret efter order
@@ -84,20 +93,31 @@ public class SleepDataExtractor {
      * @return SleepData objekt med udtrukket data
      */
     public SleepData extract(List<Question> questions, Map<String, Object> answers) {
+        return extract(QuestionOrderIndex.build(questions), answers);
+    }
+    
+    /**
+     * Udtrækker søvndata via et (typisk snapshot-cachet) order-indeks
+     * @param index Order-indeks over spørgeskemaets spørgsmål
+     * @param answers Map af question ID til answer værdi
+     * @return SleepData objekt med udtrukket data
+     */
+    public SleepData extract(QuestionOrderIndex index, Map<String, Object> answers) {
         SleepData data = new SleepData();
         
-        for (Question question : questions) {
-            Object answer = answers.get(question.getId());
-            if (answer == null) {
-                logger.debug("Ingen svar for spørgsmål order {} (id: {})", question.getOrder(), question.getId());
-                continue;
-            }
-            
-            logger.debug("Spørgsmål order {} (id: {}) har svar: {}", question.getOrder(), question.getId(), answer);
-            
-            BiConsumer<SleepData, Object> handler = orderHandlers.get(question.getOrder());
-            if (handler != null) {
-                handler.accept(data, answer);
+        for (int h = 0; h < handledOrders.length; h++) {
+            int order = handledOrders[h];
+            // Alle spørgsmål med denne order i listens rækkefølge (sidste svar vinder som før)
+            for (int i = index.firstIndexOf(order); i < index.size() && index.orderAt(i) == order; i++) {
+                Question question = index.questionAt(i);
+                Object answer = answers.get(question.getId());
+                if (answer == null) {
+                    logger.debug("Ingen svar for spørgsmål order {} (id: {})", order, question.getId());
+                    continue;
+                }
+                
+                logger.debug("Spørgsmål order {} (id: {}) har svar: {}", order, question.getId(), answer);
+                handlers.get(h).accept(data, answer);
             }
         }
         
@@ -107,5 +127,3 @@ public class SleepDataExtractor {
         return data;
     }
 }
-
-
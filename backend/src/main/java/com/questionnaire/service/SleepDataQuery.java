@@ -0,0 +1,273 @@
+package com.questionnaire.service;
+
+import com.questionnaire.constants.QuestionnaireConstants;
+import com.questionnaire.exception.ValidationException;
+import com.questionnaire.model.QuestionnaireType;
+import com.questionnaire.model.Response;
+import com.questionnaire.model.SleepParameters;
+import com.questionnaire.service.interfaces.IResponseService;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.aggregation.SystemVariable;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Henter søvndata for en borger med en aggregation pipeline: kun morgenbesvarelser i [from, to),
+ * kun de felter visningen bruger, og eventuelt grupperet pr. dag/ISO-uge/måned i MongoDB.
+ * Dermed afhænger payload af det valgte interval og ikke af hele historikken.
+ */
+@Component
+public class SleepDataQuery {
+
+    static final String COLLECTION = "responses";
+    private static final String TIMEZONE = QuestionnaireConstants.COPENHAGEN_TIMEZONE;
+    private static final ZoneId COPENHAGEN = ZoneId.of(TIMEZONE);
+
+    /**
+     * Gruppering af søvndata (datoformat i MongoDB, dansk tid)
+     */
+    public enum Grouping {
+        day("%Y-%m-%d"),
+        week("%G-W%V"),
+        month("%Y-%m");
+
+        private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+
+        private final String format;
+
+        Grouping(String format) {
+            this.format = format;
+        }
+
+        /**
+         * Samme periode som format giver i MongoDB, beregnet i Java (til genberegnede besvarelser)
+         */
+        String periodOf(Date createdAt) {
+            if (createdAt == null) {
+                return null;
+            }
+            LocalDate date = createdAt.toInstant().atZone(COPENHAGEN).toLocalDate();
+            return switch (this) {
+                case day -> date.toString();
+                case week -> String.format("%d-W%02d", date.get(IsoFields.WEEK_BASED_YEAR),
+                        date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+                case month -> date.format(MONTH);
+            };
+        }
+
+        public static Grouping parse(String value) {
+            try {
+                return Grouping.valueOf(value.toLowerCase());
+            } catch (IllegalArgumentException e) {
+                throw new ValidationException("Ugyldig gruppering: " + value + " (day, week eller month)");
+            }
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(SleepDataQuery.class);
+    private static final String[] METRICS = {"SOL", "WASO", "TIB", "TST"};
+
+    private final MongoOperations mongoOperations;
+    private final IResponseService responseService;
+
+    @Autowired
+    public SleepDataQuery(MongoOperations mongoOperations, @Lazy IResponseService responseService) {
+        this.mongoOperations = mongoOperations;
+        this.responseService = responseService;
+    }
+
+    /**
+     * Morgenbesvarelser i intervallet sorteret efter createdAt med id, createdAt og sleepParameters.
+     * answers (inkl. de pakkede felter) og questionnaireId medtages kun når de gemte parametre har
+     * en forældet beregningsversion, så de kan genberegnes ved læsning.
+     * @param from Første dag (inklusiv, dansk tid) eller null
+     * @param to Sidste dag (eksklusiv, dansk tid) eller null
+     */
+    public List<Response> findSleepData(String userId, LocalDate from, LocalDate to) {
+        return mongoOperations.aggregate(sleepDataAggregation(userId, from, to), COLLECTION, Response.class).getMappedResults();
+    }
+
+    /**
+     * Som findSleepData, men læst fra en cursor (kalderen skal lukke streamen)
+     */
+    public Stream<Response> streamSleepData(String userId, LocalDate from, LocalDate to) {
+        return mongoOperations.aggregateStream(sleepDataAggregation(userId, from, to), COLLECTION, Response.class);
+    }
+
+    /**
+     * Morgenbesvarelser i intervallet for flere borgere i én aggregation (til kohorteanalyse).
+     * Samme projektion som findSleepData plus userId; rækkefølgen er ikke defineret.
+     */
+    public List<Response> findCohortSleepData(Collection<String> userIds, LocalDate from, LocalDate to) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(criteria(Criteria.where("userId").in(userIds), from, to)),
+                Aggregation.project("userId", "createdAt", "sleepParameters")
+                        .and(onlyWhenStale("$answers")).as("answers")
+                        .and(onlyWhenStale("$" + PackedAnswersListener.PACKED_FIELD)).as(PackedAnswersListener.PACKED_FIELD)
+                        .and(onlyWhenStale("$" + PackedAnswersListener.SCHEMA_FIELD)).as(PackedAnswersListener.SCHEMA_FIELD)
+                        .and(onlyWhenStale("$questionnaireId")).as("questionnaireId"));
+        return mongoOperations.aggregate(aggregation, COLLECTION, Response.class).getMappedResults();
+    }
+
+    private static Aggregation sleepDataAggregation(String userId, LocalDate from, LocalDate to) {
+        return Aggregation.newAggregation(
+                Aggregation.match(criteria(userId, from, to)),
+                Aggregation.sort(Sort.Direction.ASC, "createdAt"),
+                Aggregation.project("createdAt", "sleepParameters")
+                        .and(onlyWhenStale("$answers")).as("answers")
+                        .and(onlyWhenStale("$" + PackedAnswersListener.PACKED_FIELD)).as(PackedAnswersListener.PACKED_FIELD)
+                        .and(onlyWhenStale("$" + PackedAnswersListener.SCHEMA_FIELD)).as(PackedAnswersListener.SCHEMA_FIELD)
+                        .and(onlyWhenStale("$questionnaireId")).as("questionnaireId"));
+    }
+
+    /**
+     * Gennemsnitlige søvnparametre pr. periode i intervallet, sorteret efter periode.
+     * Hver gruppe: { period, start, count, SOL, WASO, TIB, TST }. Besvarelser med den aktuelle
+     * beregningsversion grupperes i MongoDB; forældede (som SleepRecomputeJob endnu ikke har
+     * omskrevet) hentes med answers, genberegnes som i findSleepData og lægges til i hukommelsen.
+     */
+    public List<Document> groupSleepData(String userId, LocalDate from, LocalDate to, Grouping grouping) {
+        Map<String, Document> groups = new TreeMap<>(Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+        for (Document group : groupCurrentSleepData(userId, from, to, grouping)) {
+            groups.put(group.getString("_id"), group);
+        }
+        for (Response response : findStaleSleepData(userId, from, to)) {
+            SleepParameters params = sleepParametersOrNull(response);
+            if (params != null) {
+                addToGroup(groups, grouping.periodOf(response.getCreatedAt()), response.getCreatedAt(), params);
+            }
+        }
+        List<Document> result = new ArrayList<>();
+        for (Document group : groups.values()) {
+            group.put("period", group.remove("_id"));
+            result.add(group);
+        }
+        return result;
+    }
+
+    private List<Document> groupCurrentSleepData(String userId, LocalDate from, LocalDate to, Grouping grouping) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(criteria(userId, from, to)
+                        .and("sleepParameters.calculatorVersion").is(QuestionnaireConstants.SLEEP_CALCULATOR_VERSION)),
+                Aggregation.project("createdAt")
+                        .and(DateOperators.DateToString.dateOf("createdAt").toString(grouping.format)
+                                .withTimezone(DateOperators.Timezone.valueOf(TIMEZONE))).as("period")
+                        .and("sleepParameters.SOL").as("SOL")
+                        .and("sleepParameters.WASO").as("WASO")
+                        .and("sleepParameters.TIB").as("TIB")
+                        .and("sleepParameters.TST").as("TST"),
+                Aggregation.group("period")
+                        .min("createdAt").as("start")
+                        .count().as("count")
+                        .avg("SOL").as("SOL")
+                        .avg("WASO").as("WASO")
+                        .avg("TIB").as("TIB")
+                        .avg("TST").as("TST"),
+                Aggregation.sort(Sort.Direction.ASC, "_id"));
+        return mongoOperations.aggregate(aggregation, COLLECTION, Document.class).getMappedResults();
+    }
+
+    /**
+     * Morgenbesvarelser i intervallet hvis parametre mangler eller har en forældet beregningsversion,
+     * med de felter genberegningen bruger (samme som onlyWhenStale projicerer)
+     */
+    private List<Response> findStaleSleepData(String userId, LocalDate from, LocalDate to) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(criteria(userId, from, to)
+                        .and("sleepParameters.calculatorVersion").ne(QuestionnaireConstants.SLEEP_CALCULATOR_VERSION)),
+                Aggregation.project("createdAt", "sleepParameters", "answers", "questionnaireId",
+                        PackedAnswersListener.PACKED_FIELD, PackedAnswersListener.SCHEMA_FIELD));
+        return mongoOperations.aggregate(aggregation, COLLECTION, Response.class).getMappedResults();
+    }
+
+    /**
+     * Lægger én genberegnet nat ind i periodens gennemsnit (og opretter gruppen hvis den mangler)
+     */
+    private static void addToGroup(Map<String, Document> groups, String period, Date createdAt, SleepParameters params) {
+        double[] night = {params.getSOL(), params.getWASO(), params.getTIB(), params.getTST()};
+        Document group = groups.get(period);
+        if (group == null) {
+            group = new Document("_id", period).append("start", createdAt).append("count", 1);
+            for (int m = 0; m < METRICS.length; m++) {
+                group.append(METRICS[m], night[m]);
+            }
+            groups.put(period, group);
+            return;
+        }
+        int count = ((Number) group.get("count")).intValue();
+        for (int m = 0; m < METRICS.length; m++) {
+            Object value = group.get(METRICS[m]);
+            double average = value instanceof Number number ? number.doubleValue() : 0;
+            group.put(METRICS[m], (average * count + night[m]) / (count + 1));
+        }
+        group.put("count", count + 1);
+        Date start = group.getDate("start");
+        if (createdAt != null && (start == null || createdAt.before(start))) {
+            group.put("start", createdAt);
+        }
+    }
+
+    private SleepParameters sleepParametersOrNull(Response response) {
+        try {
+            return responseService.getSleepParameters(response);
+        } catch (Exception e) {
+            logger.warn("Kunne ikke genberegne søvnparametre for besvarelse {}: {}", response.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static Criteria criteria(String userId, LocalDate from, LocalDate to) {
+        return criteria(Criteria.where("userId").is(userId), from, to);
+    }
+
+    private static Criteria criteria(Criteria user, LocalDate from, LocalDate to) {
+        // Felterne matcher user_type_createdAt indexet (userId, questionnaireType, createdAt)
+        Criteria criteria = user
+                .and("questionnaireType").is(QuestionnaireType.morning.name());
+        if (from != null || to != null) {
+            Criteria createdAt = criteria.and("createdAt");
+            if (from != null) {
+                createdAt = createdAt.gte(startOfDay(from));
+            }
+            if (to != null) {
+                createdAt.lt(startOfDay(to));
+            }
+        }
+        return criteria;
+    }
+
+    private static AggregationExpression onlyWhenStale(String field) {
+        return ConditionalOperators.when(ComparisonOperators.valueOf("sleepParameters.calculatorVersion")
+                        .equalToValue(QuestionnaireConstants.SLEEP_CALCULATOR_VERSION))
+                .thenValueOf(SystemVariable.REMOVE.toString())
+                .otherwise(field);
+    }
+
+    private static Date startOfDay(LocalDate date) {
+        return Date.from(date.atStartOfDay(COPENHAGEN).toInstant());
+    }
+}
@@ -0,0 +1,208 @@
+package com.questionnaire.service;
+
+import com.questionnaire.constants.QuestionnaireConstants;
+import com.questionnaire.model.SleepData;
+import com.questionnaire.model.SleepParameters;
+import com.questionnaire.utils.AnswerParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Beregningskerne for søvnparametre på minutter efter midnat (int)
+ * Tidsstrenge parses præcis én gang i {@link Times#set(SleepData)}; selve beregningen
+ * allokerer intet og udfylder et genbrugeligt {@link SleepParameters}.
+ * Semantikken svarer til den tidligere LocalTime-baserede beregning, inkl. midnatsovergang
+ * og at ugyldige tider giver 0.
+ */
+public final class SleepKernel {
+
+    private static final Logger logger = LoggerFactory.getLogger(SleepKernel.class);
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern(QuestionnaireConstants.TIME_FORMAT);
+
+    static final int MINUTES_PER_DAY = 24 * 60;
+
+    /** Tiden er ikke angivet (null) */
+    public static final int ABSENT = -3;
+    /** Tiden er tom/whitespace */
+    public static final int BLANK = -2;
+    /** Tiden kunne ikke parses */
+    public static final int INVALID = -1;
+
+    private SleepKernel() {
+        // Utility class
+    }
+
+    /**
+     * Parsede input til kernen - kan genbruges mellem beregninger
+     */
+    public static final class Times {
+        private int wentToBed = ABSENT;
+        private int lightOff = ABSENT;
+        private boolean hasFellAsleepAfter;
+        private double fellAsleepAfter;
+        private double waso;
+        private int wokeUp = ABSENT;
+        private int gotUp = ABSENT;
+
+        /**
+         * Parser de rå strenge fra SleepData (grænsen hvor strenge bliver til tal)
+         */
+        public Times set(SleepData data) {
+            return set(parseTime(data.getWentToBedTime()), parseTime(data.getLightOffTime()),
+                    data.getFellAsleepAfter() != null, parseDuration(data.getFellAsleepAfter()),
+                    data.getWASO(), parseTime(data.getWokeUpTime()), parseTime(data.getGotUpTime()));
+        }
+
+        /**
+         * Sætter allerede parsede værdier (minutter efter midnat eller ABSENT/BLANK/INVALID)
+         */
+        public Times set(int wentToBed, int lightOff, boolean hasFellAsleepAfter, double fellAsleepAfter,
+                         double waso, int wokeUp, int gotUp) {
+            this.wentToBed = wentToBed;
+            this.lightOff = lightOff;
+            this.hasFellAsleepAfter = hasFellAsleepAfter;
+            this.fellAsleepAfter = fellAsleepAfter;
+            this.waso = waso;
+            this.wokeUp = wokeUp;
+            this.gotUp = gotUp;
+            return this;
+        }
+    }
+
+    /**
+     * Parser en "HH:mm" tid til minutter efter midnat
+     * @return Minutter, eller ABSENT/BLANK/INVALID
+     */
+    public static int parseTime(String time) {
+        if (time == null) {
+            return ABSENT;
+        }
+        int minutes = AnswerParser.parseMinutesOfDay(time);
+        if (minutes >= 0) {
+            return minutes;
+        }
+        if (time.trim().isEmpty()) {
+            return BLANK;
+        }
+        try {
+            LocalTime parsed = LocalTime.parse(time, TIME_FORMATTER);
+            return parsed.getHour() * 60 + parsed.getMinute();
+        } catch (Exception e) {
+            return INVALID;
+        }
+    }
+
+    /**
+     * Parser en varighed i minutter - "HH:mm" eller et tal ("5"); ugyldigt giver 0
+     */
+    public static double parseDuration(String duration) {
+        if (duration == null || duration.isEmpty()) {
+            return 0.0;
+        }
+        int wholeMinutes = parseWholeMinutes(duration);
+        if (wholeMinutes >= 0) {
+            return wholeMinutes;
+        }
+        try {
+            if (duration.contains(":")) {
+                int minutes = parseTime(duration);
+                return minutes >= 0 ? minutes : 0.0;
+            }
+            return Double.parseDouble(duration);
+        } catch (Exception e) {
+            return 0.0;
+        }
+    }
+
+    /**
+     * Hurtig vej for det almindelige svar "5" - undgår Double.parseDouble
+     * @return Minutter, eller -1 hvis strengen ikke kun består af (højst 6) cifre
+     */
+    private static int parseWholeMinutes(String value) {
+        int length = value.length();
+        if (length > 6) {
+            return -1;
+        }
+        int result = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    /**
+     * Beregner søvnparametre
+     * @param times Parsede tider
+     * @param out Resultat der udfyldes (SOL, WASO, TIB, TST)
+     * @return false hvis "gik i seng" eller "stod op" mangler (resultatet er da 0)
+     */
+    public static boolean compute(Times times, SleepParameters out) {
+        if (times.wentToBed < INVALID || times.gotUp < INVALID) {
+            out.setSOL(0);
+            out.setWASO(0);
+            out.setTIB(0);
+            out.setTST(0);
+            return false;
+        }
+
+        // TIB (Time in Bed) - tid fra gik i seng til stod op
+        double tib = ensureNonNegative(difference(times.wentToBed, times.gotUp), "TIB");
+
+        // Faldt i søvn klokken = slukkede lyset + faldt i søvn efter
+        boolean hasFellAsleepTime = times.lightOff != ABSENT && times.hasFellAsleepAfter;
+        int fellAsleep = hasFellAsleepTime ? addMinutes(times.lightOff, times.fellAsleepAfter) : INVALID;
+
+        // SOL (Sleep Onset Latency) - tid fra gik i seng til faldt i søvn (fallback: "faldt i søvn efter")
+        double sol = hasFellAsleepTime ? difference(times.wentToBed, fellAsleep) : times.fellAsleepAfter;
+        sol = ensureNonNegative(sol, "SOL");
+
+        // TST (Total Sleep Time) - tid fra faldt i søvn til vågnede (fallback: TIB - SOL - WASO)
+        double tst = hasFellAsleepTime && times.wokeUp != ABSENT
+                ? difference(fellAsleep, times.wokeUp)
+                : tib - sol - times.waso;
+        tst = ensureNonNegative(tst, "TST");
+
+        out.setSOL(sol);
+        out.setWASO(times.waso);
+        out.setTIB(tib);
+        out.setTST(tst);
+        return true;
+    }
+
+    /**
+     * Minutter fra start til slut; er slut før eller lig med start, er det næste dag
+     * Ugyldige tider giver 0
+     */
+    static int difference(int start, int end) {
+        if (start < 0 || end < 0) {
+            return 0;
+        }
+        return end > start ? end - start : MINUTES_PER_DAY - start + end;
+    }
+
+    /**
+     * Lægger minutter til en tid med midnatsovergang (som LocalTime.plusMinutes med (long) trunkering)
+     */
+    static int addMinutes(int time, double minutesToAdd) {
+        if (time < 0) {
+            return INVALID;
+        }
+        long minutes = (long) minutesToAdd;
+        return ((int) (minutes % MINUTES_PER_DAY) + time + MINUTES_PER_DAY) % MINUTES_PER_DAY;
+    }
+
+    private static double ensureNonNegative(double value, String parameterName) {
+        if (value < 0) {
+            logger.warn("{} var negativ, sætter til 0", parameterName);
+            return 0;
+        }
+        return value;
+    }
+}
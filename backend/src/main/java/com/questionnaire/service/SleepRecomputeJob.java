@@ -0,0 +1,319 @@
+package com.questionnaire.service;
+
+import com.questionnaire.constants.QuestionnaireConstants;
+import com.questionnaire.exception.ValidationException;
+import com.questionnaire.model.QuestionnaireType;
+import com.questionnaire.model.Response;
+import com.questionnaire.model.SleepParameters;
+import com.questionnaire.service.interfaces.ISleepParameterCalculator;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Baggrundsjob der genberegner søvnparametre for alle morgenbesvarelser med en forældet
+ * beregningsversion (se QuestionnaireConstants.SLEEP_CALCULATOR_VERSION).
+ * Besvarelser streames med en cursor sorteret efter id, beregnes parallelt på en afgrænset
+ * fork-join pool og skrives tilbage i uordnede bulkWrite batches. Efter hver batch gemmes et
+ * checkpoint, så et stoppet eller fejlet job kan genoptages. Borgere med ændrede besvarelser
+ * får deres søvn-rollup slettet før skrivningen, så den bygges igen med den nye formel.
+ */
+@Component
+public class SleepRecomputeJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(SleepRecomputeJob.class);
+
+    static final String CHECKPOINT_COLLECTION = "job_checkpoints";
+    static final String CHECKPOINT_ID = "sleep-recompute";
+
+    public enum State { IDLE, RUNNING, STOPPING, STOPPED, COMPLETED, FAILED }
+
+    /**
+     * Indstillinger for en kørsel
+     */
+    public static final class Options {
+        private final int batchSize;
+        private final int parallelism;
+        private final int maxPerSecond;
+        private final boolean resume;
+
+        /**
+         * @param batchSize Antal besvarelser pr. bulkWrite
+         * @param parallelism Antal tråde til beregning
+         * @param maxPerSecond Maks. besvarelser pr. sekund (0 = ingen begrænsning)
+         * @param resume Fortsæt fra gemt checkpoint hvis det hører til samme beregningsversion
+         */
+        public Options(int batchSize, int parallelism, int maxPerSecond, boolean resume) {
+            if (batchSize < 1 || parallelism < 1 || maxPerSecond < 0) {
+                throw new ValidationException("Ugyldige indstillinger for genberegning");
+            }
+            this.batchSize = batchSize;
+            this.parallelism = parallelism;
+            this.maxPerSecond = maxPerSecond;
+            this.resume = resume;
+        }
+    }
+
+    private final MongoOperations mongoOperations;
+    private final ISleepParameterCalculator sleepParameterCalculator;
+    private final SleepRollupStore sleepRollupStore;
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "sleep-recompute");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.IDLE);
+    private volatile int maxPerSecond;
+    private volatile long processed;
+    private volatile long updated;
+    private volatile long failed;
+    private volatile String lastId;
+    private volatile long startedNanos;
+    private volatile long finishedNanos;
+    private volatile Date startedAt;
+    private volatile String error;
+
+    @Autowired
+    public SleepRecomputeJob(MongoOperations mongoOperations, ISleepParameterCalculator sleepParameterCalculator,
+                             SleepRollupStore sleepRollupStore) {
+        this.mongoOperations = mongoOperations;
+        this.sleepParameterCalculator = sleepParameterCalculator;
+        this.sleepRollupStore = sleepRollupStore;
+    }
+
+    /**
+     * Starter jobbet i baggrunden
+     * @return false hvis jobbet allerede kører
+     */
+    public boolean start(Options options) {
+        if (!tryBegin(options)) {
+            return false;
+        }
+        runner.execute(() -> execute(options));
+        return true;
+    }
+
+    /**
+     * Kører jobbet synkront i den kaldende tråd
+     * @return false hvis jobbet allerede kører
+     */
+    public boolean run(Options options) {
+        if (!tryBegin(options)) {
+            return false;
+        }
+        execute(options);
+        return true;
+    }
+
+    /**
+     * Beder et kørende job om at stoppe efter den aktuelle batch (checkpoint bevares)
+     */
+    public void stop() {
+        state.compareAndSet(State.RUNNING, State.STOPPING);
+    }
+
+    /**
+     * Ændrer begrænsningen for et kørende job
+     * @param maxPerSecond Maks. besvarelser pr. sekund (0 = ingen begrænsning)
+     */
+    public void setMaxPerSecond(int maxPerSecond) {
+        if (maxPerSecond < 0) {
+            throw new ValidationException("maxPerSecond må ikke være negativ");
+        }
+        this.maxPerSecond = maxPerSecond;
+    }
+
+    /**
+     * Status og gennemløb for seneste/aktuelle kørsel
+     */
+    public Map<String, Object> getStatus() {
+        long end = finishedNanos != 0 ? finishedNanos : System.nanoTime();
+        long elapsedMillis = startedNanos == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(end - startedNanos);
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", state.get().name());
+        status.put("calculatorVersion", QuestionnaireConstants.SLEEP_CALCULATOR_VERSION);
+        status.put("processed", processed);
+        status.put("updated", updated);
+        status.put("failed", failed);
+        status.put("lastId", lastId);
+        status.put("startedAt", startedAt);
+        status.put("elapsedMillis", elapsedMillis);
+        status.put("perSecond", elapsedMillis == 0 ? 0 : processed * 1000 / elapsedMillis);
+        status.put("maxPerSecond", maxPerSecond);
+        if (error != null) {
+            status.put("error", error);
+        }
+        return status;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        stop();
+        runner.shutdownNow();
+    }
+
+    private boolean tryBegin(Options options) {
+        State current = state.get();
+        if (current == State.RUNNING || current == State.STOPPING || !state.compareAndSet(current, State.RUNNING)) {
+            return false;
+        }
+        maxPerSecond = options.maxPerSecond;
+        processed = 0;
+        updated = 0;
+        failed = 0;
+        error = null;
+        startedAt = new Date();
+        startedNanos = System.nanoTime();
+        finishedNanos = 0;
+        return true;
+    }
+
+    private void execute(Options options) {
+        int version = QuestionnaireConstants.SLEEP_CALCULATOR_VERSION;
+        // Poolen er afgrænset til maskinens kerner, så live trafik stadig har CPU
+        ForkJoinPool pool = new ForkJoinPool(Math.min(options.parallelism, Runtime.getRuntime().availableProcessors()));
+        try {
+            lastId = options.resume ? loadCheckpoint(version) : null;
+            logger.info("Genberegning af søvnparametre startet (version {}, fra id {})", version, lastId);
+            recompute(options, pool, version);
+            state.set(state.get() == State.STOPPING ? State.STOPPED : State.COMPLETED);
+            logger.info("Genberegning af søvnparametre {}: {} behandlet, {} opdateret, {} fejlet",
+                    state.get(), processed, updated, failed);
+        } catch (Exception e) {
+            error = e.getMessage();
+            state.set(State.FAILED);
+            logger.error("Genberegning af søvnparametre fejlede efter id {}", lastId, e);
+        } finally {
+            pool.shutdown();
+            finishedNanos = System.nanoTime();
+        }
+    }
+
+    private void recompute(Options options, ForkJoinPool pool, int version) throws Exception {
+        try (Stream<Response> cursor = mongoOperations.stream(staleQuery(version, lastId, options.batchSize), Response.class)) {
+            Iterator<Response> it = cursor.iterator();
+            List<Response> batch = new ArrayList<>(options.batchSize);
+            while (it.hasNext() && state.get() == State.RUNNING) {
+                batch.add(it.next());
+                if (batch.size() == options.batchSize || !it.hasNext()) {
+                    long batchStart = System.nanoTime();
+                    processBatch(batch, pool, version);
+                    batch.clear();
+                    throttle(options.batchSize, System.nanoTime() - batchStart);
+                }
+            }
+        }
+    }
+
+    /**
+     * Morgenbesvarelser med en anden version end den aktuelle ($ne matcher også manglende værdier),
+     * sorteret efter id så checkpointet kan bruges som startpunkt. Kun felterne til beregningen hentes.
+     */
+    static Query staleQuery(int version, String afterId, int batchSize) {
+        Criteria criteria = Criteria.where("questionnaireType").is(QuestionnaireType.morning)
+                .and("sleepParameters.calculatorVersion").ne(version);
+        if (afterId != null) {
+            criteria = criteria.and("id").gt(afterId);
+        }
+        Query query = new Query(criteria).with(Sort.by(Sort.Direction.ASC, "id")).cursorBatchSize(batchSize);
+        query.fields().include("userId", "questionnaireId", "answers",
+                PackedAnswersListener.SCHEMA_FIELD, PackedAnswersListener.PACKED_FIELD);
+        return query;
+    }
+
+    private void processBatch(List<Response> batch, ForkJoinPool pool, int version) throws Exception {
+        // Beregn parallelt på den afgrænsede pool (parallelle streams arver den kaldende pool)
+        List<SleepParameters> results = pool.submit(() -> batch.parallelStream()
+                .map(this::calculateOrNull)
+                .toList()).get();
+
+        BulkOperations bulk = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Response.class);
+        Set<String> userIds = new HashSet<>();
+        int writes = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            SleepParameters params = results.get(i);
+            if (params == null) {
+                failed++;
+                continue;
+            }
+            bulk.updateOne(new Query(Criteria.where("id").is(batch.get(i).getId())),
+                    new Update().set("sleepParameters", params));
+            userIds.add(batch.get(i).getUserId());
+            writes++;
+        }
+        if (writes > 0) {
+            // Slet rollups før skrivningen: fejler skrivningen, koster det kun en ekstra genopbygning
+            sleepRollupStore.invalidate(userIds);
+            bulk.execute();
+        }
+        processed += batch.size();
+        updated += writes;
+        lastId = batch.get(batch.size() - 1).getId();
+        saveCheckpoint(version);
+    }
+
+    private SleepParameters calculateOrNull(Response response) {
+        try {
+            return sleepParameterCalculator.calculate(response.getAnswers(), response.getQuestionnaireId());
+        } catch (Exception e) {
+            logger.warn("Kunne ikke genberegne søvnparametre for besvarelse {}: {}", response.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Venter så gennemløbet ikke overstiger maxPerSecond (kan ændres mens jobbet kører)
+     */
+    private void throttle(int batchSize, long batchNanos) throws InterruptedException {
+        int limit = maxPerSecond;
+        if (limit <= 0) {
+            return;
+        }
+        long minNanos = TimeUnit.SECONDS.toNanos(batchSize) / limit;
+        if (batchNanos < minNanos) {
+            TimeUnit.NANOSECONDS.sleep(minNanos - batchNanos);
+        }
+    }
+
+    private String loadCheckpoint(int version) {
+        Document checkpoint = mongoOperations.findById(CHECKPOINT_ID, Document.class, CHECKPOINT_COLLECTION);
+        if (checkpoint == null || checkpoint.getInteger("calculatorVersion", -1) != version) {
+            return null;
+        }
+        return checkpoint.getString("lastId");
+    }
+
+    private void saveCheckpoint(int version) {
+        mongoOperations.upsert(new Query(Criteria.where("_id").is(CHECKPOINT_ID)),
+                new Update().set("calculatorVersion", version)
+                        .set("lastId", lastId)
+                        .set("processed", processed)
+                        .set("updatedAt", new Date()),
+                CHECKPOINT_COLLECTION);
+    }
+}
@@ -0,0 +1,167 @@
+package com.questionnaire.service;
+
+import com.questionnaire.constants.QuestionnaireConstants;
+import com.questionnaire.model.QuestionnaireType;
+import com.questionnaire.model.Response;
+import com.questionnaire.model.SleepParameters;
+import com.questionnaire.model.SleepRollup;
+import com.questionnaire.repository.ResponseRepository;
+import com.questionnaire.repository.SleepRollupRepository;
+import com.questionnaire.service.interfaces.IResponseService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Vedligeholder SleepRollup pr. borger: opdateres inkrementelt når en morgenbesvarelse gemmes,
+ * og bygges fra historikken første gang en borger mangler en rollup.
+ * Skrivninger er optimistisk låst (SleepRollup.version): ved en samtidig ændring læses rollup'en
+ * igen og opdateringen gentages, så request-tråde, write-behind og andre instanser ikke
+ * overskriver hinandens dage.
+ * Når beregningsformlen ændres, sletter SleepRecomputeJob de berørte borgeres rollups, og
+ * genopbygningen går gennem IResponseService.getSleepParameters, så værdier fra en ældre
+ * beregningsversion aldrig havner i en rollup.
+ */
+@Component
+public class SleepRollupStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SleepRollupStore.class);
+    private static final ZoneId COPENHAGEN = ZoneId.of(QuestionnaireConstants.COPENHAGEN_TIMEZONE);
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final SleepRollupRepository sleepRollupRepository;
+    private final ResponseRepository responseRepository;
+    private final IResponseService responseService;
+
+    // responseService er lazy, da ResponseServiceImpl selv opdaterer rollups ved gem
+    @Autowired
+    public SleepRollupStore(SleepRollupRepository sleepRollupRepository, ResponseRepository responseRepository,
+                            @Lazy IResponseService responseService) {
+        this.sleepRollupRepository = sleepRollupRepository;
+        this.responseRepository = responseRepository;
+        this.responseService = responseService;
+    }
+
+    /**
+     * Lægger en netop gemt morgenbesvarelse ind i borgerens rollup
+     */
+    public void record(Response response) {
+        recordAll(List.of(response));
+    }
+
+    /**
+     * Lægger netop gemte morgenbesvarelser ind i rollups med én læsning og én skrivning pr. borger
+     */
+    public void recordAll(List<Response> responses) {
+        Map<String, List<Response>> byUser = new LinkedHashMap<>();
+        for (Response response : responses) {
+            if (response.getQuestionnaireType() == QuestionnaireType.morning && response.getSleepParameters() != null) {
+                byUser.computeIfAbsent(response.getUserId(), id -> new ArrayList<>()).add(response);
+            }
+        }
+        for (Map.Entry<String, List<Response>> entry : byUser.entrySet()) {
+            update(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void update(String userId, List<Response> responses) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                SleepRollup rollup = sleepRollupRepository.findById(userId).orElse(null);
+                if (rollup == null) {
+                    // Første gang: byg fra historikken (som allerede indeholder de nye besvarelser)
+                    sleepRollupRepository.save(rebuild(userId));
+                    return;
+                }
+                for (Response response : responses) {
+                    rollup.add(dayOf(response.getCreatedAt()), SleepRollup.valuesOf(response.getSleepParameters()));
+                }
+                rollup.touch();
+                sleepRollupRepository.save(rollup);
+                return;
+            } catch (OptimisticLockingFailureException | DuplicateKeyException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    // Slet hellere rollup'en end at miste dagen; næste brug bygger den fra historikken
+                    logger.warn("Søvn-rollup for {} blev ved med at kollidere; bygges igen ved næste brug", userId);
+                    sleepRollupRepository.deleteById(userId);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Markerer borgernes rollups til genopbygning ved at slette dem; næste brug bygger dem fra
+     * historikken. En samtidig opdatering af en slettet rollup fejler på versionen og bygger den igen.
+     */
+    public void invalidate(Collection<String> userIds) {
+        if (!userIds.isEmpty()) {
+            sleepRollupRepository.deleteAllById(userIds);
+        }
+    }
+
+    /**
+     * Periodeoverblik for de seneste 7/14/30/90 dage set fra i dag
+     */
+    public Map<String, Object> getSummary(String userId) {
+        SleepRollup rollup = sleepRollupRepository.findById(userId).orElse(null);
+        if (rollup == null) {
+            rollup = rebuild(userId);
+            try {
+                sleepRollupRepository.save(rollup);
+            } catch (DuplicateKeyException e) {
+                // Bygget samtidig af en anden tråd eller instans; vores udgave er lige så ny
+            }
+        }
+        // Flyt vinduerne frem til i dag i hukommelsen; gemmes først ved næste besvarelse
+        rollup.advanceTo(LocalDate.now(COPENHAGEN));
+        return rollup.toSummary();
+    }
+
+    /**
+     * Bygger rollup'en fra borgerens morgenbesvarelser. Parametre fra en forældet
+     * beregningsversion genberegnes, så rollup'en altid følger den aktuelle formel.
+     */
+    public SleepRollup rebuild(String userId) {
+        SleepRollup rollup = new SleepRollup(userId);
+        int added = 0;
+        for (Response response : responseRepository.findByUserIdAndQuestionnaireType(userId, QuestionnaireType.morning)) {
+            if (response.getCreatedAt() == null) {
+                continue;
+            }
+            SleepParameters params = sleepParametersOrNull(response);
+            if (params != null) {
+                rollup.add(dayOf(response.getCreatedAt()), SleepRollup.valuesOf(params));
+                added++;
+            }
+        }
+        logger.debug("Byggede søvn-rollup for {} fra {} besvarelser", userId, added);
+        return rollup;
+    }
+
+    private SleepParameters sleepParametersOrNull(Response response) {
+        try {
+            return responseService.getSleepParameters(response);
+        } catch (Exception e) {
+            logger.warn("Kunne ikke beregne søvnparametre for besvarelse {}: {}", response.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static LocalDate dayOf(Date createdAt) {
+        return createdAt.toInstant().atZone(COPENHAGEN).toLocalDate();
+    }
+}
@@ -0,0 +1,67 @@
+package com.questionnaire.service;
+
+import com.questionnaire.model.SubmissionContext;
+import com.questionnaire.model.SubmissionContext.Stage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Samler tidsforbrug pr. trin i submit-pipelinen på tværs af requests
+ */
+@Component
+public class SubmissionMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionMetrics.class);
+
+    private final LongAdder submissions = new LongAdder();
+    private final LongAdder[] stageNanos = new LongAdder[Stage.values().length];
+
+    public SubmissionMetrics() {
+        for (int i = 0; i < stageNanos.length; i++) {
+            stageNanos[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Registrerer tidsforbruget for en gennemført besvarelse
+     */
+    public void record(SubmissionContext context) {
+        submissions.increment();
+        for (Stage stage : Stage.values()) {
+            stageNanos[stage.ordinal()].add(context.getStageNanos(stage));
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Submit timings (µs) - resolve: {}, validate: {}, calculate: {}, save: {}",
+                    micros(context.getStageNanos(Stage.RESOLVE)),
+                    micros(context.getStageNanos(Stage.VALIDATE)),
+                    micros(context.getStageNanos(Stage.CALCULATE)),
+                    micros(context.getStageNanos(Stage.SAVE)));
+        }
+    }
+
+    /**
+     * Gennemsnitligt tidsforbrug pr. trin i mikrosekunder
+     * @return Map med antal besvarelser og gennemsnit pr. trin
+     */
+    public Map<String, Object> getAverages() {
+        long count = submissions.sum();
+        Map<String, Long> stages = new LinkedHashMap<>();
+        for (Stage stage : Stage.values()) {
+            long total = stageNanos[stage.ordinal()].sum();
+            stages.put(stage.name().toLowerCase(), count == 0 ? 0 : micros(total / count));
+        }
+        Map<String, Object> averages = new LinkedHashMap<>();
+        averages.put("submissions", count);
+        averages.put("avgMicros", stages);
+        return averages;
+    }
+
+    private static long micros(long nanos) {
+        return nanos / 1_000;
+    }
+}
@@ -13,13 +13,16 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class UserServiceImpl implements IUserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final Map<String, String> userIdsByUsername = new ConcurrentHashMap<>();
 
     @Autowired
     public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder) {
@@ -69,6 +72,16 @@ public class UserServiceImpl implements IUserService {
         return userRepository.existsByUsername(username);
     }
 
+    /**
+     * Bruger-id for et brugernavn. Caches, da brugernavne er unikke og ikke kan ændres,
+     * så requests der kun skal bruge id'et ikke slår brugeren op hver gang.
+     */
+    public String getUserIdByUsername(String username) {
+        return userIdsByUsername.computeIfAbsent(username, name -> userRepository.findByUsername(name)
+                .orElseThrow(() -> new UserNotFoundException("Bruger ikke fundet"))
+                .getId());
+    }
+
     public User findById(String id) {
         return userRepository.findById(id)
                 .orElseThrow(() -> new UserNotFoundException("Bruger ikke fundet"));
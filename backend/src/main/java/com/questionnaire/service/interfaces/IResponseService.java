@@ -1,5 +1,6 @@
 package com.questionnaire.service.interfaces;
 
+import com.questionnaire.dto.DatedResponseRequest;
 import com.questionnaire.model.Question;
 import com.questionnaire.model.QuestionnaireType;
 import com.questionnaire.model.Response;
@@ -7,14 +8,18 @@ import com.questionnaire.model.SleepParameters;
 
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 public interface IResponseService {
     Response saveResponse(String userId, String questionnaireId, Map<String, Object> answers);
+    List<Map<String, Object>> saveResponses(String userId, List<DatedResponseRequest> requests);
     Question getNextQuestion(String questionnaireId, Map<String, Object> currentAnswers, String currentQuestionId);
     Question getNextQuestion(String questionnaireId, Map<String, Object> currentAnswers, String currentQuestionId, String language);
     List<Response> getResponsesByUserId(String userId);
     List<Response> getResponsesByUserIdAndQuestionnaireId(String userId, String questionnaireId);
+    Stream<Response> streamResponses(String userId, String questionnaireId);
     SleepParameters calculateSleepParameters(String responseId);
+    SleepParameters getSleepParameters(Response response);
     List<Response> getResponsesByUserIdAndQuestionnaireType(String userId, QuestionnaireType type);
     boolean hasResponseForToday(String userId, QuestionnaireType questionnaireType);
 }
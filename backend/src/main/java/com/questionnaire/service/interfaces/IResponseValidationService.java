@@ -1,9 +1,13 @@
 package com.questionnaire.service.interfaces;
 
+import com.questionnaire.model.SubmissionContext;
+
 import java.util.Map;
 
 public interface IResponseValidationService {
     void validateResponse(String questionnaireId, Map<String, Object> answers);
+    void validateResponse(SubmissionContext context);
+    void validateStep(SubmissionContext context, String questionId);
 }
 
 
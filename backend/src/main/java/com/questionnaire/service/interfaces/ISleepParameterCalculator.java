@@ -1,11 +1,13 @@
 package com.questionnaire.service.interfaces;
 
 import com.questionnaire.model.SleepParameters;
+import com.questionnaire.model.SubmissionContext;
 
 import java.util.Map;
 
 public interface ISleepParameterCalculator {
     SleepParameters calculate(Map<String, Object> answers, String questionnaireId);
+    SleepParameters calculate(SubmissionContext context);
 }
 
 
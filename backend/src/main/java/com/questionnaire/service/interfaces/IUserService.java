@@ -11,6 +11,7 @@ public interface IUserService {
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
     User findById(String id);
+    String getUserIdByUsername(String username);
     List<User> getAllUsers();
     List<User> getUsersByRole(UserRole role);
     User assignAdvisor(String citizenId, String advisorId);
@@ -60,6 +60,31 @@ public class AnswerParser {
         return LocalTime.parse(timeString, formatter);
     }
     
+    /**
+     * Parser en tid i formatet "HH:mm" til minutter efter midnat uden at allokere
+     * Accepterer kun præcis to cifre, kolon og to cifre (00:00-23:59); alt andet
+     * (fx "24:00" eller whitespace) skal håndteres af {@link #parseTime(Object, DateTimeFormatter)}
+     * @param time Tidsstreng
+     * @return Minutter efter midnat, eller -1 hvis strengen ikke har det strikse format
+     */
+    public static int parseMinutesOfDay(String time) {
+        if (time == null || time.length() != 5 || time.charAt(2) != ':') {
+            return -1;
+        }
+        int h1 = time.charAt(0) - '0';
+        int h2 = time.charAt(1) - '0';
+        int m1 = time.charAt(3) - '0';
+        int m2 = time.charAt(4) - '0';
+        if (h1 < 0 || h1 > 9 || h2 < 0 || h2 > 9 || m1 < 0 || m1 > 5 || m2 < 0 || m2 > 9) {
+            return -1;
+        }
+        int hours = h1 * 10 + h2;
+        if (hours > 23) {
+            return -1;
+        }
+        return hours * 60 + m1 * 10 + m2;
+    }
+    
     /**
      * Ekstraherer option ID fra et multiple choice svar
      * Håndterer både string option ID og "Andet" option objekt (Map med optionId og customText)
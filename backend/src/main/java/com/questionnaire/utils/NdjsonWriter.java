@@ -0,0 +1,50 @@
+package com.questionnaire.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Skriver elementer som NDJSON (ét JSON-objekt pr. linje) direkte til en output stream,
+ * så store eksporter aldrig samles i en liste i hukommelsen.
+ */
+public final class NdjsonWriter {
+
+    public static final String CONTENT_TYPE = "application/x-ndjson";
+
+    /** Antal linjer mellem hver flush, så klienten modtager data løbende */
+    static final int FLUSH_EVERY = 256;
+
+    private NdjsonWriter() {
+        // Utility class
+    }
+
+    /**
+     * Skriver hvert element som én linje. Output streamen lukkes ikke.
+     * @return Antal skrevne linjer
+     */
+    public static long write(Stream<?> items, ObjectMapper objectMapper, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long lines = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            Iterator<?> it = items.iterator();
+            while (it.hasNext()) {
+                writer.writeValue(generator, it.next());
+                generator.writeRaw('\n');
+                if (++lines % FLUSH_EVERY == 0) {
+                    generator.flush();
+                }
+            }
+            generator.flush();
+        }
+        return lines;
+    }
+}
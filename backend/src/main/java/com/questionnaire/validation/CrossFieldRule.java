@@ -0,0 +1,56 @@
+package com.questionnaire.validation;
+
+import com.questionnaire.exception.ValidationException;
+import com.questionnaire.model.Question;
+import com.questionnaire.model.SubmissionContext;
+
+import java.util.List;
+
+/**
+ * Regel på tværs af flere spørgsmål, bundet til konkrete spørgsmål når valideringsplanen kompileres
+ * Spørgsmålene reglen læser bruges til at afgøre hvornår den skal køres ved trinvis validering.
+ */
+public final class CrossFieldRule {
+
+    /**
+     * Selve tjekket
+     */
+    @FunctionalInterface
+    public interface Check {
+        /**
+         * @param context Submission-kontekst med svar (reglen må udfylde manglende svar)
+         * @throws ValidationException hvis svarene bryder reglen
+         */
+        void apply(SubmissionContext context) throws ValidationException;
+    }
+
+    private final Check check;
+    private final List<String> questionIds;
+
+    private CrossFieldRule(Check check, List<String> questionIds) {
+        this.check = check;
+        this.questionIds = questionIds;
+    }
+
+    /**
+     * Binder et tjek til de spørgsmål det læser eller udfylder
+     */
+    public static CrossFieldRule on(Check check, Question... questions) {
+        String[] ids = new String[questions.length];
+        for (int i = 0; i < questions.length; i++) {
+            ids[i] = questions[i].getId();
+        }
+        return new CrossFieldRule(check, List.of(ids));
+    }
+
+    /**
+     * Anvender reglen på en submission
+     */
+    public void apply(SubmissionContext context) throws ValidationException {
+        check.apply(context);
+    }
+
+    public List<String> getQuestionIds() {
+        return questionIds;
+    }
+}
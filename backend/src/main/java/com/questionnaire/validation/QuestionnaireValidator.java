@@ -1,12 +1,11 @@
 package com.questionnaire.validation;
 
-import com.questionnaire.model.Question;
-import com.questionnaire.model.QuestionType;
-import com.questionnaire.repository.QuestionRepository;
-import com.questionnaire.service.QuestionFinder;
+import com.questionnaire.model.QuestionnaireSnapshot;
+import com.questionnaire.model.SubmissionContext;
+import com.questionnaire.service.QuestionOrderIndex;
+import com.questionnaire.service.QuestionnaireSnapshotCache;
 import com.questionnaire.service.interfaces.IQuestionnaireService;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -18,17 +17,14 @@ public abstract class QuestionnaireValidator {
     
     protected final ValidatorFactory validatorFactory;
     protected final IQuestionnaireService questionnaireService;
-    protected final QuestionFinder questionFinder;
-    protected final QuestionRepository questionRepository;
+    protected final QuestionnaireSnapshotCache snapshotCache;
     
     public QuestionnaireValidator(ValidatorFactory validatorFactory,
                                  IQuestionnaireService questionnaireService,
-                                 QuestionFinder questionFinder,
-                                 QuestionRepository questionRepository) {
+                                 QuestionnaireSnapshotCache snapshotCache) {
         this.validatorFactory = validatorFactory;
         this.questionnaireService = questionnaireService;
-        this.questionFinder = questionFinder;
-        this.questionRepository = questionRepository;
+        this.snapshotCache = snapshotCache;
     }
     
     /**
@@ -36,99 +32,50 @@ public abstract class QuestionnaireValidator {
      * Defines the algorithm structure
      */
     public final void validate(String questionnaireId, Map<String, Object> answers) {
-        List<Question> questions = getQuestions(questionnaireId);
-        validateBasicAnswers(questions, answers);
-        validateSpecificRules(questions, answers, questionnaireId);
+        validate(SubmissionContext.of(getSnapshot(questionnaireId), answers));
     }
-    
+
     /**
-     * Henter spørgsmål for questionnaire
+     * Template method for validation med en allerede opbygget submission-kontekst
+     * Spørgeskemaets definition tages fra konteksten og hentes ikke igen
      */
-    protected List<Question> getQuestions(String questionnaireId) {
-        return questionRepository.findByQuestionnaireIdOrderByOrderAsc(questionnaireId);
+    public final void validate(SubmissionContext context) {
+        ValidationPlan plan = getPlan(context.getSnapshot());
+        plan.validateAnswers(context.getAnswers());
+        plan.applyRules(context);
     }
     
     /**
-     * Validerer grundlæggende svar (min/max værdier, formater, etc.)
-     * Dette er fælles for alle questionnaire typer
+     * Trinvis validering i next-question flowet: kun det besvarede spørgsmål, dets
+     * conditional children og de regler de indgår i. Submit validerer altid fuldt.
      */
-    protected void validateBasicAnswers(List<Question> questions, Map<String, Object> answers) {
-        Map<String, ConditionalParent> conditionalIndex = buildConditionalIndex(questions);
-
-        for (Question question : questions) {
-            // Tjek om dette spørgsmål er et conditional child der ikke skal vises
-            if (isConditionalChildThatShouldNotBeShown(question, conditionalIndex, answers)) {
-                continue; // Spring over conditional children der ikke skal vises
-            }
-            
-            Object answer = answers.get(question.getId());
-            if (answer == null) continue;
-            
-            // Brug polymorphism pattern - få korrekt validator baseret på question type
-            AnswerValidator validator = validatorFactory.getValidator(question.getType());
-            
-            if (question.getType() == QuestionType.text || 
-                question.getType() == QuestionType.numeric || question.getType() == QuestionType.slider || 
-                       question.getType() == QuestionType.time_picker || 
-                       question.getType() == QuestionType.multiple_choice || 
-                       question.getType() == QuestionType.multiple_choice_multiple) {
-                // Brug validator for alle typer vi understøtter
-                validator.validate(question, answer);
-            }
-        }
+    public final void validateStep(SubmissionContext context, String questionId) {
+        getPlan(context.getSnapshot()).validateStep(context, questionId);
     }
     
     /**
-     * Tjekker om et spørgsmål er et conditional child der ikke skal vises baseret på parent svar
+     * Henter snapshot for questionnaire fra den delte cache
      */
-    private boolean isConditionalChildThatShouldNotBeShown(Question question, Map<String, ConditionalParent> conditionalIndex, Map<String, Object> answers) {
-        ConditionalParent parentInfo = conditionalIndex.get(question.getId());
-        if (parentInfo == null) {
-            return false; // Ikke et conditional child
-        }
-
-        Object parentAnswer = answers.get(parentInfo.parentQuestion.getId());
-        if (parentAnswer == null) {
-            return true; // Parent er ikke besvaret, så child skal ikke vises
-        }
-
-        String parentOptionId = com.questionnaire.utils.AnswerParser.extractOptionId(parentAnswer);
-        return parentOptionId == null || !parentOptionId.equals(parentInfo.optionId);
+    protected QuestionnaireSnapshot getSnapshot(String questionnaireId) {
+        return snapshotCache.getSnapshot(questionnaireId);
     }
-
+    
     /**
-     * Bygger et opslag fra child-question-id til parent og optionId for O(1) opslag i validering.
+     * Henter (og kompilerer ved første kald) valideringsplanen for en snapshot-version
+     * Grundlæggende validering (min/max værdier, formater, etc.) er fælles for alle questionnaire typer;
+     * de specifikke regler leveres af subklassen.
      */
-    private Map<String, ConditionalParent> buildConditionalIndex(List<Question> questions) {
-        Map<String, ConditionalParent> index = new HashMap<>();
-        for (Question parentQuestion : questions) {
-            if (parentQuestion.getConditionalChildren() == null) {
-                continue;
-            }
-            for (com.questionnaire.model.ConditionalChild cc : parentQuestion.getConditionalChildren()) {
-                if (cc.getChildQuestionId() != null) {
-                    index.put(cc.getChildQuestionId(), new ConditionalParent(parentQuestion, cc.getOptionId()));
-                }
-            }
-        }
-        return index;
-    }
-
-    private static final class ConditionalParent {
-        private final Question parentQuestion;
-        private final String optionId;
-
-        private ConditionalParent(Question parentQuestion, String optionId) {
-            this.parentQuestion = parentQuestion;
-            this.optionId = optionId;
-        }
+    protected ValidationPlan getPlan(QuestionnaireSnapshot snapshot) {
+        return snapshot.getCompiled(ValidationPlan.class, s -> ValidationPlan.compile(
+                s.getQuestions(), validatorFactory, compileSpecificRules(QuestionOrderIndex.of(s))));
     }
     
     /**
      * Abstract method for questionnaire-specific validation rules
-     * Must be implemented by subclasses
+     * Must be implemented by subclasses. Kaldes én gang pr. snapshot-version; reglerne
+     * bindes til de konkrete spørgsmål og køres i den returnerede rækkefølge.
      */
-    protected abstract void validateSpecificRules(List<Question> questions, Map<String, Object> answers, String questionnaireId);
+    protected abstract List<CrossFieldRule> compileSpecificRules(QuestionOrderIndex index);
 }
 
 
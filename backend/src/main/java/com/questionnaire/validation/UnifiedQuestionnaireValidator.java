@@ -4,8 +4,9 @@ import com.questionnaire.constants.QuestionnaireConstants;
 import com.questionnaire.exception.ValidationException;
 import com.questionnaire.model.Question;
 import com.questionnaire.model.QuestionType;
-import com.questionnaire.repository.QuestionRepository;
-import com.questionnaire.service.QuestionFinder;
+import com.questionnaire.model.SubmissionContext;
+import com.questionnaire.service.QuestionOrderIndex;
+import com.questionnaire.service.QuestionnaireSnapshotCache;
 import com.questionnaire.service.interfaces.IQuestionnaireService;
 import com.questionnaire.utils.AnswerParser;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,12 +14,14 @@ import org.springframework.stereotype.Component;
 
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Unified validator for all questionnaires
- * Contains all validation rules that were previously split between morning and evening validators
+ * Contains all validation rules that were previously split between morning and evening validators.
+ * Reglerne bindes til konkrete spørgsmål én gang pr. spørgeskema-version.
  */
 @Component
 public class UnifiedQuestionnaireValidator extends QuestionnaireValidator {
@@ -28,65 +31,87 @@ public class UnifiedQuestionnaireValidator extends QuestionnaireValidator {
     @Autowired
     public UnifiedQuestionnaireValidator(ValidatorFactory validatorFactory,
                                        IQuestionnaireService questionnaireService,
-                                       QuestionFinder questionFinder,
-                                       QuestionRepository questionRepository) {
-        super(validatorFactory, questionnaireService, questionFinder, questionRepository);
+                                       QuestionnaireSnapshotCache snapshotCache) {
+        super(validatorFactory, questionnaireService, snapshotCache);
     }
     
     @Override
-    protected void validateSpecificRules(List<Question> questions, Map<String, Object> answers, String questionnaireId) {
+    protected List<CrossFieldRule> compileSpecificRules(QuestionOrderIndex index) {
+        List<CrossFieldRule> rules = new ArrayList<>();
+
         // Auto-fill logik: Hvis spørgsmål 6 er "Nej", sæt spørgsmål 602 automatisk til 0 hvis det mangler
-        autoFillQuestion602(questions, answers);
+        addRule(rules, autoFillQuestion602(index));
         
         // Valider at spørgsmål 4 ikke er før spørgsmål 3
-        validateLightOffTime(questions, answers);
+        addRule(rules, validateLightOffTime(index));
         
         // Valider at spørgsmål 602 ikke er før spørgsmål 601
-        validateWakeTimes(questions, answers);
+        addRule(rules, validateWakeTimes(index));
         
         // Valider spørgsmål 6 og dens conditional children (order 601 og 602): hvis spørgsmål 6 er "Ja", skal både spørgsmål 601 og 602 være besvaret
-        validateQuestion6(questions, answers);
+        addRule(rules, validateQuestion6(index));
         
         // Valider at "faldt i søvn" ikke er før "gik i seng"
-        validateSleepTimes(questions, answers);
+        addRule(rules, validateSleepTimes(index));
+
+        return rules;
+    }
+
+    // Regler hvis spørgsmål ikke findes i spørgeskemaet springes over
+    private static void addRule(List<CrossFieldRule> rules, CrossFieldRule rule) {
+        if (rule != null) {
+            rules.add(rule);
+        }
     }
     
     /**
      * Auto-fill logik: Hvis spørgsmål 6 er "Nej", sæt spørgsmål 602 automatisk til 0 hvis det mangler
      */
-    private void autoFillQuestion602(List<Question> questions, Map<String, Object> answers) {
-        Question question6 = questionFinder.findByOrderAndType(questions, QuestionnaireConstants.ORDER_6, QuestionType.multiple_choice);
-        Question question602 = questionFinder.findByOrderAndType(questions, QuestionnaireConstants.ORDER_602, QuestionType.numeric);
+    private CrossFieldRule autoFillQuestion602(QuestionOrderIndex index) {
+        Question question6 = index.findByOrderAndType(QuestionnaireConstants.ORDER_6, QuestionType.multiple_choice);
+        Question question602 = index.findByOrderAndType(QuestionnaireConstants.ORDER_602, QuestionType.numeric);
+        
+        if (question6 == null || question602 == null) {
+            return null;
+        }
+        String id6 = question6.getId();
+        String id602 = question602.getId();
         
-        if (question6 != null && question602 != null) {
-            Object answer6 = answers.get(question6.getId());
+        return CrossFieldRule.on(context -> {
+            Map<String, Object> answers = context.getAnswers();
+            Object answer6 = answers.get(id6);
             if (answer6 != null) {
                 String optionId = AnswerParser.extractOptionId(answer6);
                 
                 // Hvis spørgsmål 6 er "Nej" og spørgsmål 602 mangler, sæt det til 0
-                if ("wake_no".equals(optionId) && !answers.containsKey(question602.getId())) {
-                    answers.put(question602.getId(), 0);
+                if ("wake_no".equals(optionId) && !answers.containsKey(id602)) {
+                    answers.put(id602, 0);
                 }
             }
-        }
+        }, question6, question602);
     }
     
     /**
      * Validerer at "slukkede lyset" (spørgsmål 4) ikke er før "gik i seng" (spørgsmål 3)
      */
-    private void validateLightOffTime(List<Question> questions, Map<String, Object> answers) {
-        Question wentToBedQuestion = questionFinder.findByOrderAndType(questions, QuestionnaireConstants.ORDER_3, QuestionType.time_picker);
-        Question lightOffQuestion = questionFinder.findByOrderAndType(questions, QuestionnaireConstants.ORDER_4, QuestionType.time_picker);
+    private CrossFieldRule validateLightOffTime(QuestionOrderIndex index) {
+        Question wentToBedQuestion = index.findByOrderAndType(QuestionnaireConstants.ORDER_3, QuestionType.time_picker);
+        Question lightOffQuestion = index.findByOrderAndType(QuestionnaireConstants.ORDER_4, QuestionType.time_picker);
+        
+        if (wentToBedQuestion == null || lightOffQuestion == null) {
+            return null;
+        }
         
-        if (wentToBedQuestion != null && lightOffQuestion != null) {
+        return CrossFieldRule.on(context -> {
+            Map<String, Object> answers = context.getAnswers();
             Object wentToBedAnswer = answers.get(wentToBedQuestion.getId());
             Object lightOffAnswer = answers.get(lightOffQuestion.getId());
             
             if (wentToBedAnswer != null && lightOffAnswer != null) {
-                LocalTime bedTime = AnswerParser.parseTime(wentToBedAnswer, TIME_FORMATTER);
-                LocalTime lightOff = AnswerParser.parseTime(lightOffAnswer, TIME_FORMATTER);
+                int bedTime = minutesOfDay(context, wentToBedQuestion, wentToBedAnswer);
+                int lightOff = minutesOfDay(context, lightOffQuestion, lightOffAnswer);
                 
-                if (lightOff.isBefore(bedTime)) {
+                if (lightOff < bedTime) {
                     throw new ValidationException(
                         String.format("Du kan ikke have slukket lyset (%s) før du gik i seng (%s). Tjek venligst dine svar. / You cannot have turned off the light (%s) before going to bed (%s). Please check your answers.",
                             lightOffAnswer.toString().trim(), wentToBedAnswer.toString().trim(),
@@ -94,25 +119,30 @@ public class UnifiedQuestionnaireValidator extends QuestionnaireValidator {
                     );
                 }
             }
-        }
+        }, wentToBedQuestion, lightOffQuestion);
     }
     
     /**
      * Validerer at "stod op" ikke er før "vågnede"
      */
-    private void validateWakeTimes(List<Question> questions, Map<String, Object> answers) {
-        Question wokeUpQuestion = questionFinder.findByOrderAndType(questions, QuestionnaireConstants.ORDER_7, QuestionType.time_picker);
-        Question gotOutOfBedQuestion = questionFinder.findByOrderAndType(questions, QuestionnaireConstants.ORDER_8, QuestionType.time_picker);
+    private CrossFieldRule validateWakeTimes(QuestionOrderIndex index) {
+        Question wokeUpQuestion = index.findByOrderAndType(QuestionnaireConstants.ORDER_7, QuestionType.time_picker);
+        Question gotOutOfBedQuestion = index.findByOrderAndType(QuestionnaireConstants.ORDER_8, QuestionType.time_picker);
+        
+        if (wokeUpQuestion == null || gotOutOfBedQuestion == null) {
+            return null;
+        }
         
-        if (wokeUpQuestion != null && gotOutOfBedQuestion != null) {
+        return CrossFieldRule.on(context -> {
+            Map<String, Object> answers = context.getAnswers();
             Object wokeUpAnswer = answers.get(wokeUpQuestion.getId());
             Object gotOutOfBedAnswer = answers.get(gotOutOfBedQuestion.getId());
             
             if (wokeUpAnswer != null && gotOutOfBedAnswer != null) {
-                LocalTime wakeTime = AnswerParser.parseTime(wokeUpAnswer, TIME_FORMATTER);
-                LocalTime outOfBedTime = AnswerParser.parseTime(gotOutOfBedAnswer, TIME_FORMATTER);
+                int wakeTime = minutesOfDay(context, wokeUpQuestion, wokeUpAnswer);
+                int outOfBedTime = minutesOfDay(context, gotOutOfBedQuestion, gotOutOfBedAnswer);
                 
-                if (outOfBedTime.isBefore(wakeTime)) {
+                if (outOfBedTime < wakeTime) {
                     throw new ValidationException(
                         String.format("Du kan ikke være stået op (%s) før du vågnede (%s). Tjek venligst dine svar. / You cannot have gotten out of bed (%s) before you woke up (%s). Please check your answers.",
                             gotOutOfBedAnswer.toString().trim(), wokeUpAnswer.toString().trim(),
@@ -120,28 +150,36 @@ public class UnifiedQuestionnaireValidator extends QuestionnaireValidator {
                     );
                 }
             }
-        }
+        }, wokeUpQuestion, gotOutOfBedQuestion);
     }
     
     /**
      * Validerer spørgsmål 6 og dens conditional children (601 og 602): 
      * hvis spørgsmål 6 er "Ja", skal både spørgsmål er 601 og 602 være besvaret
      */
-    private void validateQuestion6(List<Question> questions, Map<String, Object> answers) {
-        Question question6 = questionFinder.findByOrderAndType(questions, QuestionnaireConstants.ORDER_6, QuestionType.multiple_choice);
-        Question question601 = questionFinder.findByOrderAndType(questions, QuestionnaireConstants.ORDER_601, QuestionType.numeric);
-        Question question602 = questionFinder.findByOrderAndType(questions, QuestionnaireConstants.ORDER_602, QuestionType.numeric);
+    private CrossFieldRule validateQuestion6(QuestionOrderIndex index) {
+        Question question6 = index.findByOrderAndType(QuestionnaireConstants.ORDER_6, QuestionType.multiple_choice);
+        Question question601 = index.findByOrderAndType(QuestionnaireConstants.ORDER_601, QuestionType.numeric);
+        Question question602 = index.findByOrderAndType(QuestionnaireConstants.ORDER_602, QuestionType.numeric);
+        
+        if (question6 == null || question601 == null || question602 == null) {
+            return null;
+        }
+        String id6 = question6.getId();
+        String id601 = question601.getId();
+        String id602 = question602.getId();
         
-        if (question6 != null && question601 != null && question602 != null) {
-            Object answer6 = answers.get(question6.getId());
+        return CrossFieldRule.on(context -> {
+            Map<String, Object> answers = context.getAnswers();
+            Object answer6 = answers.get(id6);
             
             if (answer6 != null) {
                 String optionId = AnswerParser.extractOptionId(answer6);
                 
                 if ("wake_yes".equals(optionId)) {
                     // Hvis spørgsmål 6 er "Ja", skal både spørgsmål 601 og 602 være besvaret
-                    Object answer601 = answers.get(question601.getId());
-                    Object answer602 = answers.get(question602.getId());
+                    Object answer601 = answers.get(id601);
+                    Object answer602 = answers.get(id602);
                     
                     if (answer601 == null || answer602 == null) {
                         throw new ValidationException(
@@ -172,7 +210,7 @@ public class UnifiedQuestionnaireValidator extends QuestionnaireValidator {
                     }
                 } else if ("wake_no".equals(optionId)) {
                     // Hvis spørgsmål 6 er "Nej", skal spørgsmål 602 være 0
-                    Object answer602 = answers.get(question602.getId());
+                    Object answer602 = answers.get(id602);
                     if (answer602 != null) {
                         try {
                             int value602 = AnswerParser.parseInt(answer602);
@@ -188,27 +226,32 @@ public class UnifiedQuestionnaireValidator extends QuestionnaireValidator {
                     }
                 }
             }
-        }
+        }, question6, question601, question602);
     }
     
     /**
      * Validerer at "faldt i søvn" ikke er før "gik i seng"
      */
-    private void validateSleepTimes(List<Question> questions, Map<String, Object> answers) {
-        Question wentToBedQuestion = questionFinder.findByOrderAndType(questions, QuestionnaireConstants.ORDER_3, QuestionType.time_picker);
-        Question fellAsleepQuestion = questionFinder.findByOrder(questions, QuestionnaireConstants.ORDER_5);
+    private CrossFieldRule validateSleepTimes(QuestionOrderIndex index) {
+        Question wentToBedQuestion = index.findByOrderAndType(QuestionnaireConstants.ORDER_3, QuestionType.time_picker);
+        Question fellAsleepQuestion = index.findByOrder(QuestionnaireConstants.ORDER_5);
+        
+        if (wentToBedQuestion == null || fellAsleepQuestion == null) {
+            return null;
+        }
         
-        if (wentToBedQuestion != null && fellAsleepQuestion != null) {
+        return CrossFieldRule.on(context -> {
+            Map<String, Object> answers = context.getAnswers();
             Object wentToBedAnswer = answers.get(wentToBedQuestion.getId());
             Object fellAsleepAnswer = answers.get(fellAsleepQuestion.getId());
             
             if (wentToBedAnswer != null && fellAsleepAnswer != null) {
-                LocalTime bedTime = AnswerParser.parseTime(wentToBedAnswer, TIME_FORMATTER);
+                int bedTime = minutesOfDay(context, wentToBedQuestion, wentToBedAnswer);
                 String fellAsleepStr = fellAsleepAnswer.toString().trim();
                 
                 if (fellAsleepQuestion.getType() == QuestionType.time_picker && fellAsleepStr.contains(":")) {
-                    LocalTime sleepTime = AnswerParser.parseTime(fellAsleepAnswer, TIME_FORMATTER);
-                    if (sleepTime.isBefore(bedTime)) {
+                    int sleepTime = minutesOfDay(context, fellAsleepQuestion, fellAsleepAnswer);
+                    if (sleepTime < bedTime) {
                         throw new ValidationException(
                             String.format("Du kan ikke være faldet i søvn (%s) før du gik i seng (%s). Tjek venligst dine svar. / You cannot have fallen asleep (%s) before going to bed (%s). Please check your answers.",
                                 fellAsleepStr, wentToBedAnswer.toString().trim(),
@@ -226,8 +269,19 @@ public class UnifiedQuestionnaireValidator extends QuestionnaireValidator {
                     }
                 }
             }
+        }, wentToBedQuestion, fellAsleepQuestion);
+    }
+
+    /**
+     * Minutter efter midnat for et tidssvar - uden allokering for "HH:mm"; øvrige formater
+     * parses (og fejler) som hidtil via den delte kontekst
+     */
+    private static int minutesOfDay(SubmissionContext context, Question question, Object answer) {
+        int minutes = AnswerParser.parseMinutesOfDay(answer.toString().trim());
+        if (minutes >= 0) {
+            return minutes;
         }
+        LocalTime time = context.getTimeAnswer(question, TIME_FORMATTER);
+        return time.getHour() * 60 + time.getMinute();
     }
 }
-
-
@@ -0,0 +1,435 @@
+package com.questionnaire.validation;
+
+import com.questionnaire.constants.QuestionnaireConstants;
+import com.questionnaire.model.ConditionalChild;
+import com.questionnaire.model.Question;
+import com.questionnaire.model.QuestionOption;
+import com.questionnaire.model.QuestionType;
+import com.questionnaire.model.SubmissionContext;
+import com.questionnaire.utils.AnswerParser;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Kompileret valideringsplan for én version af et spørgeskema
+ * Holder forud-opslåede spørgsmåls-ID'er, conditional parents, grænser som heltal
+ * (minutter efter midnat for tider), option-ID sæt og tværgående regler bundet til konkrete spørgsmål.
+ *
+ * Hvert felt har et hurtigt tjek der ikke allokerer når svaret er gyldigt. Afviser det hurtige
+ * tjek et svar, køres den oprindelige {@link AnswerValidator}, så fejlbeskeder er uændrede.
+ */
+public final class ValidationPlan {
+
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern(QuestionnaireConstants.TIME_FORMAT);
+
+    private static final int[] NONE = new int[0];
+
+    private final FieldPlan[] fields;
+    private final CrossFieldRule[] rules;
+    // Spørgsmåls-ID -> felter (spørgsmålet og dets conditional subtree) og regler der berøres af et trin
+    private final Map<String, int[]> stepFields;
+    private final Map<String, int[]> stepRules;
+
+    private ValidationPlan(FieldPlan[] fields, CrossFieldRule[] rules,
+                           Map<String, int[]> stepFields, Map<String, int[]> stepRules) {
+        this.fields = fields;
+        this.rules = rules;
+        this.stepFields = stepFields;
+        this.stepRules = stepRules;
+    }
+
+    /**
+     * Kompilerer en plan ud fra spørgeskemaets spørgsmål
+     * @param questions Aktive spørgsmål (snapshot-rækkefølge)
+     * @param validatorFactory Leverer validatorerne der bruges når det hurtige tjek afviser et svar
+     * @param rules Tværgående regler (i den rækkefølge de skal køres)
+     */
+    public static ValidationPlan compile(List<Question> questions, ValidatorFactory validatorFactory,
+                                         List<CrossFieldRule> rules) {
+        // Child-question-id -> (parent, optionId); sidste parent vinder ligesom tidligere
+        Map<String, ConditionalChild> parentLinks = new HashMap<>();
+        Map<String, Question> parents = new HashMap<>();
+        for (Question parent : questions) {
+            if (parent.getConditionalChildren() == null) {
+                continue;
+            }
+            for (ConditionalChild cc : parent.getConditionalChildren()) {
+                if (cc.getChildQuestionId() != null) {
+                    parentLinks.put(cc.getChildQuestionId(), cc);
+                    parents.put(cc.getChildQuestionId(), parent);
+                }
+            }
+        }
+
+        List<FieldPlan> fields = new ArrayList<>(questions.size());
+        for (Question question : questions) {
+            FieldCheck check = compileCheck(question);
+            if (check == null) {
+                continue;
+            }
+            ConditionalChild link = parentLinks.get(question.getId());
+            Question parent = parents.get(question.getId());
+            fields.add(new FieldPlan(question, validatorFactory.getValidator(question.getType()), check,
+                    link != null, parent != null ? parent.getId() : null, link != null ? link.getOptionId() : null));
+        }
+
+        Map<String, int[]> stepFields = new HashMap<>();
+        Map<String, int[]> stepRules = new HashMap<>();
+        compileSteps(questions, fields, rules, stepFields, stepRules);
+        return new ValidationPlan(fields.toArray(new FieldPlan[0]), rules.toArray(new CrossFieldRule[0]),
+                stepFields, stepRules);
+    }
+
+    /**
+     * For hvert spørgsmål: hvilke felter og regler skal valideres når netop det spørgsmål er besvaret
+     * Et trin omfatter spørgsmålet og hele dets conditional subtree (parent-svaret afgør om children vises);
+     * en regel køres hvis den læser et af trinnets spørgsmål.
+     */
+    private static void compileSteps(List<Question> questions, List<FieldPlan> fields, List<CrossFieldRule> rules,
+                                     Map<String, int[]> stepFields, Map<String, int[]> stepRules) {
+        Map<String, Question> byId = new HashMap<>();
+        for (Question question : questions) {
+            byId.putIfAbsent(question.getId(), question);
+        }
+        Map<String, Integer> fieldById = new HashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            fieldById.putIfAbsent(fields.get(i).questionId, i);
+        }
+
+        for (Question question : byId.values()) {
+            Set<String> step = new HashSet<>();
+            collectSubtree(question, byId, step);
+
+            List<Integer> fieldIndexes = new ArrayList<>();
+            for (String id : step) {
+                Integer fieldIndex = fieldById.get(id);
+                if (fieldIndex != null) {
+                    fieldIndexes.add(fieldIndex);
+                }
+            }
+            List<Integer> ruleIndexes = new ArrayList<>();
+            for (int r = 0; r < rules.size(); r++) {
+                for (String id : rules.get(r).getQuestionIds()) {
+                    if (step.contains(id)) {
+                        ruleIndexes.add(r);
+                        break;
+                    }
+                }
+            }
+            stepFields.put(question.getId(), toSortedArray(fieldIndexes));
+            stepRules.put(question.getId(), toSortedArray(ruleIndexes));
+        }
+    }
+
+    private static void collectSubtree(Question question, Map<String, Question> byId, Set<String> step) {
+        if (!step.add(question.getId()) || question.getConditionalChildren() == null) {
+            return;
+        }
+        for (ConditionalChild cc : question.getConditionalChildren()) {
+            Question child = cc.getChildQuestionId() != null ? byId.get(cc.getChildQuestionId()) : null;
+            if (child != null) {
+                collectSubtree(child, byId, step);
+            }
+        }
+    }
+
+    private static int[] toSortedArray(List<Integer> values) {
+        if (values.isEmpty()) {
+            return NONE;
+        }
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        Arrays.sort(array);
+        return array;
+    }
+
+    /**
+     * Validerer enkeltsvar (min/max, formater, valgmuligheder)
+     * Conditional children hvis parent-svar ikke viser dem springes over.
+     */
+    public void validateAnswers(Map<String, Object> answers) {
+        for (FieldPlan field : fields) {
+            validateField(field, answers);
+        }
+    }
+
+    /**
+     * Kører de tværgående regler
+     */
+    public void applyRules(SubmissionContext context) {
+        for (CrossFieldRule rule : rules) {
+            rule.apply(context);
+        }
+    }
+
+    /**
+     * Trinvis validering når ét spørgsmål er besvaret (next-question flowet)
+     * Validerer kun spørgsmålet, dets conditional subtree og de regler de indgår i;
+     * tidligere trin er allerede valideret. Ukendte spørgsmål giver fuld validering.
+     * @param context Submission-kontekst med alle svar indtil nu
+     * @param questionId Spørgsmålet der netop er besvaret
+     */
+    public void validateStep(SubmissionContext context, String questionId) {
+        int[] fieldIndexes = questionId != null ? stepFields.get(questionId) : null;
+        if (fieldIndexes == null) {
+            validateAnswers(context.getAnswers());
+            applyRules(context);
+            return;
+        }
+        Map<String, Object> answers = context.getAnswers();
+        for (int index : fieldIndexes) {
+            validateField(fields[index], answers);
+        }
+        for (int index : stepRules.get(questionId)) {
+            rules[index].apply(context);
+        }
+    }
+
+    private static void validateField(FieldPlan field, Map<String, Object> answers) {
+        if (field.conditional && isHidden(field, answers)) {
+            return;
+        }
+        Object answer = answers.get(field.questionId);
+        if (answer == null) {
+            return;
+        }
+        if (!field.check.accepts(answer)) {
+            // Langsom vej: den oprindelige validator afgør og formulerer fejlen
+            field.validator.validate(field.question, answer);
+        }
+    }
+
+    private static boolean isHidden(FieldPlan field, Map<String, Object> answers) {
+        Object parentAnswer = answers.get(field.parentQuestionId);
+        if (parentAnswer == null) {
+            return true;
+        }
+        String parentOptionId = AnswerParser.extractOptionId(parentAnswer);
+        return parentOptionId == null || !parentOptionId.equals(field.parentOptionId);
+    }
+
+    private static FieldCheck compileCheck(Question question) {
+        if (question.getType() == null) {
+            return null;
+        }
+        switch (question.getType()) {
+            case text:
+                return compileTextCheck(question);
+            case numeric:
+            case slider:
+                return compileNumericCheck(question);
+            case time_picker:
+                return compileTimeCheck(question);
+            case multiple_choice:
+            case multiple_choice_multiple:
+                return compileChoiceCheck(question);
+            default:
+                return null;
+        }
+    }
+
+    private static FieldCheck compileTextCheck(Question question) {
+        Integer maxLength = question.getMaxLength();
+        Integer minLength = question.getMinLength();
+        int max = maxLength != null ? maxLength : Integer.MAX_VALUE;
+        int min = minLength != null ? minLength : 0;
+        return answer -> {
+            String text = answer.toString();
+            if (text.length() > max) {
+                return false;
+            }
+            int trimmed = trimmedLength(text);
+            return trimmed >= min && trimmed > 0;
+        };
+    }
+
+    private static FieldCheck compileNumericCheck(Question question) {
+        boolean hasMin = question.getMinValue() != null;
+        boolean hasMax = question.getMaxValue() != null;
+        int min = hasMin ? question.getMinValue() : 0;
+        int max = hasMax ? question.getMaxValue() : 0;
+        return answer -> {
+            double value;
+            if (answer instanceof Number number) {
+                value = number.doubleValue();
+            } else {
+                String text = answer.toString();
+                long whole = parseDigits(text);
+                if (whole >= 0) {
+                    value = whole;
+                } else {
+                    try {
+                        value = Double.parseDouble(text);
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            if (hasMin ? value < min : value < 0) {
+                return false;
+            }
+            return !hasMax || value <= max;
+        };
+    }
+
+    private static FieldCheck compileTimeCheck(Question question) {
+        int min;
+        int max;
+        try {
+            min = parseBound(question.getMinTime());
+            max = parseBound(question.getMaxTime());
+        } catch (RuntimeException e) {
+            // Ugyldig grænse: lad den oprindelige validator håndtere hvert svar
+            return answer -> false;
+        }
+        return answer -> {
+            int minutes = AnswerParser.parseMinutesOfDay(answer.toString().trim());
+            return minutes >= 0 && (min < 0 || minutes >= min) && (max < 0 || minutes <= max);
+        };
+    }
+
+    // Grænse i minutter efter midnat, -1 hvis ingen grænse
+    private static int parseBound(String bound) {
+        if (bound == null || bound.isEmpty()) {
+            return -1;
+        }
+        LocalTime time = LocalTime.parse(bound, TIME_FORMATTER);
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static FieldCheck compileChoiceCheck(Question question) {
+        List<QuestionOption> options = question.getOptions();
+        if (options == null || options.isEmpty()) {
+            return answer -> false;
+        }
+        Set<String> optionIds = new HashSet<>();
+        Set<String> otherOptionIds = new HashSet<>();
+        for (QuestionOption option : options) {
+            if (option.getId() == null) {
+                // Uventet data - den oprindelige validator afgør
+                return answer -> false;
+            }
+            // Første option med et givent ID afgør om det er "Andet" (som ved lineær søgning)
+            if (optionIds.add(option.getId()) && Boolean.TRUE.equals(option.getIsOther())) {
+                otherOptionIds.add(option.getId());
+            }
+        }
+        if (question.getType() == QuestionType.multiple_choice_multiple) {
+            return answer -> acceptsMultipleChoices(answer, optionIds, otherOptionIds);
+        }
+        return answer -> acceptsChoice(answer, optionIds, otherOptionIds);
+    }
+
+    private static boolean acceptsMultipleChoices(Object answer, Set<String> optionIds, Set<String> otherOptionIds) {
+        if (answer instanceof List<?> list) {
+            if (list.isEmpty()) {
+                return false;
+            }
+            if (list instanceof RandomAccess) {
+                for (int i = 0; i < list.size(); i++) {
+                    if (!acceptsChoice(list.get(i), optionIds, otherOptionIds)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            for (Object item : list) {
+                if (!acceptsChoice(item, optionIds, otherOptionIds)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (answer instanceof Object[] array) {
+            if (array.length == 0) {
+                return false;
+            }
+            for (Object item : array) {
+                if (!acceptsChoice(item, optionIds, otherOptionIds)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean acceptsChoice(Object answer, Set<String> optionIds, Set<String> otherOptionIds) {
+        String optionId = AnswerParser.extractOptionId(answer);
+        if (optionId == null || optionId.isEmpty() || !optionIds.contains(optionId)) {
+            return false;
+        }
+        if (otherOptionIds.contains(optionId)) {
+            String customText = AnswerParser.extractCustomText(answer);
+            return customText != null && trimmedLength(customText) > 0;
+        }
+        return true;
+    }
+
+    // Heltal af kun cifre (max 18) uden allokering, -1 hvis strengen har et andet format
+    private static long parseDigits(String text) {
+        int length = text.length();
+        if (length == 0 || length > 18) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    // Længden af String.trim() uden at oprette en ny streng
+    private static int trimmedLength(String text) {
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end - start;
+    }
+
+    @FunctionalInterface
+    private interface FieldCheck {
+        boolean accepts(Object answer);
+    }
+
+    private static final class FieldPlan {
+        private final Question question;
+        private final String questionId;
+        private final AnswerValidator validator;
+        private final FieldCheck check;
+        private final boolean conditional;
+        private final String parentQuestionId;
+        private final String parentOptionId;
+
+        private FieldPlan(Question question, AnswerValidator validator, FieldCheck check,
+                          boolean conditional, String parentQuestionId, String parentOptionId) {
+            this.question = question;
+            this.questionId = question.getId();
+            this.validator = validator;
+            this.check = check;
+            this.conditional = conditional;
+            this.parentQuestionId = parentQuestionId;
+            this.parentOptionId = parentOptionId;
+        }
+    }
+}
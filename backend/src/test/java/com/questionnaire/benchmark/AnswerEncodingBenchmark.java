@@ -0,0 +1,257 @@
+package com.questionnaire.benchmark;
+
+import com.questionnaire.model.ConditionalChild;
+import com.questionnaire.model.Question;
+import com.questionnaire.model.QuestionOption;
+import com.questionnaire.model.QuestionType;
+import com.questionnaire.model.QuestionnaireSnapshot;
+import com.questionnaire.model.QuestionnaireType;
+import com.questionnaire.model.Response;
+import com.questionnaire.model.SleepParameters;
+import com.questionnaire.service.AnswerSchema;
+import com.questionnaire.service.AnswerSchemaRegistry;
+import com.questionnaire.service.PackedAnswersListener;
+import com.questionnaire.service.QuestionnaireSnapshotCache;
+import org.bson.BsonBinaryReader;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.questionnaire.utils.QuestionOrderUtil.childOrder;
+
+/**
+ * Sammenligner dokumentstørrelse og afkodning af besvarelser gemt med svar som
+ * spørgsmåls-id -> værdi (ældre format) og som pakket blob fra AnswerSchema.
+ * Setup genererer en syntetisk samling af morgendagbøger (som i seederen) og udskriver
+ * gennemsnitlig BSON-størrelse for begge formater; benchmarks måler afkodning af
+ * BSON-bytes til Response med MappingMongoConverter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnswerEncodingBenchmark {
+
+    private static final int DECODE_SAMPLE = 10_000;
+    private static final DocumentCodec CODEC = new DocumentCodec();
+    private static final DecoderContext DECODER_CONTEXT = DecoderContext.builder().build();
+    /** Spørgsmålenes order i den rækkefølge diary() udfylder dem */
+    private static final int[] ORDERS = {1, childOrder(1, 1), 2, 3, 4, 5, 6, childOrder(6, 1), childOrder(6, 2), 7, 8, 9};
+
+    @Param({"1000000"})
+    public int diaries;
+
+    private MappingMongoConverter converter;
+    private PackedAnswersListener listener;
+    private byte[][] raw;
+    private byte[][] packed;
+    private int next;
+
+    @Setup
+    public void setup() {
+        QuestionnaireSnapshot snapshot = new QuestionnaireSnapshot(new ObjectId().toHexString(), 1, morningQuestionnaire());
+        AnswerSchema schema = AnswerSchema.of(snapshot);
+        String[] questionIds = new String[ORDERS.length];
+        for (int i = 0; i < ORDERS.length; i++) {
+            int order = ORDERS[i];
+            questionIds[i] = snapshot.getQuestions().stream()
+                    .filter(question -> question.getOrder() == order)
+                    .findFirst().orElseThrow().getId();
+        }
+        QuestionnaireSnapshotCache snapshotCache = new QuestionnaireSnapshotCache(null) {
+            @Override
+            public QuestionnaireSnapshot getSnapshot(String questionnaireId) {
+                return snapshot;
+            }
+        };
+        AnswerSchemaRegistry registry = new AnswerSchemaRegistry(null) {
+            @Override
+            public boolean register(AnswerSchema candidate) {
+                return true;
+            }
+
+            @Override
+            public AnswerSchema get(int id) {
+                return schema;
+            }
+        };
+        listener = new PackedAnswersListener(registry, snapshotCache);
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.afterPropertiesSet();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.afterPropertiesSet();
+
+        Random random = new Random(42);
+        String[] userIds = new String[1_000];
+        for (int i = 0; i < userIds.length; i++) {
+            userIds[i] = new ObjectId().toHexString();
+        }
+        raw = new byte[DECODE_SAMPLE][];
+        packed = new byte[DECODE_SAMPLE][];
+        long rawTotal = 0;
+        long packedTotal = 0;
+        for (int i = 0; i < diaries; i++) {
+            Response response = diary(snapshot.getQuestionnaireId(), questionIds, userIds[random.nextInt(userIds.length)], random);
+            Document document = new Document();
+            converter.write(response, document);
+            byte[] rawBytes = bytes(document);
+            listener.pack(document, response);
+            byte[] packedBytes = bytes(document);
+            rawTotal += rawBytes.length;
+            packedTotal += packedBytes.length;
+            if (i < DECODE_SAMPLE) {
+                raw[i] = rawBytes;
+                packed[i] = packedBytes;
+            }
+        }
+        System.out.printf("%n%d dagbøger: ældre format %.1f B/dok (%.1f MB), pakket %.1f B/dok (%.1f MB), %.1f %% mindre%n",
+                diaries, (double) rawTotal / diaries, rawTotal / 1e6, (double) packedTotal / diaries, packedTotal / 1e6,
+                100.0 * (rawTotal - packedTotal) / rawTotal);
+    }
+
+    @Benchmark
+    public Response decodeRaw() {
+        Document document = decode(raw[next()]);
+        return converter.read(Response.class, document);
+    }
+
+    @Benchmark
+    public Response decodePacked() {
+        Document document = decode(packed[next()]);
+        listener.unpack(document);
+        return converter.read(Response.class, document);
+    }
+
+    private int next() {
+        int index = next;
+        next = index + 1 == DECODE_SAMPLE ? 0 : index + 1;
+        return index;
+    }
+
+    private static byte[] bytes(Document document) {
+        ByteBuffer buffer = new RawBsonDocument(document, CODEC).getByteBuffer().asNIO();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static Document decode(byte[] bytes) {
+        try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(bytes))) {
+            return CODEC.decode(reader, DECODER_CONTEXT);
+        }
+    }
+
+    /**
+     * Morgenskemaet som i seederen, med ObjectId'er som spørgsmåls-id'er
+     */
+    private static List<Question> morningQuestionnaire() {
+        List<Question> questions = new ArrayList<>();
+        Question medication = question(1, QuestionType.multiple_choice, "med_no", "med_yes");
+        Question medicationType = question(childOrder(1, 1), QuestionType.multiple_choice_multiple, "melatonin", "zopiclone", "andet");
+        medicationType.getOptions().get(2).setIsOther(true);
+        medication.setConditionalChildren(List.of(new ConditionalChild("med_yes", medicationType.getId())));
+        Question wokeUp = question(6, QuestionType.multiple_choice, "wake_no", "wake_yes");
+        Question wakeCount = question(childOrder(6, 1), QuestionType.numeric);
+        Question wakeMinutes = question(childOrder(6, 2), QuestionType.numeric);
+        wokeUp.setConditionalChildren(List.of(
+                new ConditionalChild("wake_yes", wakeCount.getId()),
+                new ConditionalChild("wake_yes", wakeMinutes.getId())));
+        questions.add(medication);
+        questions.add(medicationType);
+        questions.add(question(2, QuestionType.text));
+        questions.add(question(3, QuestionType.time_picker));
+        questions.add(question(4, QuestionType.time_picker));
+        questions.add(question(5, QuestionType.numeric));
+        questions.add(wokeUp);
+        questions.add(wakeCount);
+        questions.add(wakeMinutes);
+        questions.add(question(7, QuestionType.time_picker));
+        questions.add(question(8, QuestionType.time_picker));
+        questions.add(question(9, QuestionType.slider));
+        questions.sort(Comparator.comparingInt(Question::getOrder));
+        return questions;
+    }
+
+    private static Response diary(String questionnaireId, String[] q, String userId, Random random) {
+        Map<String, Object> answers = new LinkedHashMap<>();
+        if (random.nextInt(4) == 0) {
+            answers.put(q[0], "med_yes");
+            answers.put(q[1], random.nextBoolean()
+                    ? List.of("melatonin")
+                    : List.of("zopiclone", Map.of("optionId", "andet", "customText", "Baldrian")));
+        } else {
+            answers.put(q[0], "med_no");
+        }
+        if (random.nextInt(3) == 0) {
+            answers.put(q[2], "Læste en bog");
+        }
+        int bedTime = 21 * 60 + random.nextInt(180);
+        answers.put(q[3], time(bedTime));
+        answers.put(q[4], time(bedTime + 10 + random.nextInt(30)));
+        answers.put(q[5], 5 + random.nextInt(60));
+        if (random.nextBoolean()) {
+            answers.put(q[6], "wake_yes");
+            answers.put(q[7], 1 + random.nextInt(4));
+            answers.put(q[8], 5 + random.nextInt(90));
+        } else {
+            answers.put(q[6], "wake_no");
+        }
+        int wokeUp = 5 * 60 + random.nextInt(180);
+        answers.put(q[9], time(wokeUp));
+        answers.put(q[10], time(wokeUp + random.nextInt(60)));
+        answers.put(q[11], 1 + random.nextInt(5));
+
+        Response response = new Response(userId, questionnaireId, QuestionnaireType.morning, answers);
+        response.setId(new ObjectId().toHexString());
+        response.setCreatedAt(new Date(1_700_000_000_000L + random.nextInt(30_000_000) * 1000L));
+        response.setLocalDate("2024-01-01");
+        response.setSleepParameters(new SleepParameters(random.nextInt(60), random.nextInt(90), 480, 420));
+        return response;
+    }
+
+    private static String time(int minutes) {
+        minutes %= 24 * 60;
+        return String.format("%02d:%02d", minutes / 60, minutes % 60);
+    }
+
+    private static Question question(int order, QuestionType type, String... optionIds) {
+        Question question = new Question("morning", "Spørgsmål " + order, type, false, order);
+        question.setId(new ObjectId().toHexString());
+        if (optionIds.length > 0) {
+            List<QuestionOption> options = new ArrayList<>();
+            for (String optionId : optionIds) {
+                options.add(new QuestionOption(optionId, optionId));
+            }
+            question.setOptions(options);
+        }
+        return question;
+    }
+}
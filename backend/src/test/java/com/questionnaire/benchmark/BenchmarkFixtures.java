@@ -0,0 +1,57 @@
+package com.questionnaire.benchmark;
+
+import com.questionnaire.model.ConditionalChild;
+import com.questionnaire.model.Question;
+import com.questionnaire.model.QuestionOption;
+import com.questionnaire.model.QuestionType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.questionnaire.utils.QuestionOrderUtil.childOrder;
+
+/**
+ * Syntetiske spørgeskemaer til microbenchmarks
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+        // Utility class
+    }
+
+    /**
+     * Bygger et spørgeskema med det ønskede antal spørgsmål, hvor hvert fjerde root
+     * spørgsmål er et multiple choice med to conditional children på første option.
+     * Listen er sorteret efter order ligesom repository-resultatet.
+     */
+    static List<Question> questionnaire(String questionnaireId, int size) {
+        List<Question> questions = new ArrayList<>(size);
+        int rootOrder = 0;
+        while (questions.size() < size) {
+            rootOrder++;
+            Question root = question(questionnaireId, "q" + rootOrder, rootOrder, QuestionType.text);
+            questions.add(root);
+            if (rootOrder % 4 == 0 && questions.size() + 2 <= size) {
+                root.setType(QuestionType.multiple_choice);
+                root.setOptions(List.of(new QuestionOption("yes", "Ja"), new QuestionOption("no", "Nej")));
+                List<ConditionalChild> children = new ArrayList<>();
+                for (int i = 1; i <= 2; i++) {
+                    Question child = question(questionnaireId, "q" + rootOrder + "_" + i,
+                            childOrder(rootOrder, i), QuestionType.text);
+                    questions.add(child);
+                    children.add(new ConditionalChild("yes", child.getId()));
+                }
+                root.setConditionalChildren(children);
+            }
+        }
+        questions.sort(Comparator.comparingInt(Question::getOrder));
+        return questions;
+    }
+
+    private static Question question(String questionnaireId, String id, int order, QuestionType type) {
+        Question q = new Question(questionnaireId, "Spørgsmål " + id, type, false, order);
+        q.setId(id);
+        return q;
+    }
+}
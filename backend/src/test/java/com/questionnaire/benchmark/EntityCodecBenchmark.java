@@ -0,0 +1,158 @@
+package com.questionnaire.benchmark;
+
+import com.questionnaire.codec.EntityCodecMongoConverter;
+import com.questionnaire.model.Question;
+import com.questionnaire.model.QuestionnaireType;
+import com.questionnaire.model.Response;
+import com.questionnaire.model.SleepParameters;
+import com.questionnaire.model.User;
+import com.questionnaire.model.UserRole;
+import org.bson.BsonBinaryReader;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sammenligner reflektiv MappingMongoConverter med de håndskrevne entity codecs på list-endpoints.
+ * I stedet for en MongoDB-server holdes dokumenterne som BSON-bytes, og hver operation gør det
+ * samme som MongoTemplate pr. dokument: driveren afkoder bytes til Document, og converteren
+ * mapper til entity (læsning) eller fra entity til Document (skrivning).
+ * readResponses svarer til getResponsesByUserId for en bruger med et halvt års dagbøger.
+ * Kør med -prof gc for at se allokering pr. operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityCodecBenchmark {
+
+    private static final DocumentCodec CODEC = new DocumentCodec();
+    private static final DecoderContext DECODER_CONTEXT = DecoderContext.builder().build();
+
+    @Param({"reflective", "codecs"})
+    public String mapping;
+
+    @Param({"180"})
+    public int responses;
+
+    private MappingMongoConverter converter;
+    private List<Response> responseEntities;
+    private byte[][] responseBytes;
+    private byte[][] questionBytes;
+    private byte[][] userBytes;
+
+    @Setup
+    public void setup() {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.afterPropertiesSet();
+        converter = "codecs".equals(mapping)
+                ? new EntityCodecMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext)
+                : new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.afterPropertiesSet();
+
+        Random random = new Random(42);
+        List<Question> questions = BenchmarkFixtures.questionnaire(new ObjectId().toHexString(), 12);
+        for (Question question : questions) {
+            question.setId(new ObjectId().toHexString());
+        }
+        String userId = new ObjectId().toHexString();
+        responseEntities = new ArrayList<>(responses);
+        responseBytes = new byte[responses][];
+        for (int i = 0; i < responses; i++) {
+            Map<String, Object> answers = new LinkedHashMap<>();
+            for (Question question : questions) {
+                answers.put(question.getId(), random.nextBoolean()
+                        ? String.format("%02d:%02d", random.nextInt(24), random.nextInt(60))
+                        : random.nextInt(120));
+            }
+            Response response = new Response(userId, questions.get(0).getQuestionnaireId(), QuestionnaireType.morning, answers);
+            response.setId(new ObjectId().toHexString());
+            response.setLocalDate("2024-01-01");
+            response.setSleepParameters(new SleepParameters(random.nextInt(60), random.nextInt(90), 480, 420));
+            responseEntities.add(response);
+            responseBytes[i] = bytes(response);
+        }
+        questionBytes = new byte[questions.size()][];
+        for (int i = 0; i < questions.size(); i++) {
+            questionBytes[i] = bytes(questions.get(i));
+        }
+        userBytes = new byte[50][];
+        for (int i = 0; i < userBytes.length; i++) {
+            User user = new User("borger" + i, "$2a$10$" + "x".repeat(53), UserRole.BORGER, "Fornavn", "Efternavn");
+            user.setId(new ObjectId().toHexString());
+            user.setAdvisorId(userId);
+            userBytes[i] = bytes(user);
+        }
+    }
+
+    @Benchmark
+    public List<Response> readResponses() {
+        return readAll(responseBytes, Response.class);
+    }
+
+    @Benchmark
+    public List<Document> writeResponses() {
+        List<Document> documents = new ArrayList<>(responseEntities.size());
+        for (Response response : responseEntities) {
+            Document document = new Document();
+            converter.write(response, document);
+            documents.add(document);
+        }
+        return documents;
+    }
+
+    @Benchmark
+    public List<Question> readQuestions() {
+        return readAll(questionBytes, Question.class);
+    }
+
+    @Benchmark
+    public List<User> readUsers() {
+        return readAll(userBytes, User.class);
+    }
+
+    private <T> List<T> readAll(byte[][] documents, Class<T> type) {
+        List<T> result = new ArrayList<>(documents.length);
+        for (byte[] bytes : documents) {
+            try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(bytes))) {
+                result.add(converter.read(type, CODEC.decode(reader, DECODER_CONTEXT)));
+            }
+        }
+        return result;
+    }
+
+    private byte[] bytes(Object entity) {
+        Document document = new Document();
+        converter.write(entity, document);
+        ByteBuffer buffer = new RawBsonDocument(document, CODEC).getByteBuffer().asNIO();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,104 @@
+package com.questionnaire.benchmark;
+
+import com.questionnaire.model.Question;
+import com.questionnaire.model.QuestionnaireSnapshot;
+import com.questionnaire.service.NavigationGraph;
+import com.questionnaire.service.QuestionServiceImpl;
+import com.questionnaire.strategy.DefaultConditionalLogic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sammenligner den lineære næste-spørgsmål algoritme med den kompilerede NavigationGraph
+ * Se src/test/README.md for hvordan benchmarks køres.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NextQuestionBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    private final QuestionServiceImpl questionService = new QuestionServiceImpl(null, null);
+    private final DefaultConditionalLogic conditionalLogic = new DefaultConditionalLogic();
+    private final Map<String, Object> answers = Map.of();
+
+    private QuestionnaireSnapshot snapshot;
+    private String currentQuestionId;
+
+    @Setup
+    public void setup() {
+        List<Question> questions = BenchmarkFixtures.questionnaire("bench", size);
+        snapshot = new QuestionnaireSnapshot("bench", 1, questions);
+        // Et root spørgsmål midt i spørgeskemaet
+        currentQuestionId = questionService.findRootQuestions(questions).get(size / 4).getId();
+        NavigationGraph.of(snapshot);
+    }
+
+    @Benchmark
+    public Question linearScan() {
+        List<Question> allQuestions = snapshot.getQuestions();
+        Question currentQuestion = null;
+        for (Question q : allQuestions) {
+            if (q.getId().equals(currentQuestionId)) {
+                currentQuestion = q;
+                break;
+            }
+        }
+        if (currentQuestion == null) {
+            return null;
+        }
+        List<Question> rootQuestions = questionService.findRootQuestions(allQuestions);
+        int currentOrder = currentQuestion.getOrder();
+        for (Question q : rootQuestions) {
+            if (q.getOrder() > currentOrder
+                    && conditionalLogic.shouldShow(q, answers, allQuestions, currentQuestionId) != null) {
+                return q;
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public Question compiledGraph() {
+        List<Question> allQuestions = snapshot.getQuestions();
+        NavigationGraph graph = NavigationGraph.of(snapshot);
+        int start = graph.firstRootAfter(currentQuestionId);
+        if (start < 0) {
+            return null;
+        }
+        for (int i = start; i < graph.rootCount(); i++) {
+            Question q = graph.rootAt(i);
+            if (conditionalLogic.shouldShow(q, answers, allQuestions, currentQuestionId) != null) {
+                return q;
+            }
+        }
+        return null;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(NextQuestionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
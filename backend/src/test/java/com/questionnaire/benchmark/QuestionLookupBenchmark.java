@@ -0,0 +1,130 @@
+package com.questionnaire.benchmark;
+
+import com.questionnaire.constants.QuestionnaireConstants;
+import com.questionnaire.model.Question;
+import com.questionnaire.model.QuestionType;
+import com.questionnaire.model.QuestionnaireSnapshot;
+import com.questionnaire.model.SleepData;
+import com.questionnaire.service.QuestionOrderIndex;
+import com.questionnaire.service.SleepDataExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Sammenligner lineære order-opslag (den tidligere QuestionFinder og HashMap<Integer>-baserede
+ * SleepDataExtractor) med QuestionOrderIndex.
+ * Se src/test/README.md for hvordan benchmarks køres.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuestionLookupBenchmark {
+
+    // Samme opslag som UnifiedQuestionnaireValidator laver når reglerne bindes til spørgsmål
+    private static final int[] LOOKUP_ORDERS = {6, 602, 3, 4, 7, 8, 6, 601, 602, 3};
+    private static final QuestionType[] LOOKUP_TYPES = {
+            QuestionType.multiple_choice, QuestionType.numeric, QuestionType.time_picker, QuestionType.time_picker,
+            QuestionType.time_picker, QuestionType.time_picker, QuestionType.multiple_choice, QuestionType.numeric,
+            QuestionType.numeric, QuestionType.time_picker};
+
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    private final SleepDataExtractor extractor = new SleepDataExtractor();
+    private final Map<Integer, BiConsumer<SleepData, Object>> legacyHandlers = new HashMap<>();
+    private final Map<String, Object> answers = new HashMap<>();
+
+    private QuestionnaireSnapshot snapshot;
+
+    @Setup
+    public void setup() {
+        List<Question> questions = BenchmarkFixtures.questionnaire("bench", size);
+        for (Question q : questions) {
+            switch (q.getOrder()) {
+                case 3, 4, 7, 8 -> {
+                    q.setType(QuestionType.time_picker);
+                    answers.put(q.getId(), "22:00");
+                }
+                case 5 -> {
+                    q.setType(QuestionType.numeric);
+                    answers.put(q.getId(), "15");
+                }
+                case 6 -> q.setType(QuestionType.multiple_choice);
+                case 602 -> answers.put(q.getId(), "30");
+                default -> answers.put(q.getId(), "svar");
+            }
+        }
+        snapshot = new QuestionnaireSnapshot("bench", 1, questions);
+        legacyHandlers.put(QuestionnaireConstants.ORDER_3, (data, answer) -> data.setWentToBedTime(answer.toString().trim()));
+        legacyHandlers.put(QuestionnaireConstants.ORDER_4, (data, answer) -> data.setLightOffTime(answer.toString().trim()));
+        legacyHandlers.put(QuestionnaireConstants.ORDER_5, (data, answer) -> data.setFellAsleepAfter(answer.toString().trim()));
+        legacyHandlers.put(QuestionnaireConstants.ORDER_602, (data, answer) -> data.setWASO(Double.parseDouble(answer.toString())));
+        legacyHandlers.put(QuestionnaireConstants.ORDER_7, (data, answer) -> data.setWokeUpTime(answer.toString().trim()));
+        legacyHandlers.put(QuestionnaireConstants.ORDER_8, (data, answer) -> data.setGotUpTime(answer.toString().trim()));
+        QuestionOrderIndex.of(snapshot);
+    }
+
+    @Benchmark
+    public void validatorLookupsLinear(Blackhole bh) {
+        List<Question> questions = snapshot.getQuestions();
+        for (int i = 0; i < LOOKUP_ORDERS.length; i++) {
+            Question found = null;
+            for (Question q : questions) {
+                if (q.getOrder() == LOOKUP_ORDERS[i] && q.getType() == LOOKUP_TYPES[i]) {
+                    found = q;
+                    break;
+                }
+            }
+            bh.consume(found);
+        }
+    }
+
+    @Benchmark
+    public void validatorLookupsIndexed(Blackhole bh) {
+        QuestionOrderIndex index = QuestionOrderIndex.of(snapshot);
+        for (int i = 0; i < LOOKUP_ORDERS.length; i++) {
+            bh.consume(index.findByOrderAndType(LOOKUP_ORDERS[i], LOOKUP_TYPES[i]));
+        }
+    }
+
+    @Benchmark
+    public SleepData extractLinear() {
+        // Tidligere SleepDataExtractor: alle spørgsmål gennemløbes og order boxes til HashMap-opslag
+        SleepData data = new SleepData();
+        for (Question question : snapshot.getQuestions()) {
+            Object answer = answers.get(question.getId());
+            if (answer == null) {
+                continue;
+            }
+            BiConsumer<SleepData, Object> handler = legacyHandlers.get(question.getOrder());
+            if (handler != null) {
+                handler.accept(data, answer);
+            }
+        }
+        return data;
+    }
+
+    @Benchmark
+    public SleepData extractIndexed() {
+        return extractor.extract(QuestionOrderIndex.of(snapshot), answers);
+    }
+}
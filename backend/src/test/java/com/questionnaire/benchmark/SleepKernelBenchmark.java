@@ -0,0 +1,87 @@
+package com.questionnaire.benchmark;
+
+import com.questionnaire.model.SleepData;
+import com.questionnaire.model.SleepParameters;
+import com.questionnaire.service.SleepKernel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sammenligner den tidligere strengbaserede søvnberegning (LocalTime-parsing og formatering
+ * af "faldt i søvn"-tiden for hver parameter) med SleepKernel på minutter efter midnat.
+ * Kør med -prof gc for at se allokering pr. operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SleepKernelBenchmark {
+
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final SleepData data = new SleepData("23:00", "23:15", "20", 30, "06:30", "07:00");
+    private final SleepKernel.Times times = new SleepKernel.Times();
+    private final SleepParameters out = new SleepParameters();
+
+    @Setup
+    public void setup() {
+        times.set(data);
+    }
+
+    @Benchmark
+    public SleepParameters legacyStrings() {
+        double tib = difference(data.getWentToBedTime(), data.getGotUpTime());
+        String fell = addMinutes(data.getLightOffTime(), minutes(data.getFellAsleepAfter()));
+        double sol = difference(data.getWentToBedTime(), fell);
+        fell = addMinutes(data.getLightOffTime(), minutes(data.getFellAsleepAfter()));
+        double tst = difference(fell, data.getWokeUpTime());
+        return new SleepParameters(sol, data.getWASO(), tib, tst);
+    }
+
+    @Benchmark
+    public SleepParameters kernelParseAndCompute() {
+        SleepKernel.compute(times.set(data), out);
+        return out;
+    }
+
+    @Benchmark
+    public SleepParameters kernelCompute() {
+        SleepKernel.compute(times, out);
+        return out;
+    }
+
+    private static double minutes(String value) {
+        if (value.contains(":")) {
+            LocalTime time = LocalTime.parse(value, TIME_FORMATTER);
+            return time.getHour() * 60.0 + time.getMinute();
+        }
+        return Double.parseDouble(value);
+    }
+
+    private static double difference(String startTime, String endTime) {
+        LocalTime start = LocalTime.parse(startTime, TIME_FORMATTER);
+        LocalTime end = LocalTime.parse(endTime, TIME_FORMATTER);
+        if (!end.isAfter(start)) {
+            return 24 * 60 - (start.getHour() * 60 + start.getMinute()) + end.getHour() * 60 + end.getMinute();
+        }
+        return java.time.Duration.between(start, end).toMinutes();
+    }
+
+    private static String addMinutes(String time, double minutes) {
+        return LocalTime.parse(time, TIME_FORMATTER).plusMinutes((long) minutes).format(TIME_FORMATTER);
+    }
+}
@@ -0,0 +1,118 @@
+package com.questionnaire.benchmark;
+
+import com.questionnaire.model.ConditionalChild;
+import com.questionnaire.model.Question;
+import com.questionnaire.model.QuestionType;
+import com.questionnaire.utils.AnswerParser;
+import com.questionnaire.validation.MultipleChoiceAnswerValidator;
+import com.questionnaire.validation.NumericAnswerValidator;
+import com.questionnaire.validation.TextAnswerValidator;
+import com.questionnaire.validation.TimeAnswerValidator;
+import com.questionnaire.validation.ValidationPlan;
+import com.questionnaire.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sammenligner den tidligere grundlæggende validering (conditional-index pr. kald,
+ * ValidatorFactory-dispatch og LocalTime-parsing af grænser) med en kompileret ValidationPlan.
+ * Kør med -prof gc for at se allokering pr. operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationPlanBenchmark {
+
+    @Param({"10", "100"})
+    private int size;
+
+    private final ValidatorFactory factory = new ValidatorFactory(new TextAnswerValidator(),
+            new NumericAnswerValidator(), new TimeAnswerValidator(), new MultipleChoiceAnswerValidator());
+    private final Map<String, Object> answers = new HashMap<>();
+
+    private List<Question> questions;
+    private ValidationPlan plan;
+
+    @Setup
+    public void setup() {
+        questions = BenchmarkFixtures.questionnaire("bench", size);
+        for (Question q : questions) {
+            switch (q.getOrder() % 3) {
+                case 0 -> {
+                    if (q.getType() == QuestionType.text) {
+                        q.setType(QuestionType.time_picker);
+                        q.setMinTime("00:00");
+                        q.setMaxTime("23:59");
+                    }
+                }
+                case 1 -> {
+                    if (q.getType() == QuestionType.text) {
+                        q.setType(QuestionType.numeric);
+                        q.setMinValue(0);
+                        q.setMaxValue(600);
+                    }
+                }
+                default -> q.setMaxLength(200);
+            }
+            answers.put(q.getId(), switch (q.getType()) {
+                case time_picker -> "22:30";
+                case numeric -> 15;
+                case multiple_choice -> "yes";
+                default -> "svar";
+            });
+        }
+        plan = ValidationPlan.compile(questions, factory, List.of());
+    }
+
+    @Benchmark
+    public Map<String, Object> legacy() {
+        Map<String, Question> parentByChild = new HashMap<>();
+        Map<String, String> optionByChild = new HashMap<>();
+        for (Question parent : questions) {
+            if (parent.getConditionalChildren() == null) {
+                continue;
+            }
+            for (ConditionalChild cc : parent.getConditionalChildren()) {
+                parentByChild.put(cc.getChildQuestionId(), parent);
+                optionByChild.put(cc.getChildQuestionId(), cc.getOptionId());
+            }
+        }
+        for (Question question : questions) {
+            Question parent = parentByChild.get(question.getId());
+            if (parent != null) {
+                String optionId = AnswerParser.extractOptionId(answers.get(parent.getId()));
+                if (optionId == null || !optionId.equals(optionByChild.get(question.getId()))) {
+                    continue;
+                }
+            }
+            Object answer = answers.get(question.getId());
+            if (answer != null) {
+                factory.getValidator(question.getType()).validate(question, answer);
+            }
+        }
+        return answers;
+    }
+
+    @Benchmark
+    public Map<String, Object> compiledPlan() {
+        plan.validateAnswers(answers);
+        return answers;
+    }
+}
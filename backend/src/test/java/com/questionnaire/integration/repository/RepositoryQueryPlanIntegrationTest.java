@@ -0,0 +1,271 @@
+package com.questionnaire.integration.repository;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.questionnaire.config.MongoIndexInitializer;
+import com.questionnaire.model.QuestionnaireType;
+import com.questionnaire.model.Response;
+import com.questionnaire.model.UserRole;
+import com.questionnaire.repository.QuestionRepository;
+import com.questionnaire.repository.QuestionnaireRepository;
+import com.questionnaire.repository.ResponseRepository;
+import com.questionnaire.repository.UserRepository;
+import com.questionnaire.service.AnsweredTodayTracker;
+import com.questionnaire.service.ResponsePageQuery;
+import com.questionnaire.service.SleepDataQuery;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Kører explain() på hver repository-query mod en lokal MongoDB og fejler hvis
+ * en query laver COLLSCAN eller in-memory SORT.
+ * Kræver en lokal MongoDB (fx docker run -p 27017:27017 mongo:7):
+ * MONGODB_TEST_URI=mongodb://localhost:27017 mvn test -Dtest=RepositoryQueryPlanIntegrationTest
+ */
+@EnabledIfEnvironmentVariable(named = "MONGODB_TEST_URI", matches = ".+")
+@DisplayName("Repository query plans (explain mod lokal MongoDB)")
+class RepositoryQueryPlanIntegrationTest {
+
+    private static final String DATABASE = "query_plan_test_" + System.currentTimeMillis();
+    private static final Set<String> COMMAND_FIELDS_TO_STRIP = Set.of("lsid", "txnNumber", "apiVersion",
+            "apiStrict", "apiDeprecationErrors", "readConcern");
+
+    private static final List<BsonDocument> capturedFinds = Collections.synchronizedList(new ArrayList<>());
+    private static MongoClient client;
+    private static MongoTemplate template;
+    private static MongoRepositoryFactory repositoryFactory;
+
+    @BeforeAll
+    static void connect() {
+        CommandListener listener = new CommandListener() {
+            @Override
+            public void commandStarted(CommandStartedEvent event) {
+                if (("find".equals(event.getCommandName()) || "aggregate".equals(event.getCommandName()))
+                        && DATABASE.equals(event.getDatabaseName())) {
+                    capturedFinds.add(event.getCommand().clone());
+                }
+            }
+        };
+        client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(System.getenv("MONGODB_TEST_URI")))
+                .addCommandListener(listener)
+                .build());
+        template = new MongoTemplate(client, DATABASE);
+        repositoryFactory = new MongoRepositoryFactory(template);
+        MongoIndexInitializer.ensureIndexes(template);
+    }
+
+    @AfterAll
+    static void dropDatabase() {
+        if (client != null) {
+            client.getDatabase(DATABASE).drop();
+            client.close();
+        }
+    }
+
+    @BeforeEach
+    void clearCaptured() {
+        capturedFinds.clear();
+    }
+
+    @Test
+    @DisplayName("ResponseRepository queries bruger index uden in-memory sort")
+    void responseRepository_usesIndexes() {
+        ResponseRepository repository = repositoryFactory.getRepository(ResponseRepository.class);
+
+        repository.findByUserId("u1");
+        repository.findByUserIdAndQuestionnaireId("u1", "q1");
+        repository.findByUserIdAndQuestionnaireType("u1", QuestionnaireType.morning);
+        repository.findByUserIdAndQuestionnaireTypeAndDateRange("u1", QuestionnaireType.morning,
+                new Date(0), new Date());
+        repository.existsByUserIdAndQuestionnaireTypeAndLocalDate("u1", QuestionnaireType.morning, "2025-01-01");
+        try (Stream<Response> byUser = repository.streamByUserId("u1");
+             Stream<Response> byQuestionnaire = repository.streamByUserIdAndQuestionnaireId("u1", "q1")) {
+            assertEquals(0, byUser.count() + byQuestionnaire.count());
+        }
+
+        assertCapturedPlansUseIndexes(7);
+    }
+
+    @Test
+    @DisplayName("AnsweredTodayTracker varmer dagen via localDate indexet")
+    void answeredTodayTracker_warmsUsingIndex() {
+        AnsweredTodayTracker tracker = new AnsweredTodayTracker(template);
+
+        tracker.hasAnswered("u1", QuestionnaireType.morning);
+        tracker.hasAnswered("u1", QuestionnaireType.evening);
+
+        assertCapturedPlansUseIndexes(1);
+    }
+
+    @Test
+    @DisplayName("Unikt index afviser to besvarelser af samme type på samme danske dag")
+    void responseIndex_rejectsSecondResponseSameLocalDate() {
+        ResponseRepository repository = repositoryFactory.getRepository(ResponseRepository.class);
+        Response first = new Response("dup-user", "q1", QuestionnaireType.morning, Map.of("q", "a"));
+        first.setLocalDate("2025-01-01");
+        Response second = new Response("dup-user", "q1", QuestionnaireType.morning, Map.of("q", "b"));
+        second.setLocalDate("2025-01-01");
+        Response evening = new Response("dup-user", "q2", QuestionnaireType.evening, Map.of("q", "c"));
+        evening.setLocalDate("2025-01-01");
+
+        repository.insert(first);
+        repository.insert(evening);
+        // Ældre besvarelser uden localDate er ikke omfattet af det partielle index
+        repository.insert(new Response("dup-user", "q1", QuestionnaireType.morning, Map.of()));
+        repository.insert(new Response("dup-user", "q1", QuestionnaireType.morning, Map.of()));
+
+        assertThrows(DuplicateKeyException.class, () -> repository.insert(second));
+        assertTrue(repository.existsByUserIdAndQuestionnaireTypeAndLocalDate("dup-user", QuestionnaireType.morning, "2025-01-01"));
+    }
+
+    @Test
+    @DisplayName("QuestionRepository queries bruger index uden in-memory sort")
+    void questionRepository_usesIndexes() {
+        QuestionRepository repository = repositoryFactory.getRepository(QuestionRepository.class);
+
+        repository.findByQuestionnaireIdOrderByOrderAsc("q1");
+        repository.findByQuestionnaireId("q1");
+        repository.findByQuestionnaireIdAndOrder("q1", 1);
+        repository.findAllByQuestionnaireIdIncludingDeleted("q1");
+
+        assertCapturedPlansUseIndexes(4);
+    }
+
+    @Test
+    @DisplayName("findByQuestionnaireIdOrderByOrderAsc sender sortering med til MongoDB")
+    void findByQuestionnaireIdOrderByOrderAsc_sortsByOrder() {
+        QuestionRepository repository = repositoryFactory.getRepository(QuestionRepository.class);
+
+        repository.findByQuestionnaireIdOrderByOrderAsc("q1");
+
+        assertEquals(1, capturedFinds.size());
+        assertEquals(new Document("order", 1).toBsonDocument(),
+                capturedFinds.get(0).getDocument("sort"));
+    }
+
+    @Test
+    @DisplayName("QuestionnaireRepository og UserRepository queries bruger index")
+    void questionnaireAndUserRepository_useIndexes() {
+        QuestionnaireRepository questionnaireRepository = repositoryFactory.getRepository(QuestionnaireRepository.class);
+        UserRepository userRepository = repositoryFactory.getRepository(UserRepository.class);
+
+        questionnaireRepository.findByType(QuestionnaireType.morning);
+        userRepository.findByUsername("someone");
+        userRepository.existsByUsername("someone");
+        userRepository.findByRole(UserRole.RÅDGIVER);
+        userRepository.findByAdvisorId("advisor-1");
+
+        assertCapturedPlansUseIndexes(5);
+    }
+
+    @Test
+    @DisplayName("SleepDataQuery aggregation matcher og sorterer via user_type_createdAt indexet")
+    void sleepDataQuery_usesIndex() {
+        SleepDataQuery query = new SleepDataQuery(template, null);
+
+        query.findSleepData("u1", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 1));
+        query.findCohortSleepData(List.of("u1", "u2"), LocalDate.of(2025, 1, 1), LocalDate.of(2025, 2, 1));
+
+        assertCapturedPlansUseIndexes(2);
+    }
+
+    @Test
+    @DisplayName("ResponsePageQuery sider bruger (createdAt, _id) indexene uden in-memory sort")
+    void responsePageQuery_usesKeysetIndexes() {
+        ResponsePageQuery pageQuery = new ResponsePageQuery(template);
+        Response response = new Response("u1", "q1", QuestionnaireType.morning, Map.of());
+        response.setId(new ObjectId().toHexString());
+        template.insert(response);
+        template.insert(new Response("u1", "q1", QuestionnaireType.evening, Map.of()));
+        capturedFinds.clear();
+
+        String cursor = (String) pageQuery.findPage("u1", 1, null, null, null, null).get("nextCursor");
+        pageQuery.findPage("u1", 1, cursor, null, null, null);
+        pageQuery.findPage("u1", 1, null, QuestionnaireType.morning, LocalDate.of(2020, 1, 1), null);
+
+        assertNotNull(cursor);
+        assertCapturedPlansUseIndexes(3);
+    }
+
+    @Test
+    @DisplayName("SleepDataQuery gruppering bruger index til $match")
+    void sleepDataQuery_groupingUsesIndex() {
+        SleepDataQuery query = new SleepDataQuery(template, null);
+
+        query.groupSleepData("u1", LocalDate.of(2025, 1, 1), null, SleepDataQuery.Grouping.week);
+
+        // Aktuelle og forældede parametre hentes hver for sig; sorteringen efter $group sker
+        // nødvendigvis i pipelinen, så kun COLLSCAN er en fejl her
+        assertCapturedPlansUseIndexes(2, true);
+    }
+
+    private void assertCapturedPlansUseIndexes(int expectedQueries) {
+        assertCapturedPlansUseIndexes(expectedQueries, false);
+    }
+
+    private void assertCapturedPlansUseIndexes(int expectedQueries, boolean allowSort) {
+        assertEquals(expectedQueries, capturedFinds.size(), "Uventet antal find/aggregate-kommandoer");
+        for (BsonDocument find : capturedFinds) {
+            Set<String> stages = new TreeSet<>();
+            // Hele explain-outputtet gennemgås, da aggregate lægger queryPlanner under stages[0].$cursor
+            collectStages(explain(find), stages);
+            assertFalse(stages.contains("COLLSCAN"), () -> "COLLSCAN for " + find.toJson() + ": " + stages);
+            assertTrue(allowSort || !stages.contains("SORT"), () -> "In-memory SORT for " + find.toJson() + ": " + stages);
+        }
+    }
+
+    private Document explain(BsonDocument find) {
+        Document command = new Document();
+        for (String key : find.keySet()) {
+            if (!key.startsWith("$") && !COMMAND_FIELDS_TO_STRIP.contains(key)) {
+                command.put(key, find.get(key));
+            }
+        }
+        return client.getDatabase(DATABASE)
+                .runCommand(new Document("explain", command).append("verbosity", "queryPlanner"));
+    }
+
+    // Samler alle "stage"-værdier rekursivt (dækker både klassisk og SBE explain-format)
+    private static void collectStages(Object node, Set<String> stages) {
+        if (node instanceof Document document) {
+            Object stage = document.get("stage");
+            if (stage instanceof String name) {
+                stages.add(name);
+            }
+            document.forEach((key, value) -> {
+                if (!"rejectedPlans".equals(key)) {
+                    collectStages(value, stages);
+                }
+            });
+        } else if (node instanceof List<?> list) {
+            list.forEach(item -> collectStages(item, stages));
+        }
+    }
+}
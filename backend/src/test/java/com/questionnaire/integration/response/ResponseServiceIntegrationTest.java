@@ -4,12 +4,15 @@ import com.questionnaire.model.QuestionnaireType;
 import com.questionnaire.model.ResolvedQuestionnaire;
 import com.questionnaire.model.Response;
 import com.questionnaire.model.SleepParameters;
-import com.questionnaire.repository.QuestionRepository;
+import com.questionnaire.model.SubmissionContext;
 import com.questionnaire.repository.ResponseRepository;
+import com.questionnaire.service.AnsweredTodayTracker;
 import com.questionnaire.service.QuestionnaireResolver;
+import com.questionnaire.service.QuestionnaireSnapshotCache;
+import com.questionnaire.service.ResponseJournal;
 import com.questionnaire.service.ResponseServiceImpl;
-import com.questionnaire.service.interfaces.IQuestionService;
-import com.questionnaire.service.interfaces.IQuestionnaireService;
+import com.questionnaire.service.SleepRollupStore;
+import com.questionnaire.service.SubmissionMetrics;
 import com.questionnaire.service.interfaces.IResponseValidationService;
 import com.questionnaire.service.interfaces.ISleepParameterCalculator;
 import com.questionnaire.strategy.DefaultConditionalLogic;
@@ -18,8 +21,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.mongodb.core.MongoOperations;
 
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -40,13 +43,16 @@ class ResponseServiceIntegrationTest {
     private ResponseServiceImpl responseService;
 
     @MockBean private ResponseRepository responseRepository;
-    @MockBean private QuestionRepository questionRepository;
+    @MockBean private QuestionnaireSnapshotCache snapshotCache;
     @MockBean private ISleepParameterCalculator sleepParameterCalculator;
-    @MockBean private IQuestionnaireService questionnaireService;
-    @MockBean private IQuestionService questionService;
     @MockBean private IResponseValidationService responseValidationService;
     @MockBean private DefaultConditionalLogic conditionalLogicStrategy;
     @MockBean private QuestionnaireResolver questionnaireResolver;
+    @MockBean private SubmissionMetrics submissionMetrics;
+    @MockBean private SleepRollupStore sleepRollupStore;
+    @MockBean private AnsweredTodayTracker answeredTodayTracker;
+    @MockBean private MongoOperations mongoOperations;
+    @MockBean private ResponseJournal responseJournal;
 
     @Test
     @DisplayName("saveResponse kalder validate og persisterer via repository")
@@ -56,15 +62,14 @@ class ResponseServiceIntegrationTest {
 
         ResolvedQuestionnaire resolved = new ResolvedQuestionnaire("qid", QuestionnaireType.morning);
         when(questionnaireResolver.resolveQuestionnaireId("qid")).thenReturn(resolved);
-        when(responseRepository.findByUserIdAndQuestionnaireTypeAndDateRange(anyString(), any(), any(), any()))
-                .thenReturn(Collections.emptyList());
-        when(sleepParameterCalculator.calculate(anyMap(), eq("qid")))
+        when(sleepParameterCalculator.calculate(any(SubmissionContext.class)))
                 .thenReturn(new SleepParameters(1, 2, 3, 4));
-        when(responseRepository.save(any(Response.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(responseRepository.insert(any(Response.class))).thenAnswer(inv -> inv.getArgument(0));
 
         Response result = responseService.saveResponse("user-1", "qid", answers);
 
-        verify(responseValidationService).validateResponse("qid", answers);
+        verify(responseValidationService).validateResponse(any(SubmissionContext.class));
+        verify(submissionMetrics).record(any(SubmissionContext.class));
         assertEquals("user-1", result.getUserId());
         assertEquals("qid", result.getQuestionnaireId());
         assertNotNull(result.getSleepParameters());
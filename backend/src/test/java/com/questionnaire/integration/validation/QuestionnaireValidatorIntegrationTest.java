@@ -4,7 +4,7 @@ import com.questionnaire.exception.ValidationException;
 import com.questionnaire.model.Question;
 import com.questionnaire.model.QuestionType;
 import com.questionnaire.repository.QuestionRepository;
-import com.questionnaire.service.QuestionFinder;
+import com.questionnaire.service.QuestionnaireSnapshotCache;
 import com.questionnaire.validation.MultipleChoiceAnswerValidator;
 import com.questionnaire.validation.NumericAnswerValidator;
 import com.questionnaire.validation.TextAnswerValidator;
@@ -50,8 +50,7 @@ class QuestionnaireValidatorIntegrationTest {
                 new TimeAnswerValidator(),
                 new MultipleChoiceAnswerValidator()
         );
-        QuestionFinder finder = new QuestionFinder();
-        validator = new UnifiedQuestionnaireValidator(factory, null, finder, questionRepository);
+        validator = new UnifiedQuestionnaireValidator(factory, null, new QuestionnaireSnapshotCache(questionRepository));
 
         questions = Arrays.asList(
                 question("q3", 3, QuestionType.time_picker),
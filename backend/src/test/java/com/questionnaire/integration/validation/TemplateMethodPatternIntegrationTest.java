@@ -6,7 +6,7 @@ import com.questionnaire.model.Questionnaire;
 import com.questionnaire.model.QuestionnaireType;
 import com.questionnaire.model.QuestionType;
 import com.questionnaire.service.interfaces.IQuestionnaireService;
-import com.questionnaire.service.QuestionFinder;
+import com.questionnaire.service.QuestionOrderIndex;
 import com.questionnaire.validation.UnifiedQuestionnaireValidator;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -28,9 +28,6 @@ class TemplateMethodPatternIntegrationTest {
     @Autowired
     private IQuestionnaireService questionnaireService;
     
-    @Autowired
-    private QuestionFinder questionFinder;
-    
     @Test
     @DisplayName("Gyldige svar passerer template-flowet")
     void validatesUsingTemplateFlow() {
@@ -50,10 +47,8 @@ class TemplateMethodPatternIntegrationTest {
         
         Map<String, Object> answers = createValidAnswersForQuestions(questions);
         
-        Question wentToBedQuestion = questionFinder.findByOrderAndType(
-            questions, 3, QuestionType.time_picker);
-        Question lightOffQuestion = questionFinder.findByOrderAndType(
-            questions, 4, QuestionType.time_picker);
+        Question wentToBedQuestion = QuestionOrderIndex.build(questions).findByOrderAndType(3, QuestionType.time_picker);
+        Question lightOffQuestion = QuestionOrderIndex.build(questions).findByOrderAndType(4, QuestionType.time_picker);
         
         if (wentToBedQuestion != null && lightOffQuestion != null) {
             answers.put(wentToBedQuestion.getId(), "22:30");
@@ -97,14 +92,10 @@ class TemplateMethodPatternIntegrationTest {
             }
         }
         
-        Question wentToBedQuestion = questionFinder.findByOrderAndType(
-            questions, 3, QuestionType.time_picker);
-        Question lightOffQuestion = questionFinder.findByOrderAndType(
-            questions, 4, QuestionType.time_picker);
-        Question wokeUpQuestion = questionFinder.findByOrderAndType(
-            questions, 9, QuestionType.time_picker);
-        Question gotUpQuestion = questionFinder.findByOrderAndType(
-            questions, 10, QuestionType.time_picker);
+        Question wentToBedQuestion = QuestionOrderIndex.build(questions).findByOrderAndType(3, QuestionType.time_picker);
+        Question lightOffQuestion = QuestionOrderIndex.build(questions).findByOrderAndType(4, QuestionType.time_picker);
+        Question wokeUpQuestion = QuestionOrderIndex.build(questions).findByOrderAndType(9, QuestionType.time_picker);
+        Question gotUpQuestion = QuestionOrderIndex.build(questions).findByOrderAndType(10, QuestionType.time_picker);
         
         if (wentToBedQuestion != null) {
             answers.put(wentToBedQuestion.getId(), "22:00");
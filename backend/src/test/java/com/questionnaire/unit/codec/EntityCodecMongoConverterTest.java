@@ -0,0 +1,133 @@
+package com.questionnaire.unit.codec;
+
+import com.questionnaire.codec.EntityCodecMongoConverter;
+import com.questionnaire.model.ConditionalChild;
+import com.questionnaire.model.Question;
+import com.questionnaire.model.QuestionOption;
+import com.questionnaire.model.QuestionType;
+import com.questionnaire.model.QuestionnaireType;
+import com.questionnaire.model.Response;
+import com.questionnaire.model.SleepParameters;
+import com.questionnaire.model.User;
+import com.questionnaire.model.UserRole;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("EntityCodecMongoConverter unit-tests (håndskrevne codecs mod reflektiv mapping)")
+class EntityCodecMongoConverterTest {
+
+    private MappingMongoConverter reflective;
+    private EntityCodecMongoConverter codecs;
+
+    @BeforeEach
+    void setUp() {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.afterPropertiesSet();
+        reflective = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        reflective.afterPropertiesSet();
+        codecs = new EntityCodecMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        codecs.afterPropertiesSet();
+    }
+
+    @Test
+    @DisplayName("Response skrives som med reflektiv mapping (uden _class) og læses tilbage med samme svartyper")
+    void response_matchesReflectiveMapping() {
+        Map<String, Object> answers = new LinkedHashMap<>();
+        answers.put("q_time", "07:15");
+        answers.put("q_numeric", 12);
+        answers.put("q_decimal", 2.5);
+        answers.put("q_other", Map.of("optionId", "opt_other", "customText", "Baldrian"));
+        answers.put("q_multi", List.of("opt_yes", Map.of("optionId", "opt_other", "customText", "Te")));
+        Response response = new Response("user-1", "qid", QuestionnaireType.morning, answers);
+        response.setId(new ObjectId().toHexString());
+        response.setLocalDate("2024-03-01");
+        SleepParameters params = new SleepParameters(15, 20, 480, 445);
+        params.setCalculatorVersion(2);
+        response.setSleepParameters(params);
+
+        Document document = assertSameDocument(response);
+        Response read = codecs.read(Response.class, document);
+
+        assertEquals(write(reflective, reflective.read(Response.class, document)), write(reflective, read));
+        assertInstanceOf(LinkedHashMap.class, read.getAnswers());
+        assertInstanceOf(LinkedHashMap.class, read.getAnswers().get("q_other"));
+        assertInstanceOf(ArrayList.class, read.getAnswers().get("q_multi"));
+        assertInstanceOf(LinkedHashMap.class, ((List<?>) read.getAnswers().get("q_multi")).get(1));
+    }
+
+    @Test
+    @DisplayName("Question og User skrives og læses som med reflektiv mapping")
+    void questionAndUser_matchReflectiveMapping() {
+        Question question = new Question("qid", "Vågnede du i nat?", QuestionType.multiple_choice, true, 6);
+        question.setId(new ObjectId().toHexString());
+        question.setTextEn("Did you wake up?");
+        QuestionOption yes = new QuestionOption(new ObjectId().toHexString(), "Ja");
+        yes.setColorCode("red");
+        QuestionOption other = new QuestionOption("opt_other", "Andet");
+        other.setIsOther(true);
+        question.setOptions(List.of(yes, other));
+        question.setConditionalChildren(List.of(new ConditionalChild(yes.getId(), "child")));
+        question.setMinValue(0);
+        question.setHasColorCode(true);
+        question.setColorCodeRedMin(3);
+        question.setDeletedAt(new Date());
+        User user = new User("borger1", "hash", UserRole.BORGER, "Anna", "Hansen");
+        user.setId(new ObjectId().toHexString());
+        user.setAdvisorId("advisor-1");
+
+        Document questionDocument = assertSameDocument(question);
+        Document userDocument = assertSameDocument(user);
+
+        assertEquals(write(reflective, reflective.read(Question.class, questionDocument)),
+                write(reflective, codecs.read(Question.class, questionDocument)));
+        assertEquals(write(reflective, reflective.read(User.class, userDocument)),
+                write(reflective, codecs.read(User.class, userDocument)));
+        assertEquals(yes.getId(), codecs.read(Question.class, questionDocument).getOptions().get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Delvise dokumenter (projektioner) og opdateringsværdier behandles som med reflektiv mapping")
+    void partialDocumentsAndUpdateValues() {
+        Date createdAt = new Date(1_700_000_000_000L);
+        Document partial = new Document("_id", new ObjectId())
+                .append("sleepParameters", new Document("SOL", 10).append("TST", 400.0))
+                .append("createdAt", createdAt).append("updatedAt", createdAt);
+
+        Response read = codecs.read(Response.class, partial);
+
+        assertNotNull(codecs.read(Response.class, new Document("userId", "user-1")).getCreatedAt());
+        assertNull(read.getAnswers());
+        assertEquals(10.0, read.getSleepParameters().getSOL());
+        assertEquals(write(reflective, reflective.read(Response.class, partial)), write(reflective, read));
+        SleepParameters params = new SleepParameters(1, 2, 3, 4);
+        assertEquals(reflective.convertToMongoType(params), codecs.convertToMongoType(params));
+    }
+
+    private Document assertSameDocument(Object entity) {
+        Document expected = write(reflective, entity);
+        expected.remove("_class");
+        Document actual = write(codecs, entity);
+        assertEquals(expected, actual);
+        return actual;
+    }
+
+    private static Document write(MappingMongoConverter converter, Object entity) {
+        Document document = new Document();
+        converter.write(entity, document);
+        return document;
+    }
+}
@@ -0,0 +1,92 @@
+package com.questionnaire.unit.service;
+
+import com.questionnaire.model.Question;
+import com.questionnaire.model.QuestionOption;
+import com.questionnaire.model.QuestionType;
+import com.questionnaire.model.QuestionnaireSnapshot;
+import com.questionnaire.service.AnswerSchema;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("AnswerSchema unit-tests (kompakt svarformat)")
+class AnswerSchemaTest {
+
+    @Test
+    @DisplayName("Typede svar pakkes og genskabes præcist, og resten returneres upakket")
+    void pack_roundTripsTypedAnswersAndReturnsRest() {
+        AnswerSchema schema = AnswerSchema.of(snapshot("opt_other"));
+        Map<String, Object> answers = new LinkedHashMap<>();
+        answers.put("q_time", "23:05");
+        answers.put("q_numeric", 45);
+        answers.put("q_negative", -3);
+        answers.put("q_choice", "opt_yes");
+        answers.put("q_other", Map.of("optionId", "opt_other", "customText", "Baldrian æøå"));
+        answers.put("q_multi", List.of("opt_yes", Map.of("optionId", "opt_other", "customText", "Te")));
+        answers.put("q_text", "Læste en bog");
+        answers.put("q_decimal", 2.5);
+        answers.put("unknown", "07:00");
+
+        Map<String, Object> rest = new LinkedHashMap<>();
+        byte[] packed = schema.pack(answers, rest);
+        Map<String, Object> unpacked = new LinkedHashMap<>();
+        schema.unpack(packed, unpacked);
+        unpacked.putAll(rest);
+
+        assertEquals(answers, unpacked);
+        assertEquals(Map.of("q_decimal", 2.5, "unknown", "07:00"), rest);
+        assertTrue(packed.length < 60, "pakket størrelse: " + packed.length);
+    }
+
+    @Test
+    @DisplayName("Schema-id følger indholdet og overlever MongoDB-dokumentet")
+    void id_followsContentAndSurvivesDocument() {
+        AnswerSchema schema = AnswerSchema.of(snapshot("opt_other"));
+        AnswerSchema same = AnswerSchema.of(snapshot("opt_other"));
+        AnswerSchema changed = AnswerSchema.of(snapshot("opt_andet"));
+        AnswerSchema restored = AnswerSchema.fromDocument(schema.toDocument());
+
+        assertEquals(schema.getId(), same.getId());
+        assertNotEquals(schema.getId(), changed.getId());
+        assertEquals(schema.getId(), restored.getId());
+        assertTrue(schema.sameContent(restored));
+        assertFalse(schema.sameContent(changed));
+
+        Map<String, Object> rest = new LinkedHashMap<>();
+        byte[] packed = schema.pack(Map.of("q_choice", "opt_no"), rest);
+        Map<String, Object> unpacked = new LinkedHashMap<>();
+        restored.unpack(packed, unpacked);
+        assertEquals(Map.of("q_choice", "opt_no"), unpacked);
+    }
+
+    private static QuestionnaireSnapshot snapshot(String otherOptionId) {
+        List<QuestionOption> options = List.of(option("opt_yes", false), option("opt_no", false), option(otherOptionId, true));
+        return new QuestionnaireSnapshot("qid", 1, List.of(
+                question("q_time", QuestionType.time_picker, 1, null),
+                question("q_numeric", QuestionType.numeric, 2, null),
+                question("q_negative", QuestionType.numeric, 3, null),
+                question("q_choice", QuestionType.multiple_choice, 4, options),
+                question("q_other", QuestionType.multiple_choice, 5, options),
+                question("q_multi", QuestionType.multiple_choice_multiple, 6, options),
+                question("q_text", QuestionType.text, 7, null),
+                question("q_decimal", QuestionType.slider, 8, null)));
+    }
+
+    private static Question question(String id, QuestionType type, int order, List<QuestionOption> options) {
+        Question question = new Question("qid", "Spørgsmål " + id, type, false, order);
+        question.setId(id);
+        question.setOptions(options);
+        return question;
+    }
+
+    private static QuestionOption option(String id, boolean isOther) {
+        QuestionOption option = new QuestionOption(id, id);
+        option.setIsOther(isOther);
+        return option;
+    }
+}
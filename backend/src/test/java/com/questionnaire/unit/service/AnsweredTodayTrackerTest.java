@@ -0,0 +1,114 @@
+package com.questionnaire.unit.service;
+
+import com.questionnaire.model.QuestionnaireType;
+import com.questionnaire.model.Response;
+import com.questionnaire.service.AnsweredTodayTracker;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AnsweredTodayTracker unit-tests (mocked MongoOperations)")
+class AnsweredTodayTrackerTest {
+
+    @Mock private MongoOperations mongoOperations;
+
+    @Test
+    @DisplayName("Dagen varmes fra MongoDB én gang, og derefter svares uden databaseopslag")
+    void hasAnswered_warmsOnceThenAnswersFromMemory() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        when(mongoOperations.find(query.capture(), eq(Response.class)))
+                .thenReturn(List.of(response("user-1", QuestionnaireType.morning)));
+        AnsweredTodayTracker tracker = new AnsweredTodayTracker(mongoOperations, clockAt("2025-03-10T10:00:00Z"));
+
+        assertTrue(tracker.hasAnswered("user-1", QuestionnaireType.morning));
+        assertFalse(tracker.hasAnswered("user-1", QuestionnaireType.evening));
+        assertFalse(tracker.hasAnswered("user-2", QuestionnaireType.morning));
+
+        tracker.markAnswered("user-2", QuestionnaireType.evening, "2025-03-10");
+        tracker.markAnswered("user-3", QuestionnaireType.morning, "2025-03-09"); // Ikke i dag
+
+        assertTrue(tracker.hasAnswered("user-2", QuestionnaireType.evening));
+        assertFalse(tracker.hasAnswered("user-3", QuestionnaireType.morning));
+        verify(mongoOperations, times(1)).find(any(Query.class), eq(Response.class));
+        assertEquals("2025-03-10", query.getValue().getQueryObject().get("localDate"));
+    }
+
+    @Test
+    @DisplayName("Døgnskifte i dansk tid starter en ny dag og varmer igen")
+    void hasAnswered_rollsOverAtCopenhagenMidnight() {
+        MutableClock clock = new MutableClock(Instant.parse("2025-03-10T22:30:00Z")); // 23:30 dansk tid
+        when(mongoOperations.find(any(Query.class), eq(Response.class))).thenReturn(List.of());
+        AnsweredTodayTracker tracker = new AnsweredTodayTracker(mongoOperations, clock);
+        tracker.markAnswered("user-1", QuestionnaireType.evening, "2025-03-10");
+        assertTrue(tracker.hasAnswered("user-1", QuestionnaireType.evening));
+
+        clock.instant = Instant.parse("2025-03-10T23:05:00Z"); // 00:05 dansk tid
+
+        assertFalse(tracker.hasAnswered("user-1", QuestionnaireType.evening));
+        verify(mongoOperations, times(2)).find(any(Query.class), eq(Response.class));
+    }
+
+    @Test
+    @DisplayName("tryMarkAnswered lykkes kun første gang pr. dag, og clearAnswered frigiver igen")
+    void tryMarkAnswered_isTestAndSet() {
+        when(mongoOperations.find(any(Query.class), eq(Response.class))).thenReturn(List.of());
+        AnsweredTodayTracker tracker = new AnsweredTodayTracker(mongoOperations, clockAt("2025-03-10T10:00:00Z"));
+
+        assertTrue(tracker.tryMarkAnswered("user-1", QuestionnaireType.morning, "2025-03-10"));
+        assertFalse(tracker.tryMarkAnswered("user-1", QuestionnaireType.morning, "2025-03-10"));
+        assertTrue(tracker.tryMarkAnswered("user-1", QuestionnaireType.morning, "2025-03-09")); // Ikke i dag
+
+        tracker.clearAnswered("user-1", QuestionnaireType.morning, "2025-03-10");
+
+        assertFalse(tracker.hasAnswered("user-1", QuestionnaireType.morning));
+        assertTrue(tracker.tryMarkAnswered("user-1", QuestionnaireType.morning, "2025-03-10"));
+    }
+
+    private static Response response(String userId, QuestionnaireType type) {
+        return new Response(userId, "qid", type, Map.of());
+    }
+
+    private static Clock clockAt(String instant) {
+        return Clock.fixed(Instant.parse(instant), ZoneOffset.UTC);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return Clock.fixed(instant, zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.questionnaire.unit.service;
+
+import com.questionnaire.exception.ValidationException;
+import com.questionnaire.model.QuestionnaireType;
+import com.questionnaire.model.Response;
+import com.questionnaire.model.SleepParameters;
+import com.questionnaire.model.User;
+import com.questionnaire.model.UserRole;
+import com.questionnaire.repository.UserRepository;
+import com.questionnaire.service.CohortAnalytics;
+import com.questionnaire.service.SleepDataQuery;
+import com.questionnaire.service.interfaces.IResponseService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CohortAnalytics unit-tests (mocked repository og query)")
+class CohortAnalyticsTest {
+
+    private static final ZoneId COPENHAGEN = ZoneId.of("Europe/Copenhagen");
+    private static final LocalDate FROM = LocalDate.of(2025, 3, 1);
+    private static final LocalDate TO = LocalDate.of(2025, 3, 11);
+
+    @Mock private UserRepository userRepository;
+    @Mock private SleepDataQuery sleepDataQuery;
+    @Mock private IResponseService responseService;
+
+    private CohortAnalytics cohortAnalytics;
+
+    @BeforeEach
+    void setup() {
+        cohortAnalytics = new CohortAnalytics(userRepository, sleepDataQuery, responseService);
+    }
+
+    @Test
+    @DisplayName("analyze beregner gennemsnit, median og adherence pr. borger og for kohorten")
+    @SuppressWarnings("unchecked")
+    void analyze_computesCitizenAndCohortStatistics() {
+        when(userRepository.findByAdvisorId("advisor-1")).thenReturn(List.of(citizen("a"), citizen("b"), citizen("c")));
+        when(sleepDataQuery.findCohortSleepData(List.of("a", "b", "c"), FROM, TO)).thenReturn(List.of(
+                night("a", 1, 10, 400, 480),
+                night("a", 2, 20, 420, 480),
+                night("a", 2, 30, 300, 400), // Samme dag tæller kun én gang i adherence
+                night("b", 5, 40, 360, 400)));
+        when(responseService.getSleepParameters(any())).thenAnswer(inv -> ((Response) inv.getArgument(0)).getSleepParameters());
+
+        Map<String, Object> result = cohortAnalytics.analyze("advisor-1", FROM, TO);
+
+        assertEquals(10L, result.get("days"));
+        List<Map<String, Object>> citizens = (List<Map<String, Object>>) result.get("citizens");
+        Map<String, Object> a = citizens.get(0);
+        assertEquals(3, a.get("nights"));
+        assertEquals(0.2, (double) a.get("adherence"), 1e-9);
+        Map<String, Map<String, Double>> aMetrics = (Map<String, Map<String, Double>>) a.get("metrics");
+        assertEquals(20.0, aMetrics.get("SOL").get("mean"), 1e-9);
+        assertEquals(20.0, aMetrics.get("SOL").get("median"), 1e-9);
+        assertEquals(400.0, aMetrics.get("TST").get("median"), 1e-9);
+        assertEquals(0, citizens.get(2).get("nights"));
+        assertTrue(((Map<?, ?>) citizens.get(2).get("metrics")).isEmpty());
+
+        Map<String, Object> cohort = (Map<String, Object>) result.get("cohort");
+        assertEquals(3, cohort.get("citizens"));
+        assertEquals(2, cohort.get("citizensWithData"));
+        assertEquals(4, cohort.get("nights"));
+        assertEquals(0.1, (double) cohort.get("adherence"), 1e-9);
+        Map<String, Map<String, Double>> cohortMetrics = (Map<String, Map<String, Double>>) cohort.get("metrics");
+        assertEquals(25.0, cohortMetrics.get("SOL").get("mean"), 1e-9);
+        assertEquals(25.0, cohortMetrics.get("SOL").get("median"), 1e-9); // Median af alle nætter (20 og 30)
+        assertEquals((400.0 / 480 * 100 + 87.5) / 2, cohortMetrics.get("SE").get("median"), 1e-9);
+    }
+
+    @Test
+    @DisplayName("analyze springer nætter over hvor genberegning fejler")
+    @SuppressWarnings("unchecked")
+    void analyze_skipsNightsThatCannotBeCalculated() {
+        Response broken = night("a", 3, 15, 400, 480);
+        when(userRepository.findByAdvisorId("advisor-1")).thenReturn(List.of(citizen("a")));
+        when(sleepDataQuery.findCohortSleepData(anyList(), eq(FROM), eq(TO))).thenReturn(List.of(night("a", 1, 10, 400, 480), broken));
+        when(responseService.getSleepParameters(any())).thenAnswer(inv -> {
+            if (inv.getArgument(0) == broken) {
+                throw new RuntimeException("Spørgeskema ikke fundet");
+            }
+            return ((Response) inv.getArgument(0)).getSleepParameters();
+        });
+
+        Map<String, Object> result = cohortAnalytics.analyze("advisor-1", FROM, TO);
+
+        Map<String, Object> cohort = (Map<String, Object>) result.get("cohort");
+        assertEquals(1, cohort.get("nights"));
+        assertEquals(0.1, (double) cohort.get("adherence"), 1e-9);
+    }
+
+    @Test
+    @DisplayName("analyze uden borgere kører ingen aggregation, og ugyldigt interval afvises")
+    void analyze_handlesEmptyCohortAndRejectsInvalidRange() {
+        when(userRepository.findByAdvisorId("advisor-2")).thenReturn(List.of());
+
+        Map<String, Object> result = cohortAnalytics.analyze("advisor-2", FROM, TO);
+
+        assertEquals(0, ((Map<?, ?>) result.get("cohort")).get("citizens"));
+        verifyNoInteractions(sleepDataQuery);
+        assertThrows(ValidationException.class, () -> cohortAnalytics.analyze("advisor-1", TO, FROM));
+        assertThrows(ValidationException.class, () -> cohortAnalytics.analyze("advisor-1", FROM, FROM.plusDays(400)));
+    }
+
+    private static User citizen(String id) {
+        User user = new User(id, "hash", UserRole.BORGER, "Fornavn", "Efternavn");
+        user.setId(id);
+        user.setAdvisorId("advisor-1");
+        return user;
+    }
+
+    private static Response night(String userId, int dayOfMonth, double sol, double tst, double tib) {
+        Response response = new Response(userId, "morning", QuestionnaireType.morning, Map.of());
+        response.setCreatedAt(Date.from(LocalDate.of(2025, 3, dayOfMonth).atTime(8, 0).atZone(COPENHAGEN).toInstant()));
+        response.setSleepParameters(new SleepParameters(sol, 0, tib, tst));
+        return response;
+    }
+}
@@ -0,0 +1,123 @@
+package com.questionnaire.unit.service;
+
+import com.questionnaire.exception.ValidationException;
+import com.questionnaire.model.QuestionnaireType;
+import com.questionnaire.model.Response;
+import com.questionnaire.service.IdempotencyStore;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IdempotencyStore unit-tests (mocked MongoOperations)")
+class IdempotencyStoreTest {
+
+    @Mock private MongoOperations mongoOperations;
+
+    private IdempotencyStore store;
+    private final Map<String, Object> answers = Map.of("q1", "value");
+
+    @BeforeEach
+    void setup() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        lenient().when(mongoOperations.getConverter()).thenReturn(converter);
+        store = new IdempotencyStore(mongoOperations);
+    }
+
+    @Test
+    @DisplayName("En gentagelse returnerer det gemte resultat uden at køre pipelinen igen, også efter genstart")
+    void execute_replaysStoredResult() {
+        String fingerprint = IdempotencyStore.fingerprint("qid", answers);
+        AtomicInteger runs = new AtomicInteger();
+
+        Response first = store.execute("user-1", "key-1", fingerprint, () -> saved(runs.incrementAndGet()));
+        Response replay = store.execute("user-1", "key-1", fingerprint, () -> saved(runs.incrementAndGet()));
+
+        assertSame(first, replay);
+        assertEquals(1, runs.get());
+        ArgumentCaptor<Document> stored = ArgumentCaptor.forClass(Document.class);
+        verify(mongoOperations).insert(stored.capture(), eq(IdempotencyStore.COLLECTION));
+        assertEquals("user-1:key-1", stored.getValue().get("_id"));
+
+        // Ny instans (genstart): resultatet læses fra MongoDB
+        when(mongoOperations.findById("user-1:key-1", Document.class, IdempotencyStore.COLLECTION)).thenReturn(stored.getValue());
+        Response afterRestart = new IdempotencyStore(mongoOperations)
+                .execute("user-1", "key-1", fingerprint, () -> saved(runs.incrementAndGet()));
+
+        assertEquals(1, runs.get());
+        assertEquals(first.getId(), afterRestart.getId());
+        assertEquals("value", afterRestart.getAnswers().get("q1"));
+    }
+
+    @Test
+    @DisplayName("Samtidige kald med samme nøgle venter på det kørende kald")
+    void execute_coalescesConcurrentDuplicates() throws Exception {
+        String fingerprint = IdempotencyStore.fingerprint("qid", answers);
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Response> first = CompletableFuture.supplyAsync(() ->
+                store.execute("user-1", "key-1", fingerprint, () -> {
+                    started.countDown();
+                    await(release);
+                    return saved(runs.incrementAndGet());
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Response> second = CompletableFuture.supplyAsync(() ->
+                store.execute("user-1", "key-1", fingerprint, () -> saved(runs.incrementAndGet())));
+        release.countDown();
+
+        assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    @DisplayName("Samme nøgle med en anden besvarelse afvises, og fejl gemmes ikke")
+    void execute_rejectsKeyReuseAndDoesNotStoreFailures() {
+        assertThrows(IllegalStateException.class, () -> store.execute("user-1", "key-1",
+                IdempotencyStore.fingerprint("qid", answers), () -> { throw new IllegalStateException("fejl"); }));
+        Response retried = store.execute("user-1", "key-1",
+                IdempotencyStore.fingerprint("qid", answers), () -> saved(1));
+
+        assertNotNull(retried);
+        assertThrows(ValidationException.class, () -> store.execute("user-1", "key-1",
+                IdempotencyStore.fingerprint("qid", Map.of("q1", "andet")), () -> saved(2)));
+        assertThrows(ValidationException.class, () -> store.execute("user-1", " ",
+                IdempotencyStore.fingerprint("qid", answers), () -> saved(3)));
+    }
+
+    private Response saved(int run) {
+        Response response = new Response("user-1", "qid", QuestionnaireType.evening, answers);
+        response.setId("response-" + run);
+        return response;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
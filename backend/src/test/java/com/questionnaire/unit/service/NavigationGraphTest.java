@@ -0,0 +1,79 @@
+package com.questionnaire.unit.service;
+
+import com.questionnaire.model.ConditionalChild;
+import com.questionnaire.model.Question;
+import com.questionnaire.model.QuestionType;
+import com.questionnaire.model.QuestionnaireSnapshot;
+import com.questionnaire.service.NavigationGraph;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("NavigationGraph unit-tests")
+class NavigationGraphTest {
+
+    private NavigationGraph graph;
+
+    @BeforeEach
+    void setup() {
+        Question q1 = question("q1", 1);
+        Question q2 = question("q2", 2);
+        Question child1 = question("c1", 201);
+        Question child2 = question("c2", 202);
+        Question q3 = question("q3", 3);
+        q2.setConditionalChildren(List.of(
+                new ConditionalChild("yes", "c1"),
+                new ConditionalChild("yes", "c2")));
+        graph = NavigationGraph.compile(List.of(q1, q2, q3, child1, child2));
+    }
+
+    @Test
+    @DisplayName("Næste root findes ud fra order og springer conditional children over")
+    void firstRootAfter_skipsConditionalChildren() {
+        assertEquals("q2", graph.rootAt(graph.firstRootAfter("q1")).getId());
+        assertEquals("q3", graph.rootAt(graph.firstRootAfter("q2")).getId());
+    }
+
+    @Test
+    @DisplayName("Conditional child fortsætter med root spørgsmålet efter forælderen")
+    void firstRootAfter_fromChild_returnsFollowingRoot() {
+        // order 201 er højere end alle root orders, ligesom i den lineære algoritme
+        assertEquals(graph.rootCount(), graph.firstRootAfter("c1"));
+    }
+
+    @Test
+    @DisplayName("Sidste spørgsmål og ukendte ID'er giver ingen næste root")
+    void firstRootAfter_lastOrUnknown() {
+        assertEquals(graph.rootCount(), graph.firstRootAfter("q3"));
+        assertEquals(-1, graph.firstRootAfter("unknown"));
+        assertEquals(-1, graph.firstRootAfter(null));
+    }
+
+    @Test
+    @DisplayName("Option branches returnerer children i lagret rækkefølge")
+    void branch_returnsChildrenInOrder() {
+        List<Question> branch = graph.branch("q2", "yes");
+
+        assertEquals(List.of("c1", "c2"), branch.stream().map(Question::getId).toList());
+        assertTrue(graph.branch("q2", "no").isEmpty());
+        assertTrue(graph.branch("q1", "yes").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Grafen kompileres én gang pr. snapshot")
+    void of_isMemoizedPerSnapshot() {
+        QuestionnaireSnapshot snapshot = new QuestionnaireSnapshot("qid", 1, List.of(question("q1", 1)));
+
+        assertSame(NavigationGraph.of(snapshot), NavigationGraph.of(snapshot));
+    }
+
+    private Question question(String id, int order) {
+        Question q = new Question("qid", id, QuestionType.text, false, order);
+        q.setId(id);
+        return q;
+    }
+}
@@ -0,0 +1,85 @@
+package com.questionnaire.unit.service;
+
+import com.questionnaire.model.Question;
+import com.questionnaire.model.QuestionType;
+import com.questionnaire.model.QuestionnaireSnapshot;
+import com.questionnaire.model.QuestionnaireType;
+import com.questionnaire.model.Response;
+import com.questionnaire.service.AnswerSchema;
+import com.questionnaire.service.AnswerSchemaRegistry;
+import com.questionnaire.service.PackedAnswersListener;
+import com.questionnaire.service.QuestionnaireSnapshotCache;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PackedAnswersListener unit-tests (mocked registry og snapshot cache)")
+class PackedAnswersListenerTest {
+
+    @Mock private AnswerSchemaRegistry answerSchemaRegistry;
+    @Mock private QuestionnaireSnapshotCache snapshotCache;
+
+    @Test
+    @DisplayName("answers erstattes af schema-id og blob ved gem og genskabes ved læsning")
+    void packAndUnpack_areTransparent() {
+        QuestionnaireSnapshot snapshot = new QuestionnaireSnapshot("qid", 1, List.of(
+                question("q_time", QuestionType.time_picker, 1),
+                question("q_numeric", QuestionType.numeric, 2)));
+        AnswerSchema schema = AnswerSchema.of(snapshot);
+        when(snapshotCache.getSnapshot("qid")).thenReturn(snapshot);
+        when(answerSchemaRegistry.register(schema)).thenReturn(true);
+        when(answerSchemaRegistry.get(schema.getId())).thenReturn(schema);
+        PackedAnswersListener listener = new PackedAnswersListener(answerSchemaRegistry, snapshotCache);
+
+        Map<String, Object> answers = new LinkedHashMap<>();
+        answers.put("q_time", "06:45");
+        answers.put("q_numeric", 20);
+        answers.put("retired_question", 1.5);
+        Response response = new Response("user-1", "qid", QuestionnaireType.morning, answers);
+        Document document = new Document("userId", "user-1").append("answers", new Document(answers));
+
+        listener.pack(document, response);
+
+        assertEquals(schema.getId(), document.get(PackedAnswersListener.SCHEMA_FIELD));
+        assertInstanceOf(Binary.class, document.get(PackedAnswersListener.PACKED_FIELD));
+        assertEquals(new Document("retired_question", 1.5), document.get("answers"));
+
+        listener.unpack(document);
+
+        assertEquals(answers, document.get("answers", Document.class));
+        assertFalse(document.containsKey(PackedAnswersListener.PACKED_FIELD));
+        assertFalse(document.containsKey(PackedAnswersListener.SCHEMA_FIELD));
+    }
+
+    @Test
+    @DisplayName("Ældre dokumenter uden pakkede svar læses uændret")
+    void unpack_leavesLegacyDocumentsAlone() {
+        PackedAnswersListener listener = new PackedAnswersListener(answerSchemaRegistry, snapshotCache);
+        Document legacy = new Document("answers", new Document("q1", "07:00"));
+
+        listener.unpack(legacy);
+
+        assertEquals(new Document("q1", "07:00"), legacy.get("answers"));
+        verify(answerSchemaRegistry, never()).get(anyInt());
+        verify(answerSchemaRegistry, never()).register(any());
+    }
+
+    private static Question question(String id, QuestionType type, int order) {
+        Question question = new Question("qid", "Spørgsmål " + id, type, false, order);
+        question.setId(id);
+        return question;
+    }
+}
@@ -0,0 +1,57 @@
+package com.questionnaire.unit.service;
+
+import com.questionnaire.model.Question;
+import com.questionnaire.model.QuestionType;
+import com.questionnaire.model.QuestionnaireSnapshot;
+import com.questionnaire.service.QuestionOrderIndex;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("QuestionOrderIndex unit-tests")
+class QuestionOrderIndexTest {
+
+    @Test
+    @DisplayName("findByOrder finder spørgsmål uanset listens rækkefølge")
+    void findByOrder_findsUnsortedInput() {
+        QuestionOrderIndex index = QuestionOrderIndex.build(List.of(
+                question("q8", 8, QuestionType.time_picker),
+                question("q3", 3, QuestionType.time_picker),
+                question("q602", 602, QuestionType.numeric)));
+
+        assertEquals("q3", index.findByOrder(3).getId());
+        assertEquals("q602", index.findByOrder(602).getId());
+        assertNull(index.findByOrder(5));
+    }
+
+    @Test
+    @DisplayName("findByOrderAndType vælger første spørgsmål med matchende type")
+    void findByOrderAndType_matchesType() {
+        QuestionOrderIndex index = QuestionOrderIndex.build(List.of(
+                question("text5", 5, QuestionType.text),
+                question("numeric5", 5, QuestionType.numeric),
+                question("numeric5b", 5, QuestionType.numeric)));
+
+        assertEquals("numeric5", index.findByOrderAndType(5, QuestionType.numeric).getId());
+        assertEquals("text5", index.findByOrder(5).getId());
+        assertNull(index.findByOrderAndType(5, QuestionType.time_picker));
+    }
+
+    @Test
+    @DisplayName("Indekset bygges én gang pr. snapshot")
+    void of_isCachedPerSnapshot() {
+        QuestionnaireSnapshot snapshot = new QuestionnaireSnapshot("qid", 1,
+                List.of(question("q3", 3, QuestionType.time_picker)));
+
+        assertSame(QuestionOrderIndex.of(snapshot), QuestionOrderIndex.of(snapshot));
+    }
+
+    private Question question(String id, int order, QuestionType type) {
+        Question q = new Question("qid", id, type, false, order);
+        q.setId(id);
+        return q;
+    }
+}
@@ -3,6 +3,7 @@ package com.questionnaire.unit.service;
 import com.questionnaire.model.Question;
 import com.questionnaire.repository.QuestionRepository;
 import com.questionnaire.service.QuestionServiceImpl;
+import com.questionnaire.service.QuestionnaireSnapshotCache;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,6 +11,8 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.Optional;
+
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -21,6 +24,9 @@ class QuestionServiceImplTest {
     @Mock
     private QuestionRepository questionRepository;
 
+    @Mock
+    private QuestionnaireSnapshotCache snapshotCache;
+
     @InjectMocks
     private QuestionServiceImpl questionService;
 
@@ -38,5 +44,19 @@ class QuestionServiceImplTest {
         verify(questionRepository).save(question);
         assertNull(saved.getId());
     }
+
+    @Test
+    @DisplayName("deleteQuestion invaliderer spørgeskemaets snapshot")
+    void deleteQuestion_invalidatesSnapshot() {
+        Question question = new Question();
+        question.setId("q1");
+        question.setQuestionnaireId("qid");
+        when(questionRepository.findById("q1")).thenReturn(Optional.of(question));
+
+        questionService.deleteQuestion("q1");
+
+        verify(questionRepository).save(question);
+        verify(snapshotCache).invalidate("qid");
+    }
 }
 
@@ -0,0 +1,71 @@
+package com.questionnaire.unit.service;
+
+import com.questionnaire.model.Question;
+import com.questionnaire.model.QuestionOption;
+import com.questionnaire.model.QuestionType;
+import com.questionnaire.model.QuestionnaireSnapshot;
+import com.questionnaire.service.QuestionTranslations;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("QuestionTranslations unit-tests")
+class QuestionTranslationsTest {
+
+    private QuestionnaireSnapshot snapshot;
+    private Question source;
+
+    @BeforeEach
+    void setup() {
+        source = new Question("qid", null, QuestionType.multiple_choice, false, 1);
+        source.setId("q1");
+        source.setTextDa("Sov du godt?");
+        source.setTextEn("Did you sleep well?");
+        QuestionOption option = new QuestionOption("yes", null);
+        option.setTextDa("Ja");
+        option.setTextEn("Yes");
+        source.setOptions(List.of(option));
+        snapshot = new QuestionnaireSnapshot("qid", 1, List.of(source));
+    }
+
+    @Test
+    @DisplayName("Spørgsmål og options oversættes til det valgte sprog")
+    void forLanguage_translatesQuestionAndOptions() {
+        Question en = QuestionTranslations.of(snapshot).forLanguage("en").get(0);
+
+        assertEquals("Did you sleep well?", en.getText());
+        assertEquals("Yes", en.getOptions().get(0).getText());
+        assertNull(source.getText());
+    }
+
+    @Test
+    @DisplayName("Oversættelser materialiseres én gang pr. sprog og snapshot")
+    void forLanguage_isSharedPerLanguage() {
+        QuestionTranslations translations = QuestionTranslations.of(snapshot);
+
+        assertSame(translations.forLanguage("da"), translations.forLanguage("da"));
+        assertSame(translations, QuestionTranslations.of(snapshot));
+        assertNotSame(translations.forLanguage("da"), translations.forLanguage("en"));
+    }
+
+    @Test
+    @DisplayName("Ukendte sprog deler fallback-oversættelsen")
+    void forLanguage_unknownLanguagesShareFallback() {
+        QuestionTranslations translations = QuestionTranslations.of(snapshot);
+
+        assertSame(translations.forLanguage("de"), translations.forLanguage("fr"));
+        assertEquals("Sov du godt?", translations.forLanguage("de").get(0).getText());
+    }
+
+    @Test
+    @DisplayName("Delte views kan ikke ændres")
+    void forLanguage_isReadOnly() {
+        List<Question> view = QuestionTranslations.of(snapshot).forLanguage("da");
+
+        assertThrows(UnsupportedOperationException.class, () -> view.add(source));
+    }
+}
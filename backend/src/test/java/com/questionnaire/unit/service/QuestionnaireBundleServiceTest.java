@@ -0,0 +1,159 @@
+package com.questionnaire.unit.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.questionnaire.dto.QuestionnaireBundleDto;
+import com.questionnaire.model.ConditionalChild;
+import com.questionnaire.model.Question;
+import com.questionnaire.model.QuestionType;
+import com.questionnaire.model.Questionnaire;
+import com.questionnaire.model.QuestionnaireSnapshot;
+import com.questionnaire.model.QuestionnaireType;
+import com.questionnaire.service.NavigationGraph;
+import com.questionnaire.service.QuestionnaireBundleService;
+import com.questionnaire.service.QuestionnaireSnapshotCache;
+import com.questionnaire.service.interfaces.IQuestionnaireService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.questionnaire.utils.QuestionOrderUtil.childOrder;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("QuestionnaireBundleService unit-tests")
+class QuestionnaireBundleServiceTest {
+
+    @Mock private IQuestionnaireService questionnaireService;
+    @Mock private QuestionnaireSnapshotCache snapshotCache;
+
+    private QuestionnaireBundleService bundleService;
+
+    @BeforeEach
+    void setup() {
+        bundleService = new QuestionnaireBundleService(questionnaireService, snapshotCache, new ObjectMapper());
+        Questionnaire questionnaire = new Questionnaire(QuestionnaireType.evening, "Aften");
+        questionnaire.setId("qid");
+        when(questionnaireService.getQuestionnaireByType(QuestionnaireType.evening)).thenReturn(questionnaire);
+    }
+
+    @Test
+    @DisplayName("Bundle indeholder root rækkefølge, branches og oversatte spørgsmål")
+    void getBundle_containsNavigationData() {
+        when(snapshotCache.getSnapshot("qid")).thenReturn(snapshot(1, "Hvordan gik dagen?"));
+
+        QuestionnaireBundleDto bundle = bundleService.getBundle(QuestionnaireType.evening, "en");
+
+        assertEquals(List.of("q1", "q2"), bundle.getRootOrder());
+        assertEquals(Map.of("q1", Map.of("yes", List.of("c1"))), bundle.getBranches());
+        assertEquals("How was your day?", bundle.getQuestions().get(0).getText());
+        assertEquals(3, bundle.getQuestions().size());
+        assertNotNull(bundle.getVersion());
+    }
+
+    @Test
+    @DisplayName("Samme snapshot og sprog genbruger bundle")
+    void getBundle_isMemoizedPerSnapshotAndLanguage() {
+        when(snapshotCache.getSnapshot("qid")).thenReturn(snapshot(1, "Hvordan gik dagen?"));
+
+        QuestionnaireBundleDto first = bundleService.getBundle(QuestionnaireType.evening, "da");
+        QuestionnaireBundleDto second = bundleService.getBundle(QuestionnaireType.evening, "da");
+
+        assertSame(first, second);
+    }
+
+    @Test
+    @DisplayName("Versionen følger indholdet, ikke snapshot-versionen")
+    void getBundle_versionIsContentHash() {
+        when(snapshotCache.getSnapshot("qid")).thenReturn(snapshot(1, "Hvordan gik dagen?"));
+        String original = bundleService.getBundle(QuestionnaireType.evening, "da").getVersion();
+
+        when(snapshotCache.getSnapshot("qid")).thenReturn(snapshot(2, "Hvordan gik dagen?"));
+        String reloaded = bundleService.getBundle(QuestionnaireType.evening, "da").getVersion();
+
+        when(snapshotCache.getSnapshot("qid")).thenReturn(snapshot(3, "Hvordan var dagen?"));
+        String changed = bundleService.getBundle(QuestionnaireType.evening, "da").getVersion();
+
+        assertEquals(original, reloaded);
+        assertNotEquals(original, changed);
+    }
+
+    @Test
+    @DisplayName("Klientens lokale navigation ud fra bundlet vælger samme næste spørgsmål og children som NavigationGraph")
+    void localNavigation_matchesNavigationGraph() {
+        Question medication = question("med", 1, QuestionType.multiple_choice);
+        medication.setConditionalChildren(List.of(new ConditionalChild("med_yes", "medType")));
+        Question wokeUp = question("woke", 6, QuestionType.multiple_choice);
+        wokeUp.setConditionalChildren(List.of(
+                new ConditionalChild("wake_yes", "wakeCount"),
+                new ConditionalChild("wake_yes", "wakeMinutes")));
+        // Snapshot-rækkefølgen er bevidst ikke sorteret efter order
+        List<Question> questions = List.of(
+                question("q9", 9, QuestionType.slider),
+                question("wakeMinutes", childOrder(6, 2), QuestionType.numeric),
+                wokeUp,
+                question("q3", 3, QuestionType.time_picker),
+                medication,
+                question("medType", childOrder(1, 1), QuestionType.multiple_choice_multiple),
+                question("wakeCount", childOrder(6, 1), QuestionType.numeric),
+                question("q7", 7, QuestionType.time_picker),
+                question("q2", 2, QuestionType.text));
+        QuestionnaireSnapshot snapshot = new QuestionnaireSnapshot("qid", 1, questions);
+        when(snapshotCache.getSnapshot("qid")).thenReturn(snapshot);
+
+        QuestionnaireBundleDto bundle = bundleService.getBundle(QuestionnaireType.evening, "da");
+        NavigationGraph graph = NavigationGraph.of(snapshot);
+
+        for (Question current : questions) {
+            int next = graph.firstRootAfter(current.getId());
+            String expected = next < graph.rootCount() ? graph.rootAt(next).getId() : null;
+            assertEquals(expected, localNextRoot(bundle, current.getId()), "Næste efter " + current.getId());
+        }
+        assertEquals(graph.branch("woke", "wake_yes").stream().map(Question::getId).toList(),
+                bundle.getBranches().get("woke").get("wake_yes"));
+        assertEquals(graph.branch("med", "med_yes").stream().map(Question::getId).toList(),
+                bundle.getBranches().get("med").get("med_yes"));
+    }
+
+    /**
+     * Samme valg som getNextRootQuestion i frontendens questionnaireWizard/navigation.ts:
+     * første id i rootOrder hvis spørgsmål har højere order end det aktuelle
+     */
+    private static String localNextRoot(QuestionnaireBundleDto bundle, String currentQuestionId) {
+        Map<String, Question> byId = bundle.getQuestions().stream()
+                .collect(Collectors.toMap(Question::getId, q -> q));
+        Question current = byId.get(currentQuestionId);
+        for (String rootId : bundle.getRootOrder()) {
+            if (byId.get(rootId).getOrder() > current.getOrder()) {
+                return rootId;
+            }
+        }
+        return null;
+    }
+
+    private QuestionnaireSnapshot snapshot(long version, String textDa) {
+        Question q1 = question("q1", 1, QuestionType.multiple_choice);
+        q1.setTextDa(textDa);
+        q1.setTextEn("How was your day?");
+        q1.setConditionalChildren(List.of(new ConditionalChild("yes", "c1")));
+        Question q2 = question("q2", 2, QuestionType.text);
+        Question c1 = question("c1", 101, QuestionType.text);
+        return new QuestionnaireSnapshot("qid", version, List.of(q1, q2, c1));
+    }
+
+    private Question question(String id, int order, QuestionType type) {
+        Question q = new Question("qid", id, type, false, order);
+        q.setId(id);
+        q.setCreatedAt(new Date(0));
+        q.setUpdatedAt(new Date(0));
+        return q;
+    }
+}
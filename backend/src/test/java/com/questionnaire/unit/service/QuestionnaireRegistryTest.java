@@ -0,0 +1,89 @@
+package com.questionnaire.unit.service;
+
+import com.questionnaire.model.Questionnaire;
+import com.questionnaire.model.QuestionnaireType;
+import com.questionnaire.repository.QuestionnaireRepository;
+import com.questionnaire.service.QuestionnaireRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("QuestionnaireRegistry unit-tests")
+class QuestionnaireRegistryTest {
+
+    @Mock
+    private QuestionnaireRepository questionnaireRepository;
+
+    private QuestionnaireRegistry registry;
+
+    @BeforeEach
+    void setup() {
+        registry = new QuestionnaireRegistry(questionnaireRepository);
+    }
+
+    @Test
+    @DisplayName("Efter reload slås type og ID op uden databasekald")
+    void reload_servesFromMemory() {
+        Questionnaire morning = questionnaire("m1", QuestionnaireType.morning);
+        when(questionnaireRepository.findAll()).thenReturn(List.of(morning));
+
+        registry.reload();
+
+        assertSame(morning, registry.findByType(QuestionnaireType.morning).orElseThrow());
+        assertSame(morning, registry.findById("m1").orElseThrow());
+        verify(questionnaireRepository, never()).findByType(any());
+        verify(questionnaireRepository, never()).findById(anyString());
+    }
+
+    @Test
+    @DisplayName("Ukendte ID'er caches negativt")
+    void findById_cachesUnknown() {
+        when(questionnaireRepository.findById("missing")).thenReturn(Optional.empty());
+
+        assertTrue(registry.findById("missing").isEmpty());
+        assertTrue(registry.findById("missing").isEmpty());
+
+        verify(questionnaireRepository, times(1)).findById("missing");
+    }
+
+    @Test
+    @DisplayName("register gør et tidligere ukendt ID kendt")
+    void register_clearsNegativeEntry() {
+        when(questionnaireRepository.findById("e1")).thenReturn(Optional.empty());
+        registry.findById("e1");
+
+        Questionnaire evening = questionnaire("e1", QuestionnaireType.evening);
+        registry.register(evening);
+
+        assertSame(evening, registry.findById("e1").orElseThrow());
+        assertSame(evening, registry.findByType(QuestionnaireType.evening).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Type der ikke er registreret indlæses fra databasen første gang")
+    void findByType_loadsLazilyOnce() {
+        Questionnaire morning = questionnaire("m1", QuestionnaireType.morning);
+        when(questionnaireRepository.findByType(QuestionnaireType.morning)).thenReturn(Optional.of(morning));
+
+        registry.findByType(QuestionnaireType.morning);
+        registry.findByType(QuestionnaireType.morning);
+
+        verify(questionnaireRepository, times(1)).findByType(QuestionnaireType.morning);
+    }
+
+    private Questionnaire questionnaire(String id, QuestionnaireType type) {
+        Questionnaire q = new Questionnaire(type, type.name());
+        q.setId(id);
+        return q;
+    }
+}
@@ -2,11 +2,12 @@ package com.questionnaire.unit.service;
 
 import com.questionnaire.model.Question;
 import com.questionnaire.model.Questionnaire;
+import com.questionnaire.model.QuestionnaireSnapshot;
 import com.questionnaire.model.QuestionnaireType;
-import com.questionnaire.repository.QuestionRepository;
 import com.questionnaire.repository.QuestionnaireRepository;
+import com.questionnaire.service.QuestionnaireRegistry;
 import com.questionnaire.service.QuestionnaireServiceImpl;
-import com.questionnaire.service.interfaces.IQuestionService;
+import com.questionnaire.service.QuestionnaireSnapshotCache;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,6 +21,8 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,8 +30,8 @@ import static org.mockito.Mockito.when;
 class QuestionnaireServiceImplTest {
 
     @Mock private QuestionnaireRepository questionnaireRepository;
-    @Mock private QuestionRepository questionRepository;
-    @Mock private IQuestionService questionService;
+    @Mock private QuestionnaireRegistry questionnaireRegistry;
+    @Mock private QuestionnaireSnapshotCache snapshotCache;
 
     @InjectMocks
     private QuestionnaireServiceImpl questionnaireService;
@@ -37,7 +40,7 @@ class QuestionnaireServiceImplTest {
     @DisplayName("getQuestionnaireByType returnerer fundet questionnaire")
     void getQuestionnaireByType_returnsFound() {
         Questionnaire q = new Questionnaire(QuestionnaireType.morning, "Morgen");
-        when(questionnaireRepository.findByType(QuestionnaireType.morning)).thenReturn(Optional.of(q));
+        when(questionnaireRegistry.findByType(QuestionnaireType.morning)).thenReturn(Optional.of(q));
 
         Questionnaire result = questionnaireService.getQuestionnaireByType(QuestionnaireType.morning);
 
@@ -47,7 +50,7 @@ class QuestionnaireServiceImplTest {
     @Test
     @DisplayName("getQuestionnaireByType kaster når ikke fundet")
     void getQuestionnaireByType_throwsWhenMissing() {
-        when(questionnaireRepository.findByType(QuestionnaireType.evening)).thenReturn(Optional.empty());
+        when(questionnaireRegistry.findByType(QuestionnaireType.evening)).thenReturn(Optional.empty());
 
         assertThrows(RuntimeException.class,
                 () -> questionnaireService.getQuestionnaireByType(QuestionnaireType.evening));
@@ -58,13 +61,24 @@ class QuestionnaireServiceImplTest {
     void getQuestionsByQuestionnaireId_returnsList() {
         Question q1 = new Question();
         Question q2 = new Question();
-        when(questionRepository.findByQuestionnaireIdOrderByOrderAsc(anyString()))
-                .thenReturn(List.of(q1, q2));
+        when(snapshotCache.getSnapshot(anyString()))
+                .thenReturn(new QuestionnaireSnapshot("qid", 1, List.of(q1, q2)));
 
         List<Question> result = questionnaireService.getQuestionsByQuestionnaireId("qid");
 
         assertEquals(2, result.size());
         assertEquals(q1, result.get(0));
     }
-}
 
+    @Test
+    @DisplayName("createQuestionnaire registrerer det gemte questionnaire")
+    void createQuestionnaire_registersSaved() {
+        Questionnaire saved = new Questionnaire(QuestionnaireType.morning, "Morgen");
+        saved.setId("qid");
+        when(questionnaireRepository.save(any(Questionnaire.class))).thenReturn(saved);
+
+        questionnaireService.createQuestionnaire(QuestionnaireType.morning, "Morgen");
+
+        verify(questionnaireRegistry).register(saved);
+    }
+}
@@ -0,0 +1,86 @@
+package com.questionnaire.unit.service;
+
+import com.questionnaire.model.Question;
+import com.questionnaire.model.QuestionnaireSnapshot;
+import com.questionnaire.repository.QuestionRepository;
+import com.questionnaire.service.QuestionnaireSnapshotCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("QuestionnaireSnapshotCache unit-tests")
+class QuestionnaireSnapshotCacheTest {
+
+    @Mock
+    private QuestionRepository questionRepository;
+
+    private QuestionnaireSnapshotCache cache;
+
+    @BeforeEach
+    void setup() {
+        cache = new QuestionnaireSnapshotCache(questionRepository);
+    }
+
+    @Test
+    @DisplayName("Gentagne opslag deler samme snapshot og rammer kun databasen én gang")
+    void getSnapshot_loadsOnce() {
+        when(questionRepository.findByQuestionnaireIdOrderByOrderAsc("qid")).thenReturn(List.of(question("q1")));
+
+        QuestionnaireSnapshot first = cache.getSnapshot("qid");
+        QuestionnaireSnapshot second = cache.getSnapshot("qid");
+
+        assertSame(first, second);
+        verify(questionRepository, times(1)).findByQuestionnaireIdOrderByOrderAsc("qid");
+    }
+
+    @Test
+    @DisplayName("invalidate giver en ny version ved næste opslag")
+    void invalidate_reloadsNewVersion() {
+        when(questionRepository.findByQuestionnaireIdOrderByOrderAsc("qid")).thenReturn(List.of(question("q1")));
+
+        QuestionnaireSnapshot before = cache.getSnapshot("qid");
+        cache.invalidate("qid");
+        QuestionnaireSnapshot after = cache.getSnapshot("qid");
+
+        assertNotSame(before, after);
+        assertTrue(after.getVersion() > before.getVersion());
+        verify(questionRepository, times(2)).findByQuestionnaireIdOrderByOrderAsc("qid");
+    }
+
+    @Test
+    @DisplayName("Tomme resultater caches ikke")
+    void getSnapshot_doesNotCacheEmpty() {
+        when(questionRepository.findByQuestionnaireIdOrderByOrderAsc("unknown")).thenReturn(List.of());
+
+        cache.getSnapshot("unknown");
+        cache.getSnapshot("unknown");
+
+        verify(questionRepository, times(2)).findByQuestionnaireIdOrderByOrderAsc("unknown");
+    }
+
+    @Test
+    @DisplayName("Snapshot'ets spørgsmålsliste kan ikke ændres")
+    void snapshot_isReadOnly() {
+        when(questionRepository.findByQuestionnaireIdOrderByOrderAsc("qid")).thenReturn(List.of(question("q1")));
+
+        List<Question> questions = cache.getSnapshot("qid").getQuestions();
+
+        assertThrows(UnsupportedOperationException.class, () -> questions.add(question("q2")));
+    }
+
+    private Question question(String id) {
+        Question q = new Question();
+        q.setId(id);
+        q.setQuestionnaireId("qid");
+        return q;
+    }
+}
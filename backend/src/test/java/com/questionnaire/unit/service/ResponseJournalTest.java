@@ -0,0 +1,179 @@
+package com.questionnaire.unit.service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoSocketReadException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.questionnaire.model.QuestionnaireType;
+import com.questionnaire.model.Response;
+import com.questionnaire.model.SleepParameters;
+import com.questionnaire.service.AnsweredTodayTracker;
+import com.questionnaire.service.ResponseJournal;
+import com.questionnaire.service.SleepRollupStore;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ResponseJournal unit-tests (journalfil i temp-mappe, mocked MongoOperations)")
+class ResponseJournalTest {
+
+    @Mock private MongoOperations mongoOperations;
+    @Mock private AnsweredTodayTracker answeredTodayTracker;
+    @Mock private SleepRollupStore sleepRollupStore;
+    @Mock private BulkOperations bulk;
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setup() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        when(mongoOperations.getConverter()).thenReturn(converter);
+    }
+
+    @Test
+    @DisplayName("Ventende besvarelser genindlæses efter genstart og skrives med én bulkWrite")
+    @SuppressWarnings("unchecked")
+    void start_replaysPendingAndDrainsInOneBulkWrite() {
+        ResponseJournal before = journal();
+        before.start();
+        Response morning = response("user-1", QuestionnaireType.morning);
+        morning.setSleepParameters(new SleepParameters(10, 20, 480, 420));
+        Response evening = response("user-2", QuestionnaireType.evening);
+        assertTrue(before.append(morning));
+        assertTrue(before.append(evening));
+        // Ingen nedlukning: svarer til at processen dør før journalen er tømt
+
+        ResponseJournal after = journal();
+        after.start();
+        assertTrue(after.isPending("user-1", QuestionnaireType.morning, "2025-03-10"));
+        verify(answeredTodayTracker).markAnswered("user-1", QuestionnaireType.morning, "2025-03-10");
+        verify(answeredTodayTracker).markAnswered("user-2", QuestionnaireType.evening, "2025-03-10");
+
+        when(mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Response.class)).thenReturn(bulk);
+        ArgumentCaptor<List<Response>> inserted = ArgumentCaptor.forClass(List.class);
+
+        assertEquals(2, after.drain());
+
+        verify(bulk).insert(inserted.capture());
+        verify(bulk).execute();
+        List<Response> replayed = inserted.getValue();
+        assertEquals(List.of(morning.getId(), evening.getId()), replayed.stream().map(Response::getId).toList());
+        assertEquals("value", replayed.get(0).getAnswers().get("q1"));
+        assertEquals(morning.getCreatedAt(), replayed.get(0).getCreatedAt());
+        assertEquals(420, replayed.get(0).getSleepParameters().getTST());
+        verify(sleepRollupStore).recordAll(replayed);
+        assertEquals(0L, after.getStatus().get("pendingBytes"));
+        assertFalse(after.isPending("user-1", QuestionnaireType.morning, "2025-03-10"));
+        assertEquals(0, after.drain());
+    }
+
+    @Test
+    @DisplayName("Dubletter for samme dag gemmes som konflikter, _id-dubletter tæller som indsat, og en forbindelsesfejl beholder batchen")
+    @SuppressWarnings("unchecked")
+    void drain_savesConflictsAndRetriesOnConnectionErrors() {
+        ResponseJournal journal = journal();
+        journal.start();
+        Response conflicting = response("user-1", QuestionnaireType.morning);
+        journal.append(conflicting);
+        journal.append(response("user-1", QuestionnaireType.evening));
+        journal.append(response("user-2", QuestionnaireType.morning));
+        when(mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Response.class)).thenReturn(bulk);
+        MongoBulkWriteException duplicate = new MongoBulkWriteException(BulkWriteResult.unacknowledged(), List.of(
+                new BulkWriteError(11000, "E11000 duplicate key error collection: test.responses index: user_type_localDate dup key",
+                        new BsonDocument(), 0),
+                new BulkWriteError(11000, "E11000 duplicate key error collection: test.responses index: _id_ dup key",
+                        new BsonDocument(), 2)),
+                null, new ServerAddress(), Set.of());
+        when(bulk.execute())
+                .thenThrow(new MongoSocketReadException("Forbindelsen blev lukket", new ServerAddress()))
+                .thenThrow(new BulkOperationException("Bulk write fejlede", duplicate));
+
+        assertThrows(MongoSocketReadException.class, journal::drain);
+        assertNotEquals(0L, journal.getStatus().get("pendingBytes"));
+        verify(sleepRollupStore, never()).recordAll(anyList());
+
+        assertEquals(3, journal.drain());
+
+        ArgumentCaptor<List<Response>> recorded = ArgumentCaptor.forClass(List.class);
+        verify(sleepRollupStore).recordAll(recorded.capture());
+        assertEquals(List.of("user-1", "user-2"), recorded.getValue().stream().map(Response::getUserId).toList());
+        assertEquals(QuestionnaireType.evening, recorded.getValue().get(0).getQuestionnaireType());
+        ArgumentCaptor<Document> conflict = ArgumentCaptor.forClass(Document.class);
+        verify(mongoOperations).save(conflict.capture(), eq(ResponseJournal.CONFLICT_COLLECTION));
+        assertEquals(new ObjectId(conflicting.getId()), conflict.getValue().get("_id"));
+        assertNotNull(conflict.getValue().get("conflictedAt"));
+        assertEquals(1L, journal.getStatus().get("conflicts"));
+        assertEquals(0L, journal.getStatus().get("dropped"));
+        assertEquals(0L, journal.getStatus().get("pendingBytes"));
+    }
+
+    @Test
+    @DisplayName("En post der ikke kan afkodes flyttes til .rejected, og resten af journalen tømmes stadig")
+    @SuppressWarnings("unchecked")
+    void drain_movesUndecodableRecordsAside() throws Exception {
+        ResponseJournal before = journal();
+        before.start();
+        before.append(response("user-1", QuestionnaireType.morning));
+        Response valid = response("user-2", QuestionnaireType.morning);
+        before.append(valid);
+        // Første posts første felt får en ugyldig BSON-type (header + længde + dokumentlængde)
+        try (RandomAccessFile file = new RandomAccessFile(dir.resolve("response-journal.bin").toFile(), "rw")) {
+            file.seek(24 + 4 + 4);
+            file.write(0x7F);
+        }
+
+        ResponseJournal after = journal();
+        after.start();
+        when(mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Response.class)).thenReturn(bulk);
+
+        assertEquals(2, after.drain());
+
+        ArgumentCaptor<List<Response>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(bulk).insert(inserted.capture());
+        assertEquals(List.of(valid.getId()), inserted.getValue().stream().map(Response::getId).toList());
+        assertEquals(1L, after.getStatus().get("rejected"));
+        assertEquals(0L, after.getStatus().get("pendingBytes"));
+        assertTrue(Files.size(dir.resolve("response-journal.bin.rejected")) > 4);
+    }
+
+    private ResponseJournal journal() {
+        return new ResponseJournal(mongoOperations, answeredTodayTracker, sleepRollupStore, true,
+                dir.resolve("response-journal.bin"), 64 * 1024, 100, 0);
+    }
+
+    private static Response response(String userId, QuestionnaireType type) {
+        Response response = new Response(userId, "qid", type, Map.of("q1", "value"));
+        response.setId(new ObjectId().toHexString());
+        response.setLocalDate("2025-03-10");
+        return response;
+    }
+}
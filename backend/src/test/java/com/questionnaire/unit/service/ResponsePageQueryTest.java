@@ -0,0 +1,95 @@
+package com.questionnaire.unit.service;
+
+import com.questionnaire.exception.ValidationException;
+import com.questionnaire.model.QuestionnaireType;
+import com.questionnaire.model.Response;
+import com.questionnaire.service.ResponsePageQuery;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ResponsePageQuery unit-tests (mocked MongoOperations)")
+class ResponsePageQueryTest {
+
+    @Mock private MongoOperations mongoOperations;
+
+    private ResponsePageQuery pageQuery;
+
+    @BeforeEach
+    void setup() {
+        pageQuery = new ResponsePageQuery(mongoOperations);
+    }
+
+    @Test
+    @DisplayName("findPage henter limit + 1 sorteret på (createdAt, id) og returnerer nextCursor")
+    @SuppressWarnings("unchecked")
+    void findPage_returnsCursorWhenMoreExist() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        when(mongoOperations.find(query.capture(), eq(Response.class))).thenReturn(responses(3));
+
+        Map<String, Object> page = pageQuery.findPage("user-1", 2, null, QuestionnaireType.morning, null, null);
+
+        assertEquals(2, ((List<Response>) page.get("items")).size());
+        assertNotNull(page.get("nextCursor"));
+        assertEquals(3, query.getValue().getLimit());
+        assertEquals(new Document("createdAt", -1).append("id", -1), query.getValue().getSortObject());
+        assertEquals(QuestionnaireType.morning, query.getValue().getQueryObject().get("questionnaireType"));
+        assertFalse(query.getValue().getQueryObject().containsKey("$or"));
+    }
+
+    @Test
+    @DisplayName("findPage med after fortsætter efter (createdAt, id) fra cursoren")
+    void findPage_continuesAfterCursor() {
+        List<Response> firstPage = responses(3);
+        when(mongoOperations.find(any(Query.class), eq(Response.class))).thenReturn(firstPage);
+        String cursor = (String) pageQuery.findPage("user-1", 2, null, null, null, null).get("nextCursor");
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        when(mongoOperations.find(query.capture(), eq(Response.class))).thenReturn(List.of());
+
+        Map<String, Object> page = pageQuery.findPage("user-1", 2, cursor, null, null, null);
+
+        assertNull(page.get("nextCursor"));
+        Response last = firstPage.get(1);
+        List<?> or = (List<?>) query.getValue().getQueryObject().get("$or");
+        assertEquals(new Document("createdAt", new Document("$lt", last.getCreatedAt())), or.get(0));
+        assertEquals(new Document("$and", List.of(new Document("createdAt", last.getCreatedAt()),
+                new Document("id", new Document("$lt", last.getId())))), or.get(1));
+    }
+
+    @Test
+    @DisplayName("findPage afviser ugyldig cursor og limit")
+    void findPage_rejectsInvalidInput() {
+        assertThrows(ValidationException.class, () -> pageQuery.findPage("user-1", 20, "ikke-en-cursor", null, null, null));
+        assertThrows(ValidationException.class, () -> pageQuery.findPage("user-1", 0, null, null, null, null));
+        assertThrows(ValidationException.class, () -> pageQuery.findPage("user-1", 101, null, null, null, null));
+        verifyNoInteractions(mongoOperations);
+    }
+
+    private static List<Response> responses(int count) {
+        List<Response> responses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Response response = new Response("user-1", "qid", QuestionnaireType.morning, Map.of());
+            response.setId(String.format("65f0000000000000000000%02d", 10 - i));
+            response.setCreatedAt(new Date(1_700_000_000_000L - i * 60_000L));
+            responses.add(response);
+        }
+        return responses;
+    }
+}
@@ -1,19 +1,34 @@
 package com.questionnaire.unit.service;
 
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.questionnaire.constants.QuestionnaireConstants;
+import com.questionnaire.dto.DatedResponseRequest;
 import com.questionnaire.exception.ResponseAlreadyExistsException;
+import com.questionnaire.exception.ValidationException;
+import com.questionnaire.model.ConditionalChild;
+import com.questionnaire.model.Question;
+import com.questionnaire.model.QuestionType;
+import com.questionnaire.model.QuestionnaireSnapshot;
 import com.questionnaire.model.QuestionnaireType;
 import com.questionnaire.model.ResolvedQuestionnaire;
 import com.questionnaire.model.Response;
 import com.questionnaire.model.SleepParameters;
-import com.questionnaire.repository.QuestionRepository;
+import com.questionnaire.model.SubmissionContext;
 import com.questionnaire.repository.ResponseRepository;
+import com.questionnaire.service.AnsweredTodayTracker;
 import com.questionnaire.service.QuestionnaireResolver;
+import com.questionnaire.service.QuestionnaireSnapshotCache;
+import com.questionnaire.service.ResponseJournal;
 import com.questionnaire.service.ResponseServiceImpl;
-import com.questionnaire.service.interfaces.IQuestionService;
-import com.questionnaire.service.interfaces.IQuestionnaireService;
+import com.questionnaire.service.SleepRollupStore;
+import com.questionnaire.service.SubmissionMetrics;
 import com.questionnaire.service.interfaces.IResponseValidationService;
 import com.questionnaire.service.interfaces.ISleepParameterCalculator;
 import com.questionnaire.strategy.DefaultConditionalLogic;
+import org.bson.BsonDocument;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -22,13 +37,21 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
 
-import java.util.Collections;
-import java.util.Date;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -39,13 +62,16 @@ import static org.mockito.Mockito.*;
 class ResponseServiceImplTest {
 
     @Mock private ResponseRepository responseRepository;
-    @Mock private QuestionRepository questionRepository;
+    @Mock private QuestionnaireSnapshotCache snapshotCache;
     @Mock private ISleepParameterCalculator sleepParameterCalculator;
-    @Mock private IQuestionnaireService questionnaireService;
-    @Mock private IQuestionService questionService;
     @Mock private IResponseValidationService responseValidationService;
     @Mock private DefaultConditionalLogic conditionalLogicStrategy;
     @Mock private QuestionnaireResolver questionnaireResolver;
+    @Spy private SubmissionMetrics submissionMetrics = new SubmissionMetrics();
+    @Mock private SleepRollupStore sleepRollupStore;
+    @Mock private AnsweredTodayTracker answeredTodayTracker;
+    @Mock private MongoOperations mongoOperations;
+    @Mock private ResponseJournal responseJournal;
 
     @InjectMocks
     private ResponseServiceImpl responseService;
@@ -53,6 +79,8 @@ class ResponseServiceImplTest {
     @Captor
     private ArgumentCaptor<Response> responseCaptor;
 
+    private static final ZoneId COPENHAGEN = ZoneId.of("Europe/Copenhagen");
+
     private final Map<String, Object> answers = new HashMap<>();
 
     @BeforeEach
@@ -65,12 +93,9 @@ class ResponseServiceImplTest {
     void saveResponse_persistsAndCalculatesSleep() {
         ResolvedQuestionnaire resolved = new ResolvedQuestionnaire("qid", QuestionnaireType.morning);
         when(questionnaireResolver.resolveQuestionnaireId("qid")).thenReturn(resolved);
-        when(responseRepository.findByUserIdAndQuestionnaireTypeAndDateRange(
-                anyString(), any(QuestionnaireType.class), any(Date.class), any(Date.class)))
-                .thenReturn(Collections.emptyList());
-        when(sleepParameterCalculator.calculate(anyMap(), eq("qid")))
+        when(sleepParameterCalculator.calculate(any(SubmissionContext.class)))
                 .thenReturn(new SleepParameters(1, 2, 3, 4));
-        when(responseRepository.save(any(Response.class))).thenAnswer(inv -> {
+        when(responseRepository.insert(any(Response.class))).thenAnswer(inv -> {
             Response r = inv.getArgument(0);
             r.setId("generated-id");
             return r;
@@ -78,40 +103,242 @@ class ResponseServiceImplTest {
 
         Response saved = responseService.saveResponse("user-1", "qid", answers);
 
-        verify(responseValidationService).validateResponse(eq("qid"), eq(answers));
-        verify(responseRepository).save(responseCaptor.capture());
+        verify(responseValidationService).validateResponse(argThat((SubmissionContext ctx) ->
+                ctx.getAnswers() == answers && "qid".equals(ctx.getQuestionnaireId())));
+        verify(responseRepository).insert(responseCaptor.capture());
         Response captured = responseCaptor.getValue();
         assertEquals("user-1", captured.getUserId());
+        assertEquals(captured.getCreatedAt().toInstant().atZone(COPENHAGEN).toLocalDate().toString(), captured.getLocalDate());
+        verify(responseRepository, never()).existsByUserIdAndQuestionnaireTypeAndLocalDate(any(), any(), any());
+        verify(answeredTodayTracker).markAnswered("user-1", QuestionnaireType.morning, captured.getLocalDate());
         assertEquals("generated-id", saved.getId());
         assertNotNull(saved.getSleepParameters());
         assertEquals(4, saved.getSleepParameters().getTST());
+        assertEquals(1L, submissionMetrics.getAverages().get("submissions"));
+        verify(sleepRollupStore).record(saved);
     }
 
     @Test
-    @DisplayName("saveResponse kaster hvis der allerede er besvaret i dag")
+    @DisplayName("saveResponse kaster hvis der allerede er besvaret i dag (unikt index afviser insert)")
     void saveResponse_rejectsDuplicateSameDay() {
         ResolvedQuestionnaire resolved = new ResolvedQuestionnaire("qid", QuestionnaireType.morning);
         when(questionnaireResolver.resolveQuestionnaireId("qid")).thenReturn(resolved);
-        when(responseRepository.findByUserIdAndQuestionnaireTypeAndDateRange(
-                anyString(), any(QuestionnaireType.class), any(Date.class), any(Date.class)))
-                .thenReturn(List.of(new Response()));
+        when(responseRepository.insert(any(Response.class)))
+                .thenThrow(new DuplicateKeyException("E11000 duplicate key error"));
 
         assertThrows(ResponseAlreadyExistsException.class,
                 () -> responseService.saveResponse("user-1", "qid", answers));
 
         verify(responseRepository, never()).save(any());
+        verifyNoInteractions(sleepRollupStore);
+        verify(answeredTodayTracker).markAnswered(eq("user-1"), eq(QuestionnaireType.morning), anyString());
     }
 
     @Test
-    @DisplayName("hasResponseForToday returnerer true når der findes svar i interval")
+    @DisplayName("saveResponse med write-behind skriver i journalen og kvitterer uden insert")
+    void saveResponse_writeBehindAppendsToJournal() {
+        ResolvedQuestionnaire resolved = new ResolvedQuestionnaire("qid", QuestionnaireType.evening);
+        when(questionnaireResolver.resolveQuestionnaireId("qid")).thenReturn(resolved);
+        when(responseJournal.isEnabled()).thenReturn(true);
+        when(answeredTodayTracker.tryMarkAnswered(eq("user-1"), eq(QuestionnaireType.evening), anyString())).thenReturn(true);
+        when(responseJournal.append(any(Response.class))).thenReturn(true);
+
+        Response saved = responseService.saveResponse("user-1", "qid", answers);
+
+        assertNotNull(saved.getId());
+        verify(responseJournal).append(saved);
+        verify(responseRepository, never()).insert(any(Response.class));
+        verify(sleepRollupStore, never()).record(any());
+
+        // Anden besvarelse samme dag afvises af dagens bitset før journalen
+        when(answeredTodayTracker.tryMarkAnswered(eq("user-1"), eq(QuestionnaireType.evening), anyString())).thenReturn(false);
+        assertThrows(ResponseAlreadyExistsException.class,
+                () -> responseService.saveResponse("user-1", "qid", answers));
+        verify(responseJournal, times(1)).append(any(Response.class));
+    }
+
+    @Test
+    @DisplayName("hasResponseForToday svares fra dagens bitset uden databaseopslag")
     void hasResponseForToday_detectsExisting() {
-        when(responseRepository.findByUserIdAndQuestionnaireTypeAndDateRange(
-                eq("user-1"), eq(QuestionnaireType.morning), any(Date.class), any(Date.class)))
-                .thenReturn(List.of(new Response()));
+        when(answeredTodayTracker.hasAnswered("user-1", QuestionnaireType.morning)).thenReturn(true);
 
         boolean result = responseService.hasResponseForToday("user-1", QuestionnaireType.morning);
 
         assertTrue(result);
+        verifyNoInteractions(responseRepository);
     }
-}
 
+    @Test
+    @DisplayName("getNextQuestion springer conditional children over og returnerer næste root")
+    void getNextQuestion_returnsNextRoot() {
+        Question q1 = new Question("qid", "Q1", QuestionType.multiple_choice, false, 1);
+        q1.setId("q1");
+        Question child = new Question("qid", "Child", QuestionType.text, false, 101);
+        child.setId("c1");
+        Question q2 = new Question("qid", "Q2", QuestionType.text, false, 2);
+        q2.setId("q2");
+        q1.setConditionalChildren(List.of(new ConditionalChild("yes", "c1")));
+        when(snapshotCache.getSnapshot("qid"))
+                .thenReturn(new QuestionnaireSnapshot("qid", 1, List.of(q1, q2, child)));
+        when(conditionalLogicStrategy.shouldShow(any(Question.class), anyMap(), anyList(), anyString()))
+                .thenAnswer(inv -> inv.getArgument(0));
+
+        Question next = responseService.getNextQuestion("qid", answers, "q1");
+
+        assertEquals("q2", next.getId());
+        assertNull(responseService.getNextQuestion("qid", answers, "q2"));
+        assertNull(responseService.getNextQuestion("qid", answers, "unknown"));
+        // Kun det besvarede trin valideres; fuld validering sker ved submit
+        verify(responseValidationService).validateStep(any(SubmissionContext.class), eq("q1"));
+        verify(responseValidationService, never()).validateResponse(anyString(), anyMap());
+    }
+
+    @Test
+    @DisplayName("getSleepParameters returnerer gemte værdier med aktuel version uden genberegning")
+    void getSleepParameters_returnsCurrentStored() {
+        Response response = new Response("user-1", "qid", QuestionnaireType.morning, answers);
+        SleepParameters stored = new SleepParameters(1, 2, 3, 4);
+        stored.setCalculatorVersion(QuestionnaireConstants.SLEEP_CALCULATOR_VERSION);
+        response.setSleepParameters(stored);
+
+        SleepParameters result = responseService.getSleepParameters(response);
+
+        assertSame(stored, result);
+        verifyNoInteractions(sleepParameterCalculator, responseRepository);
+    }
+
+    @Test
+    @DisplayName("getSleepParameters genberegner forældet version i hukommelsen uden at gemme")
+    void getSleepParameters_recomputesStaleWithoutSaving() {
+        Response response = new Response("user-1", "qid", QuestionnaireType.morning, answers);
+        response.setSleepParameters(new SleepParameters(1, 2, 3, 4));
+        SleepParameters fresh = new SleepParameters(5, 6, 7, 8);
+        when(sleepParameterCalculator.calculate(answers, "qid")).thenReturn(fresh);
+
+        SleepParameters result = responseService.getSleepParameters(response);
+
+        assertSame(fresh, result);
+        verifyNoInteractions(responseRepository);
+    }
+
+    @Test
+    @DisplayName("streamResponses bruger cursor-query med eller uden questionnaire-filter")
+    void streamResponses_routesToCursorQueries() {
+        when(responseRepository.streamByUserId("user-1")).thenReturn(Stream.of(new Response()));
+        when(responseRepository.streamByUserIdAndQuestionnaireId("user-1", "qid")).thenReturn(Stream.empty());
+
+        assertEquals(1, responseService.streamResponses("user-1", " ").count());
+        assertEquals(0, responseService.streamResponses("user-1", "qid").count());
+        verify(responseRepository, never()).findByUserId(anyString());
+    }
+
+    @Test
+    @DisplayName("saveResponses validerer hvert element, indsætter gyldige med én bulkWrite og rapporterer pr. element")
+    @SuppressWarnings("unchecked")
+    void saveResponses_insertsValidItemsInOneBulkWrite() {
+        LocalDate yesterday = LocalDate.now(COPENHAGEN).minusDays(1);
+        when(questionnaireResolver.resolveQuestionnaireId("morning")).thenReturn(new ResolvedQuestionnaire("m1", QuestionnaireType.morning));
+        when(questionnaireResolver.resolveQuestionnaireId("evening")).thenReturn(new ResolvedQuestionnaire("e1", QuestionnaireType.evening));
+        when(sleepParameterCalculator.calculate(any(SubmissionContext.class))).thenReturn(new SleepParameters(1, 2, 3, 4));
+        Map<String, Object> badAnswers = Map.of("q1", "ugyldig");
+        // lenient: elementerne valideres parallelt, og strict stubs afviser de andre argumenter kun på testtråden
+        lenient().doThrow(new ValidationException("Ugyldigt svar")).when(responseValidationService)
+                .validateResponse(argThat((SubmissionContext ctx) -> ctx != null && ctx.getAnswers() == badAnswers));
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Response.class)).thenReturn(bulk);
+
+        List<Map<String, Object>> results = responseService.saveResponses("user-1", List.of(
+                dated("morning", yesterday, answers),
+                dated("evening", yesterday, answers),
+                dated("morning", yesterday, answers), // Samme dag to gange i batchen
+                dated("morning", yesterday.minusDays(1), badAnswers),
+                dated("morning", yesterday.plusDays(2), answers)));
+
+        assertEquals(List.of("created", "created", "duplicate", "invalid", "invalid"),
+                results.stream().map(r -> r.get("status")).toList());
+        assertEquals("Ugyldigt svar", results.get(3).get("error"));
+        assertEquals(yesterday.toString(), results.get(0).get("localDate"));
+        ArgumentCaptor<List<Response>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(bulk).insert(inserted.capture());
+        verify(bulk).execute();
+        assertEquals(2, inserted.getValue().size());
+        assertEquals(results.get(0).get("id"), inserted.getValue().get(0).getId());
+        assertEquals(yesterday.toString(), inserted.getValue().get(0).getLocalDate());
+        verify(questionnaireResolver, times(1)).resolveQuestionnaireId("morning");
+        verify(sleepRollupStore).recordAll(inserted.getValue());
+        verify(responseRepository, never()).insert(any(Response.class));
+    }
+
+    @Test
+    @DisplayName("saveResponses markerer elementer afvist af det unikke index som dubletter")
+    void saveResponses_reportsDuplicateKeyErrorsPerItem() {
+        LocalDate today = LocalDate.now(COPENHAGEN);
+        when(questionnaireResolver.resolveQuestionnaireId("morning")).thenReturn(new ResolvedQuestionnaire("m1", QuestionnaireType.morning));
+        when(sleepParameterCalculator.calculate(any(SubmissionContext.class))).thenReturn(new SleepParameters(1, 2, 3, 4));
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Response.class)).thenReturn(bulk);
+        MongoBulkWriteException source = new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                List.of(new BulkWriteError(11000, "E11000 duplicate key error", new BsonDocument(), 1)),
+                null, new ServerAddress(), Set.of());
+        when(bulk.execute()).thenThrow(new BulkOperationException("Bulk write fejlede", source));
+
+        List<Map<String, Object>> results = responseService.saveResponses("user-1", List.of(
+                dated("morning", today.minusDays(1), answers),
+                dated("morning", today, answers)));
+
+        assertEquals("created", results.get(0).get("status"));
+        assertEquals("duplicate", results.get(1).get("status"));
+        assertFalse(results.get(1).containsKey("id"));
+        verify(answeredTodayTracker).markAnswered("user-1", QuestionnaireType.morning, today.toString());
+    }
+
+    @Test
+    @DisplayName("saveResponses med write-behind afviser dage der er besvaret i dag eller venter i journalen")
+    @SuppressWarnings("unchecked")
+    void saveResponses_writeBehindRejectsAnsweredAndPendingDays() {
+        LocalDate today = LocalDate.now(COPENHAGEN);
+        LocalDate yesterday = today.minusDays(1);
+        when(responseJournal.isEnabled()).thenReturn(true);
+        when(questionnaireResolver.resolveQuestionnaireId("morning")).thenReturn(new ResolvedQuestionnaire("m1", QuestionnaireType.morning));
+        when(questionnaireResolver.resolveQuestionnaireId("evening")).thenReturn(new ResolvedQuestionnaire("e1", QuestionnaireType.evening));
+        when(sleepParameterCalculator.calculate(any(SubmissionContext.class))).thenReturn(new SleepParameters(1, 2, 3, 4));
+        when(answeredTodayTracker.tryMarkAnswered(eq("user-1"), any(QuestionnaireType.class), anyString())).thenReturn(true);
+        when(answeredTodayTracker.tryMarkAnswered("user-1", QuestionnaireType.morning, today.toString())).thenReturn(false);
+        when(responseJournal.isPending(eq("user-1"), any(QuestionnaireType.class), anyString())).thenReturn(false);
+        when(responseJournal.isPending("user-1", QuestionnaireType.evening, yesterday.toString())).thenReturn(true);
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Response.class)).thenReturn(bulk);
+
+        List<Map<String, Object>> results = responseService.saveResponses("user-1", List.of(
+                dated("morning", today, answers), // Allerede i dagens bitset (fx i journalen)
+                dated("evening", yesterday, answers), // Venter i journalen fra før døgnskiftet
+                dated("morning", yesterday, answers)));
+
+        assertEquals(List.of("duplicate", "duplicate", "created"), results.stream().map(r -> r.get("status")).toList());
+        ArgumentCaptor<List<Response>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(bulk).insert(inserted.capture());
+        assertEquals(List.of(yesterday.toString()), inserted.getValue().stream().map(Response::getLocalDate).toList());
+        verify(answeredTodayTracker, never()).clearAnswered(anyString(), any(QuestionnaireType.class), anyString());
+    }
+
+    @Test
+    @DisplayName("saveResponses afviser tomme og for store batches")
+    void saveResponses_rejectsInvalidBatchSize() {
+        List<DatedResponseRequest> tooMany = new ArrayList<>();
+        for (int i = 0; i <= QuestionnaireConstants.BATCH_MAX_RESPONSES; i++) {
+            tooMany.add(dated("morning", LocalDate.now(COPENHAGEN), answers));
+        }
+
+        assertThrows(ValidationException.class, () -> responseService.saveResponses("user-1", List.of()));
+        assertThrows(ValidationException.class, () -> responseService.saveResponses("user-1", tooMany));
+        verifyNoInteractions(mongoOperations);
+    }
+
+    private static DatedResponseRequest dated(String questionnaireId, LocalDate date, Map<String, Object> answers) {
+        DatedResponseRequest request = new DatedResponseRequest();
+        request.setQuestionnaireId(questionnaireId);
+        request.setDate(date);
+        request.setAnswers(answers);
+        return request;
+    }
+}
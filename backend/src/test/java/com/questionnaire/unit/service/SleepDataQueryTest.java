@@ -0,0 +1,184 @@
+package com.questionnaire.unit.service;
+
+import com.questionnaire.exception.ValidationException;
+import com.questionnaire.constants.QuestionnaireConstants;
+import com.questionnaire.model.Response;
+import com.questionnaire.model.SleepParameters;
+import com.questionnaire.service.SleepDataQuery;
+import com.questionnaire.service.interfaces.IResponseService;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SleepDataQuery unit-tests (mocked MongoOperations)")
+class SleepDataQueryTest {
+
+    private static final ZoneId COPENHAGEN = ZoneId.of("Europe/Copenhagen");
+
+    @Mock private MongoOperations mongoOperations;
+    @Mock private IResponseService responseService;
+
+    private SleepDataQuery query;
+
+    @BeforeEach
+    void setup() {
+        query = new SleepDataQuery(mongoOperations, responseService);
+    }
+
+    @Test
+    @DisplayName("findSleepData filtrerer på [from, to) og projicerer kun de nødvendige felter")
+    void findSleepData_filtersAndProjects() {
+        ArgumentCaptor<Aggregation> aggregation = ArgumentCaptor.forClass(Aggregation.class);
+        when(mongoOperations.aggregate(aggregation.capture(), eq("responses"), eq(Response.class)))
+                .thenReturn(new AggregationResults<>(List.of(new Response()), new Document()));
+
+        List<Response> result = query.findSleepData("user-1", LocalDate.of(2025, 3, 1), LocalDate.of(2025, 4, 1));
+
+        assertEquals(1, result.size());
+        List<Document> pipeline = aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        Document match = pipeline.get(0).get("$match", Document.class);
+        assertEquals("user-1", match.get("userId"));
+        assertEquals("morning", match.get("questionnaireType"));
+        Document createdAt = match.get("createdAt", Document.class);
+        assertEquals(startOfDay(LocalDate.of(2025, 3, 1)), createdAt.get("$gte"));
+        assertEquals(startOfDay(LocalDate.of(2025, 4, 1)), createdAt.get("$lt"));
+        assertEquals(new Document("createdAt", 1), pipeline.get(1).get("$sort"));
+        Document project = pipeline.get(2).get("$project", Document.class);
+        assertEquals(1, project.get("sleepParameters"));
+        // answers sendes kun med når de gemte parametre er forældede
+        Document answers = project.get("answers", Document.class).get("$cond", Document.class);
+        assertEquals("$$REMOVE", answers.get("then"));
+        assertEquals("$answers", answers.get("else"));
+        Document packed = project.get("packedAnswers", Document.class).get("$cond", Document.class);
+        assertEquals("$packedAnswers", packed.get("else"));
+    }
+
+    @Test
+    @DisplayName("findSleepData uden interval matcher hele historikken")
+    void findSleepData_withoutRangeOmitsDateFilter() {
+        ArgumentCaptor<Aggregation> aggregation = ArgumentCaptor.forClass(Aggregation.class);
+        when(mongoOperations.aggregate(aggregation.capture(), eq("responses"), eq(Response.class)))
+                .thenReturn(new AggregationResults<>(List.of(), new Document()));
+
+        query.findSleepData("user-1", null, null);
+
+        Document match = aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT).get(0).get("$match", Document.class);
+        assertFalse(match.containsKey("createdAt"));
+    }
+
+    @Test
+    @DisplayName("findCohortSleepData henter alle borgeres morgenbesvarelser i én aggregation")
+    void findCohortSleepData_matchesAllCitizens() {
+        ArgumentCaptor<Aggregation> aggregation = ArgumentCaptor.forClass(Aggregation.class);
+        when(mongoOperations.aggregate(aggregation.capture(), eq("responses"), eq(Response.class)))
+                .thenReturn(new AggregationResults<>(List.of(), new Document()));
+
+        query.findCohortSleepData(List.of("user-1", "user-2"), LocalDate.of(2025, 3, 1), LocalDate.of(2025, 4, 1));
+
+        List<Document> pipeline = aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals(2, pipeline.size());
+        Document match = pipeline.get(0).get("$match", Document.class);
+        assertEquals(new Document("$in", List.of("user-1", "user-2")), match.get("userId"));
+        assertEquals("morning", match.get("questionnaireType"));
+        assertEquals(startOfDay(LocalDate.of(2025, 3, 1)), match.get("createdAt", Document.class).get("$gte"));
+        assertEquals(1, pipeline.get(1).get("$project", Document.class).get("userId"));
+    }
+
+    @Test
+    @DisplayName("groupSleepData grupperer pr. ISO-uge i dansk tid og returnerer period")
+    void groupSleepData_groupsByIsoWeek() {
+        ArgumentCaptor<Aggregation> aggregation = ArgumentCaptor.forClass(Aggregation.class);
+        Document group = new Document("_id", "2025-W10").append("count", 3).append("SOL", 12.5);
+        when(mongoOperations.aggregate(aggregation.capture(), eq("responses"), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(group), new Document()));
+        when(mongoOperations.aggregate(any(Aggregation.class), eq("responses"), eq(Response.class)))
+                .thenReturn(new AggregationResults<>(List.of(), new Document()));
+
+        List<Document> result = query.groupSleepData("user-1", LocalDate.of(2025, 3, 1), null,
+                SleepDataQuery.Grouping.parse("WEEK"));
+
+        assertEquals("2025-W10", result.get(0).get("period"));
+        assertFalse(result.get(0).containsKey("_id"));
+        List<Document> pipeline = aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        // Kun besvarelser med den aktuelle beregningsversion grupperes i MongoDB
+        assertEquals(QuestionnaireConstants.SLEEP_CALCULATOR_VERSION,
+                pipeline.get(0).get("$match", Document.class).get("sleepParameters.calculatorVersion"));
+        Document period = pipeline.get(1).get("$project", Document.class).get("period", Document.class)
+                .get("$dateToString", Document.class);
+        assertEquals("%G-W%V", period.get("format"));
+        assertEquals("Europe/Copenhagen", period.get("timezone"));
+        Document groupStage = pipeline.get(2).get("$group", Document.class);
+        assertEquals("$period", groupStage.get("_id"));
+        assertEquals(new Document("$avg", "$TST"), groupStage.get("TST"));
+    }
+
+    @Test
+    @DisplayName("groupSleepData genberegner forældede besvarelser og lægger dem ind i periodens gennemsnit")
+    void groupSleepData_recomputesStaleResponses() {
+        Document group = new Document("_id", "2025-03-03").append("start", startOfDay(LocalDate.of(2025, 3, 3)))
+                .append("count", 1).append("SOL", 10.0).append("WASO", 20.0).append("TIB", 480.0).append("TST", 400.0);
+        when(mongoOperations.aggregate(any(Aggregation.class), eq("responses"), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(group), new Document()));
+        Response sameDay = staleResponse(Date.from(LocalDate.of(2025, 3, 3).atStartOfDay(COPENHAGEN).plusHours(1).toInstant()));
+        Response earlierDay = staleResponse(startOfDay(LocalDate.of(2025, 3, 2)));
+        Response broken = staleResponse(startOfDay(LocalDate.of(2025, 3, 4)));
+        ArgumentCaptor<Aggregation> stale = ArgumentCaptor.forClass(Aggregation.class);
+        when(mongoOperations.aggregate(stale.capture(), eq("responses"), eq(Response.class)))
+                .thenReturn(new AggregationResults<>(List.of(sameDay, earlierDay, broken), new Document()));
+        when(responseService.getSleepParameters(same(sameDay))).thenReturn(new SleepParameters(30, 40, 500, 420));
+        when(responseService.getSleepParameters(same(earlierDay))).thenReturn(new SleepParameters(5, 0, 420, 410));
+        when(responseService.getSleepParameters(same(broken))).thenThrow(new IllegalStateException("mangler skema"));
+
+        List<Document> result = query.groupSleepData("user-1", null, null, SleepDataQuery.Grouping.day);
+
+        assertEquals(2, result.size());
+        assertEquals("2025-03-02", result.get(0).get("period"));
+        assertEquals(1, result.get(0).get("count"));
+        assertEquals(410.0, result.get(0).get("TST"));
+        Document merged = result.get(1);
+        assertEquals("2025-03-03", merged.get("period"));
+        assertEquals(2, merged.get("count"));
+        assertEquals(20.0, merged.get("SOL"));
+        assertEquals(490.0, merged.get("TIB"));
+        assertEquals(startOfDay(LocalDate.of(2025, 3, 3)), merged.get("start"));
+        // Forældede rækker hentes med answers, så de kan genberegnes
+        List<Document> pipeline = stale.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals(new Document("$ne", QuestionnaireConstants.SLEEP_CALCULATOR_VERSION),
+                pipeline.get(0).get("$match", Document.class).get("sleepParameters.calculatorVersion"));
+        assertEquals(1, pipeline.get(1).get("$project", Document.class).get("answers"));
+    }
+
+    @Test
+    @DisplayName("Grouping.parse afviser ukendte grupperinger")
+    void grouping_rejectsUnknown() {
+        assertThrows(ValidationException.class, () -> SleepDataQuery.Grouping.parse("year"));
+    }
+
+    private static Response staleResponse(Date createdAt) {
+        Response response = new Response();
+        response.setCreatedAt(createdAt);
+        return response;
+    }
+
+    private static Date startOfDay(LocalDate date) {
+        return Date.from(date.atStartOfDay(COPENHAGEN).toInstant());
+    }
+}
@@ -0,0 +1,183 @@
+package com.questionnaire.unit.service;
+
+import com.questionnaire.model.SleepData;
+import com.questionnaire.model.SleepParameters;
+import com.questionnaire.service.SleepKernel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("SleepKernel unit-tests")
+class SleepKernelTest {
+
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+
+    @Test
+    @DisplayName("compute håndterer nat over midnat")
+    void compute_wrapsAroundMidnight() {
+        SleepParameters result = compute(new SleepData("23:00", "23:15", "20", 30, "06:30", "07:00"));
+
+        assertEquals(35, result.getSOL());
+        assertEquals(30, result.getWASO());
+        assertEquals(480, result.getTIB());
+        assertEquals(415, result.getTST());
+    }
+
+    @Test
+    @DisplayName("compute bruger fallback når slukkede lyset mangler")
+    void compute_fallsBackWithoutLightOff() {
+        SleepParameters result = compute(new SleepData("22:00", null, "00:25", 10, "06:00", "06:30"));
+
+        assertEquals(25, result.getSOL());
+        assertEquals(510, result.getTIB());
+        assertEquals(475, result.getTST());
+    }
+
+    @Test
+    @DisplayName("compute giver 0 når gik i seng eller stod op mangler")
+    void compute_returnsZeroWhenIncomplete() {
+        SleepParameters out = new SleepParameters(1, 2, 3, 4);
+
+        boolean valid = SleepKernel.compute(new SleepKernel.Times().set(
+                new SleepData(" ", "23:00", "10", 5, "06:00", "07:00")), out);
+
+        assertFalse(valid);
+        assertEquals(0, out.getSOL() + out.getWASO() + out.getTIB() + out.getTST());
+    }
+
+    @Test
+    @DisplayName("compute svarer til den tidligere LocalTime-beregning for alle kombinationer")
+    void compute_matchesLegacyCalculation() {
+        String[] times = {null, "", " ", "abc", "7:30", "24:00", "00:00", "06:15", "12:00", "22:45", "23:59"};
+        String[] durations = {null, "", "15", "-30", "2000", "7.5", "NaN", "00:20", "1:20", "x"};
+        double[] wasos = {0, 45};
+        SleepKernel.Times input = new SleepKernel.Times();
+        SleepParameters out = new SleepParameters();
+
+        for (String wentToBed : times) {
+            for (String lightOff : times) {
+                for (String fellAfter : durations) {
+                    for (String wokeUp : times) {
+                        for (String gotUp : new String[]{null, " ", "bad", "07:00", "22:45"}) {
+                            for (double waso : wasos) {
+                                SleepData data = new SleepData(wentToBed, lightOff, fellAfter, waso, wokeUp, gotUp);
+                                SleepKernel.compute(input.set(data), out);
+                                double[] expected = LegacyCalculation.calculate(data);
+                                assertArrayEquals(expected,
+                                        new double[]{out.getSOL(), out.getWASO(), out.getTIB(), out.getTST()},
+                                        () -> "Afviger for " + Arrays.asList(wentToBed, lightOff, fellAfter, wokeUp, gotUp, waso));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("compute allokerer intet efter parsing")
+    void compute_doesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        SleepKernel.Times input = new SleepKernel.Times().set(new SleepData("23:00", "23:15", "20", 30, "06:30", "07:00"));
+        SleepParameters out = new SleepParameters();
+        for (int i = 0; i < 20_000; i++) {
+            SleepKernel.compute(input, out);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 10_000; i++) {
+            SleepKernel.compute(input, out);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue(allocated < 1024, "Allokerede " + allocated + " bytes");
+    }
+
+    private static SleepParameters compute(SleepData data) {
+        SleepParameters out = new SleepParameters();
+        SleepKernel.compute(new SleepKernel.Times().set(data), out);
+        return out;
+    }
+
+    /**
+     * Den tidligere strengbaserede beregning fra SleepParameterCalculator - bruges som facit
+     */
+    private static final class LegacyCalculation {
+
+        static double[] calculate(SleepData data) {
+            if (!data.isValid()) {
+                return new double[]{0, 0, 0, 0};
+            }
+            double tib = nonNegative(difference(data.getWentToBedTime(), data.getGotUpTime()));
+            double sol;
+            if (data.getLightOffTime() != null && data.getFellAsleepAfter() != null) {
+                String fell = addMinutes(data.getLightOffTime(), minutes(data.getFellAsleepAfter()));
+                sol = difference(data.getWentToBedTime(), fell);
+            } else {
+                sol = minutes(data.getFellAsleepAfter());
+            }
+            sol = nonNegative(sol);
+            double tst;
+            if (data.getLightOffTime() != null && data.getFellAsleepAfter() != null && data.getWokeUpTime() != null) {
+                String fell = addMinutes(data.getLightOffTime(), minutes(data.getFellAsleepAfter()));
+                tst = difference(fell, data.getWokeUpTime());
+            } else {
+                tst = tib - sol - data.getWASO();
+            }
+            return new double[]{sol, data.getWASO(), tib, nonNegative(tst)};
+        }
+
+        private static double nonNegative(double value) {
+            return value < 0 ? 0 : value;
+        }
+
+        private static double minutes(String value) {
+            if (value == null || value.isEmpty()) {
+                return 0.0;
+            }
+            try {
+                if (value.contains(":")) {
+                    LocalTime time = LocalTime.parse(value, TIME_FORMATTER);
+                    return time.getHour() * 60.0 + time.getMinute();
+                }
+                return Double.parseDouble(value);
+            } catch (Exception e) {
+                return 0.0;
+            }
+        }
+
+        private static double difference(String startTime, String endTime) {
+            if (startTime == null || endTime == null) {
+                return 0.0;
+            }
+            try {
+                LocalTime start = LocalTime.parse(startTime, TIME_FORMATTER);
+                LocalTime end = LocalTime.parse(endTime, TIME_FORMATTER);
+                if (!end.isAfter(start)) {
+                    return 24 * 60 - (start.getHour() * 60 + start.getMinute()) + end.getHour() * 60 + end.getMinute();
+                }
+                return java.time.Duration.between(start, end).toMinutes();
+            } catch (Exception e) {
+                return 0.0;
+            }
+        }
+
+        private static String addMinutes(String time, double minutes) {
+            if (time == null || time.isEmpty()) {
+                return null;
+            }
+            try {
+                return LocalTime.parse(time, TIME_FORMATTER).plusMinutes((long) minutes).format(TIME_FORMATTER);
+            } catch (Exception e) {
+                return time;
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.questionnaire.unit.service;
+
+import com.questionnaire.constants.QuestionnaireConstants;
+import com.questionnaire.model.QuestionnaireType;
+import com.questionnaire.model.Response;
+import com.questionnaire.model.SleepParameters;
+import com.questionnaire.service.SleepRecomputeJob;
+import com.questionnaire.service.SleepRollupStore;
+import com.questionnaire.service.interfaces.ISleepParameterCalculator;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SleepRecomputeJob unit-tests (mocked MongoOperations)")
+class SleepRecomputeJobTest {
+
+    @Mock private MongoOperations mongoOperations;
+    @Mock private ISleepParameterCalculator sleepParameterCalculator;
+    @Mock private BulkOperations bulkOperations;
+    @Mock private SleepRollupStore sleepRollupStore;
+
+    private SleepRecomputeJob job;
+
+    @BeforeEach
+    void setup() {
+        job = new SleepRecomputeJob(mongoOperations, sleepParameterCalculator, sleepRollupStore);
+    }
+
+    @Test
+    @DisplayName("run genberegner forældede besvarelser i uordnede bulk batches med checkpoint")
+    void run_recomputesInUnorderedBatches() {
+        List<Response> responses = responses(5);
+        when(mongoOperations.stream(any(Query.class), eq(Response.class))).thenReturn(responses.stream());
+        when(mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Response.class)).thenReturn(bulkOperations);
+        when(sleepParameterCalculator.calculate(anyMap(), eq("qid"))).thenReturn(new SleepParameters(1, 2, 3, 4));
+
+        assertTrue(job.run(new SleepRecomputeJob.Options(2, 2, 0, false)));
+
+        verify(bulkOperations, times(5)).updateOne(any(Query.class), any(Update.class));
+        verify(bulkOperations, times(3)).execute();
+        verify(sleepRollupStore, times(3)).invalidate(Set.of("user-1"));
+        verify(mongoOperations, times(3)).upsert(any(Query.class), any(Update.class), eq("job_checkpoints"));
+        Map<String, Object> status = job.getStatus();
+        assertEquals("COMPLETED", status.get("state"));
+        assertEquals(5L, status.get("processed"));
+        assertEquals(5L, status.get("updated"));
+        assertEquals("r4", status.get("lastId"));
+    }
+
+    @Test
+    @DisplayName("run tæller fejlede beregninger og springer dem over i bulkWrite")
+    void run_countsFailedCalculations() {
+        List<Response> responses = responses(3);
+        responses.get(1).setQuestionnaireId("broken");
+        when(mongoOperations.stream(any(Query.class), eq(Response.class))).thenReturn(responses.stream());
+        when(mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Response.class)).thenReturn(bulkOperations);
+        when(sleepParameterCalculator.calculate(anyMap(), eq("qid"))).thenReturn(new SleepParameters(1, 2, 3, 4));
+        when(sleepParameterCalculator.calculate(anyMap(), eq("broken"))).thenThrow(new RuntimeException("fejl"));
+
+        job.run(new SleepRecomputeJob.Options(10, 1, 0, false));
+
+        verify(bulkOperations, times(2)).updateOne(any(Query.class), any(Update.class));
+        assertEquals(1L, job.getStatus().get("failed"));
+        assertEquals(2L, job.getStatus().get("updated"));
+    }
+
+    @Test
+    @DisplayName("run med resume fortsætter efter id fra checkpoint med samme version")
+    void run_resumesFromCheckpoint() {
+        when(mongoOperations.findById("sleep-recompute", Document.class, "job_checkpoints"))
+                .thenReturn(new Document("calculatorVersion", QuestionnaireConstants.SLEEP_CALCULATOR_VERSION)
+                        .append("lastId", "r2"));
+        when(mongoOperations.stream(any(Query.class), eq(Response.class))).thenReturn(Stream.empty());
+
+        job.run(new SleepRecomputeJob.Options(10, 1, 0, true));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoOperations).stream(query.capture(), eq(Response.class));
+        assertEquals(new Document("$gt", "r2"), query.getValue().getQueryObject().get("id"));
+        assertEquals("COMPLETED", job.getStatus().get("state"));
+    }
+
+    @Test
+    @DisplayName("run ignorerer checkpoint fra en ældre beregningsversion")
+    void run_ignoresStaleCheckpoint() {
+        when(mongoOperations.findById("sleep-recompute", Document.class, "job_checkpoints"))
+                .thenReturn(new Document("calculatorVersion", QuestionnaireConstants.SLEEP_CALCULATOR_VERSION - 1)
+                        .append("lastId", "r2"));
+        when(mongoOperations.stream(any(Query.class), eq(Response.class))).thenReturn(Stream.empty());
+
+        job.run(new SleepRecomputeJob.Options(10, 1, 0, true));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoOperations).stream(query.capture(), eq(Response.class));
+        assertFalse(query.getValue().getQueryObject().containsKey("id"));
+    }
+
+    private static List<Response> responses(int count) {
+        List<Response> responses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Response response = new Response("user-1", "qid", QuestionnaireType.morning, Map.of("q" + i, "22:00"));
+            response.setId("r" + i);
+            responses.add(response);
+        }
+        return responses;
+    }
+}
@@ -0,0 +1,236 @@
+package com.questionnaire.unit.service;
+
+import com.questionnaire.model.QuestionnaireType;
+import com.questionnaire.model.Response;
+import com.questionnaire.model.SleepParameters;
+import com.questionnaire.model.SleepRollup;
+import com.questionnaire.repository.ResponseRepository;
+import com.questionnaire.repository.SleepRollupRepository;
+import com.questionnaire.service.SleepRollupStore;
+import com.questionnaire.service.interfaces.IResponseService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SleepRollupStore unit-tests (mocked repositories)")
+class SleepRollupStoreTest {
+
+    private static final ZoneId COPENHAGEN = ZoneId.of("Europe/Copenhagen");
+
+    @Mock private SleepRollupRepository sleepRollupRepository;
+    @Mock private ResponseRepository responseRepository;
+    @Mock private IResponseService responseService;
+
+    private SleepRollupStore store;
+
+    @BeforeEach
+    void setup() {
+        store = new SleepRollupStore(sleepRollupRepository, responseRepository, responseService);
+    }
+
+    @Test
+    @DisplayName("SleepRollup add/evict svarer til en fuld genberegning af hvert vindue")
+    @SuppressWarnings("unchecked")
+    void rollup_matchesFullRecomputation() {
+        Random random = new Random(42);
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        SleepRollup rollup = new SleepRollup("user-1");
+        List<LocalDate> dates = new ArrayList<>();
+        List<double[]> values = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            // Spring af og til dage over, og ret af og til en tidligere dag
+            LocalDate date = i % 17 == 0 && !dates.isEmpty()
+                    ? dates.get(dates.size() - 1 - random.nextInt(Math.min(5, dates.size())))
+                    : start.plusDays(i + random.nextInt(3));
+            double[] day = SleepRollup.valuesOf(new SleepParameters(
+                    random.nextInt(60), random.nextInt(90), 300 + random.nextInt(300), 200 + random.nextInt(300)));
+            rollup.add(date, day);
+            int existing = dates.indexOf(date);
+            if (existing >= 0) {
+                values.set(existing, day);
+            } else {
+                dates.add(date);
+                values.add(day);
+            }
+
+            LocalDate anchor = dates.stream().max(LocalDate::compareTo).orElseThrow();
+            Map<String, Object> windows = (Map<String, Object>) rollup.toSummary().get("windows");
+            for (int length : SleepRollup.WINDOW_DAYS) {
+                Map<String, Object> window = (Map<String, Object>) windows.get(String.valueOf(length));
+                List<double[]> inWindow = new ArrayList<>();
+                for (int d = 0; d < dates.size(); d++) {
+                    if (!dates.get(d).isAfter(anchor) && dates.get(d).isAfter(anchor.minusDays(length))) {
+                        inWindow.add(values.get(d));
+                    }
+                }
+                assertEquals(inWindow.size(), window.get("count"));
+                for (int m = 0; m < SleepRollup.METRICS.length; m++) {
+                    int metric = m;
+                    Map<String, Double> stats = (Map<String, Double>) window.get(SleepRollup.METRICS[m]);
+                    assertEquals(inWindow.stream().mapToDouble(v -> v[metric]).average().orElseThrow(), stats.get("mean"), 1e-6);
+                    assertEquals(inWindow.stream().mapToDouble(v -> v[metric]).min().orElseThrow(), stats.get("min"));
+                    assertEquals(inWindow.stream().mapToDouble(v -> v[metric]).max().orElseThrow(), stats.get("max"));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("SleepRollup advanceTo tømmer vinduer når dagene falder ud")
+    @SuppressWarnings("unchecked")
+    void rollup_advanceEvictsOldDays() {
+        SleepRollup rollup = new SleepRollup("user-1");
+        LocalDate day = LocalDate.of(2025, 3, 1);
+        rollup.add(day, SleepRollup.valuesOf(new SleepParameters(10, 20, 480, 400)));
+
+        rollup.advanceTo(day.plusDays(10));
+
+        Map<String, Object> windows = (Map<String, Object>) rollup.toSummary().get("windows");
+        assertEquals(0, ((Map<String, Object>) windows.get("7")).get("count"));
+        assertEquals(1, ((Map<String, Object>) windows.get("14")).get("count"));
+        assertEquals(0, rollup.getWindows().get(0).getSum()[0]);
+    }
+
+    @Test
+    @DisplayName("record opdaterer eksisterende rollup inkrementelt uden at læse historikken")
+    void record_updatesExistingRollup() {
+        SleepRollup rollup = new SleepRollup("user-1");
+        when(sleepRollupRepository.findById("user-1")).thenReturn(Optional.of(rollup));
+
+        store.record(morning(LocalDate.now(COPENHAGEN), new SleepParameters(10, 20, 480, 400)));
+
+        verify(sleepRollupRepository).save(rollup);
+        verifyNoInteractions(responseRepository);
+        assertEquals(1, rollup.getWindows().get(0).getCount());
+    }
+
+    @Test
+    @DisplayName("record bygger rollup fra historikken når borgeren ikke har en")
+    void record_rebuildsMissingRollup() {
+        LocalDate today = LocalDate.now(COPENHAGEN);
+        Response todays = morning(today, new SleepParameters(10, 20, 480, 400));
+        when(sleepRollupRepository.findById("user-1")).thenReturn(Optional.empty());
+        when(responseRepository.findByUserIdAndQuestionnaireType("user-1", QuestionnaireType.morning))
+                .thenReturn(List.of(morning(today.minusDays(1), new SleepParameters(20, 0, 420, 380)), todays));
+        when(responseService.getSleepParameters(any(Response.class)))
+                .thenAnswer(inv -> inv.<Response>getArgument(0).getSleepParameters());
+
+        store.record(todays);
+
+        ArgumentCaptor<SleepRollup> saved = ArgumentCaptor.forClass(SleepRollup.class);
+        verify(sleepRollupRepository).save(saved.capture());
+        assertEquals(2, saved.getValue().getWindows().get(0).getCount());
+        assertEquals(today.toEpochDay(), saved.getValue().getAnchorDay());
+    }
+
+    @Test
+    @DisplayName("rebuild bruger getSleepParameters, så parametre fra en forældet version genberegnes")
+    @SuppressWarnings("unchecked")
+    void rebuild_recomputesStaleParameters() {
+        LocalDate today = LocalDate.now(COPENHAGEN);
+        Response stale = morning(today, new SleepParameters(10, 20, 480, 400));
+        Response broken = morning(today.minusDays(1), null);
+        when(responseRepository.findByUserIdAndQuestionnaireType("user-1", QuestionnaireType.morning))
+                .thenReturn(List.of(stale, broken));
+        when(responseService.getSleepParameters(same(stale))).thenReturn(new SleepParameters(30, 0, 480, 450));
+        when(responseService.getSleepParameters(same(broken))).thenThrow(new RuntimeException("fejl"));
+
+        SleepRollup rollup = store.rebuild("user-1");
+
+        Map<String, Object> window = (Map<String, Object>) ((Map<String, Object>) rollup.toSummary().get("windows")).get("7");
+        assertEquals(1, window.get("count"));
+        assertEquals(30.0, ((Map<String, Double>) window.get(SleepRollup.METRICS[0])).get("mean"));
+    }
+
+    @Test
+    @DisplayName("invalidate sletter rollups så de bygges igen, og gør intet for en tom liste")
+    void invalidate_deletesRollups() {
+        store.invalidate(List.of());
+        verifyNoInteractions(sleepRollupRepository);
+
+        store.invalidate(List.of("user-1", "user-2"));
+        verify(sleepRollupRepository).deleteAllById(List.of("user-1", "user-2"));
+    }
+
+    @Test
+    @DisplayName("recordAll opdaterer rollup'en med én læsning og én skrivning for flere besvarelser")
+    void recordAll_readsAndWritesOncePerCitizen() {
+        LocalDate today = LocalDate.now(COPENHAGEN);
+        SleepRollup rollup = new SleepRollup("user-1");
+        when(sleepRollupRepository.findById("user-1")).thenReturn(Optional.of(rollup));
+
+        store.recordAll(List.of(
+                morning(today.minusDays(2), new SleepParameters(10, 20, 480, 400)),
+                morning(today.minusDays(1), new SleepParameters(20, 10, 450, 410)),
+                new Response("user-1", "qid", QuestionnaireType.evening, Map.of())));
+
+        verify(sleepRollupRepository, times(1)).findById("user-1");
+        verify(sleepRollupRepository, times(1)).save(rollup);
+        assertEquals(2, rollup.getWindows().get(0).getCount());
+    }
+
+    @Test
+    @DisplayName("record læser rollup'en igen og gentager ved en samtidig ændring")
+    void record_retriesOnOptimisticLockConflict() {
+        SleepRollup stale = new SleepRollup("user-1");
+        SleepRollup current = new SleepRollup("user-1");
+        current.add(LocalDate.now(COPENHAGEN).minusDays(1), SleepRollup.valuesOf(new SleepParameters(20, 0, 420, 380)));
+        when(sleepRollupRepository.findById("user-1")).thenReturn(Optional.of(stale), Optional.of(current));
+        when(sleepRollupRepository.save(same(stale))).thenThrow(new OptimisticLockingFailureException("version"));
+
+        store.record(morning(LocalDate.now(COPENHAGEN), new SleepParameters(10, 20, 480, 400)));
+
+        verify(sleepRollupRepository).save(same(current));
+        assertEquals(2, current.getWindows().get(0).getCount());
+    }
+
+    @Test
+    @DisplayName("record sletter rollup'en når konflikterne fortsætter, så den bygges igen")
+    void record_invalidatesAfterRepeatedConflicts() {
+        when(sleepRollupRepository.findById("user-1")).thenAnswer(inv -> Optional.of(new SleepRollup("user-1")));
+        when(sleepRollupRepository.save(any(SleepRollup.class))).thenThrow(new OptimisticLockingFailureException("version"));
+
+        store.record(morning(LocalDate.now(COPENHAGEN), new SleepParameters(10, 20, 480, 400)));
+
+        verify(sleepRollupRepository, times(5)).save(any(SleepRollup.class));
+        verify(sleepRollupRepository).deleteById("user-1");
+    }
+
+    @Test
+    @DisplayName("record ignorerer aftenbesvarelser")
+    void record_ignoresEvening() {
+        Response evening = new Response("user-1", "qid", QuestionnaireType.evening, Map.of());
+
+        store.record(evening);
+
+        verifyNoInteractions(sleepRollupRepository, responseRepository);
+    }
+
+    private static Response morning(LocalDate date, SleepParameters params) {
+        Response response = new Response("user-1", "qid", QuestionnaireType.morning, Map.of());
+        response.setCreatedAt(Date.from(date.atTime(8, 0).atZone(COPENHAGEN).toInstant()));
+        response.setSleepParameters(params);
+        return response;
+    }
+}
@@ -157,17 +157,24 @@ class AnswerParserTest {
             AnswerParser.parseTime(invalidTime, formatter);
         });
     }
+    
+    @Test
+    @DisplayName("Skal parse HH:mm til minutter efter midnat")
+    void testParseMinutesOfDay() {
+        // Act & Assert
+        assertEquals(0, AnswerParser.parseMinutesOfDay("00:00"));
+        assertEquals(22 * 60 + 30, AnswerParser.parseMinutesOfDay("22:30"));
+        assertEquals(23 * 60 + 59, AnswerParser.parseMinutesOfDay("23:59"));
+    }
+    
+    @Test
+    @DisplayName("Skal returnere -1 for tider der ikke har det strikse HH:mm format")
+    void testParseMinutesOfDayRejectsOtherFormats() {
+        // Act & Assert
+        assertEquals(-1, AnswerParser.parseMinutesOfDay("24:00"));
+        assertEquals(-1, AnswerParser.parseMinutesOfDay("7:30"));
+        assertEquals(-1, AnswerParser.parseMinutesOfDay("07:60"));
+        assertEquals(-1, AnswerParser.parseMinutesOfDay(" 07:30"));
+        assertEquals(-1, AnswerParser.parseMinutesOfDay(null));
+    }
 }
-
-
-
-
-
-
-
-
-
-
-
-
-
@@ -0,0 +1,74 @@
+package com.questionnaire.unit.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.questionnaire.utils.NdjsonWriter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("NdjsonWriter unit-tests")
+class NdjsonWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("write skriver ét JSON-objekt pr. linje afsluttet med newline")
+    void write_writesOneObjectPerLine() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long lines = NdjsonWriter.write(Stream.of(Map.of("id", "a"), Map.of("id", "b\nc")), objectMapper, out);
+
+        String[] written = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(2, lines);
+        assertEquals(3, written.length);
+        assertEquals("", written[2]);
+        assertEquals("b\nc", objectMapper.readTree(written[1]).get("id").asText());
+    }
+
+    @Test
+    @DisplayName("write flusher løbende og lader output streamen være åben")
+    void write_flushesPeriodicallyAndKeepsStreamOpen() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+
+        long lines = NdjsonWriter.write(IntStream.range(0, 1000).mapToObj(i -> Map.of("n", i)), objectMapper, out);
+
+        assertEquals(1000, lines);
+        assertTrue(out.flushes >= 3, "Forventede løbende flush, fik " + out.flushes);
+        assertFalse(out.closed);
+        JsonNode last = objectMapper.readTree(out.toString(StandardCharsets.UTF_8).split("\n")[999]);
+        assertEquals(999, last.get("n").asInt());
+    }
+
+    @Test
+    @DisplayName("write af tom stream skriver intet")
+    void write_emptyStream() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(0, NdjsonWriter.write(Stream.empty(), objectMapper, out));
+        assertEquals(0, out.size());
+    }
+
+    private static final class CountingOutputStream extends ByteArrayOutputStream {
+        private int flushes;
+        private boolean closed;
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.questionnaire.unit.validation;
+
+import com.questionnaire.exception.ValidationException;
+import com.questionnaire.model.ConditionalChild;
+import com.questionnaire.model.Question;
+import com.questionnaire.model.QuestionOption;
+import com.questionnaire.model.QuestionType;
+import com.questionnaire.model.SubmissionContext;
+import com.questionnaire.validation.AnswerValidator;
+import com.questionnaire.validation.CrossFieldRule;
+import com.questionnaire.validation.MultipleChoiceAnswerValidator;
+import com.questionnaire.validation.NumericAnswerValidator;
+import com.questionnaire.validation.TextAnswerValidator;
+import com.questionnaire.validation.TimeAnswerValidator;
+import com.questionnaire.validation.ValidationPlan;
+import com.questionnaire.validation.ValidatorFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ValidationPlan unit-tests")
+class ValidationPlanTest {
+
+    private final ValidatorFactory factory = new ValidatorFactory(
+            new TextAnswerValidator(),
+            new NumericAnswerValidator(),
+            new TimeAnswerValidator(),
+            new MultipleChoiceAnswerValidator()
+    );
+
+    @Test
+    @DisplayName("Planen giver samme resultat og fejlbesked som de enkelte validatorer")
+    void matchesAnswerValidators() {
+        Question time = question("time", QuestionType.time_picker);
+        time.setMinTime("18:00");
+        time.setMaxTime("23:30");
+        Question numeric = question("numeric", QuestionType.numeric);
+        numeric.setMinValue(1);
+        numeric.setMaxValue(10);
+        Question unbounded = question("unbounded", QuestionType.slider);
+        Question text = question("text", QuestionType.text);
+        text.setMinLength(2);
+        text.setMaxLength(5);
+        Question choice = question("choice", QuestionType.multiple_choice);
+        QuestionOption other = new QuestionOption("other", "Andet");
+        other.setIsOther(true);
+        choice.setOptions(List.of(new QuestionOption("a", "A"), other));
+        Question multi = question("multi", QuestionType.multiple_choice_multiple);
+        multi.setOptions(choice.getOptions());
+
+        Map<Question, List<Object>> candidates = new HashMap<>();
+        candidates.put(time, List.of("18:00", "23:30", "17:59", "23:31", " 19:00 ", "24:00", "7:30", "abc"));
+        candidates.put(numeric, List.of(1, 10, 0, 11, "5", " 5", "+5", "5.5", "x", 10.5));
+        candidates.put(unbounded, List.of(0, -1, "-1", "3"));
+        candidates.put(text, List.of("ab", "abcde", "abcdef", " a ", "   ", "a"));
+        candidates.put(choice, List.of("a", "b", "", "other", Map.of("optionId", "other", "customText", "x"),
+                Map.of("optionId", "other", "customText", " ")));
+        candidates.put(multi, List.of(List.of("a"), List.of(), List.of("a", "b"), new Object[] {"a"}, "a",
+                List.of(Map.of("optionId", "other", "customText", "x"))));
+
+        for (Map.Entry<Question, List<Object>> entry : candidates.entrySet()) {
+            Question question = entry.getKey();
+            ValidationPlan plan = ValidationPlan.compile(List.of(question), factory, List.of());
+            AnswerValidator validator = factory.getValidator(question.getType());
+            for (Object answer : entry.getValue()) {
+                Map<String, Object> answers = new HashMap<>();
+                answers.put(question.getId(), answer);
+                assertEquals(outcome(() -> validator.validate(question, answer)),
+                        outcome(() -> plan.validateAnswers(answers)),
+                        question.getId() + " / " + answer);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Conditional children valideres kun når parent-svaret viser dem")
+    void skipsHiddenConditionalChildren() {
+        Question parent = question("parent", QuestionType.multiple_choice);
+        parent.setOptions(List.of(new QuestionOption("yes", "Ja"), new QuestionOption("no", "Nej")));
+        parent.setConditionalChildren(List.of(new ConditionalChild("yes", "child")));
+        Question child = question("child", QuestionType.numeric);
+        child.setMaxValue(5);
+        ValidationPlan plan = ValidationPlan.compile(List.of(parent, child), factory, List.of());
+
+        Map<String, Object> hidden = new HashMap<>(Map.of("parent", "no", "child", 99));
+        Map<String, Object> shown = new HashMap<>(Map.of("parent", "yes", "child", 99));
+
+        assertDoesNotThrow(() -> plan.validateAnswers(hidden));
+        assertThrows(ValidationException.class, () -> plan.validateAnswers(shown));
+    }
+
+    @Test
+    @DisplayName("validateStep validerer kun trinnets spørgsmål, dets children og berørte regler")
+    void validateStep_onlyTouchesStep() {
+        Question q3 = question("q3", QuestionType.time_picker);
+        Question q4 = question("q4", QuestionType.time_picker);
+        Question q5 = question("q5", QuestionType.numeric);
+        q5.setMaxValue(10);
+        Question q6 = question("q6", QuestionType.multiple_choice);
+        q6.setOptions(List.of(new QuestionOption("yes", "Ja")));
+        q6.setConditionalChildren(List.of(new ConditionalChild("yes", "q601")));
+        Question q601 = question("q601", QuestionType.numeric);
+        q601.setMaxValue(5);
+        CrossFieldRule ordering = CrossFieldRule.on(context -> {
+            Object bed = context.getAnswers().get("q3");
+            Object light = context.getAnswers().get("q4");
+            if (bed != null && light != null && light.toString().compareTo(bed.toString()) < 0) {
+                throw new ValidationException("4 før 3");
+            }
+        }, q3, q4);
+        ValidationPlan plan = ValidationPlan.compile(List.of(q3, q4, q5, q6, q601), factory, List.of(ordering));
+        Map<String, Object> answers = new HashMap<>();
+        answers.put("q3", "23:00");
+        answers.put("q4", "22:00");
+        answers.put("q5", 99);
+        answers.put("q6", "yes");
+        answers.put("q601", 9);
+        SubmissionContext context = SubmissionContext.of(null, answers);
+
+        // q6-trinnet ser kun q6 og child q601, ikke q5 eller 3/4-reglen
+        ValidationException childError = assertThrows(ValidationException.class, () -> plan.validateStep(context, "q6"));
+        assertTrue(childError.getMessage().contains("q601"));
+        // q4-trinnet kører 3/4-reglen men ikke q5
+        assertEquals("4 før 3", assertThrows(ValidationException.class,
+                () -> plan.validateStep(context, "q4")).getMessage());
+        answers.put("q4", "23:30");
+        assertDoesNotThrow(() -> plan.validateStep(context, "q4"));
+        // Ukendt spørgsmål giver fuld validering
+        assertThrows(ValidationException.class, () -> plan.validateStep(context, "unknown"));
+    }
+
+    @Test
+    @DisplayName("Gyldige svar valideres uden allokering")
+    void successPathDoesNotAllocate() {
+        Question time = question("time", QuestionType.time_picker);
+        time.setMinTime("18:00");
+        Question numeric = question("numeric", QuestionType.numeric);
+        numeric.setMaxValue(100);
+        Question text = question("text", QuestionType.text);
+        Question choice = question("choice", QuestionType.multiple_choice);
+        choice.setOptions(List.of(new QuestionOption("a", "A")));
+        Question multi = question("multi", QuestionType.multiple_choice_multiple);
+        multi.setOptions(choice.getOptions());
+        ValidationPlan plan = ValidationPlan.compile(List.of(time, numeric, text, choice, multi), factory, List.of());
+        Map<String, Object> answers = new HashMap<>();
+        answers.put("time", "22:00");
+        answers.put("numeric", "42");
+        answers.put("text", "svar");
+        answers.put("choice", "a");
+        answers.put("multi", new ArrayList<>(List.of("a")));
+
+        for (int i = 0; i < 20_000; i++) {
+            plan.validateAnswers(answers);
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 10_000; i++) {
+            plan.validateAnswers(answers);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // Lidt luft til selve målingen - én allokering pr. kørsel ville give >= 160.000 bytes
+        assertTrue(allocated < 10_000, "Allokerede bytes: " + allocated);
+    }
+
+    private static String outcome(Runnable validation) {
+        try {
+            validation.run();
+            return "OK";
+        } catch (ValidationException e) {
+            return e.getMessage();
+        }
+    }
+
+    private static Question question(String id, QuestionType type) {
+        Question q = new Question("qid", "Spørgsmål " + id, type, false, 1);
+        q.setId(id);
+        return q;
+    }
+}
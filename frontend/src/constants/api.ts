@@ -7,6 +7,7 @@ export const API_ENDPOINTS = {
   // Questionnaires
   QUESTIONNAIRE: '/questionnaires',
   START_QUESTIONNAIRE: '/questionnaires/:type/start',
+  QUESTIONNAIRE_BUNDLE: '/questionnaires/:type/bundle',
   
   // Questions
   QUESTIONS: '/questions',
@@ -2,6 +2,7 @@ import { useState, useEffect } from 'react';
 import { useNavigate, useLocation } from 'react-router-dom';
 import { useTranslation } from 'react-i18next';
 import { responseAPI } from '../../services/api';
+import { createIdempotencyKey } from '../../utils/idempotency-key';
 import type { Question } from '../../types';
 import { getRelevantQuestions } from './utils';
 
@@ -19,6 +20,8 @@ export const useQuestionnaireReview = () => {
   const state = location.state as LocationState;
 
   const [saving, setSaving] = useState(false);
+  // Én nøgle pr. udfyldning, så et gentaget submit ikke gemmes to gange
+  const [idempotencyKey] = useState(createIdempotencyKey);
   const [error, setError] = useState('');
 
   // Hvis der ikke er state, redirect tilbage til dashboard
@@ -60,7 +63,7 @@ export const useQuestionnaireReview = () => {
       await responseAPI.saveResponse({
         questionnaireId: questionnaireId || type,
         answers,
-      });
+      }, idempotencyKey);
       
       navigate('/citizen');
     } catch (err: any) {
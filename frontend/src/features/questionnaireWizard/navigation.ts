@@ -0,0 +1,108 @@
+import type { TFunction } from 'react-i18next';
+import type { Question, QuestionnaireBundle } from '../../types';
+
+/**
+ * Lokal navigation ud fra spørgeskema-bundlet, så wizarden ikke skal spørge serveren ved hvert trin.
+ * Svarer til NavigationGraph på serveren: næste spørgsmål er første root (i rootOrder) med højere
+ * order end det aktuelle spørgsmål, og conditional children vises sammen med deres parent.
+ */
+
+const optionIdsOf = (answer: any): string[] => {
+  if (Array.isArray(answer)) {
+    return answer.map((val: any) => (typeof val === 'object' && val?.optionId ? val.optionId : val));
+  }
+  if (answer === undefined || answer === null || answer === '') {
+    return [];
+  }
+  return [typeof answer === 'object' && answer?.optionId ? answer.optionId : answer];
+};
+
+/**
+ * Næste root spørgsmål efter det aktuelle (null når spørgeskemaet er slut)
+ */
+export const getNextRootQuestion = (bundle: QuestionnaireBundle, currentQuestionId: string): Question | null => {
+  const byId = new Map(bundle.questions.map((q) => [q.id, q]));
+  const current = byId.get(currentQuestionId);
+  if (!current) return null;
+  for (const rootId of bundle.rootOrder) {
+    const root = byId.get(rootId);
+    if (root && root.order > current.order) {
+      return root;
+    }
+  }
+  return null;
+};
+
+/**
+ * Spørgsmålet og de conditional children (rekursivt via branches) som svarene gør synlige
+ */
+export const getVisibleStepQuestions = (
+  bundle: QuestionnaireBundle,
+  question: Question,
+  answers: Record<string, any>
+): Question[] => {
+  const byId = new Map(bundle.questions.map((q) => [q.id, q]));
+  const step: Question[] = [];
+  const visit = (q: Question) => {
+    if (step.includes(q)) return;
+    step.push(q);
+    const optionBranches = bundle.branches[q.id];
+    if (!optionBranches) return;
+    for (const optionId of optionIdsOf(answers[q.id])) {
+      for (const childId of optionBranches[optionId] ?? []) {
+        const child = byId.get(childId);
+        if (child) visit(child);
+      }
+    }
+  };
+  visit(question);
+  return step;
+};
+
+const minutesOfDay = (value: string): number => {
+  const match = /^(\d{1,2}):(\d{2})$/.exec(value.trim());
+  if (!match) return -1;
+  const hours = Number(match[1]);
+  const minutes = Number(match[2]);
+  return hours < 24 && minutes < 60 ? hours * 60 + minutes : -1;
+};
+
+/**
+ * Tjekker grænserne fra bundlet (minValue/maxValue, minLength/maxLength, minTime/maxTime)
+ * som serverens trinvise validering gør; hele besvarelsen valideres igen ved submit
+ * @returns Fejlbesked, eller null hvis svaret er inden for grænserne (eller ikke besvaret)
+ */
+export const getBoundsError = (question: Question, answer: any, t: TFunction): string | null => {
+  if (answer === undefined || answer === null || answer === '') return null;
+  switch (question.type) {
+    case 'numeric':
+    case 'slider': {
+      const value = typeof answer === 'number' ? answer : Number(answer.toString());
+      const min = question.minValue ?? 0;
+      if (isNaN(value) || value < min || (question.maxValue !== undefined && question.maxValue !== null && value > question.maxValue)) {
+        return t('questionnaire.valueOutOfRange', { min, max: question.maxValue ?? '∞' });
+      }
+      return null;
+    }
+    case 'text': {
+      const text = answer.toString();
+      const min = question.minLength ?? 0;
+      const tooLong = question.maxLength !== undefined && question.maxLength !== null && text.length > question.maxLength;
+      if (tooLong || text.trim().length < Math.max(min, 1)) {
+        return t('questionnaire.textLengthError', { min: Math.max(min, 1), max: question.maxLength ?? '∞' });
+      }
+      return null;
+    }
+    case 'time_picker': {
+      const minutes = minutesOfDay(answer.toString());
+      const min = question.minTime ? minutesOfDay(question.minTime) : -1;
+      const max = question.maxTime ? minutesOfDay(question.maxTime) : -1;
+      if (minutes < 0 || (min >= 0 && minutes < min) || (max >= 0 && minutes > max)) {
+        return t('questionnaire.timeOutOfRange', { min: question.minTime ?? '00:00', max: question.maxTime ?? '23:59' });
+      }
+      return null;
+    }
+    default:
+      return null;
+  }
+};
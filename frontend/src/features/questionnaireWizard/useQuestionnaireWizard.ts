@@ -3,7 +3,9 @@ import { useLocation, useNavigate, useParams } from 'react-router-dom';
 import { useTranslation, type TFunction } from 'react-i18next';
 import { useLanguage } from '../../context/LanguageContext';
 import { questionnaireAPI, questionAPI, responseAPI } from '../../services/api';
-import type { Question } from '../../types';
+import { createIdempotencyKey } from '../../utils/idempotency-key';
+import type { Question, QuestionnaireBundle } from '../../types';
+import { getBoundsError, getNextRootQuestion, getVisibleStepQuestions } from './navigation';
 
 type UseQuestionnaireWizardResult = {
   type?: string;
@@ -46,10 +48,14 @@ export const useQuestionnaireWizard = (t: TFunction, languageProp?: string): Use
   const [currentQuestion, setCurrentQuestion] = useState<Question | null>(null);
   const [questionnaireId, setQuestionnaireId] = useState<string | null>(null);
   const [allQuestions, setAllQuestions] = useState<Question[]>([]);
+  // Bundlet bruges til lokal navigation; uden bundle falder wizarden tilbage til /responses/next
+  const [bundle, setBundle] = useState<QuestionnaireBundle | null>(null);
   const [conditionalQuestions, setConditionalQuestions] = useState<Question[]>([]);
   const [answers, setAnswers] = useState<Record<string, any>>({});
   const [loading, setLoading] = useState(true);
   const [saving, setSaving] = useState(false);
+  // Én nøgle pr. udfyldning, så et gentaget submit ikke gemmes to gange
+  const [idempotencyKey] = useState(createIdempotencyKey);
   const [error, setError] = useState('');
   const [questionHistory, setQuestionHistory] = useState<string[]>([]);
   const isInitialLoad = useRef(true);
@@ -65,12 +71,14 @@ export const useQuestionnaireWizard = (t: TFunction, languageProp?: string): Use
         const loadEditQuestion = async () => {
           try {
             setLoading(true);
-            const question = await questionAPI.getQuestion(state.editQuestionId, language);
-            setCurrentQuestion(question);
-            if (question.questionnaireId && allQuestions.length === 0) {
-              const allQuestionsData = await questionAPI.getQuestions(question.questionnaireId, language);
-              setAllQuestions(allQuestionsData);
+            const loadedBundle = await questionnaireAPI.getBundle(type!, language);
+            const question = loadedBundle.questions.find((q) => q.id === state.editQuestionId);
+            if (!question) {
+              throw new Error(t('questionnaire.couldNotLoad'));
             }
+            setBundle(loadedBundle);
+            setAllQuestions(loadedBundle.questions);
+            setCurrentQuestion(question);
             setQuestionHistory((prev) => {
               if (!prev.includes(question.id)) {
                 return [...prev, question.id];
@@ -108,6 +116,19 @@ export const useQuestionnaireWizard = (t: TFunction, languageProp?: string): Use
           const currentQuestionId = currentQuestion.id;
           const conditionalQuestionIds = conditionalQuestions.map((q) => q.id);
 
+          if (bundle) {
+            // Ét kald: hele spørgeskemaet på det nye sprog
+            const reloadedBundle = await questionnaireAPI.getBundle(type!, language);
+            const byId = new Map(reloadedBundle.questions.map((q) => [q.id, q]));
+            setBundle(reloadedBundle);
+            setAllQuestions(reloadedBundle.questions);
+            setCurrentQuestion(byId.get(currentQuestionId) ?? currentQuestion);
+            setConditionalQuestions(
+              conditionalQuestionIds.map((id) => byId.get(id)).filter((q): q is Question => q !== undefined)
+            );
+            return;
+          }
+
           const question = await questionAPI.getQuestion(currentQuestionId, language);
           setCurrentQuestion(question);
 
@@ -132,37 +153,17 @@ export const useQuestionnaireWizard = (t: TFunction, languageProp?: string): Use
     try {
       setLoading(true);
       setConditionalQuestions([]);
-      const questions = await questionnaireAPI.startQuestionnaire(type!, language);
-      if (questions.length > 0) {
-        const firstQuestion = questions[0];
-
-        if (firstQuestion.questionnaireId) {
-          setQuestionnaireId(firstQuestion.questionnaireId);
-          const allQuestionsData = await questionAPI.getQuestions(firstQuestion.questionnaireId, language);
-          setAllQuestions(allQuestionsData);
-
-          const conditionalChildIds = new Set<string>();
-          allQuestionsData.forEach((q) => {
-            q.conditionalChildren?.forEach((cc) => {
-              conditionalChildIds.add(cc.childQuestionId);
-            });
-          });
-          const rootQuestions = allQuestionsData
-            .filter((q) => q.id && !conditionalChildIds.has(q.id))
-            .sort((a, b) => (a.order || 0) - (b.order || 0));
-
-          if (rootQuestions.length > 0) {
-            const actualFirstQuestion = rootQuestions[0];
-            setCurrentQuestion(actualFirstQuestion);
-            setQuestionHistory([actualFirstQuestion.id]);
-          } else {
-            setCurrentQuestion(firstQuestion);
-            setQuestionHistory([firstQuestion.id]);
-          }
-        } else {
-          setCurrentQuestion(firstQuestion);
-          setQuestionHistory([firstQuestion.id]);
-        }
+      // Hele spørgeskemaet (inkl. root rækkefølge) hentes i ét kald
+      const loadedBundle = await questionnaireAPI.getBundle(type!, language);
+      if (loadedBundle.questions.length > 0) {
+        setQuestionnaireId(loadedBundle.questionnaireId);
+        setBundle(loadedBundle);
+        setAllQuestions(loadedBundle.questions);
+
+        const firstQuestion =
+          loadedBundle.questions.find((q) => q.id === loadedBundle.rootOrder[0]) ?? loadedBundle.questions[0];
+        setCurrentQuestion(firstQuestion);
+        setQuestionHistory([firstQuestion.id]);
       } else {
         setError(t('questionnaire.noQuestions'));
       }
@@ -173,6 +174,12 @@ export const useQuestionnaireWizard = (t: TFunction, languageProp?: string): Use
     }
   };
 
+  // Conditional children findes allerede i bundlet; hent kun fra serveren hvis de mangler
+  const loadConditionalChild = async (childQuestionId: string): Promise<Question> => {
+    const cached = allQuestions.find((q) => q.id === childQuestionId);
+    return cached ?? questionAPI.getQuestion(childQuestionId, language);
+  };
+
   const getConditionalChildQuestionIds = (): Set<string> => {
     const conditionalChildIds = new Set<string>();
     for (const question of allQuestions) {
@@ -332,7 +339,7 @@ export const useQuestionnaireWizard = (t: TFunction, languageProp?: string): Use
       const matchingConditionals = getConditionalQuestionsForAnswer(currentQuestion, value);
       if (matchingConditionals.length > 0) {
         try {
-          const childQuestions = await Promise.all(matchingConditionals.map((cc) => questionAPI.getQuestion(cc.childQuestionId, language)));
+          const childQuestions = await Promise.all(matchingConditionals.map((cc) => loadConditionalChild(cc.childQuestionId)));
           childQuestions.sort((a, b) => a.order - b.order);
           setConditionalQuestions(childQuestions);
         } catch (err) {
@@ -366,7 +373,7 @@ export const useQuestionnaireWizard = (t: TFunction, languageProp?: string): Use
     if (!questionnaireId || !currentQuestion) return;
     if (questionId === currentQuestion.id) return;
     try {
-      const question = await questionAPI.getQuestion(questionId, language);
+      const question = bundle?.questions.find((q) => q.id === questionId) ?? (await questionAPI.getQuestion(questionId, language));
       setCurrentQuestion(question);
       if (question.order === 8 && question.type === 'numeric') {
         const question6 = allQuestions.find((q) => q.order === 6 && q.type === 'multiple_choice');
@@ -405,7 +412,7 @@ export const useQuestionnaireWizard = (t: TFunction, languageProp?: string): Use
           const matchingConditionals = getConditionalQuestionsForAnswer(question, answer);
           if (matchingConditionals.length > 0) {
             const childQuestions = await Promise.all(
-              matchingConditionals.map((cc) => questionAPI.getQuestion(cc.childQuestionId, language))
+              matchingConditionals.map((cc) => loadConditionalChild(cc.childQuestionId))
             );
             childQuestions.sort((a, b) => a.order - b.order);
             setConditionalQuestions(childQuestions);
@@ -620,14 +627,28 @@ export const useQuestionnaireWizard = (t: TFunction, languageProp?: string): Use
         }
       }
 
-      const nextQuestion = await responseAPI.getNextQuestion(
-        {
-          questionnaireId: questionnaireId || type!,
-          currentQuestionId: currentQuestion.id,
-          currentAnswers
-        },
-        language
-      );
+      let nextQuestion: Question | null;
+      if (bundle) {
+        // Lokal navigation: grænserne tjekkes ud fra bundlet, og serveren kontaktes først ved submit
+        const boundsError = getVisibleStepQuestions(bundle, currentQuestion, currentAnswers)
+          .map((q) => getBoundsError(q, currentAnswers[q.id], t))
+          .find((message) => message !== null);
+        if (boundsError) {
+          setError(boundsError);
+          setSaving(false);
+          return;
+        }
+        nextQuestion = getNextRootQuestion(bundle, currentQuestion.id);
+      } else {
+        nextQuestion = await responseAPI.getNextQuestion(
+          {
+            questionnaireId: questionnaireId || type!,
+            currentQuestionId: currentQuestion.id,
+            currentAnswers
+          },
+          language
+        );
+      }
 
       if (nextQuestion) {
         setCurrentQuestion(nextQuestion);
@@ -643,8 +664,9 @@ export const useQuestionnaireWizard = (t: TFunction, languageProp?: string): Use
           setQuestionnaireId(nextQuestion.questionnaireId);
         }
         if (
-          allQuestions.length === 0 ||
-          (nextQuestion.questionnaireId && (!questionnaireId || nextQuestion.questionnaireId !== questionnaireId))
+          !bundle &&
+          (allQuestions.length === 0 ||
+          (nextQuestion.questionnaireId && (!questionnaireId || nextQuestion.questionnaireId !== questionnaireId)))
         ) {
           const allQuestionsData = await questionAPI.getQuestions(nextQuestion.questionnaireId || questionnaireId!, language);
           setAllQuestions(allQuestionsData);
@@ -829,7 +851,7 @@ export const useQuestionnaireWizard = (t: TFunction, languageProp?: string): Use
       await responseAPI.saveResponse({
         questionnaireId: questionnaireId || type!,
         answers
-      });
+      }, idempotencyKey);
       navigate('/citizen');
     } catch (err: any) {
       const errorMessage = err.response?.data?.message || err.message || t('questionnaire.couldNotSave');
@@ -1,5 +1,5 @@
 import api from './client';
-import type { Questionnaire } from '../../types';
+import type { Questionnaire, QuestionnaireBundle } from '../../types';
 
 export const questionnaireAPI = {
   getQuestionnaire: async (type: string): Promise<Questionnaire> => {
@@ -11,6 +11,11 @@ export const questionnaireAPI = {
     const response = await api.get<any[]>(`/questionnaires/${type}/start?language=${language}`);
     return response.data;
   },
+
+  getBundle: async (type: string, language: string = 'da'): Promise<QuestionnaireBundle> => {
+    const response = await api.get<QuestionnaireBundle>(`/questionnaires/${type}/bundle?language=${language}`);
+    return response.data;
+  },
 };
 
 
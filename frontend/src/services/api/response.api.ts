@@ -1,9 +1,26 @@
 import api from './client';
-import type { Response, ResponseRequest, NextQuestionRequest, Question } from '../../types';
+import type {
+  Response,
+  ResponsePage,
+  ResponsePageOptions,
+  ResponseRequest,
+  DatedResponseRequest,
+  BatchResponseResults,
+  NextQuestionRequest,
+  Question,
+} from '../../types';
 
 export const responseAPI = {
-  saveResponse: async (data: ResponseRequest): Promise<Response> => {
-    const response = await api.post<Response>('/responses', data);
+  // Samme idempotencyKey ved gentagne forsøg giver det allerede gemte resultat i stedet for en ny besvarelse
+  saveResponse: async (data: ResponseRequest, idempotencyKey?: string): Promise<Response> => {
+    const response = await api.post<Response>('/responses', data, {
+      headers: idempotencyKey ? { 'Idempotency-Key': idempotencyKey } : undefined,
+    });
+    return response.data;
+  },
+
+  saveResponses: async (responses: DatedResponseRequest[]): Promise<BatchResponseResults> => {
+    const response = await api.post<BatchResponseResults>('/responses/batch', { responses });
     return response.data;
   },
 
@@ -34,6 +51,17 @@ export const responseAPI = {
     return response.data;
   },
 
+  getResponsesPage: async (userId: string, options: ResponsePageOptions = {}): Promise<ResponsePage> => {
+    const params = new URLSearchParams({ userId });
+    Object.entries(options).forEach(([key, value]) => {
+      if (value !== undefined && value !== null && value !== '') {
+        params.append(key, String(value));
+      }
+    });
+    const response = await api.get<ResponsePage>(`/responses/page?${params.toString()}`);
+    return response.data;
+  },
+
   checkResponseForToday: async (questionnaireType: string): Promise<{ hasResponse: boolean }> => {
     const response = await api.get<{ hasResponse: boolean }>(
       `/responses/check-today?questionnaireType=${questionnaireType}`
@@ -1,5 +1,5 @@
 import api from './client';
-import type { User, SleepParameters } from '../../types';
+import type { User, SleepParameters, SleepSummary, CohortAnalytics } from '../../types';
 
 export const userAPI = {
   getAllCitizens: async (): Promise<User[]> => {
@@ -17,14 +17,24 @@ export const userAPI = {
     return response.data;
   },
 
-  getSleepData: async (userId: string): Promise<{
+  getSleepData: async (userId: string, range?: { from?: string; to?: string }): Promise<{
     sleepData: Array<{
       responseId: string;
       createdAt: Date;
       sleepParameters: SleepParameters;
     }>;
   }> => {
-    const response = await api.get(`/users/${userId}/sleep-data`);
+    const response = await api.get(`/users/${userId}/sleep-data`, { params: range });
+    return response.data;
+  },
+
+  getSleepSummary: async (userId: string): Promise<SleepSummary> => {
+    const response = await api.get<SleepSummary>(`/users/${userId}/sleep-summary`);
+    return response.data;
+  },
+
+  getCohort: async (options?: { advisorId?: string; from?: string; to?: string }): Promise<CohortAnalytics> => {
+    const response = await api.get<CohortAnalytics>('/users/cohort', { params: options });
     return response.data;
   },
 };
@@ -61,10 +61,12 @@ export interface Questionnaire {
   name: string;
 }
 
-
-
-
-
-
-
-
+export interface QuestionnaireBundle {
+  version: string; // Indholds-hash (samme værdi som ETag)
+  questionnaireId: string;
+  type: QuestionnaireType;
+  language: string;
+  rootOrder: string[]; // Root spørgsmål i visningsrækkefølge
+  questions: Question[];
+  branches: Record<string, Record<string, string[]>>; // questionId -> optionId -> childQuestionIds
+}
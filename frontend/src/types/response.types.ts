@@ -5,6 +5,61 @@ export interface SleepParameters {
   WASO: number;
   TIB: number;
   TST: number;
+  calculatorVersion?: number;
+}
+
+export interface SleepMetricStats {
+  mean: number;
+  min: number;
+  max: number;
+}
+
+export interface SleepWindowSummary {
+  days: number;
+  count: number;
+  SOL?: SleepMetricStats;
+  WASO?: SleepMetricStats;
+  TIB?: SleepMetricStats;
+  TST?: SleepMetricStats;
+  SE?: SleepMetricStats;
+}
+
+export interface SleepSummary {
+  userId: string;
+  asOf: string | null;
+  windows: Record<'7' | '14' | '30' | '90', SleepWindowSummary>;
+}
+
+export interface SleepMetricAverages {
+  mean: number;
+  median: number;
+}
+
+export type CohortMetrics = Partial<Record<'SOL' | 'WASO' | 'TIB' | 'TST' | 'SE', SleepMetricAverages>>;
+
+export interface CohortCitizenStats {
+  userId: string;
+  username: string;
+  firstName: string;
+  lastName: string;
+  nights: number;
+  adherence: number;
+  metrics: CohortMetrics;
+}
+
+export interface CohortAnalytics {
+  advisorId: string;
+  from: string;
+  to: string;
+  days: number;
+  cohort: {
+    citizens: number;
+    citizensWithData: number;
+    nights: number;
+    adherence: number;
+    metrics: CohortMetrics;
+  };
+  citizens: CohortCitizenStats[];
 }
 
 export interface Response {
@@ -14,14 +69,46 @@ export interface Response {
   questionnaireType?: QuestionnaireType;
   answers: Record<string, any>;
   sleepParameters?: SleepParameters;
+  localDate?: string;
   createdAt: Date;
 }
 
+export interface ResponsePageOptions {
+  limit?: number;
+  after?: string;
+  questionnaireType?: QuestionnaireType;
+  from?: string;
+  to?: string;
+}
+
+export interface ResponsePage {
+  items: Response[];
+  nextCursor: string | null;
+}
+
 export interface ResponseRequest {
   questionnaireId: string;
   answers: Record<string, any>;
 }
 
+export interface DatedResponseRequest extends ResponseRequest {
+  date: string;
+}
+
+export interface BatchResponseResult {
+  index: number;
+  status: 'created' | 'duplicate' | 'invalid';
+  localDate?: string;
+  questionnaireType?: QuestionnaireType;
+  id?: string;
+  error?: string;
+}
+
+export interface BatchResponseResults {
+  created: number;
+  results: BatchResponseResult[];
+}
+
 export interface NextQuestionRequest {
   questionnaireId: string;
   currentQuestionId: string;